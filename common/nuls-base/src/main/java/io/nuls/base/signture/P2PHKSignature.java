@@ -31,7 +31,6 @@ import io.nuls.base.data.BaseNulsData;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.NulsSignData;
 import io.nuls.core.basic.Result;
-import io.nuls.core.crypto.ECKey;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
 import io.nuls.core.parse.SerializeUtils;
@@ -83,7 +82,7 @@ public class P2PHKSignature extends BaseNulsData {
     }
 
     public Result verifySign(NulsHash digestData) {
-        boolean b = ECKey.verify(digestData.getBytes(), signData.getSignBytes(), this.getPublicKey());
+        boolean b = SignatureUtil.verify(digestData.getBytes(), signData.getSignBytes(), this.getPublicKey());
         if (b) {
             return new Result(true);
         } else {
@@ -136,7 +135,7 @@ public class P2PHKSignature extends BaseNulsData {
     }
 
     public Result verifySignature(NulsHash digestData) {
-        boolean b = ECKey.verify(digestData.getBytes(), signData.getSignBytes(), publicKey);
+        boolean b = SignatureUtil.verify(digestData.getBytes(), signData.getSignBytes(), publicKey);
         if (b) {
             return new Result(true);
         } else {
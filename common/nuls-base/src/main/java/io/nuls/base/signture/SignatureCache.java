@@ -0,0 +1,149 @@
+package io.nuls.base.signture;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.metrics.MetricsRegistry;
+import io.nuls.core.model.ByteArrayWrapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验证交易签名缓存
+ * 同一笔交易在入池、区块验证、共识与跨链验证时会多次验证签名，签名验证通过后按(交易hash, 签名数据hash, 验证方式)记录，
+ * 再次验证时直接返回，避免重复的ECDSA运算。只缓存验证通过的结果。
+ * <p>
+ * Cache of verified transaction signatures.
+ * The same transaction is verified on admission, in block validation, by consensus and by cross-chain, a passed check is
+ * recorded by (tx hash, signature data hash, verification scope) so later checks skip the ECDSA work.
+ * Only passed checks are cached.
+ *
+ * @author tag
+ */
+public class SignatureCache {
+
+    /**
+     * 默认最多缓存的签名数
+     */
+    public static final long DEFAULT_MAX_SIZE = 100000;
+
+    /**
+     * 验证方式：普通交易(硬分叉后的逻辑)、普通交易(硬分叉前的逻辑)、跨链交易
+     * Verification scope: normal tx with the forked rules, normal tx with the legacy rules, cross-chain tx
+     */
+    public static final byte SCOPE_TX = 1;
+    public static final byte SCOPE_TX_LEGACY = 2;
+    public static final byte SCOPE_CTX = 3;
+
+    private static volatile Cache<ByteArrayWrapper, Boolean> cache = build(DEFAULT_MAX_SIZE);
+
+    private static final LongAdder HIT_COUNT = new LongAdder();
+
+    private static final LongAdder MISS_COUNT = new LongAdder();
+
+    static {
+        MetricsRegistry.register("signatureCache", SignatureCache::metrics);
+    }
+
+    private static Cache<ByteArrayWrapper, Boolean> build(long maxSize) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .build();
+    }
+
+    /**
+     * 重新设置缓存上限，已缓存的结果被清空
+     * Reset the cache limit, cached results are dropped
+     *
+     * @param maxSize 最多缓存的签名数，0表示不缓存
+     */
+    public static void setMaxSize(long maxSize) {
+        cache = build(maxSize);
+    }
+
+    /**
+     * 交易签名是否已验证通过
+     * Whether the transaction signature has already passed verification
+     *
+     * @param key 缓存key
+     * @return boolean
+     */
+    public static boolean isVerified(ByteArrayWrapper key) {
+        if (cache.getIfPresent(key) != null) {
+            HIT_COUNT.increment();
+            return true;
+        }
+        MISS_COUNT.increment();
+        return false;
+    }
+
+    /**
+     * 是否已缓存，不计入命中统计
+     * Whether the key is cached, not counted as a hit or miss
+     */
+    static boolean contains(ByteArrayWrapper key) {
+        return cache.getIfPresent(key) != null;
+    }
+
+    /**
+     * 记录验证通过的交易签名
+     * Record a passed transaction signature
+     *
+     * @param key 缓存key
+     */
+    public static void verified(ByteArrayWrapper key) {
+        cache.put(key, Boolean.TRUE);
+    }
+
+    /**
+     * 生成缓存key: 验证方式 + 交易hash + 签名数据hash
+     * Build the cache key: scope + tx hash + signature data hash
+     *
+     * @param scope 验证方式
+     * @param tx    交易
+     * @return key
+     */
+    public static ByteArrayWrapper key(byte scope, Transaction tx) {
+        byte[] txHash = tx.getHash().getBytes();
+        byte[] signHash = Sha256Hash.hash(tx.getTransactionSignature());
+        byte[] key = new byte[1 + txHash.length + signHash.length];
+        key[0] = scope;
+        System.arraycopy(txHash, 0, key, 1, txHash.length);
+        System.arraycopy(signHash, 0, key, 1 + txHash.length, signHash.length);
+        return new ByteArrayWrapper(key);
+    }
+
+    public static long getHitCount() {
+        return HIT_COUNT.sum();
+    }
+
+    public static long getMissCount() {
+        return MISS_COUNT.sum();
+    }
+
+    public static long size() {
+        return cache.size();
+    }
+
+    /**
+     * 缓存命中统计，通过getModuleMetrics接口导出
+     * Cache hit statistics, exported through the getModuleMetrics cmd
+     */
+    public static Map<String, Object> metrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hit", getHitCount());
+        map.put("miss", getMissCount());
+        map.put("size", size());
+        return map;
+    }
+
+    public static void clear() {
+        cache.invalidateAll();
+        HIT_COUNT.reset();
+        MISS_COUNT.reset();
+    }
+}
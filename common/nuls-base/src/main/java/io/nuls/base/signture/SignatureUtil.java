@@ -25,6 +25,8 @@
 package io.nuls.base.signture;
 
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.nuls.base.basic.AddressTool;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.NulsSignData;
@@ -40,10 +42,14 @@ import io.nuls.core.crypto.ECKey;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
+import io.nuls.core.model.ByteArrayWrapper;
+import org.bouncycastle.math.ec.ECPoint;
 
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * 交易签名工具类
@@ -54,19 +60,47 @@ import java.util.*;
  */
 @Component
 public class SignatureUtil {
+
+    /**
+     * 批量验证签名的线程池，线程数为CPU核数
+     * Pool of the batch signature verification, sized to the number of cores
+     */
+    private static final ForkJoinPool VERIFY_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 已解码的公钥点缓存，重复出现的公钥(如出块节点)不再重复解码
+     * Decoded public key points, repeated keys (such as a packer's key) are decoded once
+     */
+    private static final Cache<ByteArrayWrapper, ECPoint> PUB_KEY_POINT_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(4096)
+            .build();
+
+    /**
+     * 少于该数量的签名在调用线程上直接验证
+     */
+    private static final int PARALLEL_THRESHOLD = 2;
+
     /**
-     * 验证交易中所有签名正确性
+     * 交易签名验证规则的硬分叉高度
+     */
+    private static final long TX_SIGN_FORK_HEIGHT = 878000;
+
+    /**
+     * 验证交易中所有签名正确性，验证通过的结果记录在SignatureCache中
      *
      * @param tx 交易
      */
     public static boolean validateTransactionSignture(Transaction tx) throws NulsException {
         // 判断硬分叉,需要一个高度
-        long hardForkingHeight = 878000;
-        boolean forked = tx.getBlockHeight() <= 0 || tx.getBlockHeight() > hardForkingHeight;
+        boolean forked = isSignForked(tx);
         try {
             if (tx.getTransactionSignature() == null || tx.getTransactionSignature().length == 0) {
                 throw new NulsException(new Exception());
             }
+            ByteArrayWrapper cacheKey = SignatureCache.key(forked ? SignatureCache.SCOPE_TX : SignatureCache.SCOPE_TX_LEGACY, tx);
+            if (SignatureCache.isVerified(cacheKey)) {
+                return true;
+            }
             if (!tx.isMultiSignTx()) {
                 TransactionSignature transactionSignature = new TransactionSignature();
                 transactionSignature.parse(tx.getTransactionSignature(), 0);
@@ -75,16 +109,14 @@ public class SignatureUtil {
                 }
                 if (forked) {
                     //这里用硬分叉后的新逻辑
-                    for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-                        if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
-                            throw new NulsException(new Exception("Transaction signature error !"));
-                        }
+                    if (!batchVerify(toVerifyItems(tx.getHash().getBytes(), transactionSignature.getP2PHKSignatures()))) {
+                        throw new NulsException(new Exception("Transaction signature error !"));
                     }
                 } else {
                     int signCount = tx.getCoinDataInstance().getFromAddressCount();
                     int passCount = 0;
                     for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-                        if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                        if (!verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
                             throw new NulsException(new Exception("Transaction signature error !"));
                         }
                         passCount++;
@@ -102,7 +134,7 @@ public class SignatureUtil {
                 List<P2PHKSignature> validSignatures = transactionSignature.getValidSignature();
                 int validCount = 0;
                 for (P2PHKSignature signature : validSignatures) {
-                    if (ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                    if (verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
                         validCount++;
                     }
                     if (!forked && validCount >= transactionSignature.getM()) {
@@ -113,6 +145,7 @@ public class SignatureUtil {
                     throw new NulsException(new Exception("Transaction signature error !"));
                 }
             }
+            SignatureCache.verified(cacheKey);
 
         } catch (NulsException e) {
             Log.error("TransactionSignature parse error!");
@@ -122,7 +155,7 @@ public class SignatureUtil {
     }
 
     /**
-     * 跨链交易验证签名
+     * 跨链交易验证签名，验证通过的结果记录在SignatureCache中
      *
      * @param tx 交易
      */
@@ -133,13 +166,16 @@ public class SignatureUtil {
             }
             return false;
         }
+        ByteArrayWrapper cacheKey = SignatureCache.key(SignatureCache.SCOPE_CTX, tx);
+        if (SignatureCache.isVerified(cacheKey)) {
+            return true;
+        }
         TransactionSignature transactionSignature = new TransactionSignature();
         transactionSignature.parse(tx.getTransactionSignature(), 0);
-        for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-            if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
-                throw new NulsException(new Exception("Transaction signature error !"));
-            }
+        if (!batchVerify(toVerifyItems(tx.getHash().getBytes(), transactionSignature.getP2PHKSignatures()))) {
+            throw new NulsException(new Exception("Transaction signature error !"));
         }
+        SignatureCache.verified(cacheKey);
         return true;
     }
 
@@ -155,12 +191,149 @@ public class SignatureUtil {
         if (null == p2PHKSignature) {
             throw new NulsException(new Exception("P2PHKSignature is null!"));
         }
-        if (ECKey.verify(digestBytes, p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
+        if (verify(digestBytes, p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
             return true;
         }
         return false;
     }
 
+    /**
+     * 多笔交易的签名合并为一批并行验证，验证通过的交易记录在SignatureCache中，之后逐笔调用validateTransactionSignture时直接命中缓存；
+     * 多签交易、硬分叉前的交易与验证失败的交易不记录，仍由逐笔验证给出错误
+     * Verify the signatures of several transactions as one parallel batch, passed transactions are recorded in SignatureCache
+     * so the following per-tx validateTransactionSignture calls hit the cache; multi-sign txs, pre-fork txs and failed txs are
+     * not recorded and are still reported by the per-tx check
+     *
+     * @param txs 交易列表
+     */
+    public static void batchValidateTransactionSignture(List<Transaction> txs) {
+        batchValidate(txs, false);
+    }
+
+    /**
+     * 多笔跨链交易的签名合并为一批并行验证，验证通过的交易记录在SignatureCache中
+     * Verify the signatures of several cross-chain transactions as one parallel batch, passed transactions are recorded in SignatureCache
+     *
+     * @param txs 交易列表
+     */
+    public static void batchValidateCtxSignture(List<Transaction> txs) {
+        batchValidate(txs, true);
+    }
+
+    private static void batchValidate(List<Transaction> txs, boolean ctx) {
+        if (txs == null || txs.size() < PARALLEL_THRESHOLD) {
+            return;
+        }
+        List<ByteArrayWrapper> keys = new ArrayList<>(txs.size());
+        List<Integer> ends = new ArrayList<>(txs.size());
+        List<SignatureVerifyItem> items = new ArrayList<>();
+        for (Transaction tx : txs) {
+            if (tx.getTransactionSignature() == null || tx.getTransactionSignature().length == 0) {
+                continue;
+            }
+            TransactionSignature transactionSignature = new TransactionSignature();
+            try {
+                if (!ctx && (tx.isMultiSignTx() || !isSignForked(tx))) {
+                    continue;
+                }
+                transactionSignature.parse(tx.getTransactionSignature(), 0);
+            } catch (NulsException e) {
+                continue;
+            }
+            ByteArrayWrapper key = SignatureCache.key(ctx ? SignatureCache.SCOPE_CTX : SignatureCache.SCOPE_TX, tx);
+            if (SignatureCache.contains(key)) {
+                continue;
+            }
+            List<P2PHKSignature> signatures = transactionSignature.getP2PHKSignatures();
+            if (signatures == null || signatures.isEmpty()) {
+                continue;
+            }
+            items.addAll(toVerifyItems(tx.getHash().getBytes(), signatures));
+            keys.add(key);
+            ends.add(items.size());
+        }
+        boolean[] results = verifyEach(items);
+        int start = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            boolean passed = true;
+            for (int j = start; j < ends.get(i) && passed; j++) {
+                passed = results[j];
+            }
+            if (passed) {
+                SignatureCache.verified(keys.get(i));
+            }
+            start = ends.get(i);
+        }
+    }
+
+    private static boolean[] verifyEach(List<SignatureVerifyItem> items) {
+        boolean[] results = new boolean[items.size()];
+        VERIFY_POOL.submit(() -> IntStream.range(0, items.size()).parallel().forEach(i -> {
+            SignatureVerifyItem item = items.get(i);
+            results[i] = verify(item.getDigest(), item.getSignBytes(), item.getPublicKey());
+        })).join();
+        return results;
+    }
+
+    private static boolean isSignForked(Transaction tx) {
+        return tx.getBlockHeight() <= 0 || tx.getBlockHeight() > TX_SIGN_FORK_HEIGHT;
+    }
+
+    /**
+     * 批量验证签名，签名分配到线程池并行验证，任一签名验证失败即返回false
+     * Verify a batch of signatures in parallel on the verification pool, returns false on the first failure
+     *
+     * @param items 待验证的签名
+     * @return 全部验证通过返回true
+     */
+    public static boolean batchVerify(List<SignatureVerifyItem> items) {
+        if (items == null || items.isEmpty()) {
+            return true;
+        }
+        if (items.size() < PARALLEL_THRESHOLD) {
+            for (SignatureVerifyItem item : items) {
+                if (!verify(item.getDigest(), item.getSignBytes(), item.getPublicKey())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return VERIFY_POOL.submit(() -> items.parallelStream()
+                .allMatch(item -> verify(item.getDigest(), item.getSignBytes(), item.getPublicKey()))).join();
+    }
+
+    /**
+     * 验证单个签名，公钥解码结果被缓存复用，签名格式错误时返回false
+     * Verify one signature, the decoded public key is cached, a malformed signature fails the check
+     *
+     * @param digestBytes 签名的数据摘要
+     * @param signBytes   签名数据
+     * @param publicKey   公钥
+     * @return boolean
+     */
+    public static boolean verify(byte[] digestBytes, byte[] signBytes, byte[] publicKey) {
+        try {
+            ByteArrayWrapper key = new ByteArrayWrapper(publicKey);
+            ECPoint point = PUB_KEY_POINT_CACHE.getIfPresent(key);
+            if (point == null) {
+                point = ECKey.CURVE.getCurve().decodePoint(publicKey);
+                PUB_KEY_POINT_CACHE.put(key, point);
+            }
+            return ECKey.verify(digestBytes, ECKey.ECDSASignature.decodeFromDER(signBytes), point);
+        } catch (Exception e) {
+            Log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<SignatureVerifyItem> toVerifyItems(byte[] digestBytes, List<P2PHKSignature> signatures) {
+        List<SignatureVerifyItem> items = new ArrayList<>(signatures.size());
+        for (P2PHKSignature signature : signatures) {
+            items.add(new SignatureVerifyItem(digestBytes, signature.getPublicKey(), signature.getSignData().getSignBytes()));
+        }
+        return items;
+    }
+
     /**
      * 判断交易是否存在某地址
      *
@@ -460,7 +633,7 @@ public class SignatureUtil {
     public static boolean validMultiScriptSign(byte[] digestBytes, LinkedList<byte[]> signtures, LinkedList<byte[]> pubkeys) {
         while (signtures.size() > 0) {
             byte[] pubKey = pubkeys.pollFirst();
-            if (ECKey.verify(digestBytes, signtures.getFirst(), pubKey)) {
+            if (verify(digestBytes, signtures.getFirst(), pubKey)) {
                 signtures.pollFirst();
             }
             if (signtures.size() > pubkeys.size()) {
@@ -0,0 +1,55 @@
+package io.nuls.base.signture;
+
+/**
+ * 批量验证签名的单条数据
+ * One entry of a batch signature verification
+ *
+ * @author tag
+ */
+public class SignatureVerifyItem {
+
+    /**
+     * 签名的数据摘要
+     */
+    private byte[] digest;
+
+    /**
+     * 签名者公钥
+     */
+    private byte[] publicKey;
+
+    /**
+     * 签名数据(DER编码)
+     */
+    private byte[] signBytes;
+
+    public SignatureVerifyItem(byte[] digest, byte[] publicKey, byte[] signBytes) {
+        this.digest = digest;
+        this.publicKey = publicKey;
+        this.signBytes = signBytes;
+    }
+
+    public byte[] getDigest() {
+        return digest;
+    }
+
+    public void setDigest(byte[] digest) {
+        this.digest = digest;
+    }
+
+    public byte[] getPublicKey() {
+        return publicKey;
+    }
+
+    public void setPublicKey(byte[] publicKey) {
+        this.publicKey = publicKey;
+    }
+
+    public byte[] getSignBytes() {
+        return signBytes;
+    }
+
+    public void setSignBytes(byte[] signBytes) {
+        this.signBytes = signBytes;
+    }
+}
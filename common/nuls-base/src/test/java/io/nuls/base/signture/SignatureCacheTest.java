@@ -0,0 +1,72 @@
+package io.nuls.base.signture;
+
+import io.nuls.base.data.Transaction;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.metrics.MetricsRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 已验证交易签名缓存测试
+ */
+public class SignatureCacheTest {
+
+    @Before
+    public void before() {
+        SignatureCache.clear();
+    }
+
+    @Test
+    public void cacheVerifiedSignature() throws Exception {
+        Transaction tx = createTx();
+        Assert.assertTrue(SignatureUtil.validateTransactionSignture(tx));
+        Assert.assertEquals(0, SignatureCache.getHitCount());
+        Assert.assertEquals(1, SignatureCache.getMissCount());
+
+        Assert.assertTrue(SignatureUtil.validateTransactionSignture(tx));
+        Assert.assertEquals(1, SignatureCache.getHitCount());
+        Assert.assertEquals(1, SignatureCache.size());
+
+        //跨链验证使用独立的记录
+        Assert.assertTrue(SignatureUtil.validateCtxSignture(tx));
+        Assert.assertEquals(2, SignatureCache.getMissCount());
+        Assert.assertEquals(2, SignatureCache.size());
+    }
+
+    @Test
+    public void exportedMetrics() throws Exception {
+        Transaction tx = createTx();
+        SignatureUtil.validateTransactionSignture(tx);
+        SignatureUtil.validateTransactionSignture(tx);
+        Map<String, Object> metrics = (Map<String, Object>) MetricsRegistry.snapshot().get("signatureCache");
+        Assert.assertEquals(1L, metrics.get("hit"));
+        Assert.assertEquals(1L, metrics.get("miss"));
+        Assert.assertEquals(1L, metrics.get("size"));
+    }
+
+    @Test(expected = NulsException.class)
+    public void invalidSignatureNotCached() throws Exception {
+        Transaction tx = createTx();
+        Assert.assertTrue(SignatureUtil.validateTransactionSignture(tx));
+        //同一交易换成另一把私钥对其他数据的签名，不能命中缓存
+        Transaction other = createTx();
+        other.setTime(2);
+        other.setHash(null);
+        SignatureUtil.createTransactionSignture(other, Arrays.asList(new ECKey()));
+        tx.setTransactionSignature(other.getTransactionSignature());
+        SignatureUtil.validateTransactionSignture(tx);
+    }
+
+    private Transaction createTx() throws Exception {
+        Transaction tx = new Transaction(2);
+        tx.setTime(1);
+        tx.setRemark("signature cache".getBytes());
+        SignatureUtil.createTransactionSignture(tx, Arrays.asList(new ECKey()));
+        return tx;
+    }
+}
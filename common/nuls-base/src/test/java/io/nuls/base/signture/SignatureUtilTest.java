@@ -0,0 +1,77 @@
+package io.nuls.base.signture;
+
+import io.nuls.base.data.Transaction;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.exception.NulsException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 批量签名验证测试
+ */
+public class SignatureUtilTest {
+
+    @Test
+    public void batchVerify() {
+        List<SignatureVerifyItem> items = createItems(16);
+        Assert.assertTrue(SignatureUtil.batchVerify(items));
+        Assert.assertTrue(SignatureUtil.batchVerify(items.subList(0, 1)));
+        Assert.assertTrue(SignatureUtil.batchVerify(new ArrayList<>()));
+
+        //任一签名错误则整批验证失败
+        SignatureVerifyItem item = items.get(9);
+        item.setDigest(Sha256Hash.hash("other".getBytes()));
+        Assert.assertFalse(SignatureUtil.batchVerify(items));
+    }
+
+    @Test
+    public void verifyMalformedSignature() {
+        SignatureVerifyItem item = createItems(1).get(0);
+        Assert.assertTrue(SignatureUtil.verify(item.getDigest(), item.getSignBytes(), item.getPublicKey()));
+        Assert.assertFalse(SignatureUtil.verify(item.getDigest(), new byte[]{1, 2, 3}, item.getPublicKey()));
+    }
+
+    @Test
+    public void batchValidateTransactions() throws Exception {
+        SignatureCache.clear();
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Transaction tx = new Transaction(2);
+            tx.setTime(i);
+            SignatureUtil.createTransactionSignture(tx, Arrays.asList(new ECKey()));
+            txs.add(tx);
+        }
+        //第三笔交易的签名换成其他交易的签名
+        txs.get(2).setTransactionSignature(txs.get(3).getTransactionSignature());
+        SignatureUtil.batchValidateTransactionSignture(txs);
+        Assert.assertEquals(3, SignatureCache.size());
+        Assert.assertEquals(0, SignatureCache.getMissCount());
+
+        //验证通过的交易逐笔验证时命中缓存，验证失败的交易仍由逐笔验证报错
+        Assert.assertTrue(SignatureUtil.validateTransactionSignture(txs.get(0)));
+        Assert.assertEquals(1, SignatureCache.getHitCount());
+        try {
+            SignatureUtil.validateTransactionSignture(txs.get(2));
+            Assert.fail();
+        } catch (NulsException e) {
+            Assert.assertEquals(1, SignatureCache.getMissCount());
+        }
+    }
+
+    private List<SignatureVerifyItem> createItems(int count) {
+        //同一公钥签名多条数据，验证时复用已解码的公钥
+        ECKey packer = new ECKey();
+        List<SignatureVerifyItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ECKey ecKey = i % 2 == 0 ? packer : new ECKey();
+            byte[] digest = Sha256Hash.hash(("data" + i).getBytes());
+            items.add(new SignatureVerifyItem(digest, ecKey.getPubKey(), ecKey.sign(digest)));
+        }
+        return items;
+    }
+}
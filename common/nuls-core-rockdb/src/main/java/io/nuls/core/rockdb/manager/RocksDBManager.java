@@ -23,11 +23,13 @@ import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.rockdb.constant.DBErrorCode;
 import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.model.RocksDBConfig;
 import io.nuls.core.rockdb.util.DBUtils;
 import org.rocksdb.*;
 import org.rocksdb.util.SizeUnit;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
@@ -52,6 +54,34 @@ public class RocksDBManager {
      */
     private static final String BASE_DB_NAME = "rocksdb";
 
+    /**
+     * 共享模式下所有表所在的RocksDB实例目录名(不是合法表名，不会与表目录冲突).
+     * Directory of the shared instance in shared mode, not a legal table name so it never clashes with a table directory
+     */
+    private static final String SHARED_DB_NAME = "shared.db";
+
+    /**
+     * 每张表对应的列族，非共享表对应其独立实例的默认列族.
+     * Column family of every table, tables of standalone instances use the default column family
+     */
+    private static final ConcurrentHashMap<String, ColumnFamilyHandle> HANDLES = new ConcurrentHashMap<>();
+
+    /**
+     * 模块存储配置.
+     */
+    private static RocksDBConfig config = new RocksDBConfig();
+
+    /**
+     * 模块内所有表共享的块缓存.
+     */
+    private static Cache blockCache;
+
+    /**
+     * 共享模式下的RocksDB实例及其默认列族.
+     */
+    private static RocksDB sharedDB;
+    private static ColumnFamilyHandle sharedDefaultHandle;
+
     /**
      * 数据操作同步锁.
      */
@@ -70,7 +100,30 @@ public class RocksDBManager {
      * @throws Exception 数据库打开连接异常
      */
     public static void init(final String path) throws Exception {
+        init(path, null);
+    }
+
+    /**
+     * 按模块存储配置打开数据库.
+     * 共享模式下新建的表作为列族存放在同一个RocksDB实例中，已存在的独立表仍按原方式打开，所有表共享同一个块缓存
+     * Open the databases with the storage configuration of the module.
+     * In shared mode new tables are created as column families of one instance, existing standalone tables are
+     * still opened on their own, and all of them share one block cache.
+     *
+     * @param path     数据库地址
+     * @param dbConfig 模块存储配置，为null时使用默认配置
+     * @throws Exception 数据库打开连接异常
+     */
+    public static void init(final String path, final RocksDBConfig dbConfig) throws Exception {
         synchronized (RocksDBManager.class) {
+            if (dbConfig != null) {
+                config = dbConfig;
+            }
+            if (blockCache == null && config.getBlockCacheSize() > 0) {
+                //缓存对象不会触发本地库加载，需先显式加载
+                RocksDB.loadLibrary();
+                blockCache = config.isClockCache() ? new ClockCache(config.getBlockCacheSize()) : new LRUCache(config.getBlockCacheSize());
+            }
             File dir = DBUtils.loadDataPath(path);
             dataPath = dir.getPath();
             Log.info("RocksDBManager dataPath is " + dataPath);
@@ -79,13 +132,14 @@ public class RocksDBManager {
             String dbPath = null;
             for (File tableFile : tableFiles) {
                 //缓存中已存在的数据库连接不再重复打开
-                if (!tableFile.isDirectory() || TABLES.get(tableFile.getName()) != null) {
+                if (!tableFile.isDirectory() || SHARED_DB_NAME.equals(tableFile.getName()) || TABLES.get(tableFile.getName()) != null) {
                     continue;
                 }
                 try {
                     dbPath = tableFile.getPath() + File.separator + BASE_DB_NAME;
-                    db = initOpenDB(dbPath);
+                    db = initOpenDB(dbPath, tableFile.getName());
                     if (db != null) {
+                        HANDLES.put(tableFile.getName(), db.getDefaultColumnFamily());
                         TABLES.put(tableFile.getName(), db);
                     }
                 } catch (Exception e) {
@@ -93,36 +147,76 @@ public class RocksDBManager {
                     throw e;
                 }
             }
+            if (config.isSharedMode() && sharedDB == null) {
+                openSharedDB();
+            }
         }
 
     }
 
     /**
-     * @param dbPath 数据库地址
+     * @param dbPath    数据库地址
+     * @param tableName 数据库表名称
      * @return RocksDB 数据库连接对象
      * @throws RocksDBException 数据库连接异常
      */
-    private static RocksDB initOpenDB(final String dbPath) throws RocksDBException {
+    private static RocksDB initOpenDB(final String dbPath, final String tableName) throws RocksDBException {
         File checkFile = new File(dbPath + File.separator + "CURRENT");
         if (!checkFile.exists()) {
             return null;
         }
 
-        Options options = getCommonOptions(false);
+        Options options = getCommonOptions(false, tableName);
         return RocksDB.open(options, dbPath);
     }
 
+    /**
+     * 打开共享实例，并把其中已存在的列族注册为表.
+     * Open the shared instance and register its existing column families as tables
+     *
+     * @throws RocksDBException 数据库连接异常
+     */
+    private static void openSharedDB() throws RocksDBException {
+        String dbPath = dataPath + File.separator + SHARED_DB_NAME;
+        List<byte[]> names = new ArrayList<>();
+        if (new File(dbPath + File.separator + "CURRENT").exists()) {
+            try (Options options = new Options()) {
+                names.addAll(RocksDB.listColumnFamilies(options, dbPath));
+            }
+        }
+        if (names.isEmpty()) {
+            names.add(RocksDB.DEFAULT_COLUMN_FAMILY);
+        }
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        for (byte[] name : names) {
+            descriptors.add(new ColumnFamilyDescriptor(name, getColumnFamilyOptions(new String(name, StandardCharsets.UTF_8))));
+        }
+        List<ColumnFamilyHandle> handles = new ArrayList<>();
+        sharedDB = RocksDB.open(getSharedDBOptions(), dbPath, descriptors, handles);
+        for (int i = 0; i < handles.size(); i++) {
+            ColumnFamilyHandle handle = handles.get(i);
+            if (Arrays.equals(names.get(i), RocksDB.DEFAULT_COLUMN_FAMILY)) {
+                sharedDefaultHandle = handle;
+                continue;
+            }
+            String tableName = new String(names.get(i), StandardCharsets.UTF_8);
+            HANDLES.put(tableName, handle);
+            TABLES.put(tableName, sharedDB);
+        }
+    }
+
     /**
      * 装载数据库.
      * load database
      *
      * @param dbPath          数据库地址
      * @param createIfMissing 数据库不存在时是否默认创建
+     * @param tableName       数据库表名称
      * @return RocksDB
      * @throws RocksDBException 数据库连接异常
      */
-    private static RocksDB openDB(final String dbPath, final boolean createIfMissing) throws RocksDBException {
-        Options options = getCommonOptions(createIfMissing);
+    private static RocksDB openDB(final String dbPath, final boolean createIfMissing, final String tableName) throws RocksDBException {
+        Options options = getCommonOptions(createIfMissing, tableName);
         return RocksDB.open(options, dbPath);
     }
 
@@ -146,12 +240,20 @@ public class RocksDBManager {
                 throw new Exception(DBErrorCode.DB_TABLE_CREATE_PATH_ERROR);
             }
             try {
+                if (sharedDB != null) {
+                    ColumnFamilyHandle handle = sharedDB.createColumnFamily(
+                            new ColumnFamilyDescriptor(tableName.getBytes(StandardCharsets.UTF_8), getColumnFamilyOptions(tableName)));
+                    HANDLES.put(tableName, handle);
+                    TABLES.put(tableName, sharedDB);
+                    return true;
+                }
                 File dir = new File(dataPath + File.separator + tableName);
                 if (!dir.exists()) {
                     dir.mkdir();
                 }
                 String filePath = dataPath + File.separator + tableName + File.separator + BASE_DB_NAME;
-                RocksDB db = openDB(filePath, true);
+                RocksDB db = openDB(filePath, true, tableName);
+                HANDLES.put(tableName, db.getDefaultColumnFamily());
                 TABLES.put(tableName, db);
             } catch (Exception e) {
                 Log.error("error create table: " + tableName, e);
@@ -174,6 +276,17 @@ public class RocksDBManager {
         return TABLES.get(tableName);
     }
 
+    /**
+     * 根据名称获得对应的列族.
+     * Get the column family of a table by name
+     *
+     * @param tableName 数据库表名称
+     * @return ColumnFamilyHandle
+     */
+    public static ColumnFamilyHandle getHandle(final String tableName) {
+        return HANDLES.get(tableName);
+    }
+
     /**
      * 根据名称删除对应的数据库.
      * Delete database by name
@@ -190,6 +303,12 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.remove(tableName);
+            ColumnFamilyHandle handle = HANDLES.remove(tableName);
+            if (db == sharedDB) {
+                db.dropColumnFamily(handle);
+                handle.close();
+                return true;
+            }
             db.close();
             File dir = new File(dataPath + File.separator + tableName);
             if (!dir.exists()) {
@@ -222,12 +341,24 @@ public class RocksDBManager {
     public static void close() {
         Set<Map.Entry<String, RocksDB>> entries = TABLES.entrySet();
         for (Map.Entry<String, RocksDB> entry : entries) {
-            try {
-                TABLES.remove(entry.getKey());
-                entry.getValue().close();
-            } catch (Exception e) {
-                Log.warn("close rocksdb error", e);
+            closeTable(entry.getKey());
+        }
+        synchronized (RocksDBManager.class) {
+            if (sharedDB != null) {
+                try {
+                    sharedDefaultHandle.close();
+                    sharedDB.close();
+                } catch (Exception e) {
+                    Log.warn("close rocksdb error", e);
+                }
+                sharedDB = null;
+                sharedDefaultHandle = null;
+            }
+            if (blockCache != null) {
+                blockCache.close();
+                blockCache = null;
             }
+            config = new RocksDBConfig();
         }
     }
 
@@ -240,6 +371,12 @@ public class RocksDBManager {
     public static void closeTable(final String tableName) {
         try {
             RocksDB db = TABLES.remove(tableName);
+            ColumnFamilyHandle handle = HANDLES.remove(tableName);
+            //共享实例只释放该表的列族，实例本身由close()关闭
+            if (db == sharedDB) {
+                handle.close();
+                return;
+            }
             db.close();
         } catch (Exception e) {
             Log.warn("close rocksdb tableName error:" + tableName, e);
@@ -299,7 +436,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            db.put(key, value);
+            db.put(HANDLES.get(table), key, value);
             return true;
         } catch (Exception e) {
             Log.error(e);
@@ -324,7 +461,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            db.delete(key);
+            db.delete(HANDLES.get(table), key);
             return true;
         } catch (Exception e) {
             Log.error(e);
@@ -349,8 +486,9 @@ public class RocksDBManager {
         }
         try (WriteBatch writeBatch = new WriteBatch()) {
             RocksDB db = TABLES.get(table);
+            ColumnFamilyHandle handle = HANDLES.get(table);
             for (Map.Entry<byte[], byte[]> entry : kvs.entrySet()) {
-                writeBatch.put(entry.getKey(), entry.getValue());
+                writeBatch.put(handle, entry.getKey(), entry.getValue());
             }
             db.write(new WriteOptions(), writeBatch);
             return true;
@@ -377,8 +515,9 @@ public class RocksDBManager {
         }
         try (WriteBatch writeBatch = new WriteBatch()) {
             RocksDB db = TABLES.get(table);
+            ColumnFamilyHandle handle = HANDLES.get(table);
             for (byte[] key : keys) {
-                writeBatch.delete(key);
+                writeBatch.delete(handle, key);
             }
             db.write(new WriteOptions(), writeBatch);
             return true;
@@ -406,7 +545,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            return db.get(key);
+            return db.get(HANDLES.get(table), key);
         } catch (Exception e) {
             Log.error("get table={}: error",table);
             Log.error(e);
@@ -431,8 +570,9 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            boolean rs = db.keyMayExist(key, new StringBuilder());
-            return rs && (db.get(key) != null);
+            ColumnFamilyHandle handle = HANDLES.get(table);
+            boolean rs = db.keyMayExist(handle, key, new StringBuilder());
+            return rs && (db.get(handle, key) != null);
         } catch (Exception e) {
             Log.error("keyMayExist table={}: error",table);
             Log.error(e);
@@ -458,7 +598,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            return db.multiGet(keys);
+            return db.multiGet(handleList(table, keys.size()), keys);
         } catch (Exception ex) {
             Log.error("multiGet table={}: error",table);
             Log.error(ex);
@@ -482,7 +622,7 @@ public class RocksDBManager {
         try {
             RocksDB db = TABLES.get(table);
             //该方法获取的结果包含查不到的key, 将以null 值放入返回的list中,因此需要把空值去除.
-            List<byte[]> list = db.multiGetAsList(keys);
+            List<byte[]> list = db.multiGetAsList(handleList(table, keys.size()), keys);
             List<byte[]> rs = new ArrayList<>();
             for(byte[] tx : list){
                 if(null != tx){
@@ -514,7 +654,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            Map<byte[], byte[]> map = db.multiGet(keys);
+            Map<byte[], byte[]> map = db.multiGet(handleList(table, keys.size()), keys);
             if (map != null && map.size() > 0) {
                 list.addAll(map.values());
             }
@@ -545,7 +685,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            Map<byte[], byte[]> map = db.multiGet(keys);
+            Map<byte[], byte[]> map = db.multiGet(handleList(table, keys.size()), keys);
             if (map != null && map.size() > 0) {
                 list.addAll(map.keySet());
             }
@@ -572,7 +712,8 @@ public class RocksDBManager {
         List<byte[]> list = new ArrayList<>();
         try {
             RocksDB db = TABLES.get(table);
-            try (RocksIterator iterator = db.newIterator()) {
+            try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true);
+                 RocksIterator iterator = db.newIterator(HANDLES.get(table), readOptions)) {
                 for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
                     list.add(iterator.key());
                 }
@@ -600,7 +741,8 @@ public class RocksDBManager {
         List<byte[]> list = new ArrayList<>();
         try {
             RocksDB db = TABLES.get(table);
-            try (RocksIterator iterator = db.newIterator()) {
+            try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true);
+                 RocksIterator iterator = db.newIterator(HANDLES.get(table), readOptions)) {
                 for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
                     list.add(iterator.value());
                 }
@@ -628,7 +770,8 @@ public class RocksDBManager {
         List<Entry<byte[], byte[]>> entryList = new ArrayList<>();
         try {
             RocksDB db = TABLES.get(table);
-            try (RocksIterator iterator = db.newIterator()) {
+            try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true);
+                 RocksIterator iterator = db.newIterator(HANDLES.get(table), readOptions)) {
                 for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
                     entryList.add(new Entry(iterator.key(), iterator.value()));
                 }
@@ -641,13 +784,25 @@ public class RocksDBManager {
         }
     }
 
+    /**
+     * 批量查询时每个key对应的列族列表.
+     *
+     * @param table 数据库表名称
+     * @param size  key的数量
+     * @return 列族列表
+     */
+    private static List<ColumnFamilyHandle> handleList(final String table, final int size) {
+        return Collections.nCopies(size, HANDLES.get(table));
+    }
+
     /**
      * 获得公共的数据库连接属性.
      *
      * @param createIfMissing 是否默认表
+     * @param tableName       数据库表名称
      * @return 数据库连接属性
      */
-    private static synchronized Options getCommonOptions(final boolean createIfMissing) {
+    private static synchronized Options getCommonOptions(final boolean createIfMissing, final String tableName) {
         Options options = new Options();
 
         options.setCreateIfMissing(createIfMissing);
@@ -656,12 +811,9 @@ public class RocksDBManager {
          */
         options.setAllowMmapReads(true);
         options.setCompressionType(CompressionType.NO_COMPRESSION);
+        options.setBottommostCompressionType(getBottommostCompressionType());
         options.setMaxOpenFiles(-1);
-        BlockBasedTableConfig tableOption = new BlockBasedTableConfig();
-        tableOption.setNoBlockCache(true);
-        tableOption.setBlockRestartInterval(4);
-        tableOption.setFilterPolicy(new BloomFilter(10, true));
-        options.setTableFormatConfig(tableOption);
+        options.setTableFormatConfig(getTableFormatConfig(config.getTableConfig(tableName)));
 
         options.setMaxBackgroundCompactions(16);
         options.setNewTableReaderForCompactionInputs(true);
@@ -672,5 +824,69 @@ public class RocksDBManager {
         return options;
     }
 
+    /**
+     * 共享实例的数据库属性，与getCommonOptions保持一致.
+     *
+     * @return 数据库属性
+     */
+    private static DBOptions getSharedDBOptions() {
+        DBOptions options = new DBOptions();
+        options.setCreateIfMissing(true);
+        options.setCreateMissingColumnFamilies(true);
+        options.setAllowMmapReads(true);
+        options.setMaxOpenFiles(-1);
+        options.setMaxBackgroundCompactions(16);
+        options.setNewTableReaderForCompactionInputs(true);
+        options.setCompactionReadaheadSize(128 * SizeUnit.KB);
+        return options;
+    }
+
+    /**
+     * 共享实例中每张表(列族)的属性.
+     *
+     * @param tableName 数据库表名称
+     * @return 列族属性
+     */
+    private static ColumnFamilyOptions getColumnFamilyOptions(final String tableName) {
+        ColumnFamilyOptions options = new ColumnFamilyOptions();
+        options.setCompressionType(CompressionType.NO_COMPRESSION);
+        options.setBottommostCompressionType(getBottommostCompressionType());
+        options.setTableFormatConfig(getTableFormatConfig(config.getTableConfig(tableName)));
+        return options;
+    }
+
+    /**
+     * 表格式属性，配置了块缓存时所有表共享同一个缓存，索引与过滤块也计入缓存以限制内存.
+     *
+     * @param tableConfig 表级配置
+     * @return 表格式属性
+     */
+    private static BlockBasedTableConfig getTableFormatConfig(final RocksDBConfig.TableConfig tableConfig) {
+        BlockBasedTableConfig tableOption = new BlockBasedTableConfig();
+        if (blockCache == null) {
+            tableOption.setNoBlockCache(true);
+        } else {
+            tableOption.setBlockCache(blockCache);
+            tableOption.setCacheIndexAndFilterBlocks(true);
+            tableOption.setPinL0FilterAndIndexBlocksInCache(true);
+        }
+        tableOption.setBlockRestartInterval(4);
+        if (tableConfig.getBloomBitsPerKey() > 0) {
+            tableOption.setFilterPolicy(new BloomFilter(tableConfig.getBloomBitsPerKey(), true));
+        }
+        return tableOption;
+    }
+
+    private static CompressionType getBottommostCompressionType() {
+        String compression = config.getBottommostCompression();
+        if (RocksDBConfig.COMPRESSION_LZ4.equalsIgnoreCase(compression)) {
+            return CompressionType.LZ4_COMPRESSION;
+        }
+        if (RocksDBConfig.COMPRESSION_ZSTD.equalsIgnoreCase(compression)) {
+            return CompressionType.ZSTD_COMPRESSION;
+        }
+        return CompressionType.DISABLE_COMPRESSION_OPTION;
+    }
+
 
 }
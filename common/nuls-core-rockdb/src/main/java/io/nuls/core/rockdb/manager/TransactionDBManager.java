@@ -4,6 +4,8 @@ import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.rockdb.constant.DBErrorCode;
 import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.service.DBCursor;
+import io.nuls.core.rockdb.service.RocksDBCursor;
 import io.nuls.core.rockdb.util.DBUtils;
 import org.rocksdb.*;
 
@@ -511,6 +513,24 @@ public class TransactionDBManager {
         }
     }
 
+    /**
+     * 打开键范围为[from, to)的游标，边界为null时不限制.
+     * open a cursor over the keys in [from, to), a null bound means unbounded
+     *
+     * @param table   数据库表名称
+     * @param from    下边界(包含)
+     * @param to      上边界(不包含)
+     * @param reverse 是否逆序
+     * @return 游标，表不存在时返回null
+     */
+    public static DBCursor openCursor(final String table, final byte[] from, final byte[] to, final boolean reverse) {
+        if (!baseCheckTable(table)) {
+            return null;
+        }
+        TransactionDB db = TABLES.get(table);
+        return new RocksDBCursor(db, db.getDefaultColumnFamily(), from, to, reverse);
+    }
+
     public static Transaction openSession(final String table) {
         WriteOptions options = new WriteOptions();
        // options.setSync(false);
@@ -0,0 +1,152 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模块级数据库存储配置.
+ * Module level storage configuration of rocksdb
+ * <p>
+ * 默认值与原有行为一致：每张表一个独立的RocksDB实例，不使用块缓存，不压缩.
+ * The defaults keep the original behaviour: one RocksDB instance per table, no block cache, no compression.
+ */
+public class RocksDBConfig {
+
+    /**
+     * 压缩算法名称
+     */
+    public static final String COMPRESSION_NONE = "NONE";
+    public static final String COMPRESSION_LZ4 = "LZ4";
+    public static final String COMPRESSION_ZSTD = "ZSTD";
+
+    /**
+     * 是否将模块所有新表作为列族存放在同一个RocksDB实例中
+     * Whether new tables of the module are stored as column families of one shared RocksDB instance
+     */
+    private boolean sharedMode;
+
+    /**
+     * 模块内所有表共享的块缓存大小(字节)，0表示不使用块缓存
+     * Size in bytes of the block cache shared by all tables of the module, 0 disables the block cache
+     */
+    private long blockCacheSize;
+
+    /**
+     * 是否使用ClockCache代替LRUCache
+     * Use a clock cache instead of the LRU cache
+     */
+    private boolean clockCache;
+
+    /**
+     * 最底层(bottommost level)的压缩算法: NONE, LZ4, ZSTD
+     */
+    private String bottommostCompression = COMPRESSION_NONE;
+
+    /**
+     * 表级配置，key为表名或表名前缀
+     * Per table settings, keyed by table name or table name prefix
+     */
+    private final Map<String, TableConfig> tableConfigs = new ConcurrentHashMap<>();
+
+    public boolean isSharedMode() {
+        return sharedMode;
+    }
+
+    public void setSharedMode(boolean sharedMode) {
+        this.sharedMode = sharedMode;
+    }
+
+    public long getBlockCacheSize() {
+        return blockCacheSize;
+    }
+
+    public void setBlockCacheSize(long blockCacheSize) {
+        this.blockCacheSize = blockCacheSize;
+    }
+
+    public boolean isClockCache() {
+        return clockCache;
+    }
+
+    public void setClockCache(boolean clockCache) {
+        this.clockCache = clockCache;
+    }
+
+    public String getBottommostCompression() {
+        return bottommostCompression;
+    }
+
+    public void setBottommostCompression(String bottommostCompression) {
+        this.bottommostCompression = bottommostCompression;
+    }
+
+    /**
+     * 设置表级参数，tableName可以是完整表名，也可以是表名前缀(如按链ID区分的表)
+     * Set per table settings, tableName is a full table name or a table name prefix (e.g. tables suffixed by chain id)
+     *
+     * @param tableName       表名或表名前缀
+     * @param bloomBitsPerKey 布隆过滤器每个key的位数，0表示不使用布隆过滤器
+     */
+    public void setTableConfig(String tableName, int bloomBitsPerKey) {
+        tableConfigs.put(tableName, new TableConfig(bloomBitsPerKey));
+    }
+
+    /**
+     * 获取表级参数，优先完全匹配，其次最长前缀匹配，都不存在时返回默认参数
+     * Get per table settings: exact match first, then the longest matching prefix, otherwise the defaults
+     *
+     * @param tableName 表名
+     * @return TableConfig
+     */
+    public TableConfig getTableConfig(String tableName) {
+        TableConfig config = tableConfigs.get(tableName);
+        if (config != null) {
+            return config;
+        }
+        String matched = null;
+        for (String prefix : tableConfigs.keySet()) {
+            if (tableName.startsWith(prefix) && (matched == null || prefix.length() > matched.length())) {
+                matched = prefix;
+            }
+        }
+        return matched == null ? TableConfig.DEFAULT : tableConfigs.get(matched);
+    }
+
+    /**
+     * 表级配置
+     * Per table settings
+     */
+    public static class TableConfig {
+
+        static final TableConfig DEFAULT = new TableConfig(10);
+
+        private final int bloomBitsPerKey;
+
+        public TableConfig(int bloomBitsPerKey) {
+            this.bloomBitsPerKey = bloomBitsPerKey;
+        }
+
+        public int getBloomBitsPerKey() {
+            return bloomBitsPerKey;
+        }
+    }
+}
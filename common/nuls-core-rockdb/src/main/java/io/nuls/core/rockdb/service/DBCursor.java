@@ -0,0 +1,86 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.service;
+
+import io.nuls.core.rockdb.model.Entry;
+
+import java.util.List;
+
+/**
+ * 数据表流式游标，按键顺序(或逆序)逐条读取，不会把整张表加载到内存中
+ * Streaming cursor over a table, reads entries one by one in key order (or reverse order)
+ * without loading the whole table into memory.
+ * <p>
+ * 使用完毕后必须关闭以释放底层迭代器
+ * Must be closed after use to release the underlying iterator.
+ */
+public interface DBCursor extends AutoCloseable {
+
+    /**
+     * 移动到下一条数据，首次调用时定位到第一条数据
+     * Move to the next entry, the first call positions the cursor on the first entry
+     *
+     * @return 是否还有数据
+     */
+    boolean next();
+
+    /**
+     * 当前数据的键
+     * Key of the current entry
+     *
+     * @return
+     */
+    byte[] key();
+
+    /**
+     * 当前数据的值，只有调用时才会从数据库读取
+     * Value of the current entry, only read from the database when requested
+     *
+     * @return
+     */
+    byte[] value();
+
+    /**
+     * 读取下一批键，读取前清空传入的集合，集合可以在多次调用间复用
+     * Read the next chunk of keys, the given list is cleared first so it can be reused between calls
+     *
+     * @param keys 存放结果的集合
+     * @param size 批次大小
+     * @return 本次读取的数量，为0时表示已读完
+     */
+    int nextKeys(List<byte[]> keys, int size);
+
+    /**
+     * 读取下一批键值对，读取前清空传入的集合，集合可以在多次调用间复用
+     * Read the next chunk of entries, the given list is cleared first so it can be reused between calls
+     *
+     * @param entries 存放结果的集合
+     * @param size    批次大小
+     * @return 本次读取的数量，为0时表示已读完
+     */
+    int nextEntries(List<Entry<byte[], byte[]>> entries, int size);
+
+    /**
+     * 关闭游标
+     * Close the cursor
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,111 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.service;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.rockdb.constant.DBErrorCode;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+
+/**
+ * 跨表的批量操作,一次原子写入多个表
+ * 只有同一个数据库实例中的表(共享模式下的列族)才能原子写入,由{@link RocksDBService#createMultiTableWriteBatch(String...)}检查
+ * <p>
+ * Batch operation over several tables, written atomically at once.
+ * Only tables of the same instance (column families in shared mode) can be written atomically, which is checked by
+ * {@link RocksDBService#createMultiTableWriteBatch(String...)}
+ */
+public class MultiTableBatchOperation {
+
+    private RocksDB db;
+    private WriteBatch batch;
+    private volatile boolean isClose = false;
+
+    MultiTableBatchOperation(RocksDB db) {
+        this.db = db;
+        this.batch = new WriteBatch();
+    }
+
+    /**
+     * 增加或者更新操作
+     * Add or update operations.
+     *
+     * @param table
+     * @param key
+     * @param value
+     * @return
+     */
+    public boolean put(String table, byte[] key, byte[] value) throws Exception {
+        if (key == null || value == null) {
+            throw new Exception(DBErrorCode.NULL_PARAMETER);
+        }
+        batch.put(handle(table), key, value);
+        return true;
+    }
+
+    /**
+     * 删除操作
+     * Delete operation
+     *
+     * @param table
+     * @param key
+     * @return
+     */
+    public boolean delete(String table, byte[] key) throws Exception {
+        if (key == null) {
+            throw new Exception(DBErrorCode.NULL_PARAMETER);
+        }
+        batch.delete(handle(table), key);
+        return true;
+    }
+
+    /**
+     * 执行批量操作
+     * Perform batch operation
+     *
+     * @return
+     */
+    public boolean executeBatch() throws Exception {
+        if (isClose) {
+            throw new Exception(DBErrorCode.DB_TABLE_FAILED_BATCH_CLOSE);
+        }
+        try (WriteOptions writeOptions = new WriteOptions()) {
+            db.write(writeOptions, batch);
+        } catch (Exception e) {
+            Log.error(e);
+            throw new Exception(DBErrorCode.DB_UNKOWN_EXCEPTION);
+        } finally {
+            isClose = true;
+            batch.close();
+        }
+        return true;
+    }
+
+    private ColumnFamilyHandle handle(String table) throws Exception {
+        ColumnFamilyHandle handle = RocksDBManager.getHandle(table);
+        if (handle == null || RocksDBManager.getTable(table) != db) {
+            throw new Exception(DBErrorCode.DB_TABLE_NOT_EXIST);
+        }
+        return handle;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.service;
+
+import io.nuls.core.rockdb.model.Entry;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
+
+import java.util.List;
+
+/**
+ * 基于RocksIterator的游标实现，范围为[lower, upper)，边界由RocksDB在底层判断
+ * Cursor backed by a RocksIterator over [lower, upper), the bounds are enforced natively by RocksDB
+ */
+public class RocksDBCursor implements DBCursor {
+
+    private final RocksIterator iterator;
+    private final ReadOptions readOptions;
+    private final Slice lowerSlice;
+    private final Slice upperSlice;
+    private final boolean reverse;
+    private boolean started;
+    private byte[] key;
+    private byte[] value;
+
+    /**
+     * @param db      数据库
+     * @param handle  表对应的列族
+     * @param lower   下边界(包含)，为null时不限制
+     * @param upper   上边界(不包含)，为null时不限制
+     * @param reverse 是否逆序
+     */
+    public RocksDBCursor(RocksDB db, ColumnFamilyHandle handle, byte[] lower, byte[] upper, boolean reverse) {
+        this.reverse = reverse;
+        this.readOptions = new ReadOptions().setTotalOrderSeek(true);
+        this.lowerSlice = lower == null ? null : new Slice(lower);
+        this.upperSlice = upper == null ? null : new Slice(upper);
+        if (lowerSlice != null) {
+            readOptions.setIterateLowerBound(lowerSlice);
+        }
+        if (upperSlice != null) {
+            readOptions.setIterateUpperBound(upperSlice);
+        }
+        this.iterator = db.newIterator(handle, readOptions);
+    }
+
+    /**
+     * 计算前缀的上边界：前缀最后一个不为0xFF的字节加一并截断，全为0xFF时没有上边界
+     * Upper bound of a prefix: increment the last byte that is not 0xFF and truncate, no bound when all bytes are 0xFF
+     *
+     * @param prefix 前缀
+     * @return 上边界
+     */
+    public static byte[] prefixUpperBound(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] upper = new byte[i + 1];
+                System.arraycopy(prefix, 0, upper, 0, i + 1);
+                upper[i]++;
+                return upper;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean next() {
+        if (!started) {
+            started = true;
+            if (reverse) {
+                iterator.seekToLast();
+            } else {
+                iterator.seekToFirst();
+            }
+        } else if (iterator.isValid()) {
+            if (reverse) {
+                iterator.prev();
+            } else {
+                iterator.next();
+            }
+        }
+        key = null;
+        value = null;
+        return iterator.isValid();
+    }
+
+    @Override
+    public byte[] key() {
+        if (key == null) {
+            key = iterator.key();
+        }
+        return key;
+    }
+
+    @Override
+    public byte[] value() {
+        if (value == null) {
+            value = iterator.value();
+        }
+        return value;
+    }
+
+    @Override
+    public int nextKeys(List<byte[]> keys, int size) {
+        keys.clear();
+        while (keys.size() < size && next()) {
+            keys.add(key());
+        }
+        return keys.size();
+    }
+
+    @Override
+    public int nextEntries(List<Entry<byte[], byte[]>> entries, int size) {
+        entries.clear();
+        while (entries.size() < size && next()) {
+            entries.add(new Entry<>(key(), value()));
+        }
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        iterator.close();
+        readOptions.close();
+        if (lowerSlice != null) {
+            lowerSlice.close();
+        }
+        if (upperSlice != null) {
+            upperSlice.close();
+        }
+    }
+}
@@ -23,6 +23,9 @@ import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.rockdb.manager.RocksDBManager;
 import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.model.RocksDBConfig;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
 
 import java.util.Arrays;
 import java.util.List;
@@ -38,6 +41,20 @@ public class RocksDBService {
         }
     }
 
+    /**
+     * 按模块存储配置初始化数据库(共享块缓存、列族共享模式、压缩等)
+     * init database with the storage configuration of the module (shared block cache, column family mode, compression)
+     * @param path
+     * @param config
+     */
+    public static void init(String path, RocksDBConfig config) {
+        try {
+            RocksDBManager.init(path, config);
+        } catch (Exception e) {
+            Log.error(e.getMessage(),e);
+        }
+    }
+
     public static boolean createTable(String tableName) throws Exception {
         if (!RocksDBService.existTable(tableName)) {
             return RocksDBManager.createTable(tableName);
@@ -131,6 +148,58 @@ public class RocksDBService {
         return RocksDBManager.entryList(table);
     }
 
+    /**
+     * 打开整张表的正序游标
+     * open a forward cursor over the whole table
+     * @param table
+     * @return
+     */
+    public static DBCursor openCursor(String table) {
+        return openRangeCursor(table, null, null, false);
+    }
+
+    /**
+     * 打开整张表的游标
+     * open a cursor over the whole table
+     * @param table
+     * @param reverse 是否逆序
+     * @return
+     */
+    public static DBCursor openCursor(String table, boolean reverse) {
+        return openRangeCursor(table, null, null, reverse);
+    }
+
+    /**
+     * 打开指定键前缀的游标
+     * open a cursor over the keys starting with prefix
+     * @param table
+     * @param prefix
+     * @param reverse 是否逆序
+     * @return
+     */
+    public static DBCursor openPrefixCursor(String table, byte[] prefix, boolean reverse) {
+        return openRangeCursor(table, prefix, RocksDBCursor.prefixUpperBound(prefix), reverse);
+    }
+
+    /**
+     * 打开键范围为[from, to)的游标，边界为null时不限制
+     * open a cursor over the keys in [from, to), a null bound means unbounded
+     * @param table
+     * @param from
+     * @param to
+     * @param reverse 是否逆序
+     * @return 表不存在时返回null
+     */
+    public static DBCursor openRangeCursor(String table, byte[] from, byte[] to, boolean reverse) {
+        RocksDB db = RocksDBManager.getTable(table);
+        ColumnFamilyHandle handle = RocksDBManager.getHandle(table);
+        if (db == null || handle == null) {
+            Log.error("openCursor table={}: error", table);
+            return null;
+        }
+        return new RocksDBCursor(db, handle, from, to, reverse);
+    }
+
     public static BatchOperation createWriteBatch(String table) {
         if (StringUtils.isBlank(table)) {
             return null;
@@ -147,4 +216,27 @@ public class RocksDBService {
         }
         return batchOperation;
     }
+
+    /**
+     * 创建跨表的原子批量操作,表不在同一个数据库实例中(非共享模式)时返回null
+     * Create an atomic batch over several tables, null is returned when the tables are not in the same instance
+     * (not in shared mode)
+     *
+     * @param tables 参与批量操作的表
+     * @return MultiTableBatchOperation
+     */
+    public static MultiTableBatchOperation createMultiTableWriteBatch(String... tables) {
+        RocksDB db = null;
+        for (String table : tables) {
+            RocksDB tableDB = RocksDBManager.getTable(table);
+            if (tableDB == null || (db != null && db != tableDB)) {
+                return null;
+            }
+            db = tableDB;
+        }
+        if (db == null) {
+            return null;
+        }
+        return new MultiTableBatchOperation(db);
+    }
 }
@@ -0,0 +1,93 @@
+package io.nuls.core.storage;
+
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.service.DBCursor;
+import io.nuls.core.rockdb.service.RocksDBService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 流式游标测试
+ */
+public class RocksDBCursorTest {
+
+    private static final String TABLE = "cursor-table";
+
+    private String path;
+
+    @Before
+    public void before() throws Exception {
+        path = Files.createTempDirectory("rocksdb-cursor").toFile().getAbsolutePath();
+        RocksDBService.init(path);
+        RocksDBService.createTable(TABLE);
+        for (String key : new String[]{"a1", "a2", "a3", "b1", "b2", "c1"}) {
+            RocksDBService.put(TABLE, key.getBytes(UTF_8), ("v" + key).getBytes(UTF_8));
+        }
+    }
+
+    @After
+    public void after() throws Exception {
+        RocksDBService.destroyTable(TABLE);
+        RocksDBManager.close();
+        new File(path).delete();
+    }
+
+    @Test
+    public void fullTable() {
+        try (DBCursor cursor = RocksDBService.openCursor(TABLE)) {
+            Assert.assertEquals("[a1, a2, a3, b1, b2, c1]", readKeys(cursor).toString());
+        }
+        try (DBCursor cursor = RocksDBService.openCursor(TABLE, true)) {
+            Assert.assertEquals("[c1, b2, b1, a3, a2, a1]", readKeys(cursor).toString());
+        }
+    }
+
+    @Test
+    public void prefixAndRange() {
+        try (DBCursor cursor = RocksDBService.openPrefixCursor(TABLE, "b".getBytes(UTF_8), false)) {
+            Assert.assertEquals("[b1, b2]", readKeys(cursor).toString());
+        }
+        try (DBCursor cursor = RocksDBService.openPrefixCursor(TABLE, "a".getBytes(UTF_8), true)) {
+            Assert.assertEquals("[a3, a2, a1]", readKeys(cursor).toString());
+        }
+        try (DBCursor cursor = RocksDBService.openRangeCursor(TABLE, "a2".getBytes(UTF_8), "b2".getBytes(UTF_8), false)) {
+            Assert.assertEquals("[a2, a3, b1]", readKeys(cursor).toString());
+        }
+        try (DBCursor cursor = RocksDBService.openRangeCursor(TABLE, "a2".getBytes(UTF_8), "b2".getBytes(UTF_8), true)) {
+            Assert.assertEquals("[b1, a3, a2]", readKeys(cursor).toString());
+        }
+    }
+
+    @Test
+    public void chunks() {
+        try (DBCursor cursor = RocksDBService.openCursor(TABLE)) {
+            List<Entry<byte[], byte[]>> entries = new ArrayList<>();
+            Assert.assertEquals(4, cursor.nextEntries(entries, 4));
+            Assert.assertEquals("va1", new String(entries.get(0).getValue(), UTF_8));
+            Assert.assertEquals(2, cursor.nextEntries(entries, 4));
+            Assert.assertEquals("vc1", new String(entries.get(1).getValue(), UTF_8));
+            Assert.assertEquals(0, cursor.nextEntries(entries, 4));
+        }
+    }
+
+    private List<String> readKeys(DBCursor cursor) {
+        List<String> keys = new ArrayList<>();
+        List<byte[]> chunk = new ArrayList<>();
+        while (cursor.nextKeys(chunk, 2) > 0) {
+            for (byte[] key : chunk) {
+                keys.add(new String(key, UTF_8));
+            }
+        }
+        return keys;
+    }
+}
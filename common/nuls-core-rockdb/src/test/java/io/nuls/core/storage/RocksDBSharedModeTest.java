@@ -0,0 +1,115 @@
+package io.nuls.core.storage;
+
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.model.RocksDBConfig;
+import io.nuls.core.rockdb.service.BatchOperation;
+import io.nuls.core.rockdb.service.MultiTableBatchOperation;
+import io.nuls.core.rockdb.service.RocksDBService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 列族共享模式测试
+ */
+public class RocksDBSharedModeTest {
+
+    private String path;
+
+    private RocksDBConfig config;
+
+    @Before
+    public void before() throws Exception {
+        path = Files.createTempDirectory("rocksdb-shared").toFile().getAbsolutePath();
+        config = new RocksDBConfig();
+        config.setSharedMode(true);
+        config.setBlockCacheSize(8 * 1024 * 1024);
+        config.setBottommostCompression(RocksDBConfig.COMPRESSION_LZ4);
+        config.setTableConfig("header_", 16);
+        config.setTableConfig("header_index_", 0);
+        RocksDBService.init(path, config);
+    }
+
+    @After
+    public void after() {
+        RocksDBManager.close();
+        deleteDir(new File(path));
+    }
+
+    @Test
+    public void tablesShareOneInstance() throws Exception {
+        RocksDBService.createTable("account");
+        RocksDBService.createTable("header_2");
+        Assert.assertSame(RocksDBManager.getTable("account"), RocksDBManager.getTable("header_2"));
+        Assert.assertFalse(new File(path + File.separator + "account").exists());
+
+        RocksDBService.put("account", "k".getBytes(UTF_8), "a".getBytes(UTF_8));
+        RocksDBService.put("header_2", "k".getBytes(UTF_8), "h".getBytes(UTF_8));
+        Assert.assertEquals("a", new String(RocksDBService.get("account", "k".getBytes(UTF_8)), UTF_8));
+        Assert.assertEquals("h", new String(RocksDBService.get("header_2", "k".getBytes(UTF_8)), UTF_8));
+
+        BatchOperation batch = RocksDBService.createWriteBatch("header_2");
+        batch.put("k1".getBytes(UTF_8), "h1".getBytes(UTF_8));
+        batch.delete("k".getBytes(UTF_8));
+        Assert.assertTrue(batch.executeBatch());
+        Assert.assertEquals(1, RocksDBService.keyList("header_2").size());
+        Assert.assertEquals(1, RocksDBService.entryList("account").size());
+        Assert.assertTrue(RocksDBService.keyMayExist("account", "k".getBytes(UTF_8)));
+        Assert.assertFalse(RocksDBService.keyMayExist("header_2", "k".getBytes(UTF_8)));
+    }
+
+    @Test
+    public void tableConfigMatchesLongestPrefix() {
+        Assert.assertEquals(16, config.getTableConfig("header_2").getBloomBitsPerKey());
+        Assert.assertEquals(0, config.getTableConfig("header_index_2").getBloomBitsPerKey());
+        Assert.assertEquals(10, config.getTableConfig("account").getBloomBitsPerKey());
+    }
+
+    @Test
+    public void multiTableBatch() throws Exception {
+        RocksDBService.createTable("account");
+        RocksDBService.createTable("header_2");
+        RocksDBService.put("account", "k".getBytes(UTF_8), "a".getBytes(UTF_8));
+
+        MultiTableBatchOperation batch = RocksDBService.createMultiTableWriteBatch("account", "header_2");
+        Assert.assertNotNull(batch);
+        batch.put("header_2", "k1".getBytes(UTF_8), "h1".getBytes(UTF_8));
+        batch.delete("account", "k".getBytes(UTF_8));
+        Assert.assertTrue(batch.executeBatch());
+        Assert.assertNull(RocksDBService.get("account", "k".getBytes(UTF_8)));
+        Assert.assertEquals("h1", new String(RocksDBService.get("header_2", "k1".getBytes(UTF_8)), UTF_8));
+
+        //不存在的表不能参与批量操作
+        Assert.assertNull(RocksDBService.createMultiTableWriteBatch("account", "other"));
+    }
+
+    @Test
+    public void tablesSurviveReopen() throws Exception {
+        RocksDBService.createTable("account");
+        RocksDBService.put("account", "k".getBytes(UTF_8), "a".getBytes(UTF_8));
+        RocksDBManager.close();
+
+        RocksDBService.init(path, config);
+        Assert.assertTrue(RocksDBService.existTable("account"));
+        Assert.assertEquals("a", new String(RocksDBService.get("account", "k".getBytes(UTF_8)), UTF_8));
+
+        RocksDBService.destroyTable("account");
+        Assert.assertFalse(RocksDBService.existTable("account"));
+    }
+
+    private void deleteDir(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteDir(f);
+            }
+        }
+        file.delete();
+    }
+}
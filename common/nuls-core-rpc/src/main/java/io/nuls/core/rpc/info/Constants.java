@@ -187,6 +187,13 @@ public class Constants {
 
     public static final String ZERO = "0";
 
+    /**
+     * 握手时协商的消息格式，JSON为默认格式，BINARY为模块间使用的二进制帧
+     * Message format negotiated during handshake, JSON is the default, BINARY is the binary frame used between modules
+     */
+    public static final String MESSAGE_FORMAT_JSON = "JSON";
+    public static final String MESSAGE_FORMAT_BINARY = "BINARY";
+
     /**
      * 处理待处理消息的线程池
      * Thread pool for processing messages to be processed
@@ -219,6 +226,36 @@ public class Constants {
 
     public static final int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
 
+    /**
+     * RPC消息处理线程池的队列上限，超过后新请求被丢弃(请求方超时)，响应由netty线程直接处理
+     * Queue bound of the RPC message pools, new requests are discarded beyond it (the caller times out),
+     * responses are handled on the netty thread
+     */
+    public static final int RPC_EXECUTOR_QUEUE_SIZE = 100000;
+
+    /**
+     * 请求处理线程池由所有连接共享(原先每个连接各自创建)，处理请求时可能同步调用其它模块，因此线程数放大
+     * Request pools are shared by all connections (previously one per connection) and handlers may block on calls
+     * to other modules, so the thread count is enlarged
+     */
+    public static final int RPC_REQUEST_THREAD_COUNT = THREAD_POOL_SIZE * 4;
+
+    public static final String RPC_SERVER_REQUEST_EXECUTOR = "rpc-server-request";
+
+    public static final String RPC_SERVER_RESPONSE_EXECUTOR = "rpc-server-response";
+
+    public static final String RPC_CLIENT_REQUEST_EXECUTOR = "rpc-client-request";
+
+    public static final String RPC_CLIENT_RESPONSE_EXECUTOR = "rpc-client-response";
+
+    public static final String RPC_LOCAL_REQUEST_EXECUTOR = "rpc-local-request";
+
+    /**
+     * 本地请求线程池的队列上限，队列满时请求在调用方线程执行
+     * Queue bound of the local request pool, requests run on the caller's thread when it is full
+     */
+    public static final int RPC_LOCAL_QUEUE_SIZE = 1024;
+
     public static final int QUEUE_SIZE = 100000;
 
     public static final long QUEUE_MEM_LIMIT_SIZE = 128 * 1024 * 1024;
@@ -72,6 +72,7 @@ public class MessageUtil {
         negotiateConnection.setProtocolVersion("0.1");
         negotiateConnection.setCompressionAlgorithm("zlib");
         negotiateConnection.setCompressionRate("0");
+        negotiateConnection.setMessageFormat(Constants.MESSAGE_FORMAT_BINARY);
         return negotiateConnection;
     }
 
@@ -26,6 +26,7 @@ package io.nuls.core.rpc.model.message;
 
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -63,6 +64,14 @@ public class NegotiateConnection {
     @JsonProperty
     private String CompressionRate;
 
+    /**
+     * 请求使用的消息格式：JSON或BINARY，为空时使用JSON
+     * Message format requested for this connection: JSON or BINARY, JSON when absent
+     */
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String MessageFormat;
+
     @JsonIgnore
     public String getAbbreviation() {
         return Abbreviation;
@@ -102,4 +111,14 @@ public class NegotiateConnection {
     public void setCompressionRate(String CompressionRate) {
         this.CompressionRate = CompressionRate;
     }
+
+    @JsonIgnore
+    public String getMessageFormat() {
+        return MessageFormat;
+    }
+
+    @JsonIgnore
+    public void setMessageFormat(String MessageFormat) {
+        this.MessageFormat = MessageFormat;
+    }
 }
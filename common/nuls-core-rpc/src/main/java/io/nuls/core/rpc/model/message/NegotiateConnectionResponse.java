@@ -26,6 +26,7 @@ package io.nuls.core.rpc.model.message;
 
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -51,6 +52,14 @@ public class NegotiateConnectionResponse {
     @JsonProperty
     private String NegotiationComment;
 
+    /**
+     * 服务端同意使用的消息格式，为空时使用JSON
+     * Message format accepted by the server, JSON when absent
+     */
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String MessageFormat;
+
     @JsonIgnore
     public String getRequestID() {
         return RequestID;
@@ -80,4 +89,14 @@ public class NegotiateConnectionResponse {
     public void setNegotiationComment(String NegotiationComment) {
         this.NegotiationComment = NegotiationComment;
     }
+
+    @JsonIgnore
+    public String getMessageFormat() {
+        return MessageFormat;
+    }
+
+    @JsonIgnore
+    public void setMessageFormat(String MessageFormat) {
+        this.MessageFormat = MessageFormat;
+    }
 }
@@ -3,6 +3,7 @@ package io.nuls.core.rpc.modulebootstrap;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.Log;
+import io.nuls.core.metrics.MetricsRegistry;
 import io.nuls.core.parse.JSONUtils;
 import io.nuls.core.rpc.cmd.BaseCmd;
 import io.nuls.core.rpc.info.Constants;
@@ -54,4 +55,12 @@ public class ModuleStatusCmd extends BaseCmd {
         return success(rpcModule.isReady());
     }
 
+    @CmdAnnotation(
+            scope = Constants.PUBLIC,
+            cmd = "getModuleMetrics", version = 1.0, minEvent = 1,
+            description = "get executor and cache metrics of the module")
+    public Response getModuleMetrics(Map<String, Object> param) {
+        return success(MetricsRegistry.snapshot());
+    }
+
 }
@@ -96,6 +96,7 @@ public class NettyServer {
      */
     public NettyServer moduleRoles(String[] value) {
         ConnectManager.LOCAL.getModuleRoles().put(ConnectManager.LOCAL.getAbbreviation(), value);
+        ConnectManager.registerLocalRole(ConnectManager.LOCAL.getAbbreviation());
         return this;
     }
 
@@ -109,6 +110,7 @@ public class NettyServer {
      */
     public NettyServer moduleRoles(String key, String[] value) {
         ConnectManager.LOCAL.getModuleRoles().put(key, value);
+        ConnectManager.registerLocalRole(key);
         return this;
     }
 
@@ -1,10 +1,12 @@
 package io.nuls.core.rpc.netty.channel.manager;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.nuls.core.core.ioc.ScanUtil;
 import io.nuls.core.core.ioc.SpringLiteContext;
@@ -24,6 +26,7 @@ import io.nuls.core.rpc.netty.thread.RequestByCountProcessor;
 import io.nuls.core.rpc.netty.thread.RequestByPeriodProcessor;
 import io.nuls.core.rpc.netty.thread.RequestOnlyProcessor;
 import io.nuls.core.rpc.netty.thread.ResponseAutoProcessor;
+import io.nuls.core.rpc.util.BinaryMessageCodec;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.core.rpc.util.SerializeUtil;
 
@@ -109,6 +112,18 @@ public class ConnectManager {
      */
     public static final ConcurrentMap<String, Channel> MSG_ID_KEY_CHANNEL_MAP = new ConcurrentHashMap<>();
 
+    /**
+     * 握手时协商使用二进制消息格式的链接通道
+     * Channels that negotiated the binary message format during the handshake
+     */
+    public static final Set<Channel> BINARY_CHANNEL_SET = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 与本模块运行在同一JVM中、接口已注册在本地的其他角色
+     * Other roles running in the same JVM as this module whose interfaces are registered locally
+     */
+    public static final Set<String> LOCAL_ROLE_SET = ConcurrentHashMap.newKeySet();
+
     /**
      * 接口被那些Message订阅
      * Interfaces have been subscribed to by those Messages
@@ -614,6 +629,32 @@ public class ConnectManager {
     }
 
 
+    /**
+     * 注册运行在同一JVM中的角色，之后对该角色的请求直接调用本地接口，模块启动时注册本模块服务的所有角色
+     * Register a role running in the same JVM, requests to that role then call the local interfaces directly.
+     * All roles served by the module are registered when its server starts
+     *
+     * @param role 角色
+     */
+    public static void registerLocalRole(String role) {
+        LOCAL_ROLE_SET.add(role);
+    }
+
+    /**
+     * 判断对该角色的请求能否在本地直接处理
+     * Determine whether requests to the role can be handled locally
+     *
+     * @param role 角色
+     * @param cmd  请求的接口
+     * @return boolean
+     */
+    public static boolean isLocalRole(String role, String cmd) {
+        if (LOCAL.getMethods() == null || (!role.equals(LOCAL.getAbbreviation()) && !LOCAL_ROLE_SET.contains(role))) {
+            return false;
+        }
+        return getLocalInvokeCmd(cmd) != null;
+    }
+
     public static Channel getConnectByRole(String role) throws Exception {
         if (ROLE_CHANNEL_MAP.containsKey(role)) {
             return ROLE_CHANNEL_MAP.get(role);
@@ -691,6 +732,7 @@ public class ConnectManager {
      * Stop or disconnect a connection
      */
     public static void disConnect(SocketChannel channel) {
+        BINARY_CHANNEL_SET.remove(channel);
         if (!ROLE_CHANNEL_MAP.values().contains(channel)) {
             return;
         }
@@ -767,8 +809,50 @@ public class ConnectManager {
 //        }
 //    }
 
+    /**
+     * 按链接协商的格式发送消息，二进制链接使用BinaryWebSocketFrame，其他链接使用JSON文本
+     * Send a message in the format negotiated for the channel: binary frames for binary channels, JSON text otherwise
+     *
+     * @param channel 链接通道
+     * @param message 消息
+     */
+    public static void sendMessage(Channel channel, Message message) throws JsonProcessingException {
+        if (!BINARY_CHANNEL_SET.contains(channel)) {
+            sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+            return;
+        }
+        ByteBuf content = BinaryMessageCodec.encode(message);
+        try {
+            channel.eventLoop().execute(() -> {
+                ChannelFuture cf = channel.writeAndFlush(new BinaryWebSocketFrame(content));
+                cf.addListener((ChannelFutureListener) future -> {
+                    if (!future.isSuccess()) {
+                        Log.error(future.cause());
+                    }
+                });
+            });
+        } catch (Exception e) {
+            Log.error(e);
+        }
+    }
+
+    /**
+     * 根据握手协商结果设置链接的消息格式
+     * Set the message format of a channel according to the negotiation result
+     *
+     * @param channel       链接通道
+     * @param messageFormat 协商的消息格式
+     */
+    public static void setMessageFormat(Channel channel, String messageFormat) {
+        if (Constants.MESSAGE_FORMAT_BINARY.equals(messageFormat)) {
+            BINARY_CHANNEL_SET.add(channel);
+        } else {
+            BINARY_CHANNEL_SET.remove(channel);
+        }
+    }
+
     public static void sendMessage(String moduleAbbr, Message message) throws Exception {
-        sendMessage(getConnectByRole(moduleAbbr), SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        sendMessage(getConnectByRole(moduleAbbr), message);
     }
 
     public static String getRoleByChannel(Channel channel){
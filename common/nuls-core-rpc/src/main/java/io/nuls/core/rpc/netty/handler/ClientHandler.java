@@ -17,12 +17,12 @@ import io.nuls.core.rpc.model.message.Request;
 import io.nuls.core.rpc.netty.channel.ConnectData;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.netty.handler.message.TextMessageHandler;
-import io.nuls.core.thread.commom.NulsThreadFactory;
+import io.nuls.core.rpc.util.BinaryMessageCodec;
+import io.nuls.core.thread.ExecutorRegistry;
+import io.nuls.core.thread.RejectionPolicy;
 
 import java.util.Map;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 客户端事件触发处理类
@@ -36,9 +36,9 @@ public class ClientHandler extends SimpleChannelInboundHandler<Object> {
     private WebSocketClientHandshaker handShaker;
     private ChannelPromise handshakeFuture;
 
-    private ThreadPoolExecutor requestExecutorService = new ThreadPoolExecutor(Constants.THREAD_POOL_SIZE, Constants.THREAD_POOL_SIZE, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), new NulsThreadFactory("server-handler-request"));
+    private ThreadPoolExecutor requestExecutorService = ExecutorRegistry.getOrCreatePriority(Constants.RPC_CLIENT_REQUEST_EXECUTOR, Constants.RPC_REQUEST_THREAD_COUNT, Constants.RPC_EXECUTOR_QUEUE_SIZE, RejectionPolicy.DISCARD);
 
-    private ThreadPoolExecutor responseExecutorService = new ThreadPoolExecutor(Constants.THREAD_POOL_SIZE, Constants.THREAD_POOL_SIZE, 0L,TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), new NulsThreadFactory("server-handler-request"));
+    private ThreadPoolExecutor responseExecutorService = ExecutorRegistry.getOrCreatePriority(Constants.RPC_CLIENT_RESPONSE_EXECUTOR, Constants.THREAD_POOL_SIZE, Constants.RPC_EXECUTOR_QUEUE_SIZE, RejectionPolicy.CALLER_RUNS);
 
 
     @Override
@@ -100,12 +100,17 @@ public class ClientHandler extends SimpleChannelInboundHandler<Object> {
 
             if (frame instanceof CloseWebSocketFrame) {
                 ch.close();
-            } else if (msg instanceof TextWebSocketFrame) {
-                TextWebSocketFrame txMsg = (TextWebSocketFrame) msg;
-                ByteBuf content = txMsg.content();
-                byte[] bytes = new byte[content.readableBytes()];
-                content.readBytes(bytes);
-                Message message = JSONUtils.byteArray2pojo(bytes, Message.class);
+            } else if (msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame) {
+                ByteBuf content = ((WebSocketFrame) msg).content();
+                int messageSize = content.readableBytes();
+                Message message;
+                if (msg instanceof BinaryWebSocketFrame) {
+                    message = BinaryMessageCodec.decode(content);
+                } else {
+                    byte[] bytes = new byte[messageSize];
+                    content.readBytes(bytes);
+                    message = JSONUtils.byteArray2pojo(bytes, Message.class);
+                }
                 MessageType messageType = MessageType.valueOf(message.getMessageType());
                 int priority = CmdPriority.DEFAULT.getPriority();
                 TextMessageHandler messageHandler = new TextMessageHandler((SocketChannel) ctx.channel(), message, priority);
@@ -128,7 +133,6 @@ public class ClientHandler extends SimpleChannelInboundHandler<Object> {
                     }else if(messageType.equals(MessageType.RequestOnly)){
                         Request request = JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
                         ConnectData connectData = ConnectManager.CHANNEL_DATA_MAP.get(ctx.channel());
-                        int messageSize = bytes.length;
                         if(!connectData.requestOnlyQueueReachLimit()){
                             connectData.getRequestOnlyQueue().offer(new RequestOnly(request, messageSize));
                             connectData.addRequestOnlyQueueMemSize(messageSize);
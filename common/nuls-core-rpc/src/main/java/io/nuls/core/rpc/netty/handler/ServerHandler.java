@@ -4,7 +4,9 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.nuls.core.log.Log;
 import io.nuls.core.parse.JSONUtils;
 import io.nuls.core.rpc.info.Constants;
@@ -16,12 +18,12 @@ import io.nuls.core.rpc.model.message.Request;
 import io.nuls.core.rpc.netty.channel.ConnectData;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.netty.handler.message.TextMessageHandler;
-import io.nuls.core.thread.commom.NulsThreadFactory;
+import io.nuls.core.rpc.util.BinaryMessageCodec;
+import io.nuls.core.thread.ExecutorRegistry;
+import io.nuls.core.thread.RejectionPolicy;
 
 import java.util.Map;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 服务器端事件触发处理类
@@ -32,9 +34,9 @@ import java.util.concurrent.TimeUnit;
  */
 public class ServerHandler extends SimpleChannelInboundHandler<Object> {
 
-    private ThreadPoolExecutor requestExecutorService = new ThreadPoolExecutor(Constants.THREAD_POOL_SIZE, Constants.THREAD_POOL_SIZE, 0L,TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), new NulsThreadFactory("server-handler-request"));
+    private ThreadPoolExecutor requestExecutorService = ExecutorRegistry.getOrCreatePriority(Constants.RPC_SERVER_REQUEST_EXECUTOR, Constants.RPC_REQUEST_THREAD_COUNT, Constants.RPC_EXECUTOR_QUEUE_SIZE, RejectionPolicy.DISCARD);
 
-    private ThreadPoolExecutor responseExecutorService = new ThreadPoolExecutor(Constants.THREAD_POOL_SIZE, Constants.THREAD_POOL_SIZE, 0L,TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), new NulsThreadFactory("server-handler-request"));
+    private ThreadPoolExecutor responseExecutorService = ExecutorRegistry.getOrCreatePriority(Constants.RPC_SERVER_RESPONSE_EXECUTOR, Constants.THREAD_POOL_SIZE, Constants.RPC_EXECUTOR_QUEUE_SIZE, RejectionPolicy.CALLER_RUNS);
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
@@ -42,12 +44,17 @@ public class ServerHandler extends SimpleChannelInboundHandler<Object> {
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
-        if (msg instanceof TextWebSocketFrame) {
-            TextWebSocketFrame txMsg = (TextWebSocketFrame) msg;
-            ByteBuf content = txMsg.content();
-            byte[] bytes = new byte[content.readableBytes()];
-            content.readBytes(bytes);
-            Message message = JSONUtils.byteArray2pojo(bytes, Message.class);
+        if (msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame) {
+            ByteBuf content = ((WebSocketFrame) msg).content();
+            int messageSize = content.readableBytes();
+            Message message;
+            if (msg instanceof BinaryWebSocketFrame) {
+                message = BinaryMessageCodec.decode(content);
+            } else {
+                byte[] bytes = new byte[messageSize];
+                content.readBytes(bytes);
+                message = JSONUtils.byteArray2pojo(bytes, Message.class);
+            }
             MessageType messageType = MessageType.valueOf(message.getMessageType());
             int priority = CmdPriority.DEFAULT.getPriority();
             TextMessageHandler messageHandler = new TextMessageHandler((SocketChannel) ctx.channel(), message,priority);
@@ -70,7 +77,6 @@ public class ServerHandler extends SimpleChannelInboundHandler<Object> {
                 }else if(messageType.equals(MessageType.RequestOnly)){
                     Request request = JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
                     ConnectData connectData = ConnectManager.CHANNEL_DATA_MAP.get(ctx.channel());
-                    int messageSize = bytes.length;
                     if(!connectData.requestOnlyQueueReachLimit()){
                         connectData.getRequestOnlyQueue().offer(new RequestOnly(request, messageSize));
                         connectData.addRequestOnlyQueueMemSize(messageSize);
@@ -149,6 +149,12 @@ public class TextMessageHandler implements Runnable, Comparable<TextMessageHandl
                     }
                     break;
                 case NegotiateConnectionResponse:
+                    ConnectManager.setMessageFormat(channel, ((Map<String, String>) message.getMessageData()).get("MessageFormat"));
+                    ResponseContainer negotiateContainer = RequestContainer.getResponseContainer(((Map<String, String>) message.getMessageData()).get("RequestID"));
+                    if (negotiateContainer != null && negotiateContainer.getFuture() != null) {
+                        negotiateContainer.getFuture().complete(new Response());
+                    }
+                    break;
                 case Ack:
                     ResponseContainer resContainer = RequestContainer.getResponseContainer(((Map<String, String>) message.getMessageData()).get("RequestID"));
                     if (resContainer != null && resContainer.getFuture() != null) {
@@ -0,0 +1,198 @@
+package io.nuls.core.rpc.netty.processor;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.info.Constants;
+import io.nuls.core.rpc.model.CmdPriority;
+import io.nuls.core.rpc.model.message.Request;
+import io.nuls.core.rpc.model.message.Response;
+import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+import io.nuls.core.rpc.netty.processor.container.ResponseContainer;
+import io.nuls.core.thread.ExecutorRegistry;
+import io.nuls.core.thread.RejectionPolicy;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 同一JVM内模块间的消息处理器
+ * 目标角色的接口注册在本地时，Request直接交给本地BaseCmd处理，不经过序列化与Websocket
+ * <p>
+ * Message processor for modules running in the same JVM.
+ * When the target role is registered locally, the Request is handed to the local BaseCmd directly,
+ * without serialization and without the Websocket hop.
+ *
+ * @author tag
+ * 2019/2/25
+ */
+public class LocalMessageProcessor {
+
+    private static final ThreadPoolExecutor LOCAL_EXECUTOR = ExecutorRegistry.getOrCreatePriority(Constants.RPC_LOCAL_REQUEST_EXECUTOR, Constants.THREAD_POOL_SIZE, Constants.RPC_LOCAL_QUEUE_SIZE, RejectionPolicy.CALLER_RUNS);
+
+    /**
+     * 发送本地Request，返回用于等待结果的ResponseContainer
+     * 注册在本地的角色都是本模块自身提供的角色，同步请求在调用方线程直接执行，避免本地线程全部等待对自身的请求而死锁。
+     * 因此同步的本地请求不按CmdPriority排队，也不受timeOut限制：调用方一直等到接口执行完成，返回时结果已经就绪
+     * <p>
+     * Send a local Request and return the ResponseContainer to wait on.
+     * The roles registered locally are the ones this module serves itself, so synchronous requests run on the caller's
+     * thread and local threads never all wait on requests to themselves. As a result synchronous local requests are not
+     * queued by CmdPriority and timeOut is not enforced: the caller waits until the handler returns, and the response is
+     * ready when this method returns
+     *
+     * @param role    目标角色 / Target role
+     * @param request 包含所有访问属性的Request对象，Request object containing all necessary information
+     * @return ResponseContainer
+     */
+    public static ResponseContainer sendRequest(String role, Request request) {
+        String messageId = Constants.nextSequence();
+        ResponseContainer responseContainer = new ResponseContainer(messageId, new CompletableFuture<>());
+        Map<String, Object> requestMethods = (Map<String, Object>) normalize(request.getRequestMethods());
+        callCommands(requestMethods, messageId, responseContainer);
+        return responseContainer;
+    }
+
+    private static void callCommands(Map<String, Object> requestMethods, String messageId, ResponseContainer responseContainer) {
+        for (Map.Entry<String, Object> entry : requestMethods.entrySet()) {
+            Response response = RequestMessageProcessor.callLocalCommand(entry.getKey(), (Map) entry.getValue(), messageId);
+            response.setResponseData(normalize(response.getResponseData()));
+            responseContainer.getFuture().complete(response);
+        }
+    }
+
+    /**
+     * 发送本地Request，不接收返回，按CmdPriority在本地线程池中排队执行
+     * Send a local Request without waiting for the Response, it is queued by CmdPriority on the local pool
+     *
+     * @param request 包含所有访问属性的Request对象，Request object containing all necessary information
+     * @return messageId
+     */
+    public static String requestOnly(Request request) {
+        String messageId = Constants.nextSequence();
+        Map<String, Object> requestMethods = (Map<String, Object>) normalize(request.getRequestMethods());
+        LOCAL_EXECUTOR.execute(new LocalRequestTask(priority(requestMethods), () -> {
+            try {
+                RequestMessageProcessor.callCommands(requestMethods);
+            } catch (Exception e) {
+                Log.error(e);
+            }
+        }));
+        return messageId;
+    }
+
+    private static int priority(Map<String, Object> requestMethods) {
+        if (requestMethods.size() == 1) {
+            Integer priority = ConnectManager.CMD_PRIORITY_MAP.get(requestMethods.keySet().iterator().next());
+            if (priority != null) {
+                return priority;
+            }
+        }
+        return CmdPriority.DEFAULT.getPriority();
+    }
+
+    /**
+     * 把参数与返回值转换为JSON解析后的类型(Map、List、String、Integer、Long、BigInteger、Double、Boolean)，
+     * 保证接口在本地调用与Websocket调用时看到相同的数据类型。已是这些类型的数据原样传递，不做复制。
+     * <p>
+     * Convert parameters and results to the types produced by the JSON parser, so handlers see the same types
+     * whether they are called locally or through Websocket. Values already of those types are passed as they are.
+     *
+     * @param value 参数或返回值
+     * @return 转换后的值
+     */
+    static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean
+                || value instanceof Integer || value instanceof Double) {
+            return value;
+        }
+        if (value instanceof Long) {
+            long l = (Long) value;
+            return l == (int) l ? (Object) (int) l : value;
+        }
+        if (value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof BigInteger) {
+            BigInteger b = (BigInteger) value;
+            return b.bitLength() < 32 ? (Object) b.intValue() : b.bitLength() < 64 ? (Object) b.longValue() : value;
+        }
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        if (value instanceof Map) {
+            return normalizeMap((Map<?, ?>) value);
+        }
+        if (value instanceof List) {
+            return normalizeList((List<?>) value);
+        }
+        return normalize(JSONUtils.getInstance().convertValue(value, Object.class));
+    }
+
+    private static Object normalizeMap(Map<?, ?> map) {
+        Map<String, Object> copy = null;
+        int index = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object value = normalize(entry.getValue());
+            if (copy == null && (value != entry.getValue() || !(entry.getKey() instanceof String))) {
+                copy = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+                int i = 0;
+                for (Map.Entry<?, ?> previous : map.entrySet()) {
+                    if (i++ == index) {
+                        break;
+                    }
+                    copy.put(String.valueOf(previous.getKey()), previous.getValue());
+                }
+            }
+            if (copy != null) {
+                copy.put(String.valueOf(entry.getKey()), value);
+            }
+            index++;
+        }
+        return copy == null ? map : copy;
+    }
+
+    private static Object normalizeList(List<?> list) {
+        List<Object> copy = null;
+        for (int i = 0; i < list.size(); i++) {
+            Object item = list.get(i);
+            Object value = normalize(item);
+            if (copy == null && value != item) {
+                copy = new ArrayList<>(list.subList(0, i));
+            }
+            if (copy != null) {
+                copy.add(value);
+            }
+        }
+        return copy == null ? list : copy;
+    }
+
+    /**
+     * 按CmdPriority排序的本地请求任务
+     */
+    private static class LocalRequestTask implements Runnable, Comparable<LocalRequestTask> {
+
+        private final int priority;
+
+        private final Runnable task;
+
+        LocalRequestTask(int priority, Runnable task) {
+            this.priority = priority;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(LocalRequestTask o) {
+            return Integer.compare(o.priority, this.priority);
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
@@ -14,7 +14,6 @@ import io.nuls.core.rpc.model.message.*;
 import io.nuls.core.rpc.netty.channel.ConnectData;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.util.NulsDateUtils;
-import io.nuls.core.rpc.util.SerializeUtil;
 
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
@@ -48,13 +47,19 @@ public class RequestMessageProcessor {
         negotiateConnectionResponse.setRequestID(message.getMessageID());
         negotiateConnectionResponse.setNegotiationStatus("1");
         negotiateConnectionResponse.setNegotiationComment("Connection true!");
+        NegotiateConnection negotiateConnection = JSONUtils.map2pojo((Map) message.getMessageData(), NegotiateConnection.class);
+        //客户端请求二进制格式时同意使用，握手响应本身仍以JSON发送
+        //Accept the binary format when requested, the handshake response itself is still sent as JSON
+        if (Constants.MESSAGE_FORMAT_BINARY.equals(negotiateConnection.getMessageFormat())) {
+            negotiateConnectionResponse.setMessageFormat(Constants.MESSAGE_FORMAT_BINARY);
+        }
 
         Message rspMsg = MessageUtil.basicMessage(MessageType.NegotiateConnectionResponse);
         rspMsg.setMessageData(negotiateConnectionResponse);
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMsg)));
+        ConnectManager.sendMessage(channel, rspMsg);
+        ConnectManager.setMessageFormat(channel, negotiateConnectionResponse.getMessageFormat());
 
         //握手成功之后保存channel与角色的对应信息
-        NegotiateConnection negotiateConnection = JSONUtils.map2pojo((Map) message.getMessageData(), NegotiateConnection.class);
         ConnectManager.cacheConnect(negotiateConnection.getAbbreviation(), channel, false);
     }
 
@@ -72,7 +77,7 @@ public class RequestMessageProcessor {
         ack.setRequestId(messageId);
         Message rspMsg = MessageUtil.basicMessage(MessageType.Ack);
         rspMsg.setMessageData(ack);
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMsg)));
+        ConnectManager.sendMessage(channel, rspMsg);
     }
 
     /**
@@ -86,7 +91,7 @@ public class RequestMessageProcessor {
         Response response = MessageUtil.newFailResponse(messageId, "Service not started!");
         Message rspMsg = MessageUtil.basicMessage(MessageType.Response);
         rspMsg.setMessageData(response);
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMsg)));
+        ConnectManager.sendMessage(channel, rspMsg);
     }
 
     /**
@@ -187,7 +192,7 @@ public class RequestMessageProcessor {
                     response.setResponseErrorCode(CommonCodeConstanst.CMD_NOTFOUND.getCode());
                     Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
                     rspMessage.setMessageData(response);
-                    ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                    ConnectManager.sendMessage(channel, rspMessage);
                     return;
                 }
 
@@ -201,12 +206,12 @@ public class RequestMessageProcessor {
                     response.setResponseErrorCode(CommonCodeConstanst.PARAMETER_ERROR.getCode());
                     Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
                     rspMessage.setMessageData(response);
-                    ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                    ConnectManager.sendMessage(channel, rspMessage);
                     return;
                 }
 
                 Message rspMessage = execute(cmdDetail, params, messageId);
-                ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                ConnectManager.sendMessage(channel, rspMessage);
 
                 /*
                 执行成功之后判断该接口是否被订阅过，如果被订阅则改变该接口触发次数
@@ -221,8 +226,43 @@ public class RequestMessageProcessor {
                 response.setResponseErrorCode(CommonCodeConstanst.SYS_UNKOWN_EXCEPTION.getCode());
                 Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
                 rspMessage.setMessageData(response);
-                ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                ConnectManager.sendMessage(channel, rspMessage);
+            }
+        }
+    }
+
+    /**
+     * 处理同一JVM内模块直接发起的Request，返回结果而不通过Websocket发送
+     * Process a Request issued directly by a module of the same JVM, return the result instead of sending it through Websocket
+     *
+     * @param method    请求的方法 / The request method
+     * @param params    方法参数 / Parameters of the method
+     * @param messageId 原始消息ID / The origin message ID
+     * @return Response
+     */
+    public static Response callLocalCommand(String method, Map params, String messageId) {
+        Response response = MessageUtil.newResponse(messageId, Response.FAIL, "");
+        try {
+            CmdDetail cmdDetail = params == null || params.get(Constants.VERSION_KEY_STR) == null
+                    ? ConnectManager.getLocalInvokeCmd(method)
+                    : ConnectManager.getLocalInvokeCmd(method, Double.parseDouble(params.get(Constants.VERSION_KEY_STR).toString()));
+            if (cmdDetail == null) {
+                response.setResponseComment(Constants.CMD_NOT_FOUND + ":" + method + "," + (params != null ? params.get(Constants.VERSION_KEY_STR) : ""));
+                response.setResponseErrorCode(CommonCodeConstanst.CMD_NOTFOUND.getCode());
+                return response;
+            }
+            String validationString = paramsValidation(cmdDetail, params);
+            if (validationString != null) {
+                response.setResponseComment(validationString);
+                response.setResponseErrorCode(CommonCodeConstanst.PARAMETER_ERROR.getCode());
+                return response;
             }
+            return (Response) execute(cmdDetail, params, messageId).getMessageData();
+        } catch (Exception e) {
+            Log.error(e);
+            response.setResponseComment("Server-side processing failed!");
+            response.setResponseErrorCode(CommonCodeConstanst.SYS_UNKOWN_EXCEPTION.getCode());
+            return response;
         }
     }
 
@@ -309,7 +349,7 @@ public class RequestMessageProcessor {
         rspMessage.setMessageData(realResponse);
         try {
             Log.debug("responseWithEventCount: " + JSONUtils.obj2json(rspMessage));
-            ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+            ConnectManager.sendMessage(channel, rspMessage);
         } catch (JsonProcessingException e) {
             Log.error(e);
         }
@@ -0,0 +1,411 @@
+package io.nuls.core.rpc.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.model.message.Message;
+import io.nuls.core.rpc.model.message.Request;
+import io.nuls.core.rpc.model.message.Response;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模块间二进制消息编解码
+ * Binary codec of the messages exchanged between modules
+ * <p>
+ * 消息按字段树编码，每个值为1字节类型标记加内容，长度与数量使用无符号varint前缀。
+ * 交易、区块等以十六进制字符串传输的长数据直接以原始字节存放，解码时还原为相同的十六进制字符串，
+ * 因此解码结果与JSON解析结果完全一致，CmdAnnotation的处理方法无需修改。
+ * <p>
+ * Messages are encoded as a tree of fields, each value is a one byte tag followed by its content, lengths and counts
+ * are unsigned varint prefixed. Long hex strings (transactions, blocks, ...) are carried as raw bytes and restored to
+ * the same hex string when decoded, so the decoded result equals what the JSON parser produces and the
+ * CmdAnnotation handlers do not change.
+ *
+ * @author tag
+ */
+public class BinaryMessageCodec {
+
+    /**
+     * 编码版本
+     */
+    private static final byte VERSION = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_TRUE = 1;
+    private static final byte TAG_FALSE = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_DOUBLE = 5;
+    private static final byte TAG_STRING = 6;
+    private static final byte TAG_HEX = 7;
+    private static final byte TAG_MAP = 8;
+    private static final byte TAG_LIST = 9;
+    private static final byte TAG_BIG_INTEGER = 10;
+
+    /**
+     * 按原始字节传输的十六进制字符串最小长度，短字符串(如链ID、金额)保持原样
+     * Minimum length of a hex string carried as raw bytes, short strings (chain ids, amounts) are kept as they are
+     */
+    private static final int HEX_MIN_LENGTH = 64;
+
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+    /**
+     * 编码消息
+     * Encode a message
+     *
+     * @param message 消息
+     * @return 编码结果
+     */
+    public static ByteBuf encode(Message message) {
+        ByteBuf buf = Unpooled.buffer(256);
+        buf.writeByte(VERSION);
+        writeMessage(buf, message);
+        return buf;
+    }
+
+    /**
+     * 解码消息
+     * Decode a message
+     *
+     * @param buf 二进制帧内容
+     * @return 消息
+     */
+    public static Message decode(ByteBuf buf) {
+        byte version = buf.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary message version: " + version);
+        }
+        Object value = readValue(buf);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Binary message is not an object");
+        }
+        Map<String, Object> map = (Map<String, Object>) value;
+        Message message = new Message();
+        message.setMessageID((String) map.get("MessageID"));
+        message.setTimestamp((String) map.get("Timestamp"));
+        message.setTimeZone((String) map.get("TimeZone"));
+        message.setMessageType((String) map.get("MessageType"));
+        message.setMessageData(map.get("MessageData"));
+        return message;
+    }
+
+    /**
+     * 消息对象按JSON序列化的字段名与字段顺序直接写入
+     * Message objects are written directly, with the field names and field order of their JSON serialization
+     */
+    private static void writeMessage(ByteBuf buf, Message message) {
+        buf.writeByte(TAG_MAP);
+        writeVarInt(buf, 5);
+        writeField(buf, "MessageID", message.getMessageID());
+        writeField(buf, "Timestamp", message.getTimestamp());
+        writeField(buf, "TimeZone", message.getTimeZone());
+        writeField(buf, "MessageType", message.getMessageType());
+        writeField(buf, "MessageData", message.getMessageData());
+    }
+
+    private static void writeRequest(ByteBuf buf, Request request) {
+        buf.writeByte(TAG_MAP);
+        writeVarInt(buf, 7);
+        writeField(buf, "RequestAck", request.getRequestAck());
+        writeField(buf, "SubscriptionEventCounter", request.getSubscriptionEventCounter());
+        writeField(buf, "SubscriptionPeriod", request.getSubscriptionPeriod());
+        writeField(buf, "SubscriptionRange", request.getSubscriptionRange());
+        writeField(buf, "ResponseMaxSize", request.getResponseMaxSize());
+        writeField(buf, "RequestMethods", request.getRequestMethods());
+        writeField(buf, "TimeOut", request.getTimeOut());
+    }
+
+    private static void writeResponse(ByteBuf buf, Response response) {
+        buf.writeByte(TAG_MAP);
+        writeVarInt(buf, 7);
+        writeField(buf, "RequestID", response.getRequestID());
+        writeField(buf, "ResponseProcessingTime", response.getResponseProcessingTime());
+        writeField(buf, "ResponseStatus", response.getResponseStatus());
+        writeField(buf, "ResponseComment", response.getResponseComment());
+        writeField(buf, "ResponseMaxSize", response.getResponseMaxSize());
+        writeField(buf, "ResponseData", response.getResponseData());
+        writeField(buf, "ResponseErrorCode", response.getResponseErrorCode());
+    }
+
+    private static void writeField(ByteBuf buf, String name, Object value) {
+        writeString(buf, name);
+        writeValue(buf, value);
+    }
+
+    /**
+     * 常用类型直接写入，其他对象仍按JSON树写入，保证与JSON序列化结果一致
+     * Common types are written directly, other objects go through the JSON tree to keep the JSON serialization result
+     */
+    private static void writeValue(ByteBuf buf, Object value) {
+        if (value == null) {
+            buf.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            writeText(buf, (String) value);
+        } else if (value instanceof Boolean) {
+            buf.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            buf.writeByte(TAG_INT);
+            buf.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            writeLong(buf, (Long) value);
+        } else if (value instanceof BigInteger) {
+            BigInteger integer = (BigInteger) value;
+            if (integer.bitLength() < Long.SIZE) {
+                writeLong(buf, integer.longValue());
+            } else {
+                buf.writeByte(TAG_BIG_INTEGER);
+                writeString(buf, integer.toString());
+            }
+        } else if ((value instanceof Double || value instanceof Float) && Double.isFinite(((Number) value).doubleValue())) {
+            //float按文本表示转换，与JSON解析结果一致
+            buf.writeByte(TAG_DOUBLE);
+            buf.writeDouble(value instanceof Float ? Double.parseDouble(value.toString()) : (Double) value);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            buf.writeByte(TAG_MAP);
+            writeVarInt(buf, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeField(buf, String.valueOf(entry.getKey()), entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            buf.writeByte(TAG_LIST);
+            writeVarInt(buf, collection.size());
+            for (Object item : collection) {
+                writeValue(buf, item);
+            }
+        } else if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            buf.writeByte(TAG_LIST);
+            writeVarInt(buf, array.length);
+            for (Object item : array) {
+                writeValue(buf, item);
+            }
+        } else if (value instanceof Request) {
+            writeRequest(buf, (Request) value);
+        } else if (value instanceof Response) {
+            writeResponse(buf, (Response) value);
+        } else if (value instanceof Message) {
+            writeMessage(buf, (Message) value);
+        } else {
+            writeNode(buf, JSONUtils.getInstance().valueToTree(value));
+        }
+    }
+
+    /**
+     * JSON解析整数时能放入int的为Integer
+     */
+    private static void writeLong(ByteBuf buf, long value) {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            buf.writeByte(TAG_INT);
+            buf.writeInt((int) value);
+        } else {
+            buf.writeByte(TAG_LONG);
+            buf.writeLong(value);
+        }
+    }
+
+    private static void writeNode(ByteBuf buf, JsonNode node) {
+        switch (node.getNodeType()) {
+            case OBJECT:
+                buf.writeByte(TAG_MAP);
+                writeVarInt(buf, node.size());
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    writeString(buf, field.getKey());
+                    writeNode(buf, field.getValue());
+                }
+                break;
+            case ARRAY:
+                buf.writeByte(TAG_LIST);
+                writeVarInt(buf, node.size());
+                for (JsonNode item : node) {
+                    writeNode(buf, item);
+                }
+                break;
+            case STRING:
+            case BINARY:
+                writeText(buf, node.asText());
+                break;
+            case NUMBER:
+                writeNumber(buf, node);
+                break;
+            case BOOLEAN:
+                buf.writeByte(node.booleanValue() ? TAG_TRUE : TAG_FALSE);
+                break;
+            case POJO:
+                writeNode(buf, JSONUtils.getInstance().valueToTree(((POJONode) node).getPojo()));
+                break;
+            default:
+                buf.writeByte(TAG_NULL);
+        }
+    }
+
+    /**
+     * 数字按JSON解析后的类型编码：整数能放入int时为Integer，其次Long，再次BigInteger；浮点数统一为Double
+     */
+    private static void writeNumber(ByteBuf buf, JsonNode node) {
+        if (node.isIntegralNumber()) {
+            if (node.canConvertToInt()) {
+                buf.writeByte(TAG_INT);
+                buf.writeInt(node.intValue());
+            } else if (node.canConvertToLong()) {
+                buf.writeByte(TAG_LONG);
+                buf.writeLong(node.longValue());
+            } else {
+                buf.writeByte(TAG_BIG_INTEGER);
+                writeString(buf, node.bigIntegerValue().toString());
+            }
+        } else {
+            buf.writeByte(TAG_DOUBLE);
+            buf.writeDouble(node.doubleValue());
+        }
+    }
+
+    private static void writeText(ByteBuf buf, String text) {
+        if (isHex(text)) {
+            buf.writeByte(TAG_HEX);
+            int length = text.length() / 2;
+            writeVarInt(buf, length);
+            for (int i = 0; i < text.length(); i += 2) {
+                buf.writeByte((hexValue(text.charAt(i)) << 4) | hexValue(text.charAt(i + 1)));
+            }
+        } else {
+            buf.writeByte(TAG_STRING);
+            writeString(buf, text);
+        }
+    }
+
+    /**
+     * 只有小写、偶数长度的十六进制字符串才能无损还原
+     */
+    private static boolean isHex(String text) {
+        int length = text.length();
+        if (length < HEX_MIN_LENGTH || (length & 1) != 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hexValue(char c) {
+        return c <= '9' ? c - '0' : c - 'a' + 10;
+    }
+
+    private static void writeString(ByteBuf buf, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static void writeVarInt(ByteBuf buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    private static Object readValue(ByteBuf buf) {
+        byte tag = buf.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_INT:
+                return buf.readInt();
+            case TAG_LONG:
+                return buf.readLong();
+            case TAG_DOUBLE:
+                return buf.readDouble();
+            case TAG_BIG_INTEGER:
+                return new BigInteger(readString(buf));
+            case TAG_STRING:
+                return readString(buf);
+            case TAG_HEX:
+                return readHex(buf);
+            case TAG_MAP:
+                int size = readLength(buf);
+                Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    String key = readString(buf);
+                    map.put(key, readValue(buf));
+                }
+                return map;
+            case TAG_LIST:
+                int count = readLength(buf);
+                List<Object> list = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    list.add(readValue(buf));
+                }
+                return list;
+            default:
+                throw new IllegalArgumentException("Unknown binary message tag: " + tag);
+        }
+    }
+
+    private static String readHex(ByteBuf buf) {
+        int length = readLength(buf);
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int b = buf.readUnsignedByte();
+            chars[i * 2] = HEX_CHARS[b >>> 4];
+            chars[i * 2 + 1] = HEX_CHARS[b & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    private static String readString(ByteBuf buf) {
+        int length = readLength(buf);
+        String text = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return text;
+    }
+
+    /**
+     * 读取长度或元素数量，每个字节或元素至少占一个字节，因此不能超过剩余可读字节数
+     * Read a length or element count, every byte or element takes at least one byte so it cannot exceed the readable bytes
+     */
+    private static int readLength(ByteBuf buf) {
+        int length = readVarInt(buf);
+        if (length < 0 || length > buf.readableBytes()) {
+            throw new IllegalArgumentException("Invalid length in binary message: " + length);
+        }
+        return length;
+    }
+
+    private static int readVarInt(ByteBuf buf) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed varint in binary message");
+            }
+            b = buf.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
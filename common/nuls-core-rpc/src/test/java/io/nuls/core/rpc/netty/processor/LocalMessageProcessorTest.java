@@ -0,0 +1,132 @@
+package io.nuls.core.rpc.netty.processor;
+
+import io.nuls.core.parse.I18nUtils;
+import io.nuls.core.rpc.cmd.BaseCmd;
+import io.nuls.core.rpc.model.CmdAnnotation;
+import io.nuls.core.rpc.model.message.Response;
+import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一JVM内模块直接调用测试
+ */
+public class LocalMessageProcessorTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        I18nUtils.loadCommonLanguage("en");
+        ConnectManager.LOCAL.setMethods(new ArrayList<>());
+        ConnectManager.LOCAL.setAbbreviation("lt");
+        ConnectManager.addCmdDetail(LocalTestCmd.class);
+        RequestMessageProcessor.handlerMap.put(LocalTestCmd.class.getName(), new LocalTestCmd());
+        ConnectManager.registerLocalRole("lt2");
+    }
+
+    @Test
+    public void localRole() {
+        Assert.assertTrue(ConnectManager.isLocalRole("lt", "lt_echo"));
+        Assert.assertTrue(ConnectManager.isLocalRole("lt2", "lt_echo"));
+        Assert.assertFalse(ConnectManager.isLocalRole("lt", "lt_missing"));
+        Assert.assertFalse(ConnectManager.isLocalRole("tx", "lt_echo"));
+    }
+
+    @Test
+    public void requestAndResponse() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("height", 100L);
+        params.put("hash", "0a0b");
+        Response response = ResponseMessageProcessor.requestAndResponse("lt", "lt_echo", params);
+        Assert.assertTrue(response.isSuccess());
+        Map data = (Map) ((Map) response.getResponseData()).get("lt_echo");
+        Assert.assertEquals(Integer.class, data.get("height").getClass());
+        Assert.assertEquals("0a0b", data.get("hash"));
+        Assert.assertEquals(Arrays.asList(1, 5000000000L), data.get("list"));
+        Assert.assertEquals("AQI=", data.get("bytes"));
+    }
+
+    @Test
+    public void runsOnCallerThread() throws Exception {
+        Response response = ResponseMessageProcessor.requestAndResponse("lt", "lt_thread", new HashMap());
+        Assert.assertEquals(Thread.currentThread().getName(), ((Map) response.getResponseData()).get("lt_thread"));
+        response = ResponseMessageProcessor.requestAndResponse("lt2", "lt_thread", new HashMap());
+        Assert.assertEquals(Thread.currentThread().getName(), ((Map) response.getResponseData()).get("lt_thread"));
+    }
+
+    @Test
+    public void nestedRequestToOwnRole() throws Exception {
+        //本地线程全部在处理对自身的同步请求时不能死锁
+        List<CompletableFuture<Response>> futures = new ArrayList<>();
+        for (int i = 0; i < Runtime.getRuntime().availableProcessors() * 4; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return ResponseMessageProcessor.requestAndResponse("lt2", "lt_nested", new HashMap(), 5000);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (CompletableFuture<Response> future : futures) {
+            Assert.assertTrue(future.get(10, TimeUnit.SECONDS).isSuccess());
+        }
+    }
+
+    @Test
+    public void timeOutNotEnforced() throws Exception {
+        //同步的本地请求在调用方线程执行完成后才返回，不受超时时间限制
+        Response response = ResponseMessageProcessor.requestAndResponse("lt2", "lt_sleep", new HashMap(), 100);
+        Assert.assertTrue(response.isSuccess());
+    }
+
+    @Test
+    public void normalize() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("s", "a");
+        map.put("i", 1);
+        Assert.assertSame(map, LocalMessageProcessor.normalize(map));
+        map.put("l", 2L);
+        map.put("big", new BigInteger("123456789012345678901234567890"));
+        Map normalized = (Map) LocalMessageProcessor.normalize(map);
+        Assert.assertNotSame(map, normalized);
+        Assert.assertEquals(Arrays.asList("s", "i", "l", "big"), new ArrayList<>(normalized.keySet()));
+        Assert.assertEquals(2, normalized.get("l"));
+        Assert.assertEquals(map.get("big"), normalized.get("big"));
+    }
+
+    public static class LocalTestCmd extends BaseCmd {
+
+        @CmdAnnotation(cmd = "lt_echo", version = 1.0, description = "echo")
+        public Response echo(Map params) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("height", params.get("height"));
+            result.put("hash", params.get("hash"));
+            result.put("list", Arrays.asList(1L, 5000000000L));
+            result.put("bytes", new byte[]{1, 2});
+            return success(result);
+        }
+
+        @CmdAnnotation(cmd = "lt_thread", version = 1.0, description = "thread")
+        public Response thread(Map params) {
+            return success(Thread.currentThread().getName());
+        }
+
+        @CmdAnnotation(cmd = "lt_nested", version = 1.0, description = "nested")
+        public Response nested(Map params) throws Exception {
+            Thread.sleep(10);
+            Response response = ResponseMessageProcessor.requestAndResponse("lt", "lt_echo", new HashMap(), 5000);
+            return response.isSuccess() ? success() : failed(response.getResponseComment());
+        }
+
+        @CmdAnnotation(cmd = "lt_sleep", version = 1.0, description = "sleep")
+        public Response sleep(Map params) throws InterruptedException {
+            Thread.sleep(500);
+            return success();
+        }
+    }
+}
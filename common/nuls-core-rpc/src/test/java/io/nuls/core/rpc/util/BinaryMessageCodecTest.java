@@ -0,0 +1,109 @@
+package io.nuls.core.rpc.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.model.message.Ack;
+import io.nuls.core.rpc.model.message.Message;
+import io.nuls.core.rpc.model.message.MessageType;
+import io.nuls.core.rpc.model.message.MessageUtil;
+import io.nuls.core.rpc.model.message.Request;
+import io.nuls.core.rpc.model.message.Response;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 二进制消息编解码测试，解码结果应与JSON解析结果一致
+ */
+public class BinaryMessageCodecTest {
+
+    @Test
+    public void requestRoundTrip() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("chainId", 2);
+        params.put("height", 12345678901L);
+        params.put("amount", new BigInteger("123456789012345678901234567890"));
+        params.put("rate", 0.5);
+        params.put("tx", "0a0b0c0d0e0f00112233445566778899aabbccddeeff0a0b0c0d0e0f00112233445566778899aabbccddeeff");
+        params.put("upperHex", "0A0B0C0D0E0F00112233445566778899AABBCCDDEEFF0A0B0C0D0E0F00112233445566778899AABBCCDDEEFF");
+        params.put("address", "tNULSeBaMnrs6JKrCy6TQdzYJZkMZJDng7QAsD");
+        params.put("txList", Arrays.asList("aa", "bb", "中文"));
+        params.put("flag", true);
+        params.put("empty", null);
+        Request request = MessageUtil.newRequest("tx_newTx", params, "0", "0", "0");
+        Message message = MessageUtil.basicMessage(MessageType.Request);
+        message.setMessageData(request);
+
+        assertSameAsJson(message);
+    }
+
+    @Test
+    public void responseRoundTrip() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("value", 1L);
+        data.put("big", BigInteger.valueOf(Long.MAX_VALUE));
+        data.put("rate", 0.1f);
+        data.put("hashes", new String[]{"aa", null});
+        data.put("short", (short) 3);
+        Ack ack = new Ack();
+        ack.setRequestId("1");
+        data.put("ack", ack);
+        Response response = MessageUtil.newSuccessResponse("1");
+        response.setResponseData(Collections.singletonMap("cmd", data));
+        Message message = MessageUtil.basicMessage(MessageType.Response);
+        message.setMessageData(response);
+
+        assertSameAsJson(message);
+    }
+
+    @Test
+    public void rejectInvalidLength() {
+        //列表数量超过剩余字节数
+        assertMalformed(new byte[]{1, 9, (byte) 0xFF, (byte) 0xFF, 0x7F});
+        //负数长度
+        assertMalformed(new byte[]{1, 6, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+        //十六进制数据长度超过剩余字节数
+        assertMalformed(new byte[]{1, 7, 10, 1, 2});
+        //对象字段数量超过剩余字节数
+        assertMalformed(new byte[]{1, 8, 100});
+    }
+
+    private void assertMalformed(byte[] bytes) {
+        try {
+            BinaryMessageCodec.decode(Unpooled.wrappedBuffer(bytes));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Invalid length"));
+        }
+    }
+
+    @Test
+    public void encodedSmallerThanJson() throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 1024; i++) {
+            hex.append(String.format("%02x", i & 0xFF));
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("tx", hex.toString());
+        Message message = MessageUtil.basicMessage(MessageType.Request);
+        message.setMessageData(MessageUtil.newRequest("tx_newTx", params, "0", "0", "0"));
+
+        ByteBuf buf = BinaryMessageCodec.encode(message);
+        Assert.assertTrue(buf.readableBytes() < JSONUtils.obj2ByteArray(message).length * 2 / 3);
+        assertSameAsJson(message);
+    }
+
+    private void assertSameAsJson(Message message) throws Exception {
+        Message expected = JSONUtils.byteArray2pojo(JSONUtils.obj2ByteArray(message), Message.class);
+        Message actual = BinaryMessageCodec.decode(BinaryMessageCodec.encode(message));
+        Assert.assertEquals(expected.getMessageID(), actual.getMessageID());
+        Assert.assertEquals(expected.getMessageType(), actual.getMessageType());
+        Assert.assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        Assert.assertEquals(expected.getTimeZone(), actual.getTimeZone());
+        Assert.assertEquals(expected.getMessageData(), actual.getMessageData());
+        Assert.assertEquals(JSONUtils.obj2json(expected), JSONUtils.obj2json(actual));
+    }
+}
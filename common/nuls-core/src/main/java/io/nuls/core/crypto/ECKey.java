@@ -661,8 +661,22 @@ public class ECKey {
      * @param pub       The public key bytes to use.
      */
     public static boolean verify(byte[] data, ECDSASignature signature, byte[] pub) {
+        return verify(data, signature, CURVE.getCurve().decodePoint(pub));
+    }
+
+    /**
+     * <p>Verifies the given ECDSA signature against the message bytes using an already decoded public key point.</p>
+     *
+     * <p>Reusing the same point for repeated public keys skips the point decoding and keeps the multiplication
+     * precomputation cached on the point.</p>
+     *
+     * @param data      Hash of the data to verify.
+     * @param signature ASN.1 encoded signature.
+     * @param pub       The decoded public key point.
+     */
+    public static boolean verify(byte[] data, ECDSASignature signature, ECPoint pub) {
         ECDSASigner signer = new ECDSASigner();
-        ECPublicKeyParameters params = new ECPublicKeyParameters(CURVE.getCurve().decodePoint(pub), CURVE);
+        ECPublicKeyParameters params = new ECPublicKeyParameters(pub, CURVE);
         signer.init(false, params);
         try {
             return signer.verifySignature(data, signature.r, signature.s);
@@ -0,0 +1,68 @@
+package io.nuls.core.metrics;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.thread.ExecutorRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 模块运行指标注册表，线程池指标之外的计数器（如缓存命中）在此登记，统一通过getModuleMetrics接口导出
+ * Registry of module runtime metrics, counters other than the pool metrics (e.g. cache hits) are registered here and exported through the getModuleMetrics cmd
+ *
+ * @author tag
+ */
+public class MetricsRegistry {
+
+    public static final String EXECUTORS = "executors";
+
+    private static final Map<String, Supplier<Map<String, Object>>> SOURCES = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * 登记指标来源，同名来源会被替换
+     * Register a metrics source, a source of the same name is replaced
+     */
+    public static void register(String name, Supplier<Map<String, Object>> source) {
+        SOURCES.put(name, source);
+    }
+
+    public static void unregister(String name) {
+        SOURCES.remove(name);
+    }
+
+    /**
+     * 当前所有指标，包含线程池指标与登记的来源
+     * All current metrics, including the pool metrics and the registered sources
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(EXECUTORS, ExecutorRegistry.getMetrics());
+        for (Map.Entry<String, Supplier<Map<String, Object>>> entry : SOURCES.entrySet()) {
+            try {
+                map.put(entry.getKey(), entry.getValue().get());
+            } catch (Exception e) {
+                Log.error("read metrics " + entry.getKey() + " error", e);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 输出登记来源的指标
+     * Log the metrics of the registered sources
+     */
+    public static void report() {
+        for (Map.Entry<String, Supplier<Map<String, Object>>> entry : SOURCES.entrySet()) {
+            try {
+                Log.debug("{} metrics: {}", entry.getKey(), entry.getValue().get());
+            } catch (Exception e) {
+                Log.error("read metrics " + entry.getKey() + " error", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.nuls.core.thread;
+
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * 有容量上限的优先级队列，超过容量时offer返回false，由线程池按拒绝策略处理
+ * Priority queue with a capacity, offer returns false when full so that the pool applies its rejection policy
+ *
+ * @author tag
+ */
+class BoundedPriorityBlockingQueue<E> extends PriorityBlockingQueue<E> {
+
+    private final int capacity;
+
+    BoundedPriorityBlockingQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (size() >= capacity) {
+            return false;
+        }
+        return super.offer(e);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+}
@@ -0,0 +1,170 @@
+package io.nuls.core.thread;
+
+/**
+ * 线程池运行指标快照
+ * Snapshot of the metrics of a registered pool
+ *
+ * @author tag
+ */
+public class ExecutorMetrics {
+
+    private String name;
+
+    private int poolSize;
+
+    private int activeCount;
+
+    private int queueSize;
+
+    /**
+     * 队列容量，-1表示无界
+     */
+    private int queueCapacity;
+
+    private long completedCount;
+
+    private long rejectedCount;
+
+    /**
+     * 排队耗时(微秒)
+     */
+    private long waitP50;
+
+    private long waitP99;
+
+    private long waitMax;
+
+    /**
+     * 执行耗时(微秒)
+     */
+    private long runP50;
+
+    private long runP99;
+
+    private long runMax;
+
+    public ExecutorMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 队列已满或线程全部忙碌
+     * The queue is full or all threads are busy
+     */
+    public boolean isSaturated() {
+        if (queueCapacity > 0 && queueSize >= queueCapacity) {
+            return true;
+        }
+        return activeCount >= poolSize && queueSize > 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public void setActiveCount(int activeCount) {
+        this.activeCount = activeCount;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(long rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public long getWaitP50() {
+        return waitP50;
+    }
+
+    public void setWaitP50(long waitP50) {
+        this.waitP50 = waitP50;
+    }
+
+    public long getWaitP99() {
+        return waitP99;
+    }
+
+    public void setWaitP99(long waitP99) {
+        this.waitP99 = waitP99;
+    }
+
+    public long getWaitMax() {
+        return waitMax;
+    }
+
+    public void setWaitMax(long waitMax) {
+        this.waitMax = waitMax;
+    }
+
+    public long getRunP50() {
+        return runP50;
+    }
+
+    public void setRunP50(long runP50) {
+        this.runP50 = runP50;
+    }
+
+    public long getRunP99() {
+        return runP99;
+    }
+
+    public void setRunP99(long runP99) {
+        this.runP99 = runP99;
+    }
+
+    public long getRunMax() {
+        return runMax;
+    }
+
+    public void setRunMax(long runMax) {
+        this.runMax = runMax;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{threads=" + activeCount + "/" + poolSize +
+                ", queue=" + queueSize + "/" + (queueCapacity < 0 ? "unbounded" : String.valueOf(queueCapacity)) +
+                ", completed=" + completedCount +
+                ", rejected=" + rejectedCount +
+                ", wait(us) p50=" + waitP50 + " p99=" + waitP99 + " max=" + waitMax +
+                ", run(us) p50=" + runP50 + " p99=" + runP99 + " max=" + runMax + "}";
+    }
+}
@@ -0,0 +1,260 @@
+package io.nuls.core.thread;
+
+import io.nuls.core.core.config.ConfigurationLoader;
+import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.log.Log;
+import io.nuls.core.metrics.MetricsRegistry;
+import io.nuls.core.model.StringUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import io.nuls.core.thread.commom.ThreadCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命名线程池注册表
+ * 所有线程池按名称注册，线程数、队列长度和拒绝策略可通过配置项(或-D参数)覆盖:
+ * executor.{name}.threads / executor.{name}.queue / executor.{name}.rejection
+ * 注册的线程池会统计队列深度、活动线程数、排队和执行耗时，并定时输出饱和的线程池。
+ * <p>
+ * Registry of named pools.
+ * Thread count, queue size and rejection policy of every pool can be overridden by config items (or -D options):
+ * executor.{name}.threads / executor.{name}.queue / executor.{name}.rejection
+ * Registered pools export queue depth, active threads, queue wait and run time, saturated pools are logged periodically.
+ *
+ * @author tag
+ */
+public class ExecutorRegistry {
+
+    private static final String CONFIG_PREFIX = "executor.";
+
+    private static final String CONFIG_REPORT_INTERVAL = "executor.report.interval";
+
+    /**
+     * 默认每60秒输出一次指标
+     */
+    private static final int DEFAULT_REPORT_INTERVAL = 60;
+
+    private static final Map<String, ExecutorService> EXECUTORS = new ConcurrentHashMap<>();
+
+    private static final Map<String, Long> REPORTED_REJECTED = new ConcurrentHashMap<>();
+
+    private static volatile ScheduledThreadPoolExecutor reporter;
+
+    private ExecutorRegistry() {
+    }
+
+    /**
+     * 获取指定名称的共享线程池，不存在时创建
+     * Get the shared pool of the name, create it when absent
+     *
+     * @param name      线程池名称
+     * @param threads   默认线程数
+     * @param queueSize 默认队列长度，小于等于0表示无界
+     * @param policy    默认拒绝策略
+     */
+    public static ThreadPoolExecutor getOrCreate(String name, int threads, int queueSize, RejectionPolicy policy) {
+        return (ThreadPoolExecutor) EXECUTORS.computeIfAbsent(name, n -> newPool(n, threads, queueSize, policy, false, new NulsThreadFactory(n)));
+    }
+
+    /**
+     * 获取指定名称的共享优先级线程池，提交的任务需实现Comparable
+     * Get the shared priority pool of the name, submitted tasks must be Comparable
+     */
+    public static ThreadPoolExecutor getOrCreatePriority(String name, int threads, int queueSize, RejectionPolicy policy) {
+        return (ThreadPoolExecutor) EXECUTORS.computeIfAbsent(name, n -> newPool(n, threads, queueSize, policy, true, new NulsThreadFactory(n)));
+    }
+
+    /**
+     * 创建并注册一个新的线程池，名称重复时追加序号
+     * Create and register a new pool, a sequence is appended to a duplicated name
+     */
+    public static ThreadPoolExecutor create(String name, int threads, int queueSize, RejectionPolicy policy, NulsThreadFactory factory) {
+        ThreadPoolExecutor pool = newPool(name, threads, queueSize, policy, false, factory);
+        register(name, pool);
+        return pool;
+    }
+
+    /**
+     * 创建并注册一个定时线程池
+     * Create and register a scheduled pool
+     */
+    public static ScheduledThreadPoolExecutor createScheduled(String name, int threads, NulsThreadFactory factory) {
+        int count = getConfig(name, "threads", threads);
+        ScheduledThreadPoolExecutor pool = new InstrumentedScheduledThreadPoolExecutor(count, factory, new ExecutorStats(name, -1));
+        ThreadCache.getInstance().putPool(factory.getPoolName(), pool);
+        register(name, pool);
+        return pool;
+    }
+
+    public static ExecutorMetrics getMetrics(String name) {
+        return metrics(EXECUTORS.get(name));
+    }
+
+    public static List<ExecutorMetrics> getMetrics() {
+        List<ExecutorMetrics> list = new ArrayList<>();
+        for (ExecutorService executor : EXECUTORS.values()) {
+            ExecutorMetrics metrics = metrics(executor);
+            if (metrics != null) {
+                list.add(metrics);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 关闭并注销线程池
+     * Shutdown and unregister the pool
+     */
+    public static void shutdown(String name) {
+        ExecutorService executor = EXECUTORS.remove(name);
+        REPORTED_REJECTED.remove(name);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 线程池终止后注销，按实例创建的线程池不会一直留在注册表中
+     * Unregister a pool once it terminates, so pools created per instance do not stay in the registry
+     */
+    static void unregister(ExecutorService pool) {
+        for (Map.Entry<String, ExecutorService> entry : EXECUTORS.entrySet()) {
+            if (entry.getValue() == pool && EXECUTORS.remove(entry.getKey(), pool)) {
+                REPORTED_REJECTED.remove(entry.getKey());
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads, int queueSize, RejectionPolicy policy, boolean priority, NulsThreadFactory factory) {
+        int count = getConfig(name, "threads", threads);
+        if (count <= 0) {
+            throw new RuntimeException("thread count of " + name + " must be positive!");
+        }
+        int capacity = getConfig(name, "queue", queueSize);
+        RejectionPolicy rejection = policy;
+        String policyValue = getConfigValue(name, "rejection");
+        if (StringUtils.isNotBlank(policyValue)) {
+            rejection = RejectionPolicy.valueOf(policyValue.trim().toUpperCase());
+        }
+        //优先级队列的put不会等待,BLOCK在优先级线程池中会直接丢弃任务
+        if (priority && rejection == RejectionPolicy.BLOCK) {
+            throw new RuntimeException("rejection policy BLOCK is not supported by priority pool " + name + "!");
+        }
+        BlockingQueue<Runnable> queue;
+        if (priority) {
+            queue = capacity > 0 ? new BoundedPriorityBlockingQueue<>(capacity) : new PriorityBlockingQueue<>();
+        } else {
+            queue = capacity > 0 ? new LinkedBlockingQueue<>(capacity) : new LinkedBlockingQueue<>();
+        }
+        ThreadPoolExecutor pool = new InstrumentedThreadPoolExecutor(count, queue, factory, new ExecutorStats(name, capacity > 0 ? capacity : -1), rejection);
+        ThreadCache.getInstance().putPool(factory.getPoolName(), pool);
+        startReporter();
+        return pool;
+    }
+
+    private static void register(String name, ExecutorService pool) {
+        String key = name;
+        for (int i = 2; EXECUTORS.putIfAbsent(key, pool) != null; i++) {
+            key = name + "#" + i;
+        }
+        startReporter();
+    }
+
+    private static ExecutorMetrics metrics(ExecutorService executor) {
+        if (executor instanceof InstrumentedThreadPoolExecutor) {
+            return ((InstrumentedThreadPoolExecutor) executor).getMetrics();
+        }
+        if (executor instanceof InstrumentedScheduledThreadPoolExecutor) {
+            return ((InstrumentedScheduledThreadPoolExecutor) executor).getMetrics();
+        }
+        return null;
+    }
+
+    private static int getConfig(String name, String key, int defaultValue) {
+        String value = getConfigValue(name, key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            Log.warn("invalid executor config {}{}.{}={}", CONFIG_PREFIX, name, key, value);
+            return defaultValue;
+        }
+    }
+
+    private static String getConfigValue(String name, String key) {
+        return getConfigValue(CONFIG_PREFIX + name + "." + key);
+    }
+
+    /**
+     * 先读取-D参数，再读取模块配置
+     */
+    private static String getConfigValue(String key) {
+        String value = System.getProperty(key);
+        if (StringUtils.isNotBlank(value)) {
+            return value;
+        }
+        try {
+            ConfigurationLoader.ConfigItem item = SpringLiteContext.getBean(ConfigurationLoader.class).getConfigItem(key);
+            return item == null ? null : item.getValue();
+        } catch (Exception e) {
+            //配置尚未加载
+            return null;
+        }
+    }
+
+    private static void startReporter() {
+        if (reporter != null) {
+            return;
+        }
+        synchronized (ExecutorRegistry.class) {
+            if (reporter != null) {
+                return;
+            }
+            int interval = DEFAULT_REPORT_INTERVAL;
+            String value = getConfigValue(CONFIG_REPORT_INTERVAL);
+            if (StringUtils.isNotBlank(value)) {
+                interval = Integer.parseInt(value.trim());
+            }
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "executor-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleAtFixedRate(ExecutorRegistry::report, interval, interval, TimeUnit.SECONDS);
+            reporter = executor;
+        }
+    }
+
+    /**
+     * 输出饱和或发生过拒绝的线程池指标
+     * Log the metrics of pools that are saturated or rejected tasks since the last report
+     */
+    private static void report() {
+        try {
+            for (ExecutorMetrics metrics : getMetrics()) {
+                long lastRejected = REPORTED_REJECTED.getOrDefault(metrics.getName(), 0L);
+                REPORTED_REJECTED.put(metrics.getName(), metrics.getRejectedCount());
+                if (metrics.isSaturated() || metrics.getRejectedCount() > lastRejected) {
+                    Log.warn("executor metrics: {}", metrics);
+                } else {
+                    Log.debug("executor metrics: {}", metrics);
+                }
+            }
+            MetricsRegistry.report();
+        } catch (Exception e) {
+            Log.error(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io.nuls.core.thread;
+
+import io.nuls.core.log.Log;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 注册线程池的排队/执行耗时与拒绝次数统计
+ * Queue wait, run time and rejection statistics of a registered pool
+ *
+ * @author tag
+ */
+class ExecutorStats {
+
+    private final String name;
+
+    private final int queueCapacity;
+
+    private final LatencyHistogram wait = new LatencyHistogram();
+
+    private final LatencyHistogram run = new LatencyHistogram();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final ThreadLocal<Long> startTime = new ThreadLocal<>();
+
+    ExecutorStats(String name, int queueCapacity) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+    }
+
+    void beforeExecute(Runnable task) {
+        long now = System.nanoTime();
+        if (task instanceof TimedTask) {
+            wait.record(now - ((TimedTask) task).enqueueTime);
+        }
+        startTime.set(now);
+    }
+
+    void afterExecute() {
+        Long time = startTime.get();
+        if (time != null) {
+            run.record(System.nanoTime() - time);
+            startTime.remove();
+        }
+    }
+
+    RejectedExecutionHandler rejectionHandler(RejectionPolicy policy) {
+        return (task, executor) -> {
+            long count = rejected.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                Log.warn("executor {} is saturated, policy={}, rejected={}, queue={}", name, policy, count, executor.getQueue().size());
+            }
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("executor " + name + " is shutdown");
+            }
+            switch (policy) {
+                case CALLER_RUNS:
+                    task.run();
+                    break;
+                case DISCARD:
+                    break;
+                case DISCARD_OLDEST:
+                    executor.getQueue().poll();
+                    executor.execute(unwrap(task));
+                    break;
+                case BLOCK:
+                    try {
+                        executor.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("executor " + name + " interrupted while waiting for the queue");
+                    }
+                    break;
+                default:
+                    throw new RejectedExecutionException("executor " + name + " rejected the task, queue is full");
+            }
+        };
+    }
+
+    ExecutorMetrics snapshot(ThreadPoolExecutor executor) {
+        ExecutorMetrics metrics = new ExecutorMetrics(name);
+        metrics.setPoolSize(executor.getMaximumPoolSize());
+        metrics.setActiveCount(executor.getActiveCount());
+        metrics.setQueueSize(executor.getQueue().size());
+        metrics.setQueueCapacity(queueCapacity);
+        metrics.setCompletedCount(executor.getCompletedTaskCount());
+        metrics.setRejectedCount(rejected.get());
+        metrics.setWaitP50(wait.percentile(50));
+        metrics.setWaitP99(wait.percentile(99));
+        metrics.setWaitMax(wait.getMax());
+        metrics.setRunP50(run.percentile(50));
+        metrics.setRunP99(run.percentile(99));
+        metrics.setRunMax(run.getMax());
+        return metrics;
+    }
+
+    /**
+     * 包装任务并记录入队时间，任务出队后入队时间随包装对象一起释放
+     * Wrap the task with its enqueue time, which is released together with the wrapper once the task leaves the queue
+     */
+    static Runnable wrap(Runnable task) {
+        return new TimedTask(task, System.nanoTime());
+    }
+
+    static Runnable unwrap(Runnable task) {
+        return task instanceof TimedTask ? ((TimedTask) task).task : task;
+    }
+
+    /**
+     * 带入队时间的任务，优先级线程池中按原任务排序
+     * Task carrying its enqueue time, ordered by the original task in priority pools
+     */
+    private static final class TimedTask implements Runnable, Comparable<TimedTask> {
+
+        private final Runnable task;
+
+        private final long enqueueTime;
+
+        TimedTask(Runnable task, long enqueueTime) {
+            this.task = task;
+            this.enqueueTime = enqueueTime;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(TimedTask o) {
+            return ((Comparable<Object>) task).compareTo(o.task);
+        }
+    }
+}
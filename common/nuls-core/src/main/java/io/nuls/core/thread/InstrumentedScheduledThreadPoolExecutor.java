@@ -0,0 +1,42 @@
+package io.nuls.core.thread;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 记录执行耗时的定时线程池
+ * Scheduled pool recording run time
+ *
+ * @author tag
+ */
+class InstrumentedScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor {
+
+    private final ExecutorStats stats;
+
+    InstrumentedScheduledThreadPoolExecutor(int threads, ThreadFactory factory, ExecutorStats stats) {
+        super(threads, factory);
+        this.stats = stats;
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        stats.beforeExecute(r);
+        super.beforeExecute(t, r);
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        stats.afterExecute();
+    }
+
+    @Override
+    protected void terminated() {
+        super.terminated();
+        ExecutorRegistry.unregister(this);
+    }
+
+    ExecutorMetrics getMetrics() {
+        return stats.snapshot(this);
+    }
+}
@@ -0,0 +1,62 @@
+package io.nuls.core.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录排队和执行耗时的固定大小线程池
+ * Fixed size pool recording queue wait and run time
+ *
+ * @author tag
+ */
+class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final ExecutorStats stats;
+
+    InstrumentedThreadPoolExecutor(int threads, BlockingQueue<Runnable> queue, ThreadFactory factory, ExecutorStats stats, RejectionPolicy policy) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, factory);
+        this.stats = stats;
+        setRejectedExecutionHandler(stats.rejectionHandler(policy));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(ExecutorStats.wrap(command));
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = super.shutdownNow();
+        List<Runnable> list = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            list.add(ExecutorStats.unwrap(task));
+        }
+        return list;
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        stats.beforeExecute(r);
+        super.beforeExecute(t, r);
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        stats.afterExecute();
+    }
+
+    @Override
+    protected void terminated() {
+        super.terminated();
+        ExecutorRegistry.unregister(this);
+    }
+
+    ExecutorMetrics getMetrics() {
+        return stats.snapshot(this);
+    }
+}
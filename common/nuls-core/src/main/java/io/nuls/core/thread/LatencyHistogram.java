@@ -0,0 +1,62 @@
+package io.nuls.core.thread;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按2的幂划分桶的耗时直方图(微秒)，记录时无锁
+ * Lock free latency histogram (microseconds) with power of two buckets
+ *
+ * @author tag
+ */
+public class LatencyHistogram {
+
+    /**
+     * 第i个桶记录[2^(i-1), 2^i)微秒，最后一个桶记录更长的耗时
+     */
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * 近似百分位耗时，返回所在桶的上界(微秒)
+     * Approximate percentile, the upper bound of its bucket in microseconds
+     *
+     * @param percent 0-100
+     */
+    public long percentile(double percent) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percent / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(1L << i, max.get());
+            }
+        }
+        return max.get();
+    }
+}
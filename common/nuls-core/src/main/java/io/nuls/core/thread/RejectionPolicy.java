@@ -0,0 +1,30 @@
+package io.nuls.core.thread;
+
+/**
+ * 线程池队列已满时的拒绝策略
+ * Rejection policy of a pool whose queue is full
+ *
+ * @author tag
+ */
+public enum RejectionPolicy {
+    /**
+     * 抛出RejectedExecutionException
+     */
+    ABORT,
+    /**
+     * 由提交任务的线程执行
+     */
+    CALLER_RUNS,
+    /**
+     * 丢弃新任务
+     */
+    DISCARD,
+    /**
+     * 丢弃队列中最早的任务后重新提交
+     */
+    DISCARD_OLDEST,
+    /**
+     * 提交任务的线程等待队列空出位置，保持单线程线程池的执行顺序，不能用于优先级线程池
+     */
+    BLOCK
+}
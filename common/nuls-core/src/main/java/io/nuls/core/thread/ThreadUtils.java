@@ -50,15 +50,7 @@ public class ThreadUtils {
         if (factory == null) {
             throw new RuntimeException("thread factory cannot be null!");
         }
-        LinkedBlockingQueue<Runnable> queue;
-        if (queueSize > 0) {
-            queue = new LinkedBlockingQueue<>(queueSize);
-        } else {
-            queue = new LinkedBlockingQueue<>();
-        }
-        ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, queue, factory);
-        THREAD_DATA_CACHE.putPool(factory.getPoolName(), pool);
-        return pool;
+        return ExecutorRegistry.create(factory.getPoolName(), threadCount, queueSize, RejectionPolicy.ABORT, factory);
     }
 
     /**
@@ -72,9 +64,7 @@ public class ThreadUtils {
         if (factory == null) {
             throw new RuntimeException("thread factory cannot be null!");
         }
-        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(threadCount, factory);
-        THREAD_DATA_CACHE.putPool(factory.getPoolName(), pool);
-        return pool;
+        return ExecutorRegistry.createScheduled(factory.getPoolName(), threadCount, factory);
     }
 
 
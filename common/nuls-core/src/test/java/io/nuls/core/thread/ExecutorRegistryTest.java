@@ -0,0 +1,212 @@
+package io.nuls.core.thread;
+
+import io.nuls.core.metrics.MetricsRegistry;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池注册表测试
+ */
+public class ExecutorRegistryTest {
+
+    @Test
+    public void metrics() throws Exception {
+        ThreadPoolExecutor pool = ExecutorRegistry.getOrCreate("test-metrics", 2, 100, RejectionPolicy.ABORT);
+        Assert.assertSame(pool, ExecutorRegistry.getOrCreate("test-metrics", 8, 8, RejectionPolicy.DISCARD));
+        for (int i = 0; i < 10; i++) {
+            Future<?> future = pool.submit(() -> sleep(2));
+            future.get();
+        }
+        ExecutorMetrics metrics = ExecutorRegistry.getMetrics("test-metrics");
+        Assert.assertEquals(2, metrics.getPoolSize());
+        Assert.assertEquals(100, metrics.getQueueCapacity());
+        Assert.assertEquals(0, metrics.getRejectedCount());
+        Assert.assertTrue(metrics.getRunP50() >= 1000);
+        Assert.assertTrue(metrics.getRunMax() >= metrics.getRunP50());
+        ExecutorRegistry.shutdown("test-metrics");
+        Assert.assertNull(ExecutorRegistry.getMetrics("test-metrics"));
+    }
+
+    @Test
+    public void rejection() throws Exception {
+        CountDownLatch block = new CountDownLatch(1);
+        ThreadPoolExecutor pool = ExecutorRegistry.getOrCreate("test-abort", 1, 1, RejectionPolicy.ABORT);
+        pool.execute(() -> await(block));
+        pool.execute(() -> await(block));
+        try {
+            pool.execute(() -> await(block));
+            Assert.fail();
+        } catch (RejectedExecutionException e) {
+            //队列已满
+        }
+        Assert.assertEquals(1, ExecutorRegistry.getMetrics("test-abort").getRejectedCount());
+        Assert.assertTrue(ExecutorRegistry.getMetrics("test-abort").isSaturated());
+
+        ThreadPoolExecutor callerRuns = ExecutorRegistry.getOrCreate("test-caller-runs", 1, 1, RejectionPolicy.CALLER_RUNS);
+        callerRuns.execute(() -> await(block));
+        callerRuns.execute(() -> await(block));
+        AtomicInteger ran = new AtomicInteger();
+        callerRuns.execute(ran::incrementAndGet);
+        Assert.assertEquals(1, ran.get());
+        block.countDown();
+        ExecutorRegistry.shutdown("test-abort");
+        ExecutorRegistry.shutdown("test-caller-runs");
+    }
+
+    @Test
+    public void blockUntilQueued() throws Exception {
+        CountDownLatch block = new CountDownLatch(1);
+        ThreadPoolExecutor pool = ExecutorRegistry.getOrCreate("test-block", 1, 1, RejectionPolicy.BLOCK);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        pool.execute(() -> {
+            await(block);
+            order.add(0);
+        });
+        pool.execute(() -> order.add(1));
+        Thread submitter = new Thread(() -> pool.execute(() -> order.add(2)));
+        submitter.start();
+        //队列已满,提交线程等待而不是自己执行
+        submitter.join(200);
+        Assert.assertTrue(submitter.isAlive());
+        Assert.assertTrue(order.isEmpty());
+        block.countDown();
+        submitter.join(5000);
+        pool.shutdown();
+        Assert.assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(0, 1, 2), order);
+        ExecutorRegistry.shutdown("test-block");
+
+        //优先级线程池不支持等待入队
+        try {
+            ExecutorRegistry.getOrCreatePriority("test-block-priority", 1, 1, RejectionPolicy.BLOCK);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            //ignore
+        }
+        Assert.assertNull(ExecutorRegistry.getMetrics("test-block-priority"));
+    }
+
+    @Test
+    public void priorityQueueBoundAndConfig() {
+        System.setProperty("executor.test-priority.queue", "2");
+        CountDownLatch block = new CountDownLatch(1);
+        ThreadPoolExecutor pool = ExecutorRegistry.getOrCreatePriority("test-priority", 1, 100, RejectionPolicy.DISCARD);
+        pool.execute(new Task(0, block));
+        sleep(50);
+        pool.execute(new Task(1, block));
+        pool.execute(new Task(2, block));
+        pool.execute(new Task(3, block));
+        ExecutorMetrics metrics = ExecutorRegistry.getMetrics("test-priority");
+        Assert.assertEquals(2, metrics.getQueueCapacity());
+        Assert.assertEquals(2, metrics.getQueueSize());
+        Assert.assertEquals(1, metrics.getRejectedCount());
+        block.countDown();
+        ExecutorRegistry.shutdown("test-priority");
+        System.clearProperty("executor.test-priority.queue");
+    }
+
+    @Test
+    public void unregisterOnTermination() throws Exception {
+        ThreadPoolExecutor first = ExecutorRegistry.create("test-per-instance", 1, 10, RejectionPolicy.ABORT, new NulsThreadFactory("test-per-instance"));
+        ThreadPoolExecutor second = ExecutorRegistry.create("test-per-instance", 1, 10, RejectionPolicy.ABORT, new NulsThreadFactory("test-per-instance"));
+        Assert.assertNotNull(ExecutorRegistry.getMetrics("test-per-instance#2"));
+        second.shutdown();
+        Assert.assertTrue(second.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertNull(ExecutorRegistry.getMetrics("test-per-instance#2"));
+        Assert.assertNotNull(ExecutorRegistry.getMetrics("test-per-instance"));
+        first.shutdownNow();
+        Assert.assertTrue(first.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertNull(ExecutorRegistry.getMetrics("test-per-instance"));
+    }
+
+    @Test
+    public void shutdownNowReturnsTasks() throws Exception {
+        CountDownLatch block = new CountDownLatch(1);
+        ThreadPoolExecutor pool = ExecutorRegistry.getOrCreatePriority("test-shutdown-now", 1, 10, RejectionPolicy.ABORT);
+        pool.execute(new Task(0, block));
+        sleep(50);
+        Task low = new Task(1, block);
+        Task high = new Task(2, block);
+        pool.execute(low);
+        pool.execute(high);
+        List<Runnable> tasks = pool.shutdownNow();
+        Assert.assertEquals(2, tasks.size());
+        Assert.assertSame(high, tasks.get(0));
+        Assert.assertSame(low, tasks.get(1));
+        Assert.assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertNull(ExecutorRegistry.getMetrics("test-shutdown-now"));
+    }
+
+    @Test
+    public void metricsRegistry() {
+        MetricsRegistry.register("test-source", () -> Collections.singletonMap("hit", 1L));
+        Map<String, Object> snapshot = MetricsRegistry.snapshot();
+        Assert.assertTrue(snapshot.containsKey(MetricsRegistry.EXECUTORS));
+        Assert.assertEquals(1L, ((Map) snapshot.get("test-source")).get("hit"));
+        MetricsRegistry.unregister("test-source");
+        Assert.assertFalse(MetricsRegistry.snapshot().containsKey("test-source"));
+    }
+
+    @Test
+    public void histogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.percentile(99));
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(10));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+        Assert.assertEquals(16, histogram.percentile(50));
+        Assert.assertEquals(16, histogram.percentile(99));
+        Assert.assertEquals(100000, histogram.percentile(100));
+        Assert.assertEquals(100000, histogram.getMax());
+    }
+
+    private static class Task implements Runnable, Comparable<Task> {
+        private final int priority;
+        private final CountDownLatch block;
+
+        Task(int priority, CountDownLatch block) {
+            this.priority = priority;
+            this.block = block;
+        }
+
+        @Override
+        public int compareTo(Task o) {
+            return Integer.compare(o.priority, priority);
+        }
+
+        @Override
+        public void run() {
+            await(block);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -30,4 +30,29 @@ package io.nuls.provider.api.constant;
  */
 public interface SdkConstant {
     String SDK_API = "nuls-api";
+
+    /**
+     * JSON-RPC批量请求共享线程池的线程数和队列长度
+     * Threads and queue size of the pool shared by JSON-RPC batches
+     */
+    int RPC_BATCH_THREADS = 16;
+    int RPC_BATCH_QUEUE_SIZE = 256;
+
+    /**
+     * 单个批次的最大并行数(含请求线程)
+     * Max parallelism of one batch, including the request thread
+     */
+    int RPC_BATCH_PARALLELISM = 8;
+
+    /**
+     * 单个批次的最大请求数
+     * Max requests in one batch
+     */
+    int RPC_BATCH_MAX_SIZE = 1000;
+
+    /**
+     * 批次请求数超过该值时按顺序流式输出结果
+     * Results of a batch larger than this are streamed in order
+     */
+    int RPC_BATCH_STREAM_SIZE = 100;
 }
@@ -0,0 +1,205 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.provider.api.jsonrpc;
+
+import io.nuls.provider.model.jsonrpc.RpcResult;
+import io.nuls.provider.model.jsonrpc.RpcResultError;
+import io.nuls.provider.utils.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * JSON-RPC 2.0 批量请求的并行执行
+ * 只读方法(get/is开头)在共享线程池上并行执行，相同方法和参数的只读请求在同一批次内只执行一次；
+ * 其它方法按请求顺序在调用线程上依次执行。结果按请求顺序通过{@link #get(int)}取出，调用线程在等待时也参与执行。
+ * <p>
+ * Parallel execution of a JSON-RPC 2.0 batch.
+ * Read-only methods (get/is prefix) run in parallel on the shared pool, identical read-only requests in one batch are
+ * executed once. Other methods run one by one in request order on the calling thread. Results are taken in request
+ * order by {@link #get(int)}, the calling thread helps executing while it waits.
+ *
+ * @author: PierreLuo
+ */
+public class JsonRpcBatch {
+
+    private final List<Map<String, Object>> forms;
+
+    private final Function<Map<String, Object>, RpcResult> dispatcher;
+
+    /**
+     * 每个请求对应的执行槽位，合并的请求共享同一槽位
+     */
+    private final int[] slotOf;
+
+    /**
+     * 每个槽位第一次出现的请求下标
+     */
+    private final List<Integer> slotForm = new ArrayList<>();
+
+    private final List<Boolean> slotParallel = new ArrayList<>();
+
+    /**
+     * 可并行执行的槽位，按请求顺序排列
+     */
+    private final List<Integer> parallelSlots = new ArrayList<>();
+
+    private final AtomicInteger claimed = new AtomicInteger();
+
+    private CompletableFuture<RpcResult>[] results;
+
+    public JsonRpcBatch(List<Map<String, Object>> forms, Function<Map<String, Object>, RpcResult> dispatcher) {
+        this.forms = forms;
+        this.dispatcher = dispatcher;
+        this.slotOf = new int[forms.size()];
+        Map<String, Integer> coalesced = new HashMap<>();
+        for (int i = 0; i < forms.size(); i++) {
+            Map<String, Object> form = forms.get(i);
+            boolean readOnly = isReadOnly(form.get("method"));
+            if (readOnly) {
+                String key = form.get("method") + ":" + form.get("params");
+                Integer slot = coalesced.get(key);
+                if (null != slot) {
+                    slotOf[i] = slot;
+                    continue;
+                }
+                coalesced.put(key, slotForm.size());
+                parallelSlots.add(slotForm.size());
+            }
+            slotOf[i] = slotForm.size();
+            slotForm.add(i);
+            slotParallel.add(readOnly);
+        }
+    }
+
+    /**
+     * 提交并行执行的工作线程，调用线程本身也算一个
+     * Submit the parallel workers, the calling thread counts as one
+     *
+     * @param executor    共享线程池
+     * @param parallelism 单个批次的最大并行数
+     */
+    @SuppressWarnings("unchecked")
+    public void start(ExecutorService executor, int parallelism) {
+        results = new CompletableFuture[slotForm.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new CompletableFuture<>();
+        }
+        int workers = Math.min(parallelism, parallelSlots.size()) - 1;
+        try {
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> {
+                    while (runNext()) {
+                    }
+                });
+            }
+        } catch (RejectedExecutionException e) {
+            //线程池已满时剩余请求由调用线程执行
+            Log.debug("json-rpc batch executor is busy, run on the request thread");
+        }
+    }
+
+    public int size() {
+        return forms.size();
+    }
+
+    /**
+     * 按请求顺序取结果，未完成时由调用线程继续执行
+     * Get the result of the request at index, the calling thread keeps executing until it is done
+     */
+    public RpcResult get(int index) {
+        int slot = slotOf[index];
+        CompletableFuture<RpcResult> future = results[slot];
+        if (!slotParallel.get(slot)) {
+            if (!future.isDone()) {
+                run(slot);
+            }
+        } else {
+            while (!future.isDone() && runNext()) {
+            }
+        }
+        RpcResult result = future.join();
+        if (slotForm.get(slot) == index) {
+            return result;
+        }
+        RpcResult copy = new RpcResult();
+        copy.setResult(result.getResult());
+        copy.setError(result.getError());
+        copy.setId(forms.get(index).get("id") + "");
+        return copy;
+    }
+
+    public List<RpcResult> getAll() {
+        List<RpcResult> list = new ArrayList<>(forms.size());
+        for (int i = 0; i < forms.size(); i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    private boolean runNext() {
+        int index = claimed.getAndIncrement();
+        if (index >= parallelSlots.size()) {
+            return false;
+        }
+        run(parallelSlots.get(index));
+        return true;
+    }
+
+    private void run(int slot) {
+        Map<String, Object> form = forms.get(slotForm.get(slot));
+        RpcResult result;
+        try {
+            result = dispatcher.apply(form);
+        } catch (Exception e) {
+            Log.error(e);
+            result = new RpcResult();
+            RpcResultError error = new RpcResultError();
+            error.setMessage("system error");
+            error.setCode("-32603");
+            error.setData(e.getMessage());
+            result.setError(error);
+            result.setId(form.get("id") + "");
+        }
+        results[slot].complete(result);
+    }
+
+    /**
+     * 只读方法可并行执行，并在同一批次内合并相同请求
+     */
+    private static boolean isReadOnly(Object method) {
+        if (!(method instanceof String)) {
+            return false;
+        }
+        String name = (String) method;
+        return name.startsWith("get") || name.startsWith("is");
+    }
+}
@@ -23,7 +23,12 @@
  */
 package io.nuls.provider.api.jsonrpc;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import io.nuls.provider.api.constant.SdkConstant;
 import io.nuls.provider.model.jsonrpc.RpcForm;
 import io.nuls.provider.model.jsonrpc.RpcResult;
 import io.nuls.provider.model.jsonrpc.RpcResultError;
@@ -33,9 +38,10 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
-import java.util.ArrayList;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author: PierreLuo
@@ -45,6 +51,11 @@ import java.util.Map;
 @Component
 public class JsonRpcServer {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ExecutorService batchExecutor = ThreadUtils.createThreadPool(SdkConstant.RPC_BATCH_THREADS,
+            SdkConstant.RPC_BATCH_QUEUE_SIZE, new NulsThreadFactory("jsonrpc-batch"));
+
     @POST
     @Produces(MediaType.APPLICATION_JSON)
     public Object dispatcher(Object form) {
@@ -61,14 +72,27 @@ public class JsonRpcServer {
     }
 
     private Object dispatcherList(List<Map<String, Object>> forms) {
-        List<RpcResult> list = new ArrayList<>();
-        for(Map<String, Object> form : forms) {
-            list.add(dispatcher(form));
+        if (forms.size() > SdkConstant.RPC_BATCH_MAX_SIZE) {
+            return responseError("-32600", "the batch size exceeds " + SdkConstant.RPC_BATCH_MAX_SIZE, "0");
+        }
+        JsonRpcBatch batch = new JsonRpcBatch(forms, this::dispatcher);
+        batch.start(batchExecutor, SdkConstant.RPC_BATCH_PARALLELISM);
+        if (batch.size() == 1) {
+            return batch.get(0);
         }
-        if(list.size() == 1) {
-            return list.get(0);
+        if (batch.size() <= SdkConstant.RPC_BATCH_STREAM_SIZE) {
+            return batch.getAll();
         }
-        return list;
+        //大批次按顺序边执行边输出，不必等待全部结果
+        return (StreamingOutput) output -> {
+            JsonGenerator generator = MAPPER.getFactory().createGenerator(output);
+            generator.writeStartArray();
+            for (int i = 0; i < batch.size(); i++) {
+                MAPPER.writeValue(generator, batch.get(i));
+            }
+            generator.writeEndArray();
+            generator.flush();
+        };
     }
 
     private RpcResult dispatcher(Map<String, Object> form) {
@@ -0,0 +1,89 @@
+package io.nuls.provider.api.jsonrpc;
+
+import io.nuls.provider.model.jsonrpc.RpcResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JSON-RPC批量请求并行执行测试
+ */
+public class JsonRpcBatchTest {
+
+    private ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void keepOrderAndCoalesce() {
+        List<Map<String, Object>> forms = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            forms.add(form(i, "getAccountBalance", "addr" + (i % 10)));
+        }
+        AtomicInteger calls = new AtomicInteger();
+        JsonRpcBatch batch = new JsonRpcBatch(forms, form -> {
+            calls.incrementAndGet();
+            return echo(form);
+        });
+        batch.start(executor, 4);
+        List<RpcResult> results = batch.getAll();
+        Assert.assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals(String.valueOf(i), results.get(i).getId());
+            Assert.assertEquals("[addr" + (i % 10) + "]", results.get(i).getResult());
+        }
+        //相同方法和参数只执行一次
+        Assert.assertEquals(10, calls.get());
+    }
+
+    @Test
+    public void writeMethodsRunInOrder() {
+        List<Map<String, Object>> forms = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            forms.add(form(i, i % 2 == 0 ? "transfer" : "getTx", "same"));
+        }
+        List<Integer> executed = new ArrayList<>();
+        JsonRpcBatch batch = new JsonRpcBatch(forms, form -> {
+            if ("transfer".equals(form.get("method"))) {
+                synchronized (executed) {
+                    executed.add(Integer.valueOf((String) form.get("id")));
+                }
+            }
+            return echo(form);
+        });
+        batch.start(executor, 4);
+        List<RpcResult> results = batch.getAll();
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(String.valueOf(i), results.get(i).getId());
+        }
+        //写操作不合并，且按请求顺序执行
+        Assert.assertEquals(Arrays.asList(0, 2, 4, 6, 8, 10, 12, 14, 16, 18), executed);
+    }
+
+    private Map<String, Object> form(int id, String method, String param) {
+        Map<String, Object> form = new HashMap<>();
+        form.put("jsonrpc", "2.0");
+        form.put("id", String.valueOf(id));
+        form.put("method", method);
+        form.put("params", new ArrayList<>(Arrays.asList(param)));
+        return form;
+    }
+
+    private RpcResult echo(Map<String, Object> form) {
+        RpcResult result = RpcResult.success(String.valueOf(form.get("params")));
+        result.setId((String) form.get("id"));
+        return result;
+    }
+}
@@ -105,11 +105,12 @@ public class BlockBootstrap extends RpcModule {
      */
     private void initDb() throws Exception {
         //读取配置文件,数据存储根目录,初始化打开该目录下所有表连接并放入缓存
-        RocksDBService.init(blockConfig.getDataFolder());
+        RocksDBService.init(blockConfig.getDataFolder(), blockConfig.getRocksDBConfig());
         RocksDBService.createTable(CHAIN_LATEST_HEIGHT);
         RocksDBService.createTable(CHAIN_PARAMETERS);
         RocksDBService.createTable(PROTOCOL_CONFIG);
         RocksDBService.createTable(ROLLBACK_HEIGHT);
+        RocksDBService.createTable(BLOCK_COMMIT_JOURNAL);
     }
 
     /**
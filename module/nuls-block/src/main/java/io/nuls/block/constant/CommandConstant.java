@@ -70,6 +70,14 @@ public interface CommandConstant {
      * 批量交易消息
      */
     String TXGROUP_MESSAGE = "txs";
+    /**
+     * 紧凑区块消息
+     */
+    String COMPACT_BLOCK_MESSAGE = "cBlock";
+    /**
+     * 按区块内序号批量获取交易
+     */
+    String GET_COMPACT_TXS_MESSAGE = "getcTxs";
 
     //普通服务对应的RPC命令
     /**
@@ -132,6 +140,10 @@ public interface CommandConstant {
      * 接收本地节点新打包的区块
      */
     String RECEIVE_PACKING_BLOCK = "receivePackingBlock";
+    /**
+     * 接收交易模块推送的未确认交易
+     */
+    String RECEIVE_UNCONFIRMED_TXS = "receiveUnconfirmedTxs";
     /**
      * 根据区块高度区间
      */
@@ -48,6 +48,10 @@ public interface Constant {
      * 存储每条链的最新高度
      */
     String CHAIN_LATEST_HEIGHT = "chain_latest_height";
+    /**
+     * 存储每条链正在提交的区块(高度+hash),区块完整保存后删除,用于崩溃恢复
+     */
+    String BLOCK_COMMIT_JOURNAL = "block_commit_journal";
     /**
      * 存储区块头数据
      */
@@ -61,6 +65,29 @@ public interface Constant {
      */
     String CACHED_BLOCK = "cached_block_";
 
+    /**
+     * 单个区块的最大交易数,打包交易数上限(10000)加上共识、合约等模块生成的系统交易,留有余量
+     */
+    int MAX_BLOCK_TX_COUNT = 20000;
+
+    /**
+     * 从该协议版本开始广播紧凑区块,此时网络中的节点都能处理紧凑区块消息,见protocol-config.json
+     */
+    short COMPACT_BLOCK_PROTOCOL_VERSION = 4;
+
+    /**
+     * 保存区块时并行通知共识、协议升级模块的线程池
+     */
+    String BLOCK_SAVE_NOTICE_POOL = "block-save-notice-pool";
+    /**
+     * 按顺序向跨链模块发送高度通知的线程池
+     */
+    String BLOCK_HEIGHT_NOTICE_POOL = "block-height-notice-pool";
+    /**
+     * 区块通知线程池队列长度
+     */
+    int BLOCK_NOTICE_QUEUE_SIZE = 1000;
+
     /**
      * 工作状态
      */
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.message;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.BaseBusinessMessage;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.Transaction;
+import io.nuls.block.utils.ShortTxIdUtil;
+import io.nuls.core.basic.VarInt;
+import io.nuls.core.constant.CommonCodeConstanst;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.parse.SerializeUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.nuls.block.constant.Constant.MAX_BLOCK_TX_COUNT;
+
+/**
+ * 紧凑区块广播消息
+ * 只包含区块头、按区块中顺序排列的6字节短交易ID,以及接收方交易池中不可能存在的系统交易
+ * <p>
+ * Compact block message.
+ * Carries the header, the 6-byte short ids of all transactions in block order, and the system transactions that can
+ * not be in the receiver's pool
+ *
+ * @author captain
+ */
+public class CompactBlockMessage extends BaseBusinessMessage {
+
+    private BlockHeader header;
+
+    /**
+     * 计算短ID用的随机数
+     */
+    private long nonce;
+
+    private long[] shortIds;
+
+    private List<Transaction> systemTxList;
+
+    public CompactBlockMessage() {
+    }
+
+    public BlockHeader getHeader() {
+        return header;
+    }
+
+    public void setHeader(BlockHeader header) {
+        this.header = header;
+    }
+
+    public long getNonce() {
+        return nonce;
+    }
+
+    public void setNonce(long nonce) {
+        this.nonce = nonce;
+    }
+
+    public long[] getShortIds() {
+        return shortIds;
+    }
+
+    public void setShortIds(long[] shortIds) {
+        this.shortIds = shortIds;
+    }
+
+    public List<Transaction> getSystemTxList() {
+        return systemTxList;
+    }
+
+    public void setSystemTxList(List<Transaction> systemTxList) {
+        this.systemTxList = systemTxList;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        size += SerializeUtils.sizeOfNulsData(header);
+        size += SerializeUtils.sizeOfInt64();
+        size += VarInt.sizeOf(shortIds.length);
+        size += shortIds.length * ShortTxIdUtil.SHORT_ID_LENGTH;
+        size += VarInt.sizeOf(systemTxList.size());
+        for (Transaction tx : systemTxList) {
+            size += SerializeUtils.sizeOfNulsData(tx);
+        }
+        return size;
+    }
+
+    @Override
+    public void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeNulsData(header);
+        stream.writeInt64(nonce);
+        stream.writeVarInt(shortIds.length);
+        for (long shortId : shortIds) {
+            stream.writeUint48(shortId);
+        }
+        stream.writeVarInt(systemTxList.size());
+        for (Transaction tx : systemTxList) {
+            stream.writeNulsData(tx);
+        }
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.header = byteBuffer.readNulsData(new BlockHeader());
+        this.nonce = byteBuffer.readInt64();
+        //数量来自网络,分配内存前先校验
+        long count = byteBuffer.readVarInt();
+        if (count < 0 || count > header.getTxCount() || count > MAX_BLOCK_TX_COUNT) {
+            throw new NulsException(CommonCodeConstanst.DATA_PARSE_ERROR);
+        }
+        this.shortIds = new long[(int) count];
+        for (int i = 0; i < count; i++) {
+            shortIds[i] = byteBuffer.readUint48() & ShortTxIdUtil.SHORT_ID_MASK;
+        }
+        long systemTxCount = byteBuffer.readVarInt();
+        if (systemTxCount < 0 || systemTxCount > count) {
+            throw new NulsException(CommonCodeConstanst.DATA_PARSE_ERROR);
+        }
+        this.systemTxList = new ArrayList<>((int) systemTxCount);
+        for (int i = 0; i < systemTxCount; i++) {
+            systemTxList.add(byteBuffer.readTransaction());
+        }
+    }
+
+}
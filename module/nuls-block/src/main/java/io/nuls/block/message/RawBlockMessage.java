@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.message;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.BaseBusinessMessage;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.parse.SerializeUtils;
+
+import java.io.IOException;
+
+/**
+ * 以区块序列化数据发送的完整区块消息,与{@link BlockMessage}的序列化格式相同,接收方按{@link BlockMessage}解析
+ * 用于直接发送原始区块存储中的数据,不需要重新组装和序列化区块
+ *
+ * @author captain
+ */
+public class RawBlockMessage extends BaseBusinessMessage {
+    /**
+     * 用来区分批量获取区块请求和单个区块请求,也可以用来过滤非法消息
+     */
+    private NulsHash requestHash;
+    /**
+     * 区块序列化数据
+     */
+    private byte[] block;
+
+    /**
+     * 是否同步中下载的区块
+     */
+    private boolean syn;
+
+    public RawBlockMessage() {
+    }
+
+    public RawBlockMessage(NulsHash requestHash, byte[] block, boolean syn) {
+        this.requestHash = requestHash;
+        this.block = block;
+        this.syn = syn;
+    }
+
+    public NulsHash getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(NulsHash requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public byte[] getBlock() {
+        return block;
+    }
+
+    public void setBlock(byte[] block) {
+        this.block = block;
+    }
+
+    public boolean isSyn() {
+        return syn;
+    }
+
+    public void setSyn(boolean syn) {
+        this.syn = syn;
+    }
+
+    @Override
+    public void serializeToStream(NulsOutputStreamBuffer buffer) throws IOException {
+        buffer.write(requestHash.getBytes());
+        buffer.write(block);
+        buffer.writeBoolean(syn);
+    }
+
+    @Override
+    public void parse(NulsByteBuffer nulsByteBuffer) throws NulsException {
+        this.requestHash = nulsByteBuffer.readHash();
+        this.block = nulsByteBuffer.readBytes(nulsByteBuffer.getPayload().length - nulsByteBuffer.getCursor() - 1);
+        this.syn = nulsByteBuffer.readBoolean();
+    }
+
+    @Override
+    public int size() {
+        return NulsHash.HASH_LENGTH + block.length + SerializeUtils.sizeOfBoolean();
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.message;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.BaseBusinessMessage;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.basic.VarInt;
+import io.nuls.core.constant.CommonCodeConstanst;
+import io.nuls.core.exception.NulsException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.nuls.block.constant.Constant.MAX_BLOCK_TX_COUNT;
+
+/**
+ * 按区块内序号批量请求交易消息
+ * 收到紧凑区块后,本地无法还原的交易只知道短ID,按其在区块中的序号向源节点请求
+ * <p>
+ * Request transactions by their index in the block.
+ * Transactions of a compact block that can not be rebuilt locally are only known by short id, so they are requested
+ * from the source node by index
+ *
+ * @author captain
+ */
+public class TxIndexListMessage extends BaseBusinessMessage {
+
+    private NulsHash blockHash;
+
+    private List<Integer> indexList = new ArrayList<>();
+
+    public TxIndexListMessage() {
+    }
+
+    public TxIndexListMessage(NulsHash blockHash, List<Integer> indexList) {
+        this.blockHash = blockHash;
+        this.indexList = indexList;
+    }
+
+    public NulsHash getBlockHash() {
+        return blockHash;
+    }
+
+    public void setBlockHash(NulsHash blockHash) {
+        this.blockHash = blockHash;
+    }
+
+    public List<Integer> getIndexList() {
+        return indexList;
+    }
+
+    public void setIndexList(List<Integer> indexList) {
+        this.indexList = indexList;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        size += NulsHash.HASH_LENGTH;
+        size += VarInt.sizeOf(indexList.size());
+        for (Integer index : indexList) {
+            size += VarInt.sizeOf(index);
+        }
+        return size;
+    }
+
+    @Override
+    public void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.write(blockHash.getBytes());
+        stream.writeVarInt(indexList.size());
+        for (Integer index : indexList) {
+            stream.writeVarInt(index);
+        }
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.blockHash = byteBuffer.readHash();
+        long count = byteBuffer.readVarInt();
+        if (count < 0 || count > MAX_BLOCK_TX_COUNT) {
+            throw new NulsException(CommonCodeConstanst.DATA_PARSE_ERROR);
+        }
+        this.indexList = new ArrayList<>((int) count);
+        for (int i = 0; i < count; i++) {
+            this.indexList.add((int) byteBuffer.readVarInt());
+        }
+    }
+
+}
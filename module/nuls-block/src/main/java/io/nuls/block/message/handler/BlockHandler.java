@@ -26,6 +26,7 @@ import io.nuls.base.protocol.MessageProcessor;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.message.BlockMessage;
 import io.nuls.block.model.ChainContext;
+import io.nuls.block.thread.BlockSynPipeline;
 import io.nuls.block.utils.SingleBlockCacher;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.logback.NulsLogger;
@@ -59,6 +60,13 @@ public class BlockHandler implements MessageProcessor {
         Block block = message.getBlock();
         //接收到的区块用于区块同步
         if (message.isSyn()) {
+            BlockSynPipeline pipeline = context.getSynPipeline();
+            if (pipeline != null) {
+                if (!pipeline.receive(nodeId, block)) {
+                    logger.debug("ignore BlockMessage from node-{}, pipeline syn", nodeId);
+                }
+                return;
+            }
             long height = block.getHeader().getHeight();
             //接受到的区块高度比当前最新高度高，并且区块同步过程正在进行
             boolean b = height > context.getLatestHeight() && context.isNeedSyn();
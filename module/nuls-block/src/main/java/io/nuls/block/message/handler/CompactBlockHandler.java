@@ -0,0 +1,238 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.message.handler;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.data.*;
+import io.nuls.base.protocol.MessageProcessor;
+import io.nuls.block.constant.BlockForwardEnum;
+import io.nuls.block.constant.StatusEnum;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.CompactBlockMessage;
+import io.nuls.block.message.HashMessage;
+import io.nuls.block.message.TxIndexListMessage;
+import io.nuls.block.model.CachedSmallBlock;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.model.ChainParameters;
+import io.nuls.block.model.TxGroupTask;
+import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.block.service.BlockService;
+import io.nuls.block.thread.monitor.TxGroupRequestor;
+import io.nuls.block.utils.BlockUtil;
+import io.nuls.block.utils.ShortTxIdUtil;
+import io.nuls.block.utils.SmallBlockCacher;
+import io.nuls.block.utils.TxPoolIndex;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.model.DateUtils;
+import io.nuls.core.rpc.util.NulsDateUtils;
+
+import java.util.*;
+
+import static io.nuls.block.BlockBootstrap.blockConfig;
+import static io.nuls.block.constant.BlockForwardEnum.*;
+import static io.nuls.block.constant.CommandConstant.*;
+
+/**
+ * 处理收到的{@link CompactBlockMessage},用于区块的广播
+ * 按短交易ID从系统交易和本地未确认交易索引中还原区块,无法还原的交易立即按序号向源节点请求,超时未返回时由
+ * {@link TxGroupRequestor}改为请求完整的小区块;短ID有重复或还原后merkle根不一致时,同样退回到请求完整的小区块
+ * <p>
+ * Handles {@link CompactBlockMessage} for block broadcasting.
+ * The block is rebuilt by short id from the system transactions and the local unconfirmed tx index, transactions that
+ * can not be rebuilt are requested from the source node by index at once, and {@link TxGroupRequestor} requests the
+ * small block instead when they do not arrive in time; on duplicated short ids or a merkle root mismatch it also falls
+ * back to requesting the small block
+ *
+ * @author captain
+ */
+@Component("CompactBlockHandlerV1")
+public class CompactBlockHandler implements MessageProcessor {
+
+    @Autowired
+    private BlockService blockService;
+
+    @Override
+    public String getCmd() {
+        return COMPACT_BLOCK_MESSAGE;
+    }
+
+    @Override
+    public void process(int chainId, String nodeId, String msgStr) {
+        ChainContext context = ContextManager.getContext(chainId);
+        CompactBlockMessage message = RPCUtil.getInstanceRpcStr(msgStr, CompactBlockMessage.class);
+        if (message == null) {
+            return;
+        }
+        NulsLogger logger = context.getLogger();
+        BlockHeader header = message.getHeader();
+        if (null == header) {
+            logger.warn("recieved a null compactBlock!");
+            return;
+        }
+        NulsHash blockHash = header.getHash();
+        //阻止恶意节点提前出块,拒绝接收未来一定时间外的区块
+        ChainParameters parameters = context.getParameters();
+        int validBlockInterval = parameters.getValidBlockInterval();
+        long currentTime = NulsDateUtils.getCurrentTimeMillis();
+        if (header.getTime() * 1000 > (currentTime + validBlockInterval)) {
+            logger.error("header.getTime()-" + header.getTime() + ", currentTime-" + currentTime + ", validBlockInterval-" + validBlockInterval);
+            return;
+        }
+
+        logger.debug("recieve compactBlockMessage from node-" + nodeId + ", height:" + header.getHeight() + ", hash:" + blockHash);
+        context.getCachedHashHeightMap().put(blockHash, header.getHeight());
+        NetworkCall.setHashAndHeight(chainId, blockHash, header.getHeight(), nodeId);
+        if (context.getStatus().equals(StatusEnum.SYNCHRONIZING)) {
+            return;
+        }
+        //已收到完整区块或者正在等待缺失的交易,丢弃
+        BlockForwardEnum status = SmallBlockCacher.getStatus(chainId, blockHash);
+        if (!EMPTY.equals(status)) {
+            return;
+        }
+        if (!BlockUtil.headerVerify(chainId, header)) {
+            logger.info("recieve error CompactBlockMessage from " + nodeId);
+            SmallBlockCacher.setStatus(chainId, blockHash, ERROR);
+            return;
+        }
+        long[] shortIds = message.getShortIds();
+        if (shortIds.length != header.getTxCount()) {
+            logger.info("recieve error CompactBlockMessage from " + nodeId + ", txCount:" + header.getTxCount() + ", shortIds:" + shortIds.length);
+            SmallBlockCacher.setStatus(chainId, blockHash, ERROR);
+            return;
+        }
+        //1.短ID到区块内序号的映射,区块内短ID重复时无法区分,直接请求小区块
+        Map<Long, Integer> indexMap = new HashMap<>(shortIds.length);
+        for (int i = 0; i < shortIds.length; i++) {
+            if (indexMap.put(shortIds[i], i) != null) {
+                requestSmallBlock(chainId, blockHash, nodeId, "duplicate short id");
+                return;
+            }
+        }
+        long salt = ShortTxIdUtil.salt(blockHash, message.getNonce());
+        ArrayList<NulsHash> txHashList = new ArrayList<>(Collections.nCopies(shortIds.length, null));
+        Map<NulsHash, Transaction> txMap = new HashMap<>(shortIds.length);
+        Set<Long> wanted = new HashSet<>(indexMap.keySet());
+        SmallBlock smallBlock = new SmallBlock();
+        smallBlock.setHeader(header);
+        smallBlock.setTxHashList(txHashList);
+        //2.先放入系统交易
+        for (Transaction tx : message.getSystemTxList()) {
+            long shortId = ShortTxIdUtil.shortId(salt, tx.getHash());
+            Integer index = indexMap.get(shortId);
+            if (index == null) {
+                requestSmallBlock(chainId, blockHash, nodeId, "unknown system tx");
+                return;
+            }
+            smallBlock.addSystemTx(tx);
+            txHashList.set(index, tx.getHash());
+            txMap.put(tx.getHash(), tx);
+            wanted.remove(shortId);
+        }
+        //3.再从本地未确认交易索引中查找,有冲突或找不到的交易向源节点请求
+        Map<Long, Transaction> found = TxPoolIndex.find(chainId, salt, wanted);
+        List<Integer> missingIndexes = new ArrayList<>();
+        for (Long shortId : wanted) {
+            Transaction tx = found.get(shortId);
+            Integer index = indexMap.get(shortId);
+            if (tx == null) {
+                missingIndexes.add(index);
+            } else {
+                txHashList.set(index, tx.getHash());
+                txMap.put(tx.getHash(), tx);
+            }
+        }
+        CachedSmallBlock cachedSmallBlock = new CachedSmallBlock(null, smallBlock, txMap, nodeId);
+        if (!missingIndexes.isEmpty()) {
+            Collections.sort(missingIndexes);
+            logger.debug("block height:" + header.getHeight() + ", total tx count:" + header.getTxCount() + " , get compact tx of " + missingIndexes.size());
+            cachedSmallBlock.setCompact(salt, shortIds, missingIndexes);
+            SmallBlockCacher.cacheSmallBlock(chainId, cachedSmallBlock);
+            SmallBlockCacher.setStatus(chainId, blockHash, INCOMPLETE);
+            NetworkCall.sendToNode(chainId, new TxIndexListMessage(blockHash, missingIndexes), nodeId, GET_COMPACT_TXS_MESSAGE);
+            //源节点没有及时返回缺失的交易时,由TxGroupRequestor改为请求完整的小区块
+            TxGroupTask task = new TxGroupTask();
+            task.setId(System.nanoTime());
+            task.setNodeId(nodeId);
+            task.setCompact(true);
+            task.setExcuteTime(blockConfig.getTxGroupTaskDelay());
+            TxGroupRequestor.addTask(chainId, blockHash.toString(), task);
+            return;
+        }
+        cachedSmallBlock.setCompact(salt, shortIds, null);
+        saveBlock(chainId, nodeId, cachedSmallBlock, blockService);
+    }
+
+    /**
+     * 还原完成后验证merkle根并保存区块,merkle根不一致说明短ID匹配到了错误的交易,退回到请求小区块
+     * Verify the merkle root of a rebuilt block and save it, a mismatch means a short id matched a wrong transaction
+     * and the small block is requested instead
+     */
+    static void saveBlock(int chainId, String nodeId, CachedSmallBlock cachedSmallBlock, BlockService blockService) {
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        SmallBlock smallBlock = cachedSmallBlock.getSmallBlock();
+        BlockHeader header = smallBlock.getHeader();
+        NulsHash blockHash = header.getHash();
+        ArrayList<NulsHash> txHashList = smallBlock.getTxHashList();
+        if (!NulsHash.calcMerkleHash(txHashList).equals(header.getMerkleHash())) {
+            requestSmallBlock(chainId, blockHash, nodeId, "merkle hash mismatch");
+            return;
+        }
+        SmallBlockCacher.cacheSmallBlock(chainId, cachedSmallBlock);
+        SmallBlockCacher.setStatus(chainId, blockHash, COMPLETE);
+        TxGroupRequestor.removeTask(chainId, blockHash);
+        Block block = BlockUtil.assemblyBlock(header, cachedSmallBlock.getTxMap(), txHashList);
+        block.setNodeId(nodeId);
+        logger.debug("record recv compact block, block create time-" + DateUtils.timeStamp2DateStr(header.getTime() * 1000) + ", hash-" + blockHash);
+        boolean b = blockService.saveBlock(chainId, block, 1, true, false, true);
+        if (!b) {
+            SmallBlockCacher.setStatus(chainId, blockHash, ERROR);
+        }
+    }
+
+    /**
+     * 按序号请求的交易超时未返回,区块仍在等待交易时向源节点请求完整的小区块
+     * The transactions requested by index did not arrive in time, request the small block from the source node if
+     * the block is still waiting for them
+     */
+    public static void compactTimeout(int chainId, NulsHash blockHash, String nodeId) {
+        if (!INCOMPLETE.equals(SmallBlockCacher.getStatus(chainId, blockHash))) {
+            return;
+        }
+        CachedSmallBlock cachedSmallBlock = SmallBlockCacher.getCachedSmallBlock(chainId, blockHash);
+        if (cachedSmallBlock == null || !cachedSmallBlock.isCompactIncomplete()) {
+            return;
+        }
+        requestSmallBlock(chainId, blockHash, nodeId, "compact txs timeout");
+    }
+
+    /**
+     * 无法通过短ID还原区块,向源节点请求完整的小区块
+     * The block can not be rebuilt by short id, request the small block from the source node
+     */
+    static void requestSmallBlock(int chainId, NulsHash blockHash, String nodeId, String reason) {
+        ContextManager.getContext(chainId).getLogger().debug("compact block fallback, " + reason + ", hash-" + blockHash);
+        SmallBlockCacher.setStatus(chainId, blockHash, EMPTY);
+        NetworkCall.sendToNode(chainId, new HashMessage(blockHash), nodeId, GET_SMALL_BLOCK_MESSAGE);
+    }
+}
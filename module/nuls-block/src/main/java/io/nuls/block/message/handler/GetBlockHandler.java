@@ -21,12 +21,12 @@
 package io.nuls.block.message.handler;
 
 import io.nuls.base.RPCUtil;
-import io.nuls.base.data.Block;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.protocol.MessageProcessor;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.message.BlockMessage;
 import io.nuls.block.message.HashMessage;
+import io.nuls.block.message.RawBlockMessage;
 import io.nuls.block.rpc.call.NetworkCall;
 import io.nuls.block.service.BlockService;
 import io.nuls.core.core.annotation.Autowired;
@@ -49,13 +49,13 @@ public class GetBlockHandler implements MessageProcessor {
     @Autowired
     private BlockService service;
 
-    private void sendBlock(int chainId, Block block, String nodeId, NulsHash requestHash) {
-        BlockMessage message = new BlockMessage();
-        message.setRequestHash(requestHash);
-        if (block != null) {
-            message.setBlock(block);
+    private void sendBlock(int chainId, byte[] block, String nodeId, NulsHash requestHash) {
+        if (block == null) {
+            BlockMessage message = new BlockMessage(requestHash, null, false);
+            NetworkCall.sendToNode(chainId, message, nodeId, BLOCK_MESSAGE);
+            return;
         }
-        message.setSyn(false);
+        RawBlockMessage message = new RawBlockMessage(requestHash, block, false);
         NetworkCall.sendToNode(chainId, message, nodeId, BLOCK_MESSAGE);
     }
 
@@ -73,7 +73,7 @@ public class GetBlockHandler implements MessageProcessor {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
         NulsHash requestHash = message.getRequestHash();
         logger.debug("recieve " + message + " from node-" + nodeId + ", hash:" + requestHash);
-        Block block = service.getBlock(chainId, requestHash);
+        byte[] block = service.getRawBlock(chainId, requestHash);
         if (block == null) {
             logger.debug("recieve invalid " + message + " from node-" + nodeId + ", hash:" + requestHash);
         }
@@ -21,12 +21,11 @@
 package io.nuls.block.message.handler;
 
 import io.nuls.base.RPCUtil;
-import io.nuls.base.data.Block;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.protocol.MessageProcessor;
 import io.nuls.block.manager.ContextManager;
-import io.nuls.block.message.BlockMessage;
 import io.nuls.block.message.HeightRangeMessage;
+import io.nuls.block.message.RawBlockMessage;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.rpc.call.NetworkCall;
 import io.nuls.block.service.BlockService;
@@ -50,8 +49,8 @@ public class GetBlocksHandler implements MessageProcessor {
     @Autowired
     private BlockService service;
 
-    private void sendBlock(int chainId, Block block, String nodeId, NulsHash requestHash) {
-        BlockMessage blockMessage = new BlockMessage(requestHash, block, true);
+    private void sendBlock(int chainId, byte[] block, String nodeId, NulsHash requestHash) {
+        RawBlockMessage blockMessage = new RawBlockMessage(requestHash, block, true);
         NetworkCall.sendToNode(chainId, blockMessage, nodeId, BLOCK_MESSAGE);
     }
 
@@ -78,9 +77,9 @@ public class GetBlocksHandler implements MessageProcessor {
         NulsHash requestHash;
         try {
             requestHash = NulsHash.calcHash(message.serialize());
-            Block block;
+            byte[] block;
             do {
-                block = service.getBlock(chainId, startHeight++);
+                block = service.getRawBlock(chainId, startHeight++);
                 if (block == null) {
                     NetworkCall.sendFail(chainId, requestHash, nodeId);
                     return;
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.message.handler;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.data.Block;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.base.protocol.MessageProcessor;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.TxGroupMessage;
+import io.nuls.block.message.TxIndexListMessage;
+import io.nuls.block.model.CachedSmallBlock;
+import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.block.service.BlockService;
+import io.nuls.block.utils.SmallBlockCacher;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.log.logback.NulsLogger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.nuls.block.constant.CommandConstant.GET_COMPACT_TXS_MESSAGE;
+import static io.nuls.block.constant.CommandConstant.TXGROUP_MESSAGE;
+
+/**
+ * 处理收到的{@link TxIndexListMessage},按区块内序号返回紧凑区块中缺失的交易
+ * 优先从广播缓存中获取,缓存中没有完整区块时从已保存的区块中获取;无法提供时不返回,请求方超时后改为请求小区块
+ * <p>
+ * Handles {@link TxIndexListMessage}, returns the missing transactions of a compact block by their index in the block.
+ * They are taken from the broadcast cache, or from the saved block when the cache has no complete block; when they can
+ * not be provided nothing is sent and the requester falls back to the small block after its timeout
+ *
+ * @author captain
+ */
+@Component("GetCompactTxsHandlerV1")
+public class GetCompactTxsHandler implements MessageProcessor {
+
+    @Autowired
+    private BlockService blockService;
+
+    @Override
+    public String getCmd() {
+        return GET_COMPACT_TXS_MESSAGE;
+    }
+
+    @Override
+    public void process(int chainId, String nodeId, String msgStr) {
+        TxIndexListMessage message = RPCUtil.getInstanceRpcStr(msgStr, TxIndexListMessage.class);
+        if (message == null) {
+            return;
+        }
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        NulsHash blockHash = message.getBlockHash();
+        List<Integer> indexList = message.getIndexList();
+        logger.debug("recieve TxIndexListMessage from node-" + nodeId + ", txcount:" + indexList.size());
+        List<Transaction> transactions = null;
+        CachedSmallBlock cachedSmallBlock = SmallBlockCacher.getCachedSmallBlock(chainId, blockHash);
+        if (cachedSmallBlock != null && !cachedSmallBlock.isCompactIncomplete()) {
+            transactions = getTransactions(cachedSmallBlock.getSmallBlock().getTxHashList(), cachedSmallBlock.getTxMap(), indexList);
+        }
+        if (transactions == null) {
+            Block block = blockService.getBlock(chainId, blockHash);
+            if (block != null) {
+                Map<NulsHash, Transaction> txMap = new HashMap<>(block.getTxs().size());
+                block.getTxs().forEach(e -> txMap.put(e.getHash(), e));
+                transactions = getTransactions(block.getTxHashList(), txMap, indexList);
+            }
+        }
+        if (transactions == null) {
+            logger.debug("can not provide compact txs of block-" + blockHash + " to node-" + nodeId);
+            return;
+        }
+        NetworkCall.sendToNode(chainId, new TxGroupMessage(blockHash, transactions), nodeId, TXGROUP_MESSAGE);
+    }
+
+    /**
+     * 按区块内序号取交易
+     * Get transactions by their index in the block
+     *
+     * @param txHashList 区块中按顺序排列的交易hash
+     * @param txMap      交易
+     * @param indexList  序号
+     * @return 序号越界或交易缺失时返回null
+     */
+    public static List<Transaction> getTransactions(List<NulsHash> txHashList, Map<NulsHash, Transaction> txMap, List<Integer> indexList) {
+        List<Transaction> transactions = new ArrayList<>(indexList.size());
+        for (Integer index : indexList) {
+            if (index == null || index < 0 || index >= txHashList.size()) {
+                return null;
+            }
+            Transaction tx = txMap.get(txHashList.get(index));
+            if (tx == null) {
+                return null;
+            }
+            transactions.add(tx);
+        }
+        return transactions;
+    }
+}
@@ -30,12 +30,14 @@ import io.nuls.block.model.CachedSmallBlock;
 import io.nuls.block.service.BlockService;
 import io.nuls.block.thread.monitor.TxGroupRequestor;
 import io.nuls.block.utils.BlockUtil;
+import io.nuls.block.utils.ShortTxIdUtil;
 import io.nuls.block.utils.SmallBlockCacher;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.model.DateUtils;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -85,6 +87,10 @@ public class TxGroupHandler implements MessageProcessor {
             if (cachedSmallBlock == null) {
                 return;
             }
+            if (cachedSmallBlock.isCompact()) {
+                fillCompactBlock(chainId, nodeId, cachedSmallBlock, transactions);
+                return;
+            }
             SmallBlock smallBlock = cachedSmallBlock.getSmallBlock();
             BlockHeader header = smallBlock.getHeader();
             Map<NulsHash, Transaction> txMap = cachedSmallBlock.getTxMap();
@@ -107,4 +113,35 @@ public class TxGroupHandler implements MessageProcessor {
             logger.error("It is theoretically impossible to enter this branch");
         }
     }
+
+    /**
+     * 按短ID把收到的交易填入紧凑区块的缺失位置,全部填满后保存区块,仍有缺失时退回到请求小区块
+     * Fill the received transactions into the missing slots of a compact block by short id, the block is saved once
+     * complete, otherwise the small block is requested instead
+     */
+    private void fillCompactBlock(int chainId, String nodeId, CachedSmallBlock cachedSmallBlock, List<Transaction> transactions) {
+        NulsHash blockHash = cachedSmallBlock.getSmallBlock().getHeader().getHash();
+        List<Integer> missingIndexes = cachedSmallBlock.getMissingIndexes();
+        if (missingIndexes == null) {
+            return;
+        }
+        long[] shortIds = cachedSmallBlock.getShortIds();
+        Map<Long, Integer> missingMap = new HashMap<>(missingIndexes.size());
+        missingIndexes.forEach(e -> missingMap.put(shortIds[e], e));
+        List<NulsHash> txHashList = cachedSmallBlock.getSmallBlock().getTxHashList();
+        Map<NulsHash, Transaction> txMap = cachedSmallBlock.getTxMap();
+        for (Transaction tx : transactions) {
+            Integer index = missingMap.remove(ShortTxIdUtil.shortId(cachedSmallBlock.getSalt(), tx.getHash()));
+            if (index != null) {
+                txHashList.set(index, tx.getHash());
+                txMap.put(tx.getHash(), tx);
+            }
+        }
+        if (!missingMap.isEmpty()) {
+            CompactBlockHandler.requestSmallBlock(chainId, blockHash, cachedSmallBlock.getNodeId(), missingMap.size() + " txs still missing");
+            return;
+        }
+        cachedSmallBlock.setMissingIndexes(null);
+        CompactBlockHandler.saveBlock(chainId, nodeId, cachedSmallBlock, blockService);
+    }
 }
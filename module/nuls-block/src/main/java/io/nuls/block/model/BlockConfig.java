@@ -1,8 +1,10 @@
 package io.nuls.block.model;
 
+import io.nuls.block.constant.Constant;
 import io.nuls.core.basic.ModuleConfig;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.core.annotation.Configuration;
+import io.nuls.core.rockdb.model.RocksDBConfig;
 import io.nuls.core.rpc.model.ModuleE;
 
 import java.io.File;
@@ -65,6 +67,52 @@ public class BlockConfig extends ChainParameters implements ModuleConfig {
 
     private String dataPath;
 
+    /**
+     * 数据库是否使用列族共享模式
+     */
+    private boolean dbSharedMode;
+
+    /**
+     * 数据库共享块缓存大小(字节)，0表示不使用块缓存
+     */
+    private long dbBlockCacheSize;
+
+    /**
+     * 数据库最底层压缩算法: NONE, LZ4, ZSTD
+     */
+    private String dbBottommostCompression = RocksDBConfig.COMPRESSION_NONE;
+
+    /**
+     * 是否保存原始区块数据,用于直接向其他节点提供区块
+     */
+    private boolean rawBlockStore;
+
+    /**
+     * 原始区块分段文件大小(字节)
+     */
+    private long rawBlockSegmentSize = 128 * 1024 * 1024;
+
+    /**
+     * 是否使用流水线区块同步(并行下载、预验证,顺序保存)
+     */
+    private boolean pipelinedSyn;
+
+    /**
+     * 流水线同步预验证线程数,0表示使用CPU核数
+     */
+    private int synVerifyThreads;
+
+    /**
+     * 是否使用紧凑区块广播(区块头+短交易ID),协议升级到COMPACT_BLOCK_PROTOCOL_VERSION后才生效
+     * 交易模块的compactBlock配置需要一致,否则不会推送用于还原紧凑区块的未确认交易
+     */
+    private boolean compactBlock;
+
+    /**
+     * 区块模块本地未确认交易索引的容量
+     */
+    private int txPoolIndexSize = 50000;
+
     /**
      * 启动后自动回滚多少个区块
      */
@@ -174,4 +222,86 @@ public class BlockConfig extends ChainParameters implements ModuleConfig {
     public void setRollbackHeight(int rollbackHeight) {
         this.rollbackHeight = rollbackHeight;
     }
+
+    public boolean isDbSharedMode() {
+        return dbSharedMode;
+    }
+
+    public void setDbSharedMode(boolean dbSharedMode) {
+        this.dbSharedMode = dbSharedMode;
+    }
+
+    public long getDbBlockCacheSize() {
+        return dbBlockCacheSize;
+    }
+
+    public void setDbBlockCacheSize(long dbBlockCacheSize) {
+        this.dbBlockCacheSize = dbBlockCacheSize;
+    }
+
+    public String getDbBottommostCompression() {
+        return dbBottommostCompression;
+    }
+
+    public void setDbBottommostCompression(String dbBottommostCompression) {
+        this.dbBottommostCompression = dbBottommostCompression;
+    }
+
+    public RocksDBConfig getRocksDBConfig() {
+        RocksDBConfig config = new RocksDBConfig();
+        config.setSharedMode(dbSharedMode);
+        config.setBlockCacheSize(dbBlockCacheSize);
+        config.setBottommostCompression(dbBottommostCompression);
+        //高度索引表按已保存的高度查询，总能命中，不需要布隆过滤器
+        config.setTableConfig(Constant.BLOCK_HEADER_INDEX, 0);
+        return config;
+    }
+
+    public boolean isRawBlockStore() {
+        return rawBlockStore;
+    }
+
+    public void setRawBlockStore(boolean rawBlockStore) {
+        this.rawBlockStore = rawBlockStore;
+    }
+
+    public long getRawBlockSegmentSize() {
+        return rawBlockSegmentSize;
+    }
+
+    public void setRawBlockSegmentSize(long rawBlockSegmentSize) {
+        this.rawBlockSegmentSize = rawBlockSegmentSize;
+    }
+
+    public boolean isPipelinedSyn() {
+        return pipelinedSyn;
+    }
+
+    public void setPipelinedSyn(boolean pipelinedSyn) {
+        this.pipelinedSyn = pipelinedSyn;
+    }
+
+    public boolean isCompactBlock() {
+        return compactBlock;
+    }
+
+    public void setCompactBlock(boolean compactBlock) {
+        this.compactBlock = compactBlock;
+    }
+
+    public int getTxPoolIndexSize() {
+        return txPoolIndexSize;
+    }
+
+    public void setTxPoolIndexSize(int txPoolIndexSize) {
+        this.txPoolIndexSize = txPoolIndexSize;
+    }
+
+    public int getSynVerifyThreads() {
+        return synVerifyThreads;
+    }
+
+    public void setSynVerifyThreads(int synVerifyThreads) {
+        this.synVerifyThreads = synVerifyThreads;
+    }
 }
@@ -55,6 +55,21 @@ public class CachedSmallBlock {
      */
     private String nodeId;
 
+    /**
+     * 紧凑区块的盐,非紧凑区块时无意义
+     */
+    private long salt;
+
+    /**
+     * 紧凑区块的短交易ID,非紧凑区块时为null
+     */
+    private long[] shortIds;
+
+    /**
+     * 紧凑区块中缺失交易在区块中的序号,还原完成后为null
+     */
+    private List<Integer> missingIndexes;
+
     public CachedSmallBlock(List<NulsHash> missingTransactions, SmallBlock smallBlock, Map<NulsHash, Transaction> txMap, String nodeId) {
         this.missingTransactions = missingTransactions;
         this.smallBlock = smallBlock;
@@ -82,6 +97,47 @@ public class CachedSmallBlock {
         this.smallBlock = smallBlock;
     }
 
+    /**
+     * 设置紧凑区块的还原状态
+     * Set the rebuild state of a compact block
+     *
+     * @param salt           盐
+     * @param shortIds       短交易ID
+     * @param missingIndexes 缺失交易的序号
+     */
+    public void setCompact(long salt, long[] shortIds, List<Integer> missingIndexes) {
+        this.salt = salt;
+        this.shortIds = shortIds;
+        this.missingIndexes = missingIndexes;
+    }
+
+    public boolean isCompact() {
+        return shortIds != null;
+    }
+
+    /**
+     * 紧凑区块是否还有缺失的交易,此时txHashList中缺失的位置为null,不能提供给其他节点
+     */
+    public boolean isCompactIncomplete() {
+        return missingIndexes != null;
+    }
+
+    public long getSalt() {
+        return salt;
+    }
+
+    public long[] getShortIds() {
+        return shortIds;
+    }
+
+    public List<Integer> getMissingIndexes() {
+        return missingIndexes;
+    }
+
+    public void setMissingIndexes(List<Integer> missingIndexes) {
+        this.missingIndexes = missingIndexes;
+    }
+
     public Map<NulsHash, Transaction> getTxMap() {
         return txMap;
     }
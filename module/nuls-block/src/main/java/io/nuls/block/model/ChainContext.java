@@ -26,10 +26,12 @@ import io.nuls.base.data.Block;
 import io.nuls.base.data.NulsHash;
 import io.nuls.block.constant.StatusEnum;
 import io.nuls.block.manager.BlockChainManager;
+import io.nuls.block.thread.BlockSynPipeline;
 import io.nuls.block.thread.monitor.TxGroupRequestor;
 import io.nuls.block.utils.LoggerUtil;
 import io.nuls.block.utils.SingleBlockCacher;
 import io.nuls.block.utils.SmallBlockCacher;
+import io.nuls.block.utils.TxPoolIndex;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.model.CollectionUtils;
 
@@ -127,6 +129,11 @@ public class ChainContext {
      */
     private Map<Long, Block> blockMap = new ConcurrentHashMap<>(100);
 
+    /**
+     * 流水线同步过程,未开启流水线同步或者不在同步过程中时为null
+     */
+    private volatile BlockSynPipeline synPipeline;
+
     /**
      * 孤儿区块关联的节点,维护孤儿区块时优先从这些节点下载
      */
@@ -148,6 +155,14 @@ public class ChainContext {
         this.blockMap = blockMap;
     }
 
+    public BlockSynPipeline getSynPipeline() {
+        return synPipeline;
+    }
+
+    public void setSynPipeline(BlockSynPipeline synPipeline) {
+        this.synPipeline = synPipeline;
+    }
+
     public BlockDownloaderParams getDownloaderParams() {
         return downloaderParams;
     }
@@ -291,6 +306,7 @@ public class ChainContext {
         lock = new StampedLock();
         //各类缓存初始化
         SmallBlockCacher.init(chainId);
+        TxPoolIndex.init(chainId);
         SingleBlockCacher.init(chainId);
         BlockChainManager.init(chainId);
         TxGroupRequestor.init(chainId);
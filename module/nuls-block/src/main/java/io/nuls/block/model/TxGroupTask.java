@@ -17,6 +17,10 @@ public class TxGroupTask implements Delayed {
     private long id;
     private HashListMessage request;
     private String nodeId;
+    /**
+     * 紧凑区块缺失交易的请求,到期时区块仍未还原则改为请求完整的小区块
+     */
+    private boolean compact;
     /**
      * 延迟时长,这个是必须的属性因为要按照这个判断延时时长。
      */
@@ -55,6 +59,14 @@ public class TxGroupTask implements Delayed {
         this.nodeId = nodeId;
     }
 
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
     public long getExcuteTime() {
         return excuteTime;
     }
@@ -95,6 +107,7 @@ public class TxGroupTask implements Delayed {
                 .add("id=" + id)
                 .add("request=" + request)
                 .add("nodeId='" + nodeId + "'")
+                .add("compact=" + compact)
                 .add("excuteTime=" + excuteTime)
                 .toString();
     }
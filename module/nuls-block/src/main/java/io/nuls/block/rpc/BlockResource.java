@@ -25,12 +25,14 @@ import io.nuls.base.basic.NulsByteBuffer;
 import io.nuls.base.data.Block;
 import io.nuls.base.data.BlockHeader;
 import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
 import io.nuls.base.data.po.BlockHeaderPo;
 import io.nuls.block.constant.BlockErrorCode;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.service.BlockService;
 import io.nuls.block.utils.SmallBlockCacher;
+import io.nuls.block.utils.TxPoolIndex;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.logback.NulsLogger;
@@ -613,6 +615,39 @@ public class BlockResource extends BaseCmd {
         }
     }
 
+    /**
+     * 接收交易模块推送的未确认交易,加入本地未确认交易索引,用于还原紧凑区块
+     * 未使用紧凑区块时不建立索引
+     *
+     * @param map
+     * @return
+     */
+    @CmdAnnotation(cmd = RECEIVE_UNCONFIRMED_TXS, version = 1.0, description = "receive unconfirmed transactions pushed by the transaction module")
+    @Parameters({
+            @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID"),
+            @Parameter(parameterName = "txList", requestType = @TypeDescriptor(value = List.class, collectionElement = String.class), parameterDes = "交易序列化后的HEX字符串列表")
+    })
+    @ResponseData(name = "返回值", description = "无返回值")
+    public Response receiveUnconfirmedTxs(Map map) {
+        int chainId = Integer.parseInt(map.get(Constants.CHAIN_ID).toString());
+        ChainContext context = ContextManager.getContext(chainId);
+        if (context == null || !service.isCompactBlock(chainId)) {
+            return success();
+        }
+        try {
+            List<String> txList = (List<String>) map.get("txList");
+            List<Transaction> transactions = new ArrayList<>(txList.size());
+            for (String txStr : txList) {
+                transactions.add(RPCUtil.getInstanceRpcStr(txStr, Transaction.class));
+            }
+            TxPoolIndex.add(chainId, transactions);
+            return success();
+        } catch (Exception e) {
+            context.getLogger().error("", e);
+            return failed(e.getMessage());
+        }
+    }
+
     /**
      * 获取当前运行状态
      * status-0:同步
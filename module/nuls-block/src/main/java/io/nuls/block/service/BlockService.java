@@ -95,6 +95,24 @@ public interface BlockService {
      */
     Block getBlock(int chainId, long height);
 
+    /**
+     * 根据区块高度获取区块序列化数据,优先从原始区块存储读取
+     *
+     * @param chainId 链Id/chain id
+     * @param height  区块高度
+     * @return 区块不存在时返回null
+     */
+    byte[] getRawBlock(int chainId, long height);
+
+    /**
+     * 根据区块hash获取区块序列化数据,优先从原始区块存储读取
+     *
+     * @param chainId 链Id/chain id
+     * @param hash    区块hash
+     * @return 区块不存在时返回null
+     */
+    byte[] getRawBlock(int chainId, NulsHash hash);
+
     /**
      * 根据区块高度区间获取区块头
      *
@@ -205,6 +223,15 @@ public interface BlockService {
      */
     boolean forwardBlock(int chainId, NulsHash hash, String excludeNode);
 
+    /**
+     * 是否使用紧凑区块,配置开启且协议升级到紧凑区块版本后才生效
+     * Whether compact blocks are used, requires the config and the compact block protocol version
+     *
+     * @param chainId 链Id/chain id
+     * @return
+     */
+    boolean isCompactBlock(int chainId);
+
     /**
      * 广播区块给连接的其他对等节点
      *
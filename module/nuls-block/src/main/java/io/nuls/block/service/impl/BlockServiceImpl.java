@@ -23,11 +23,13 @@ package io.nuls.block.service.impl;
 import io.nuls.base.RPCUtil;
 import io.nuls.base.data.*;
 import io.nuls.base.data.po.BlockHeaderPo;
+import io.nuls.base.protocol.ProtocolGroupManager;
 import io.nuls.block.constant.BlockErrorCode;
 import io.nuls.block.manager.BlockChainManager;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.message.HashMessage;
 import io.nuls.block.message.SmallBlockMessage;
+import io.nuls.block.model.CachedSmallBlock;
 import io.nuls.block.model.Chain;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.model.ChainParameters;
@@ -36,10 +38,12 @@ import io.nuls.block.rpc.call.*;
 import io.nuls.block.service.BlockService;
 import io.nuls.block.storage.BlockStorageService;
 import io.nuls.block.storage.ChainStorageService;
+import io.nuls.block.storage.RawBlockStorageService;
 import io.nuls.block.utils.BlockUtil;
 import io.nuls.block.utils.ChainGenerator;
 import io.nuls.block.utils.LoggerUtil;
 import io.nuls.block.utils.SmallBlockCacher;
+import io.nuls.block.utils.TxPoolIndex;
 import io.nuls.core.basic.Result;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
@@ -55,17 +59,22 @@ import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.model.message.MessageUtil;
 import io.nuls.core.rpc.model.message.Response;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+import io.nuls.core.thread.ExecutorRegistry;
+import io.nuls.core.thread.RejectionPolicy;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.locks.StampedLock;
 
 import static io.nuls.base.data.BlockHeader.BLOCK_HEADER_COMPARATOR;
+import static io.nuls.block.BlockBootstrap.blockConfig;
 import static io.nuls.block.constant.BlockForwardEnum.COMPLETE;
 import static io.nuls.block.constant.CommandConstant.*;
-import static io.nuls.block.constant.Constant.BLOCK_HEADER_INDEX;
+import static io.nuls.block.constant.Constant.*;
 
 /**
  * 区块服务实现类
@@ -82,6 +91,8 @@ public class BlockServiceImpl implements BlockService {
     private BlockStorageService blockStorageService;
     @Autowired
     private ChainStorageService chainStorageService;
+    @Autowired
+    private RawBlockStorageService rawBlockStorageService;
 
     @Override
     public Block getGenesisBlock(int chainId) {
@@ -256,6 +267,42 @@ public class BlockServiceImpl implements BlockService {
         }
     }
 
+    @Override
+    public byte[] getRawBlock(int chainId, long height) {
+        if (height <= ContextManager.getContext(chainId).getLatestHeight()) {
+            byte[] bytes = rawBlockStorageService.get(chainId, height);
+            if (bytes != null) {
+                return bytes;
+            }
+        }
+        return serialize(chainId, getBlock(chainId, height));
+    }
+
+    @Override
+    public byte[] getRawBlock(int chainId, NulsHash hash) {
+        BlockHeaderPo blockHeaderPo = blockStorageService.query(chainId, hash);
+        if (blockHeaderPo == null) {
+            return null;
+        }
+        byte[] bytes = rawBlockStorageService.get(chainId, blockHeaderPo.getHeight());
+        if (bytes != null) {
+            return bytes;
+        }
+        return serialize(chainId, getBlock(chainId, hash));
+    }
+
+    private byte[] serialize(int chainId, Block block) {
+        if (block == null) {
+            return null;
+        }
+        try {
+            return block.serialize();
+        } catch (Exception e) {
+            ContextManager.getContext(chainId).getLogger().error("", e);
+            return null;
+        }
+    }
+
     @Override
     public List<Block> getBlock(int chainId, long startHeight, long endHeight) {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
@@ -314,73 +361,58 @@ public class BlockServiceImpl implements BlockService {
                     forwardBlock(chainId, hash, null);
                 }
             }
-            //2.设置最新高度,如果失败则恢复上一个高度
-            boolean setHeight = blockStorageService.setLatestHeight(chainId, height);
-            if (!setHeight) {
-                if (!blockStorageService.setLatestHeight(chainId, height - 1)) {
-                    throw new NulsRuntimeException(BlockErrorCode.UPDATE_HEIGHT_ERROR);
-                }
-                logger.error("setHeight false, height-" + height);
+            //2.在一个批次中保存区块头、高度索引、最新高度,并写入提交日志
+            BlockHeaderPo blockHeaderPo = BlockUtil.toBlockHeaderPo(block);
+            blockHeaderPo.setComplete(true);
+            if (!blockStorageService.commit(chainId, blockHeaderPo)) {
+                abortCommit(chainId);
+                logger.error("block commit fail, height-" + height + ", hash-" + hash);
                 return false;
             }
 
-            //3.保存区块头, 保存交易
-            BlockHeaderPo blockHeaderPo = BlockUtil.toBlockHeaderPo(block);
-            boolean headerSave;
-            boolean txSave = false;
-            if (!(headerSave = blockStorageService.save(chainId, blockHeaderPo)) || !(txSave = TransactionCall.save(chainId, blockHeaderPo, block.getTxs(), localInit, (List) result.getData()))) {
-                if (headerSave && !TransactionCall.rollback(chainId, blockHeaderPo)) {
-                    throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
-                }
-                if (!blockStorageService.remove(chainId, height)) {
-                    throw new NulsRuntimeException(BlockErrorCode.HEADER_REMOVE_ERROR);
-                }
-                if (!blockStorageService.setLatestHeight(chainId, height - 1)) {
-                    throw new NulsRuntimeException(BlockErrorCode.UPDATE_HEIGHT_ERROR);
-                }
-                logger.error("headerSave-" + headerSave + ", txsSave-" + txSave + ", height-" + height + ", hash-" + hash);
+            //3.保存交易
+            if (!TransactionCall.save(chainId, blockHeaderPo, block.getTxs(), localInit, (List) result.getData())) {
+                abortCommit(chainId);
+                logger.error("TransactionCall save fail, height-" + height + ", hash-" + hash);
                 return false;
             }
-            //4.通知共识模块
-            boolean csNotice = ConsensusCall.saveNotice(chainId, header, localInit);
-            if (!csNotice) {
+
+            //4.并行通知共识模块、协议升级模块
+            if (!saveNotice(chainId, header, localInit)) {
                 if (!TransactionCall.rollback(chainId, blockHeaderPo)) {
                     throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
                 }
-                if (!blockStorageService.remove(chainId, height)) {
-                    throw new NulsRuntimeException(BlockErrorCode.HEADER_REMOVE_ERROR);
-                }
-                if (!blockStorageService.setLatestHeight(chainId, height - 1)) {
-                    throw new NulsRuntimeException(BlockErrorCode.UPDATE_HEIGHT_ERROR);
-                }
-                logger.error("consensus notice fail! height-" + height);
+                abortCommit(chainId);
                 return false;
             }
 
-            //5.通知协议升级模块,完全保存,更新标记
-            blockHeaderPo.setComplete(true);
-            if (!ProtocolCall.saveNotice(chainId, header) || !blockStorageService.save(chainId, blockHeaderPo)) {
+            //5.删除提交日志,区块完全保存
+            if (!blockStorageService.finishCommit(chainId)) {
                 if (!ConsensusCall.rollbackNotice(chainId, height)) {
                     throw new NulsRuntimeException(BlockErrorCode.CS_ROLLBACK_ERROR);
                 }
+                if (!ProtocolCall.rollbackNotice(chainId, header)) {
+                    throw new NulsRuntimeException(BlockErrorCode.PU_ROLLBACK_ERROR);
+                }
                 if (!TransactionCall.rollback(chainId, blockHeaderPo)) {
                     throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
                 }
-                if (!blockStorageService.remove(chainId, height)) {
-                    throw new NulsRuntimeException(BlockErrorCode.HEADER_REMOVE_ERROR);
-                }
-                if (!blockStorageService.setLatestHeight(chainId, height - 1)) {
-                    throw new NulsRuntimeException(BlockErrorCode.UPDATE_HEIGHT_ERROR);
-                }
-                logger.error("ProtocolCall saveNotice fail! height-" + height);
+                abortCommit(chainId);
+                logger.error("finish block commit fail! height-" + height);
                 return false;
             }
+            //保存原始区块数据失败不影响区块保存,向其他节点提供区块时退回到组装区块
+            if (!rawBlockStorageService.save(chainId, block)) {
+                rawBlockStorageService.truncate(chainId, height - 1);
+                logger.warn("raw block save fail, height-" + height);
+            }
+            TxPoolIndex.remove(chainId, block.getTxHashList());
             try {
                 TransactionCall.heightNotice(chainId, height);
-                CrossChainCall.heightNotice(chainId, height, RPCUtil.encode(block.getHeader().serialize()));
             } catch (Exception e) {
                 LoggerUtil.COMMON_LOG.error(e);
             }
+            crossChainHeightNotice(chainId, height, header);
 
             //6.如果不是第一次启动,则更新主链属性
             if (!localInit) {
@@ -513,12 +545,15 @@ public class BlockServiceImpl implements BlockService {
                 logger.error("rollback setLatestHeight fail! height-" + height);
                 return false;
             }
+            if (!rawBlockStorageService.truncate(chainId, height - 1)) {
+                logger.warn("raw block truncate fail, height-" + height);
+            }
             try {
                 TransactionCall.heightNotice(chainId, height - 1);
-                CrossChainCall.heightNotice(chainId, height - 1, RPCUtil.encode(blockHeader.serialize()));
             } catch (Exception e) {
                 LoggerUtil.COMMON_LOG.error(e);
             }
+            crossChainHeightNotice(chainId, height - 1, blockHeader);
             context.setLatestBlock(getBlock(chainId, height - 1));
             Chain masterChain = BlockChainManager.getMasterChain(chainId);
             masterChain.setEndHeight(height - 1);
@@ -553,16 +588,99 @@ public class BlockServiceImpl implements BlockService {
         return NetworkCall.broadcast(chainId, message, excludeNode, FORWARD_SMALL_BLOCK_MESSAGE);
     }
 
+    /**
+     * 跨链模块的高度通知不影响区块保存和回滚,保存和回滚的通知都在同一个单线程池中按顺序异步发送,
+     * 队列满时等待而不是在当前线程执行,避免回滚的通知超过之前排队的保存通知
+     * Height notices to the cross-chain module are sent asynchronously and in order on one single-thread pool for both
+     * save and rollback, a full queue makes the caller wait so that a rollback notice never overtakes a queued save notice
+     */
+    private void crossChainHeightNotice(int chainId, long height, BlockHeader header) {
+        ExecutorRegistry.getOrCreate(BLOCK_HEIGHT_NOTICE_POOL, 1, BLOCK_NOTICE_QUEUE_SIZE, RejectionPolicy.BLOCK).execute(() -> {
+            try {
+                CrossChainCall.heightNotice(chainId, height, RPCUtil.encode(header.serialize()));
+            } catch (Exception e) {
+                LoggerUtil.COMMON_LOG.error(e);
+            }
+        });
+    }
+
+    /**
+     * 配置开启且协议升级到紧凑区块版本后才广播紧凑区块,未升级的节点没有对应的消息处理器
+     * Compact blocks are broadcast only when enabled and the protocol has reached the compact block version, nodes
+     * that have not upgraded can not handle them
+     */
+    @Override
+    public boolean isCompactBlock(int chainId) {
+        if (!blockConfig.isCompactBlock()) {
+            return false;
+        }
+        Short version = ProtocolGroupManager.getCurrentVersion(chainId);
+        return version != null && version >= COMPACT_BLOCK_PROTOCOL_VERSION;
+    }
+
     @Override
     public boolean broadcastBlock(int chainId, Block block) {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
-        SmallBlockMessage message = new SmallBlockMessage();
-        message.setSmallBlock(BlockUtil.getSmallBlock(chainId, block));
-        boolean broadcast = NetworkCall.broadcast(chainId, message, SMALL_BLOCK_MESSAGE);
+        boolean broadcast;
+        if (isCompactBlock(chainId)) {
+            //缓存广播的区块,用于响应其他节点按序号获取交易的请求
+            SmallBlock smallBlock = BlockUtil.getSmallBlock(chainId, block);
+            Map<NulsHash, Transaction> txMap = new HashMap<>(block.getTxs().size());
+            block.getTxs().forEach(e -> txMap.put(e.getHash(), e));
+            SmallBlockCacher.cacheSmallBlock(chainId, new CachedSmallBlock(null, smallBlock, txMap, null));
+            broadcast = NetworkCall.broadcast(chainId, BlockUtil.getCompactBlock(smallBlock), COMPACT_BLOCK_MESSAGE);
+        } else {
+            SmallBlockMessage message = new SmallBlockMessage();
+            message.setSmallBlock(BlockUtil.getSmallBlock(chainId, block));
+            broadcast = NetworkCall.broadcast(chainId, message, SMALL_BLOCK_MESSAGE);
+        }
         logger.debug("hash-" + block.getHeader().getHash() + ", broadcast-" + broadcast);
         return broadcast;
     }
 
+    /**
+     * 并行通知共识模块和协议升级模块,任一通知失败时回滚已成功的通知
+     * Notify the consensus and protocol-update modules concurrently, the successful notices are rolled back when any
+     * of them fails
+     */
+    private boolean saveNotice(int chainId, BlockHeader header, boolean localInit) {
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        ThreadPoolExecutor executor = ExecutorRegistry.getOrCreate(BLOCK_SAVE_NOTICE_POOL, 2, BLOCK_NOTICE_QUEUE_SIZE, RejectionPolicy.CALLER_RUNS);
+        CompletableFuture<Boolean> csFuture = CompletableFuture.supplyAsync(() -> ConsensusCall.saveNotice(chainId, header, localInit), executor);
+        CompletableFuture<Boolean> puFuture = CompletableFuture.supplyAsync(() -> ProtocolCall.saveNotice(chainId, header), executor);
+        boolean csNotice = noticeResult(csFuture, logger);
+        boolean puNotice = noticeResult(puFuture, logger);
+        if (csNotice && puNotice) {
+            return true;
+        }
+        logger.error("save notice fail, csNotice-" + csNotice + ", puNotice-" + puNotice + ", height-" + header.getHeight());
+        if (csNotice && !ConsensusCall.rollbackNotice(chainId, header.getHeight())) {
+            throw new NulsRuntimeException(BlockErrorCode.CS_ROLLBACK_ERROR);
+        }
+        if (puNotice && !ProtocolCall.rollbackNotice(chainId, header)) {
+            throw new NulsRuntimeException(BlockErrorCode.PU_ROLLBACK_ERROR);
+        }
+        return false;
+    }
+
+    private static boolean noticeResult(CompletableFuture<Boolean> future, NulsLogger logger) {
+        try {
+            return future.join();
+        } catch (Exception e) {
+            logger.error("", e);
+            return false;
+        }
+    }
+
+    /**
+     * 撤销提交中的区块,撤销失败时数据可能不一致,需要停止
+     */
+    private void abortCommit(int chainId) {
+        if (!blockStorageService.abortCommit(chainId)) {
+            throw new NulsRuntimeException(BlockErrorCode.HEADER_REMOVE_ERROR);
+        }
+    }
+
     private Result verifyBlock(int chainId, Block block, boolean localInit, int download) {
         ChainContext context = ContextManager.getContext(chainId);
         NulsLogger logger = context.getLogger();
@@ -632,6 +750,13 @@ public class BlockServiceImpl implements BlockService {
 
             //2.获取缓存的最新区块高度（缓存的最新高度与实际的最新高度最多相差1,理论上不会有相差多个高度的情况,所以异常场景也只考虑了高度相差1）
             long latestHeight = blockStorageService.queryLatestHeight(chainId);
+            //提交日志中的高度高于最新高度,说明上次提交区块时没有写完,其他模块还没有处理该区块,直接撤销;
+            //等于最新高度时区块头查询为未完成状态,由区块同步前的清理流程回滚
+            long commitHeight = blockStorageService.queryCommitHeight(chainId);
+            if (commitHeight > latestHeight) {
+                logger.info("abort unfinished block commit, height-" + commitHeight);
+                abortCommit(chainId);
+            }
 
             //3.查询有没有这个高度的区块头
             BlockHeaderPo blockHeader = blockStorageService.query(chainId, latestHeight);
@@ -640,6 +765,8 @@ public class BlockServiceImpl implements BlockService {
                 latestHeight = latestHeight - 1;
                 blockStorageService.setLatestHeight(chainId, latestHeight);
             }
+            //原始区块数据不能高于本地最新高度
+            rawBlockStorageService.truncate(chainId, latestHeight);
             //4.latestHeight已经维护成功,上面的步骤保证了latestHeight这个高度的区块数据在本地是完整的,但是区块数据的内容并不一定是正确的,区块同步之前会继续验证latestBlock
             block = getBlock(chainId, latestHeight);
             //5.本地区块维护成功
@@ -109,4 +109,43 @@ public interface BlockStorageService {
      */
     boolean setLatestHeight(int chainId, long height);
 
+    /**
+     * 在一个批次中写入区块头、高度索引、最新高度和提交日志,提交日志存在期间查询到的该区块头都是未完成状态
+     * Write the header, the height index, the latest height and the commit journal in one batch, the header is
+     * queried as incomplete while the journal exists
+     *
+     * @param chainId     链Id/chain id
+     * @param blockHeader 区块头
+     * @return
+     */
+    boolean commit(int chainId, BlockHeaderPo blockHeader);
+
+    /**
+     * 其他模块都已保存区块,删除提交日志
+     * All modules have saved the block, remove the commit journal
+     *
+     * @param chainId 链Id/chain id
+     * @return
+     */
+    boolean finishCommit(int chainId);
+
+    /**
+     * 撤销提交日志中的区块: 删除区块头、高度索引和提交日志,并恢复最新高度
+     * Revert the block of the commit journal: remove the header, the height index and the journal, and restore the
+     * latest height
+     *
+     * @param chainId 链Id/chain id
+     * @return
+     */
+    boolean abortCommit(int chainId);
+
+    /**
+     * 查询提交日志中的区块高度
+     * Query the height in the commit journal
+     *
+     * @param chainId 链Id/chain id
+     * @return 没有提交日志时返回-1
+     */
+    long queryCommitHeight(int chainId);
+
 }
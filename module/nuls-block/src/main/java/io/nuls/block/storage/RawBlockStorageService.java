@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage;
+
+import io.nuls.base.data.Block;
+
+/**
+ * 原始区块存储服务,保存主链区块的序列化数据,供同步节点直接读取
+ * Raw block storage service, keeps the serialized main chain blocks so they can be served to peers directly
+ *
+ * @author captain
+ */
+public interface RawBlockStorageService {
+
+    /**
+     * 保存区块的序列化数据
+     * Save the serialized block
+     *
+     * @param chainId 链Id/chain id
+     * @param block   区块
+     * @return 是否保存成功
+     */
+    boolean save(int chainId, Block block);
+
+    /**
+     * 查询区块的序列化数据
+     * Query the serialized block
+     *
+     * @param chainId 链Id/chain id
+     * @param height  区块高度
+     * @return 不存在时返回null
+     */
+    byte[] get(int chainId, long height);
+
+    /**
+     * 删除高于height的区块
+     * Remove the blocks above height
+     *
+     * @param chainId 链Id/chain id
+     * @param height  保留的最高高度
+     * @return 是否成功
+     */
+    boolean truncate(int chainId, long height);
+
+}
@@ -0,0 +1,289 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单条链的原始区块文件存储
+ * 区块序列化后的字节按高度顺序追加写入分段文件(blk-00000.dat...)，索引文件(index.dat)按高度保存每个区块的
+ * (分段号, 偏移, 长度)定长记录，存储的起始高度记录在meta.dat中，起始高度之后的高度连续存储，
+ * 写入位置即为最高高度记录的结尾。回滚时从尾部截断，启动时丢弃未写入索引的尾部数据。
+ * <p>
+ * Raw block file store of one chain.
+ * Serialized blocks are appended in height order to segment files (blk-00000.dat...), the index file (index.dat) holds a
+ * fixed size (segment, offset, length) record per height. The first stored height is kept in meta.dat and heights above it
+ * are contiguous, so the write position is the end of the latest record. Rollback truncates from the tail, and data not
+ * covered by the index is dropped on open.
+ *
+ * @author captain
+ */
+public class RawBlockStore implements Closeable {
+
+    private static final String INDEX_FILE = "index.dat";
+
+    private static final String META_FILE = "meta.dat";
+
+    private static final String SEGMENT_FILE = "blk-%05d.dat";
+
+    /**
+     * 索引记录长度: 分段号(4) + 偏移(8) + 长度(4)
+     */
+    private static final int RECORD_SIZE = 16;
+
+    private final File dir;
+
+    private final long segmentSize;
+
+    private final FileChannel index;
+
+    private final FileChannel meta;
+
+    private final Map<Integer, FileChannel> segments = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 已写入索引的最高高度
+     */
+    private long latestHeight;
+
+    /**
+     * 存储的起始高度，latestHeight小于该高度时存储为空
+     */
+    private long firstHeight;
+
+    /**
+     * 当前写入的分段
+     */
+    private int segment;
+
+    /**
+     * 当前分段的写入位置
+     */
+    private long position;
+
+    public RawBlockStore(File dir, long segmentSize) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Create raw block dir failed: " + dir.getAbsolutePath());
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.index = FileChannel.open(new File(dir, INDEX_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long records = index.size() / RECORD_SIZE;
+        index.truncate(records * RECORD_SIZE);
+        this.latestHeight = records - 1;
+        this.meta = FileChannel.open(new File(dir, META_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        meta.read(buffer, 0);
+        this.firstHeight = buffer.hasRemaining() ? 0 : buffer.getLong(0);
+        recoverTail();
+    }
+
+    /**
+     * 追加区块，高度不高于已存储的最高高度时先截断到height - 1；与已存储的区块不连续时清空存储并从该高度开始
+     * Append a block, the store is truncated to height - 1 first when the height is already stored; the store restarts
+     * from this height when it is not contiguous with the stored blocks
+     *
+     * @param height 区块高度
+     * @param bytes  区块序列化数据
+     */
+    public void append(long height, byte[] bytes) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (height <= latestHeight) {
+                doTruncate(height - 1);
+            }
+            if (isEmpty() || height != latestHeight + 1) {
+                doTruncate(-1);
+                firstHeight = height;
+                ByteBuffer buffer = ByteBuffer.allocate(8);
+                buffer.putLong(height).flip();
+                writeFully(meta, buffer, 0);
+            }
+            if (position > 0 && position + bytes.length > segmentSize) {
+                segment++;
+                position = 0;
+            }
+            FileChannel channel = channel(segment);
+            channel.truncate(position);
+            writeFully(channel, ByteBuffer.wrap(bytes), position);
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            record.putInt(segment).putLong(position).putInt(bytes.length).flip();
+            writeFully(index, record, height * RECORD_SIZE);
+            position += bytes.length;
+            latestHeight = height;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 读取区块序列化数据
+     * Read the serialized block
+     *
+     * @param height 区块高度
+     * @return 不存在时返回null
+     */
+    public byte[] get(long height) throws IOException {
+        lock.readLock().lock();
+        try {
+            if (height < firstHeight || height > latestHeight) {
+                return null;
+            }
+            ByteBuffer record = readRecord(height);
+            int seg = record.getInt();
+            long offset = record.getLong();
+            int length = record.getInt();
+            if (length == 0) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            FileChannel channel = channel(seg);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+            return buffer.array();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 删除高于height的所有区块
+     * Remove all blocks above height
+     *
+     * @param height 保留的最高高度
+     */
+    public void truncate(long height) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (height < latestHeight) {
+                doTruncate(height);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getLatestHeight() {
+        lock.readLock().lock();
+        try {
+            return latestHeight;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (FileChannel channel : segments.values()) {
+                channel.close();
+            }
+            segments.clear();
+            index.close();
+            meta.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doTruncate(long height) throws IOException {
+        latestHeight = Math.max(height, -1);
+        index.truncate((latestHeight + 1) * RECORD_SIZE);
+        recoverTail();
+    }
+
+    private boolean isEmpty() {
+        return latestHeight < firstHeight;
+    }
+
+    /**
+     * 根据最高高度的索引记录确定写入位置，并删除其后的数据
+     */
+    private void recoverTail() throws IOException {
+        segment = 0;
+        position = 0;
+        if (!isEmpty()) {
+            ByteBuffer record = readRecord(latestHeight);
+            segment = record.getInt();
+            position = record.getLong() + record.getInt();
+        }
+        channel(segment).truncate(position);
+        File file;
+        for (int seg = segment + 1; (file = segmentFile(seg)).exists(); seg++) {
+            FileChannel channel = segments.remove(seg);
+            if (channel != null) {
+                channel.close();
+            }
+            if (!file.delete()) {
+                throw new IOException("Delete raw block segment failed: " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    private ByteBuffer readRecord(long height) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        while (record.hasRemaining()) {
+            if (index.read(record, height * RECORD_SIZE + record.position()) < 0) {
+                throw new IOException("Raw block index is broken at height " + height);
+            }
+        }
+        record.flip();
+        return record;
+    }
+
+    private FileChannel channel(int seg) throws IOException {
+        FileChannel channel = segments.get(seg);
+        if (channel == null) {
+            synchronized (segments) {
+                channel = segments.get(seg);
+                if (channel == null) {
+                    channel = FileChannel.open(segmentFile(seg).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    segments.put(seg, channel);
+                }
+            }
+        }
+        return channel;
+    }
+
+    private File segmentFile(int seg) {
+        return new File(dir, String.format(SEGMENT_FILE, seg));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
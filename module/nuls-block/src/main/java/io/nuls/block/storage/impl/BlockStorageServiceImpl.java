@@ -29,11 +29,15 @@ import io.nuls.core.core.annotation.Component;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.model.ByteUtils;
 import io.nuls.core.parse.SerializeUtils;
+import io.nuls.core.rockdb.service.MultiTableBatchOperation;
 import io.nuls.core.rockdb.service.RocksDBService;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.nuls.base.data.BlockHeader.BLOCK_HEADER_COMPARATOR;
 import static io.nuls.block.constant.Constant.*;
@@ -49,6 +53,13 @@ import static io.nuls.block.utils.LoggerUtil.COMMON_LOG;
 @Component
 public class BlockStorageServiceImpl implements BlockStorageService {
 
+    private static final byte[] EMPTY_HASH = new byte[0];
+
+    /**
+     * 每条链提交日志中的区块hash,没有提交日志时为EMPTY_HASH
+     */
+    private final Map<Integer, byte[]> committingHashMap = new ConcurrentHashMap<>();
+
     @Override
     public boolean save(int chainId, BlockHeaderPo blockHeader) {
         byte[] height = SerializeUtils.uint64ToByteArray(blockHeader.getHeight());
@@ -77,6 +88,9 @@ public class BlockStorageServiceImpl implements BlockStorageService {
             }
             BlockHeaderPo blockHeader = new BlockHeaderPo();
             blockHeader.parse(new NulsByteBuffer(bytes));
+            if (Arrays.equals(committingHash(chainId), blockHeader.getHash().getBytes())) {
+                blockHeader.setComplete(false);
+            }
             return blockHeader;
         } catch (Exception e) {
             COMMON_LOG.error("", e);
@@ -93,6 +107,9 @@ public class BlockStorageServiceImpl implements BlockStorageService {
             }
             BlockHeaderPo blockHeader = new BlockHeaderPo();
             blockHeader.parse(new NulsByteBuffer(bytes));
+            if (Arrays.equals(committingHash(chainId), blockHeader.getHash().getBytes())) {
+                blockHeader.setComplete(false);
+            }
             return blockHeader;
         } catch (Exception e) {
             COMMON_LOG.error("", e);
@@ -131,6 +148,10 @@ public class BlockStorageServiceImpl implements BlockStorageService {
             byte[] hash = RocksDBService.get(BLOCK_HEADER_INDEX + chainId, SerializeUtils.uint64ToByteArray(height));
             boolean b1 = RocksDBService.delete(BLOCK_HEADER_INDEX + chainId, SerializeUtils.uint64ToByteArray(height));
             boolean b2 = RocksDBService.delete(BLOCK_HEADER + chainId, hash);
+            //移除的是提交中的区块时一并删除提交日志
+            if (Arrays.equals(committingHash(chainId), hash)) {
+                b2 = b2 && finishCommit(chainId);
+            }
             return b1 && b2;
         } catch (Exception e) {
             COMMON_LOG.error("", e);
@@ -167,4 +188,108 @@ public class BlockStorageServiceImpl implements BlockStorageService {
         }
     }
 
+    @Override
+    public boolean commit(int chainId, BlockHeaderPo blockHeader) {
+        byte[] chainKey = ByteUtils.intToBytes(chainId);
+        byte[] height = SerializeUtils.uint64ToByteArray(blockHeader.getHeight());
+        byte[] hash = blockHeader.getHash().getBytes();
+        boolean committed = false;
+        try {
+            byte[] header = blockHeader.serialize();
+            byte[] journal = ByteUtils.concatenate(height, hash);
+            committingHashMap.put(chainId, hash);
+            MultiTableBatchOperation batch = RocksDBService.createMultiTableWriteBatch(BLOCK_COMMIT_JOURNAL, BLOCK_HEADER_INDEX + chainId, BLOCK_HEADER + chainId, CHAIN_LATEST_HEIGHT);
+            if (batch != null) {
+                batch.put(BLOCK_COMMIT_JOURNAL, chainKey, journal);
+                batch.put(BLOCK_HEADER_INDEX + chainId, height, hash);
+                batch.put(BLOCK_HEADER + chainId, hash, header);
+                batch.put(CHAIN_LATEST_HEIGHT, chainKey, height);
+                committed = batch.executeBatch();
+                return committed;
+            }
+            //表不在同一个数据库实例中时按顺序写入,先写提交日志,中途崩溃时启动后据此撤销
+            committed = RocksDBService.put(BLOCK_COMMIT_JOURNAL, chainKey, journal)
+                    && RocksDBService.put(BLOCK_HEADER_INDEX + chainId, height, hash)
+                    && RocksDBService.put(BLOCK_HEADER + chainId, hash, header)
+                    && RocksDBService.put(CHAIN_LATEST_HEIGHT, chainKey, height);
+            return committed;
+        } catch (Exception e) {
+            COMMON_LOG.error("", e);
+            return false;
+        } finally {
+            if (!committed) {
+                //写入失败时提交日志可能没有写入,下次查询时从数据库重新读取
+                committingHashMap.remove(chainId);
+            }
+        }
+    }
+
+    @Override
+    public boolean finishCommit(int chainId) {
+        try {
+            boolean b = RocksDBService.delete(BLOCK_COMMIT_JOURNAL, ByteUtils.intToBytes(chainId));
+            committingHashMap.put(chainId, EMPTY_HASH);
+            return b;
+        } catch (Exception e) {
+            COMMON_LOG.error("", e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean abortCommit(int chainId) {
+        byte[] chainKey = ByteUtils.intToBytes(chainId);
+        byte[] journal = RocksDBService.get(BLOCK_COMMIT_JOURNAL, chainKey);
+        if (journal == null) {
+            return true;
+        }
+        long commitHeight = SerializeUtils.readUint64(journal, 0);
+        byte[] height = SerializeUtils.uint64ToByteArray(commitHeight);
+        byte[] hash = Arrays.copyOfRange(journal, 8, journal.length);
+        try {
+            boolean indexed = Arrays.equals(hash, RocksDBService.get(BLOCK_HEADER_INDEX + chainId, height));
+            boolean latest = queryLatestHeight(chainId) == commitHeight;
+            byte[] previousHeight = SerializeUtils.uint64ToByteArray(commitHeight - 1);
+            MultiTableBatchOperation batch = RocksDBService.createMultiTableWriteBatch(BLOCK_COMMIT_JOURNAL, BLOCK_HEADER_INDEX + chainId, BLOCK_HEADER + chainId, CHAIN_LATEST_HEIGHT);
+            boolean b;
+            if (batch != null) {
+                if (latest) {
+                    batch.put(CHAIN_LATEST_HEIGHT, chainKey, previousHeight);
+                }
+                if (indexed) {
+                    batch.delete(BLOCK_HEADER_INDEX + chainId, height);
+                }
+                batch.delete(BLOCK_HEADER + chainId, hash);
+                batch.delete(BLOCK_COMMIT_JOURNAL, chainKey);
+                b = batch.executeBatch();
+            } else {
+                //提交日志最后删除,中途崩溃时启动后可以再次撤销
+                b = (!latest || RocksDBService.put(CHAIN_LATEST_HEIGHT, chainKey, previousHeight))
+                        && (!indexed || RocksDBService.delete(BLOCK_HEADER_INDEX + chainId, height))
+                        && RocksDBService.delete(BLOCK_HEADER + chainId, hash)
+                        && RocksDBService.delete(BLOCK_COMMIT_JOURNAL, chainKey);
+            }
+            if (b) {
+                committingHashMap.put(chainId, EMPTY_HASH);
+            }
+            return b;
+        } catch (Exception e) {
+            COMMON_LOG.error("", e);
+            return false;
+        }
+    }
+
+    @Override
+    public long queryCommitHeight(int chainId) {
+        byte[] journal = RocksDBService.get(BLOCK_COMMIT_JOURNAL, ByteUtils.intToBytes(chainId));
+        return journal == null ? -1 : SerializeUtils.readUint64(journal, 0);
+    }
+
+    private byte[] committingHash(int chainId) {
+        return committingHashMap.computeIfAbsent(chainId, k -> {
+            byte[] journal = RocksDBService.get(BLOCK_COMMIT_JOURNAL, ByteUtils.intToBytes(k));
+            return journal == null ? EMPTY_HASH : Arrays.copyOfRange(journal, 8, journal.length);
+        });
+    }
+
 }
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage.impl;
+
+import io.nuls.base.data.Block;
+import io.nuls.block.model.BlockConfig;
+import io.nuls.block.storage.RawBlockStorageService;
+import io.nuls.block.storage.RawBlockStore;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.nuls.block.utils.LoggerUtil.COMMON_LOG;
+
+/**
+ * 原始区块存储服务实现,每条链一个{@link RawBlockStore},文件位于{dataFolder}/raw/{chainId}
+ *
+ * @author captain
+ */
+@Component
+public class RawBlockStorageServiceImpl implements RawBlockStorageService {
+
+    private static final String RAW_BLOCK_DIR = "raw";
+
+    @Autowired
+    private BlockConfig blockConfig;
+
+    private final Map<Integer, RawBlockStore> stores = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean save(int chainId, Block block) {
+        RawBlockStore store = getStore(chainId);
+        if (store == null) {
+            return false;
+        }
+        try {
+            store.append(block.getHeader().getHeight(), block.serialize());
+            return true;
+        } catch (Exception e) {
+            COMMON_LOG.error("", e);
+            return false;
+        }
+    }
+
+    @Override
+    public byte[] get(int chainId, long height) {
+        RawBlockStore store = getStore(chainId);
+        if (store == null) {
+            return null;
+        }
+        try {
+            return store.get(height);
+        } catch (Exception e) {
+            COMMON_LOG.error("", e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean truncate(int chainId, long height) {
+        RawBlockStore store = getStore(chainId);
+        if (store == null) {
+            return true;
+        }
+        try {
+            store.truncate(height);
+            return true;
+        } catch (Exception e) {
+            COMMON_LOG.error("", e);
+            return false;
+        }
+    }
+
+    private RawBlockStore getStore(int chainId) {
+        if (!blockConfig.isRawBlockStore()) {
+            return null;
+        }
+        return stores.computeIfAbsent(chainId, id -> {
+            File dir = new File(blockConfig.getDataFolder() + File.separator + RAW_BLOCK_DIR + File.separator + id);
+            try {
+                return new RawBlockStore(dir, blockConfig.getRawBlockSegmentSize());
+            } catch (Exception e) {
+                COMMON_LOG.error("open raw block store fail, dir-" + dir.getAbsolutePath(), e);
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,597 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.thread;
+
+import io.nuls.base.data.Block;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.block.model.BlockDownloaderParams;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.model.ChainParameters;
+import io.nuls.block.model.Node;
+import io.nuls.block.utils.BlockUtil;
+import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 流水线区块同步的共享状态,一次同步过程创建一个实例
+ * 1.下载:{@link PipelinedBlockDownloader}按节点的下载窗口并行地向多个节点请求区块,收到的区块可以乱序
+ * 2.预验证:与链状态无关的验证(区块头、merkle根、区块签名)在线程池中并行执行,不必等待前面的区块保存完成
+ * 3.保存:{@link PipelinedBlockCommitter}按高度顺序保存已通过预验证的区块
+ * 已收到未保存的区块字节数不超过cachedBlockSizeLimit(按已请求未收到的区块数估算),超出时暂停新的下载请求;
+ * 各阶段之间通过条件变量通知,不再轮询等待。
+ * <p>
+ * Shared state of one pipelined block synchronization.
+ * 1.download: {@link PipelinedBlockDownloader} requests blocks from several nodes at once within their download
+ * windows, blocks may arrive out of order
+ * 2.pre-verify: stateless checks (header, merkle root, block signature) run in parallel in a thread pool
+ * ahead of the chain tip
+ * 3.commit: {@link PipelinedBlockCommitter} saves pre-verified blocks in height order
+ * Bytes of received but uncommitted blocks, plus an estimate for requested blocks, are kept below cachedBlockSizeLimit,
+ * new requests are paused above it. Stages signal each other through a condition instead of polling.
+ *
+ * @author captain
+ */
+public class BlockSynPipeline {
+
+    /**
+     * 预验证队列已满时接收线程等待空位的最长时间,超时丢弃的区块由下载超时后重新下载
+     */
+    private static final long HANDOFF_WAIT_MILLIS = 1000L;
+
+    private final int chainId;
+    private final ChainContext context;
+    private final NulsLogger logger;
+    private final long startHeight;
+    private final long netLatestHeight;
+    private final long cachedBlockSizeLimit;
+    private final int batchSize;
+    private final long timeout;
+
+    /**
+     * 已通过预验证、等待保存的区块,沿用context中的blockMap
+     */
+    private final Map<Long, Block> blockMap;
+
+    /**
+     * 已收到未保存的区块字节数,沿用context中的cachedBlockSize
+     */
+    private final AtomicInteger cachedBlockSize;
+
+    /**
+     * 已收到、正在预验证的高度
+     */
+    private final Set<Long> verifying = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, PeerWindow> peers = new LinkedHashMap<>();
+
+    /**
+     * 已发送的下载请求,以起始高度为key
+     */
+    private final TreeMap<Long, Batch> batches = new TreeMap<>();
+
+    /**
+     * 需要重新下载的高度区间,以起始高度为key,低高度优先
+     */
+    private final TreeMap<Long, Batch> retries = new TreeMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private final ThreadPoolExecutor verifyExecutor;
+
+    /**
+     * 预验证线程池中排队和执行中的区块数上限
+     */
+    private final Semaphore verifySlots;
+
+    /**
+     * 下一个从未请求过的高度
+     */
+    private long nextHeight;
+
+    /**
+     * 已保存的最高高度
+     */
+    private long committedHeight;
+
+    private long receivedCount;
+    private long receivedBytes;
+
+    private volatile boolean failed;
+    private volatile boolean closed;
+
+    public BlockSynPipeline(ChainContext context, int verifyThreads) {
+        BlockDownloaderParams params = context.getDownloaderParams();
+        ChainParameters parameters = context.getParameters();
+        this.chainId = context.getChainId();
+        this.context = context;
+        this.logger = context.getLogger();
+        this.startHeight = params.getLocalLatestHeight() + 1;
+        this.netLatestHeight = params.getNetLatestHeight();
+        this.cachedBlockSizeLimit = parameters.getCachedBlockSizeLimit();
+        this.batchSize = Math.max(1, (int) parameters.getDownloadNumber());
+        this.timeout = parameters.getSingleDownloadTimeout();
+        this.blockMap = context.getBlockMap();
+        this.cachedBlockSize = context.getCachedBlockSize();
+        this.nextHeight = startHeight;
+        this.committedHeight = startHeight - 1;
+        for (Node node : params.getNodes()) {
+            peers.put(node.getId(), new PeerWindow(node, batchSize, batchSize * 8));
+        }
+        int threads = verifyThreads > 0 ? verifyThreads : Runtime.getRuntime().availableProcessors();
+        this.verifyExecutor = ThreadUtils.createThreadPool(threads, threads * batchSize, new NulsThreadFactory("block-syn-verify"));
+        //预验证队列满时接收线程阻塞等待空位,验证不在网络消息处理线程上执行
+        this.verifySlots = new Semaphore(threads * batchSize);
+    }
+
+    public long getStartHeight() {
+        return startHeight;
+    }
+
+    public long getNetLatestHeight() {
+        return netLatestHeight;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * 接收同步区块,交给预验证线程池
+     * Receive a synchronized block and hand it to the pre-verify pool
+     *
+     * @param nodeId 发送区块的节点
+     * @param block  区块
+     * @return 区块是否被接收,重复或者超出同步范围的区块返回false
+     */
+    public boolean receive(String nodeId, Block block) {
+        if (block == null || closed || failed) {
+            return false;
+        }
+        long height = block.getHeader().getHeight();
+        int size = block.size();
+        lock.lock();
+        try {
+            if (height < startHeight || height > netLatestHeight || height <= committedHeight || blockMap.containsKey(height) || !verifying.add(height)) {
+                return false;
+            }
+            receivedCount++;
+            receivedBytes += size;
+            cachedBlockSize.addAndGet(size);
+        } finally {
+            lock.unlock();
+        }
+        boolean acquired;
+        try {
+            acquired = verifySlots.tryAcquire(HANDOFF_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            dropped(height, size);
+            return false;
+        }
+        try {
+            verifyExecutor.execute(() -> {
+                try {
+                    verified(nodeId, block, preVerify(block));
+                } finally {
+                    verifySlots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            verifySlots.release();
+            dropped(height, size);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 已接收的区块未能交给预验证线程池,释放其占用的缓存空间
+     */
+    private void dropped(long height, int size) {
+        lock.lock();
+        try {
+            verifying.remove(height);
+            if (!closed) {
+                cachedBlockSize.addAndGet(-size);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 与链状态无关的区块验证,可以在前序区块保存之前并行执行
+     * 交易签名由交易模块在保存区块时验证,交易模块运行在单独的进程中,这里不重复验证
+     */
+    private boolean preVerify(Block block) {
+        try {
+            if (!BlockUtil.basicVerify(chainId, block)) {
+                return false;
+            }
+            BlockHeader header = block.getHeader();
+            if (!NulsHash.calcMerkleHash(block.getTxHashList()).equals(header.getMerkleHash())) {
+                logger.debug("preVerify fail, merkle hash error! height-" + header.getHeight() + ", hash-" + header.getHash());
+                return false;
+            }
+            if (header.getBlockSignature().verifySignature(header.getHash()).isFailed()) {
+                logger.debug("preVerify fail, block signature error! height-" + header.getHeight() + ", hash-" + header.getHash());
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("preVerify error", e);
+            return false;
+        }
+    }
+
+    private void verified(String nodeId, Block block, boolean success) {
+        long height = block.getHeader().getHeight();
+        lock.lock();
+        try {
+            verifying.remove(height);
+            if (closed) {
+                return;
+            }
+            Map.Entry<Long, Batch> entry = batches.floorEntry(height);
+            Batch batch = entry != null && entry.getValue().contains(height) ? entry.getValue() : null;
+            if (success) {
+                blockMap.put(height, block);
+                if (batch != null && batch.received(height)) {
+                    PeerWindow peer = peers.get(batch.nodeId);
+                    peer.onReceived(1);
+                    if (batch.remaining == 0) {
+                        batches.remove(batch.start);
+                        peer.onBatchComplete();
+                        peer.getNode().adjustCredit(true);
+                    }
+                }
+            } else {
+                cachedBlockSize.addAndGet(-block.size());
+                logger.warn("pre-verify block from node-{} failed, height-{}", nodeId, height);
+                if (batch != null && batch.nodeId.equals(nodeId)) {
+                    //立即由其他节点重新下载
+                    batch.sendTime = 0;
+                } else {
+                    PeerWindow peer = peers.get(nodeId);
+                    if (peer != null) {
+                        peer.getNode().adjustCredit(false);
+                    }
+                    if (batch == null) {
+                        addRetry(new Batch(height, height, nodeId));
+                    }
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 将超时的下载请求转为重新下载,由其他节点下载未收到的区块
+     */
+    void expireBatches() {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Iterator<Batch> iterator = batches.values().iterator();
+            while (iterator.hasNext()) {
+                Batch batch = iterator.next();
+                if (now - batch.sendTime > timeout) {
+                    iterator.remove();
+                    logger.warn("download block from node-{} timeout, height {}-{}, missing-{}", batch.nodeId, batch.start, batch.end, batch.remaining);
+                    retry(batch);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 下载请求发送失败
+     */
+    void sendFailed(Batch batch) {
+        lock.lock();
+        try {
+            batches.remove(batch.start);
+            retry(batch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void retry(Batch batch) {
+        peers.get(batch.nodeId).onBatchFailed(batch.remaining);
+        long first = batch.firstMissing();
+        if (first < 0) {
+            return;
+        }
+        addRetry(new Batch(first, batch.lastMissing(), batch.nodeId));
+    }
+
+    private void addRetry(Batch batch) {
+        retries.merge(batch.start, batch, (old, value) -> old.end >= value.end ? old : value);
+    }
+
+    /**
+     * 分配下一个下载请求,无可用节点窗口或者缓存已满时返回null
+     * 重新下载的区间不受缓存限制,保证待保存的高度总能被下载
+     *
+     * @return 已登记的下载请求
+     */
+    Batch schedule() {
+        lock.lock();
+        try {
+            while (!failed && !closed) {
+                Map.Entry<Long, Batch> retry = retries.firstEntry();
+                long start, end;
+                String exclude = null;
+                if (retry != null) {
+                    start = retry.getValue().start;
+                    end = retry.getValue().end;
+                    exclude = retry.getValue().nodeId;
+                } else if (nextHeight <= netLatestHeight && hasSpace()) {
+                    start = nextHeight;
+                    end = Math.min(nextHeight + batchSize - 1, netLatestHeight);
+                } else {
+                    return null;
+                }
+                int count = (int) (end - start + 1);
+                PeerWindow peer = selectPeer(count, exclude);
+                if (peer == null) {
+                    return null;
+                }
+                if (retry != null) {
+                    retries.remove(start);
+                } else {
+                    nextHeight = end + 1;
+                }
+                Batch batch = new Batch(start, end, peer.getNode().getId());
+                for (long height = start; height <= end; height++) {
+                    if (height <= committedHeight || blockMap.containsKey(height) || verifying.contains(height)) {
+                        batch.received(height);
+                    }
+                }
+                if (batch.remaining == 0) {
+                    continue;
+                }
+                peer.onRequest(batch.remaining);
+                batch.sendTime = System.currentTimeMillis();
+                batches.put(start, batch);
+                return batch;
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 已缓存的区块字节数加上已请求未收到区块的估算字节数不超过缓存上限
+     */
+    private boolean hasSpace() {
+        int inFlight = 0;
+        for (PeerWindow peer : peers.values()) {
+            inFlight += peer.getInFlight();
+        }
+        int cached = cachedBlockSize.get();
+        if (inFlight == 0 && cached == 0) {
+            return true;
+        }
+        long average = receivedCount == 0 ? 0 : receivedBytes / receivedCount;
+        return cached + inFlight * average < cachedBlockSizeLimit;
+    }
+
+    /**
+     * 选择剩余窗口最大的节点,重新下载时优先选择其他节点
+     */
+    private PeerWindow selectPeer(int count, String exclude) {
+        PeerWindow selected = null;
+        PeerWindow excluded = null;
+        for (PeerWindow peer : peers.values()) {
+            if (peer.available() < count) {
+                continue;
+            }
+            if (peer.getNode().getId().equals(exclude)) {
+                excluded = peer;
+                continue;
+            }
+            if (selected == null || peer.available() > selected.available()) {
+                selected = peer;
+            }
+        }
+        return selected != null ? selected : excluded;
+    }
+
+    /**
+     * 是否还有可用的下载节点
+     */
+    boolean hasUsablePeer() {
+        lock.lock();
+        try {
+            for (PeerWindow peer : peers.values()) {
+                if (peer.available() > 0 || peer.getInFlight() > 0) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 所有高度都已下载并通过预验证
+     */
+    boolean isDownloadComplete() {
+        lock.lock();
+        try {
+            return nextHeight > netLatestHeight && batches.isEmpty() && retries.isEmpty() && verifying.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待其他阶段的状态变化
+     */
+    void await(long millis) throws InterruptedException {
+        lock.lock();
+        try {
+            if (!failed && !closed) {
+                changed.await(millis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待指定高度的区块通过预验证
+     *
+     * @return 超时、同步失败时返回null
+     */
+    Block take(long height, long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        lock.lock();
+        try {
+            Block block;
+            while ((block = blockMap.remove(height)) == null) {
+                long nanos = deadline - System.nanoTime();
+                if (failed || closed || !context.isNeedSyn() || nanos <= 0) {
+                    return null;
+                }
+                changed.awaitNanos(nanos);
+            }
+            return block;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 区块已保存,释放缓存空间
+     */
+    void committed(Block block) {
+        lock.lock();
+        try {
+            if (!closed) {
+                cachedBlockSize.addAndGet(-block.size());
+            }
+            committedHeight = block.getHeader().getHeight();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void fail() {
+        lock.lock();
+        try {
+            failed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 结束同步,未保存的区块与缓存计数随之清空,关闭后各阶段不再修改缓存计数
+     * Finish the synchronization, unsaved blocks and the cache counter are cleared, stages no longer touch the counter once closed
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            blockMap.clear();
+            cachedBlockSize.set(0);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        verifyExecutor.shutdownNow();
+    }
+
+    /**
+     * 发送给单个节点的一次下载请求
+     */
+    static class Batch {
+
+        final long start;
+        final long end;
+        final String nodeId;
+        long sendTime;
+        int remaining;
+        private final BitSet received;
+
+        Batch(long start, long end, String nodeId) {
+            this.start = start;
+            this.end = end;
+            this.nodeId = nodeId;
+            this.remaining = (int) (end - start + 1);
+            this.received = new BitSet(remaining);
+        }
+
+        boolean contains(long height) {
+            return start <= height && height <= end;
+        }
+
+        /**
+         * @return 是否第一次收到该高度
+         */
+        boolean received(long height) {
+            int index = (int) (height - start);
+            if (received.get(index)) {
+                return false;
+            }
+            received.set(index);
+            remaining--;
+            return true;
+        }
+
+        long firstMissing() {
+            int index = received.nextClearBit(0);
+            return start + index > end ? -1 : start + index;
+        }
+
+        long lastMissing() {
+            return start + received.previousClearBit((int) (end - start));
+        }
+    }
+}
@@ -289,14 +289,31 @@ public class BlockSynchronizer implements Runnable {
         long startHeight = downloaderParams.getLocalLatestHeight() + 1;
         long total = netLatestHeight - startHeight + 1;
         long start = System.currentTimeMillis();
-        //5.开启区块下载器BlockDownloader
-        BlockDownloader downloader = new BlockDownloader(chainId);
-        Future<Boolean> downloadFutrue = ThreadUtils.asynExecuteCallable(downloader);
-        //6.开启区块消费线程BlockConsumer
-        BlockConsumer consumer = new BlockConsumer(chainId);
-        Future<Boolean> consumerFuture = ThreadUtils.asynExecuteCallable(consumer);
-        Boolean downResult = downloadFutrue.get();
-        Boolean storageResult = consumerFuture.get();
+        Boolean downResult;
+        Boolean storageResult;
+        if (blockConfig.isPipelinedSyn()) {
+            //流水线同步:下载、预验证、保存并行执行
+            BlockSynPipeline pipeline = new BlockSynPipeline(context, blockConfig.getSynVerifyThreads());
+            context.setSynPipeline(pipeline);
+            try {
+                Future<Boolean> downloadFutrue = ThreadUtils.asynExecuteCallable(new PipelinedBlockDownloader(chainId, pipeline));
+                Future<Boolean> commitFuture = ThreadUtils.asynExecuteCallable(new PipelinedBlockCommitter(chainId, pipeline));
+                downResult = downloadFutrue.get();
+                storageResult = commitFuture.get();
+            } finally {
+                context.setSynPipeline(null);
+                pipeline.close();
+            }
+        } else {
+            //5.开启区块下载器BlockDownloader
+            BlockDownloader downloader = new BlockDownloader(chainId);
+            Future<Boolean> downloadFutrue = ThreadUtils.asynExecuteCallable(downloader);
+            //6.开启区块消费线程BlockConsumer
+            BlockConsumer consumer = new BlockConsumer(chainId);
+            Future<Boolean> consumerFuture = ThreadUtils.asynExecuteCallable(consumer);
+            downResult = downloadFutrue.get();
+            storageResult = consumerFuture.get();
+        }
         boolean success = downResult != null && downResult && storageResult != null && storageResult;
         long end = System.currentTimeMillis();
         if (success) {
@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.thread;
+
+import io.nuls.block.constant.NodeEnum;
+import io.nuls.block.model.Node;
+
+/**
+ * 流水线同步时单个节点的下载窗口
+ * 窗口表示允许同时向该节点请求、尚未收到的区块数，批次按时完成后加性增长，超时后减半(AIMD)
+ * <p>
+ * Download window of one node in pipelined sync.
+ * The window is the number of blocks that may be requested from the node without being received yet, it grows
+ * additively when a batch completes in time and is halved on timeout (AIMD).
+ *
+ * @author captain
+ */
+class PeerWindow {
+
+    private final Node node;
+
+    /**
+     * 单次请求的区块数,也是窗口的最小值与增长步长
+     */
+    private final int batchSize;
+
+    /**
+     * 窗口上限
+     */
+    private final int maxWindow;
+
+    private int window;
+
+    /**
+     * 已请求未收到的区块数
+     */
+    private int inFlight;
+
+    PeerWindow(Node node, int batchSize, int maxWindow) {
+        this.node = node;
+        this.batchSize = batchSize;
+        this.maxWindow = Math.max(batchSize, maxWindow);
+        this.window = batchSize;
+    }
+
+    Node getNode() {
+        return node;
+    }
+
+    int getWindow() {
+        return window;
+    }
+
+    int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 剩余窗口,超时节点不再分配下载任务
+     */
+    int available() {
+        if (NodeEnum.TIMEOUT.equals(node.getNodeEnum())) {
+            return 0;
+        }
+        return window - inFlight;
+    }
+
+    void onRequest(int count) {
+        inFlight += count;
+    }
+
+    /**
+     * 收到区块,释放窗口
+     */
+    void onReceived(int count) {
+        inFlight = Math.max(0, inFlight - count);
+    }
+
+    /**
+     * 一批区块全部收到
+     */
+    void onBatchComplete() {
+        window = Math.min(maxWindow, window + batchSize);
+    }
+
+    /**
+     * 一批区块超时或者区块验证失败,未收到的区块由其他节点重新下载
+     *
+     * @param missing 未收到的区块数
+     */
+    void onBatchFailed(int missing) {
+        onReceived(missing);
+        window = Math.max(batchSize, window / 2);
+        node.adjustCredit(false);
+    }
+}
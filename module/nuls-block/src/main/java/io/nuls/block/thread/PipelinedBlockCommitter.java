@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.thread;
+
+import io.nuls.base.data.Block;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.service.BlockService;
+import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.log.logback.NulsLogger;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 流水线同步的区块保存线程,按高度顺序保存已通过预验证的区块
+ * Commit stage of pipelined sync, saves pre-verified blocks in height order
+ *
+ * @author captain
+ */
+public class PipelinedBlockCommitter implements Callable<Boolean> {
+
+    private static final long WAIT_MILLIS = 1000L;
+
+    private int chainId;
+
+    private BlockSynPipeline pipeline;
+
+    private BlockService blockService;
+
+    PipelinedBlockCommitter(int chainId, BlockSynPipeline pipeline) {
+        this.chainId = chainId;
+        this.pipeline = pipeline;
+        this.blockService = SpringLiteContext.getBean(BlockService.class);
+    }
+
+    @Override
+    public Boolean call() {
+        ChainContext context = ContextManager.getContext(chainId);
+        NulsLogger logger = context.getLogger();
+        long pendingHeight = pipeline.getStartHeight();
+        long netLatestHeight = pipeline.getNetLatestHeight();
+        logger.info("PipelinedBlockCommitter start work");
+        try {
+            while (pendingHeight <= netLatestHeight && context.isNeedSyn() && !pipeline.isFailed()) {
+                Block block = pipeline.take(pendingHeight, WAIT_MILLIS);
+                if (block == null) {
+                    continue;
+                }
+                if (!blockService.saveBlock(chainId, block, true)) {
+                    logger.error("An exception occurred while saving the downloaded block, height-" + pendingHeight + ", hash-" + block.getHeader().getHash());
+                    pipeline.fail();
+                    context.setNeedSyn(false);
+                    return false;
+                }
+                pipeline.committed(block);
+                pendingHeight++;
+            }
+            logger.info("PipelinedBlockCommitter stop work normally");
+            return context.isNeedSyn() && !pipeline.isFailed();
+        } catch (Exception e) {
+            logger.error("PipelinedBlockCommitter stop work abnormally", e);
+            pipeline.fail();
+            context.setNeedSyn(false);
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.thread;
+
+import io.nuls.block.constant.BlockErrorCode;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.HeightRangeMessage;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.core.exception.NulsRuntimeException;
+import io.nuls.core.log.logback.NulsLogger;
+
+import java.util.concurrent.Callable;
+
+import static io.nuls.block.constant.CommandConstant.GET_BLOCKS_BY_HEIGHT_MESSAGE;
+
+/**
+ * 流水线同步的区块下载器,按节点下载窗口同时向多个节点发送下载请求,超时的请求转给其他节点
+ * Block downloader of pipelined sync, keeps requests outstanding on several nodes within their download windows and
+ * reassigns timed out requests to other nodes
+ *
+ * @author captain
+ */
+public class PipelinedBlockDownloader implements Callable<Boolean> {
+
+    /**
+     * 没有可分配的下载请求时的最长等待时间,用于检查超时请求
+     */
+    private static final long WAIT_MILLIS = 500L;
+
+    private int chainId;
+
+    private BlockSynPipeline pipeline;
+
+    PipelinedBlockDownloader(int chainId, BlockSynPipeline pipeline) {
+        this.chainId = chainId;
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public Boolean call() {
+        ChainContext context = ContextManager.getContext(chainId);
+        NulsLogger logger = context.getLogger();
+        try {
+            logger.info("PipelinedBlockDownloader start work from " + pipeline.getStartHeight() + " to " + pipeline.getNetLatestHeight() + ", nodes-" + context.getDownloaderParams().getNodes());
+            while (context.isNeedSyn() && !pipeline.isFailed() && !pipeline.isDownloadComplete()) {
+                pipeline.expireBatches();
+                if (!pipeline.hasUsablePeer()) {
+                    throw new NulsRuntimeException(BlockErrorCode.BLOCK_SYN_ERROR);
+                }
+                BlockSynPipeline.Batch batch = pipeline.schedule();
+                if (batch == null) {
+                    pipeline.await(WAIT_MILLIS);
+                    continue;
+                }
+                HeightRangeMessage message = new HeightRangeMessage(batch.start, batch.end);
+                if (!NetworkCall.sendToNode(chainId, message, batch.nodeId, GET_BLOCKS_BY_HEIGHT_MESSAGE)) {
+                    logger.error("PipelinedBlockDownloader sendToNode failed! node-" + batch.nodeId);
+                    pipeline.sendFailed(batch);
+                }
+            }
+            logger.info("PipelinedBlockDownloader stop work, flag-" + context.isNeedSyn());
+        } catch (Exception e) {
+            logger.error("", e);
+            pipeline.fail();
+            context.setNeedSyn(false);
+        }
+        return context.isNeedSyn() && !pipeline.isFailed();
+    }
+
+}
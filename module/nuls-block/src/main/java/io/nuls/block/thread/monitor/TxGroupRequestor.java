@@ -23,6 +23,7 @@ package io.nuls.block.thread.monitor;
 import io.nuls.base.data.*;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.message.HashListMessage;
+import io.nuls.block.message.handler.CompactBlockHandler;
 import io.nuls.block.model.CachedSmallBlock;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.model.TxGroupTask;
@@ -100,6 +101,12 @@ public class TxGroupRequestor extends BaseMonitor {
         for (Map.Entry<String, DelayQueue<TxGroupTask>> entry : delayQueueMap.entrySet()) {
             String blockHash = entry.getKey();
             TxGroupTask task = entry.getValue().poll();
+            if (task != null && task.isCompact()) {
+                //按序号请求的交易没有及时返回,改为请求完整的小区块
+                CompactBlockHandler.compactTimeout(chainId, NulsHash.fromHex(blockHash), task.getNodeId());
+                del.add(blockHash);
+                continue;
+            }
             if (task != null) {
                 HashListMessage hashListMessage = task.getRequest();
                 List<NulsHash> hashList = hashListMessage.getTxHashList();
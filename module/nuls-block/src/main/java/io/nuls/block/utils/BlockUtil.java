@@ -26,6 +26,7 @@ import io.nuls.block.constant.BlockErrorCode;
 import io.nuls.block.constant.ChainTypeEnum;
 import io.nuls.block.manager.BlockChainManager;
 import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.CompactBlockMessage;
 import io.nuls.block.message.HashMessage;
 import io.nuls.block.message.HeightMessage;
 import io.nuls.block.model.Chain;
@@ -46,6 +47,7 @@ import io.nuls.core.model.ByteUtils;
 
 import java.util.*;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import static io.nuls.block.constant.CommandConstant.GET_BLOCK_BY_HEIGHT_MESSAGE;
@@ -366,6 +368,30 @@ public class BlockUtil {
         return smallBlock;
     }
 
+    /**
+     * 生成紧凑区块消息,每次使用新的随机数
+     * Build a compact block message with a fresh nonce
+     *
+     * @param smallBlock 小区块
+     * @return 紧凑区块消息
+     */
+    public static CompactBlockMessage getCompactBlock(SmallBlock smallBlock) {
+        BlockHeader header = smallBlock.getHeader();
+        long nonce = ThreadLocalRandom.current().nextLong();
+        long salt = ShortTxIdUtil.salt(header.getHash(), nonce);
+        List<NulsHash> txHashList = smallBlock.getTxHashList();
+        long[] shortIds = new long[txHashList.size()];
+        for (int i = 0; i < shortIds.length; i++) {
+            shortIds[i] = ShortTxIdUtil.shortId(salt, txHashList.get(i));
+        }
+        CompactBlockMessage message = new CompactBlockMessage();
+        message.setHeader(header);
+        message.setNonce(nonce);
+        message.setShortIds(shortIds);
+        message.setSystemTxList(smallBlock.getSystemTxList());
+        return message;
+    }
+
     /**
      * 根据smallblock和txmap组装一个完整区块
      *
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.utils;
+
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 紧凑区块短交易ID工具
+ * 短ID为交易hash经过加盐混淆后的低48位,盐由区块hash与消息随机数生成,每个区块每次广播都不同,使得攻击者难以预先构造碰撞
+ * <p>
+ * Short transaction id utility of compact blocks.
+ * A short id is the low 48 bits of the salted mix of the tx hash, the salt comes from the block hash and the message nonce,
+ * so it changes per block and per broadcast and collisions can not be prepared in advance.
+ *
+ * @author captain
+ */
+public class ShortTxIdUtil {
+
+    /**
+     * 短ID字节数
+     */
+    public static final int SHORT_ID_LENGTH = 6;
+
+    public static final long SHORT_ID_MASK = 0xFFFFFFFFFFFFL;
+
+    /**
+     * 计算盐
+     * Compute the salt of a block
+     *
+     * @param blockHash 区块hash
+     * @param nonce     消息随机数
+     * @return 盐
+     */
+    public static long salt(NulsHash blockHash, long nonce) {
+        return fmix64(readLong(blockHash.getBytes(), 0) ^ nonce);
+    }
+
+    /**
+     * 计算交易短ID
+     * Compute the short id of a transaction
+     *
+     * @param salt   盐
+     * @param txHash 交易hash
+     * @return 48位短ID
+     */
+    public static long shortId(long salt, NulsHash txHash) {
+        byte[] bytes = txHash.getBytes();
+        long h = salt;
+        for (int i = 0; i < NulsHash.HASH_LENGTH; i += 8) {
+            h = fmix64(h ^ readLong(bytes, i));
+        }
+        return h & SHORT_ID_MASK;
+    }
+
+    /**
+     * 在候选交易中查找短ID对应的交易,同一短ID匹配到多笔不同交易时对应值为null,需要向源节点请求
+     * Find the transactions of the wanted short ids among the candidates, an id matching more than one distinct
+     * transaction maps to null and has to be requested from the source node
+     *
+     * @param salt       盐
+     * @param candidates 候选交易
+     * @param wanted     需要查找的短ID
+     * @return 短ID-交易
+     */
+    public static Map<Long, Transaction> match(long salt, Iterable<Transaction> candidates, Set<Long> wanted) {
+        Map<Long, Transaction> found = new HashMap<>(wanted.size());
+        for (Transaction tx : candidates) {
+            long id = shortId(salt, tx.getHash());
+            if (!wanted.contains(id)) {
+                continue;
+            }
+            if (found.containsKey(id)) {
+                Transaction exist = found.get(id);
+                if (exist != null && !exist.getHash().equals(tx.getHash())) {
+                    found.put(id, null);
+                }
+            } else {
+                found.put(id, tx);
+            }
+        }
+        return found;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
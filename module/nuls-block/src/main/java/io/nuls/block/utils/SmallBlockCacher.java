@@ -108,7 +108,7 @@ public class SmallBlockCacher {
      */
     public static SmallBlock getSmallBlock(int chainId, NulsHash blockHash) {
         CachedSmallBlock cachedSmallBlock = getCachedSmallBlock(chainId, blockHash);
-        if (cachedSmallBlock == null) {
+        if (cachedSmallBlock == null || cachedSmallBlock.isCompactIncomplete()) {
             return null;
         }
         return cachedSmallBlock.getSmallBlock();
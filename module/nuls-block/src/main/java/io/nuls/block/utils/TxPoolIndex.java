@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.utils;
+
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.model.CollectionUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.nuls.block.BlockBootstrap.blockConfig;
+
+/**
+ * 区块模块本地的未确认交易索引
+ * 交易模块将新进入待打包队列的交易推送过来,收到紧凑区块时直接在本模块按短ID还原区块,不必再逐笔向交易模块查询;
+ * 区块保存后移除其中的交易,超出容量时淘汰最早加入的交易
+ * <p>
+ * Local index of unconfirmed transactions in the block module.
+ * The transaction module pushes transactions entering the packable queue, so compact blocks are rebuilt by short id
+ * here without querying the transaction module; transactions are removed once their block is saved and the oldest
+ * entries are evicted when the index is full
+ *
+ * @author captain
+ */
+public class TxPoolIndex {
+
+    private static Map<Integer, Map<NulsHash, Transaction>> txMap = new ConcurrentHashMap<>();
+
+    /**
+     * 索引初始化
+     *
+     * @param chainId 链Id/chain id
+     */
+    public static void init(int chainId) {
+        txMap.put(chainId, CollectionUtils.getSynSizedMap(blockConfig.getTxPoolIndexSize()));
+    }
+
+    /**
+     * 加入交易
+     * Add transactions
+     *
+     * @param chainId 链Id/chain id
+     * @param txs     交易
+     */
+    public static void add(int chainId, List<Transaction> txs) {
+        Map<NulsHash, Transaction> map = txMap.get(chainId);
+        if (map == null) {
+            return;
+        }
+        for (Transaction tx : txs) {
+            map.put(tx.getHash(), tx);
+        }
+    }
+
+    /**
+     * 移除已确认的交易
+     * Remove confirmed transactions
+     *
+     * @param chainId    链Id/chain id
+     * @param txHashList 交易hash
+     */
+    public static void remove(int chainId, List<NulsHash> txHashList) {
+        Map<NulsHash, Transaction> map = txMap.get(chainId);
+        if (map == null) {
+            return;
+        }
+        for (NulsHash hash : txHashList) {
+            map.remove(hash);
+        }
+    }
+
+    /**
+     * 按短ID查找交易
+     * Find transactions by short id
+     *
+     * @param chainId 链Id/chain id
+     * @param salt    盐
+     * @param wanted  需要查找的短ID
+     * @return 短ID-交易,有冲突的短ID对应null
+     */
+    public static Map<Long, Transaction> find(int chainId, long salt, Set<Long> wanted) {
+        Map<NulsHash, Transaction> map = txMap.get(chainId);
+        synchronized (map) {
+            return ShortTxIdUtil.match(salt, map.values(), wanted);
+        }
+    }
+
+    public static int size(int chainId) {
+        Map<NulsHash, Transaction> map = txMap.get(chainId);
+        return map == null ? 0 : map.size();
+    }
+}
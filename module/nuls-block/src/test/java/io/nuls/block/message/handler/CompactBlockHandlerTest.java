@@ -0,0 +1,204 @@
+package io.nuls.block.message.handler;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.*;
+import io.nuls.block.constant.BlockForwardEnum;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.CompactBlockMessage;
+import io.nuls.block.message.TxIndexListMessage;
+import io.nuls.block.model.CachedSmallBlock;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.model.ChainParameters;
+import io.nuls.block.service.BlockService;
+import io.nuls.block.utils.BlockUtil;
+import io.nuls.block.utils.SmallBlockCacher;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.log.logback.LoggerBuilder;
+import io.nuls.core.parse.I18nUtils;
+import io.nuls.core.rpc.model.ModuleE;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static io.nuls.block.constant.BlockForwardEnum.*;
+import static io.nuls.block.constant.Constant.MAX_BLOCK_TX_COUNT;
+import static org.junit.Assert.*;
+
+/**
+ * 紧凑区块消息解析、按序号取交易及超时退回请求小区块的测试
+ */
+public class CompactBlockHandlerTest {
+
+    private static final int CHAIN_ID = 3;
+
+    @BeforeClass
+    @SuppressWarnings("unchecked")
+    public static void beforeClass() throws Exception {
+        I18nUtils.loadLanguage(CompactBlockHandlerTest.class, "languages", "en");
+        ChainParameters parameters = new ChainParameters();
+        parameters.setChainId(CHAIN_ID);
+        parameters.setSmallBlockCache((byte) 10);
+        ChainContext context = new ChainContext();
+        context.setChainId(CHAIN_ID);
+        context.setParameters(parameters);
+        context.setLogger(LoggerBuilder.getLogger(ModuleE.Constant.BLOCK, CHAIN_ID));
+        //系统交易类型非空时不再向交易模块查询
+        context.setSystemTransactionType(new ArrayList<>(Collections.singletonList(1)));
+        Field field = ContextManager.class.getDeclaredField("contextMap");
+        field.setAccessible(true);
+        ((Map<Integer, ChainContext>) field.get(null)).put(CHAIN_ID, context);
+        SmallBlockCacher.init(CHAIN_ID);
+    }
+
+    @Test
+    public void parseCompactBlock() throws Exception {
+        Block block = newBlock(1, 3);
+        CompactBlockMessage message = BlockUtil.getCompactBlock(BlockUtil.getSmallBlock(CHAIN_ID, block));
+        CompactBlockMessage parsed = new CompactBlockMessage();
+        parsed.parse(new NulsByteBuffer(message.serialize()));
+        assertArrayEquals(message.getShortIds(), parsed.getShortIds());
+
+        //短ID数量超过区块头中的交易数
+        assertParseFail(compactBytes(block.getHeader(), 4, 0));
+        //短ID数量为负数
+        assertParseFail(compactBytes(block.getHeader(), -1, 0));
+        //系统交易数超过短ID数量
+        assertParseFail(compactBytes(block.getHeader(), 0, 1));
+
+        //超过单个区块最大交易数的序号请求
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NulsOutputStreamBuffer stream = new NulsOutputStreamBuffer(out);
+        stream.write(block.getHeader().getHash().getBytes());
+        stream.writeVarInt(MAX_BLOCK_TX_COUNT + 1);
+        try {
+            new TxIndexListMessage().parse(new NulsByteBuffer(out.toByteArray()));
+            fail();
+        } catch (NulsException e) {
+            //ignore
+        }
+    }
+
+    @Test
+    public void getTransactionsByIndex() {
+        Block block = newBlock(2, 3);
+        Map<NulsHash, Transaction> txMap = new HashMap<>();
+        block.getTxs().forEach(e -> txMap.put(e.getHash(), e));
+        List<NulsHash> txHashList = block.getTxHashList();
+        List<Transaction> txs = GetCompactTxsHandler.getTransactions(txHashList, txMap, Arrays.asList(2, 0));
+        assertEquals(Arrays.asList(block.getTxs().get(2), block.getTxs().get(0)), txs);
+        assertNull(GetCompactTxsHandler.getTransactions(txHashList, txMap, Arrays.asList(0, 3)));
+        assertNull(GetCompactTxsHandler.getTransactions(txHashList, txMap, Collections.singletonList(-1)));
+        txMap.remove(txHashList.get(1));
+        assertNull(GetCompactTxsHandler.getTransactions(txHashList, txMap, Collections.singletonList(1)));
+    }
+
+    /**
+     * 缓存中的区块还在等待交易时,从已保存的区块中返回
+     */
+    @Test
+    public void serveFromSavedBlock() throws Exception {
+        Block block = newBlock(3, 3);
+        NulsHash blockHash = block.getHeader().getHash();
+        cacheIncomplete(block, Collections.singletonList(1));
+        List<NulsHash> requested = new ArrayList<>();
+        BlockService blockService = (BlockService) Proxy.newProxyInstance(BlockService.class.getClassLoader(), new Class[]{BlockService.class}, (proxy, method, args) -> {
+            if ("getBlock".equals(method.getName()) && args[1] instanceof NulsHash) {
+                requested.add((NulsHash) args[1]);
+                return block;
+            }
+            return null;
+        });
+        GetCompactTxsHandler handler = new GetCompactTxsHandler();
+        Field field = GetCompactTxsHandler.class.getDeclaredField("blockService");
+        field.setAccessible(true);
+        field.set(handler, blockService);
+        TxIndexListMessage message = new TxIndexListMessage(blockHash, Collections.singletonList(1));
+        handler.process(CHAIN_ID, "a", RPCUtil.encode(message.serialize()));
+        assertEquals(Collections.singletonList(blockHash), requested);
+    }
+
+    @Test
+    public void timeoutFallsBackToSmallBlock() {
+        Block block = newBlock(4, 3);
+        NulsHash blockHash = block.getHeader().getHash();
+        cacheIncomplete(block, Collections.singletonList(2));
+        CompactBlockHandler.compactTimeout(CHAIN_ID, blockHash, "a");
+        //已改为请求小区块,收到小区块时按正常流程处理
+        assertEquals(EMPTY, SmallBlockCacher.getStatus(CHAIN_ID, blockHash));
+
+        //缺失的交易已经返回时不再请求
+        Block complete = newBlock(5, 3);
+        NulsHash completeHash = complete.getHeader().getHash();
+        cacheIncomplete(complete, Collections.singletonList(2));
+        SmallBlockCacher.setStatus(CHAIN_ID, completeHash, COMPLETE);
+        CompactBlockHandler.compactTimeout(CHAIN_ID, completeHash, "a");
+        assertEquals(COMPLETE, SmallBlockCacher.getStatus(CHAIN_ID, completeHash));
+    }
+
+    private static void cacheIncomplete(Block block, List<Integer> missingIndexes) {
+        SmallBlock smallBlock = BlockUtil.getSmallBlock(CHAIN_ID, block);
+        Map<NulsHash, Transaction> txMap = new HashMap<>();
+        for (int i = 0; i < block.getTxs().size(); i++) {
+            if (missingIndexes.contains(i)) {
+                smallBlock.getTxHashList().set(i, null);
+            } else {
+                txMap.put(block.getTxs().get(i).getHash(), block.getTxs().get(i));
+            }
+        }
+        CachedSmallBlock cachedSmallBlock = new CachedSmallBlock(null, smallBlock, txMap, "a");
+        cachedSmallBlock.setCompact(1, new long[block.getTxs().size()], missingIndexes);
+        SmallBlockCacher.cacheSmallBlock(CHAIN_ID, cachedSmallBlock);
+        SmallBlockCacher.setStatus(CHAIN_ID, block.getHeader().getHash(), BlockForwardEnum.INCOMPLETE);
+    }
+
+    private static byte[] compactBytes(BlockHeader header, long count, long systemTxCount) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NulsOutputStreamBuffer stream = new NulsOutputStreamBuffer(out);
+        stream.writeNulsData(header);
+        stream.writeInt64(1);
+        stream.writeVarInt(count);
+        for (long i = 0; i < count; i++) {
+            stream.writeUint48(i);
+        }
+        stream.writeVarInt(systemTxCount);
+        return out.toByteArray();
+    }
+
+    private static void assertParseFail(byte[] bytes) {
+        try {
+            new CompactBlockMessage().parse(new NulsByteBuffer(bytes));
+            fail();
+        } catch (NulsException e) {
+            //ignore
+        }
+    }
+
+    private static Block newBlock(long height, int txCount) {
+        List<Transaction> txs = new ArrayList<>();
+        List<NulsHash> txHashList = new ArrayList<>();
+        for (int i = 0; i < txCount; i++) {
+            Transaction tx = new Transaction(2);
+            tx.setTime(height);
+            tx.setRemark(("compact " + height + "-" + i).getBytes());
+            txs.add(tx);
+            txHashList.add(tx.getHash());
+        }
+        BlockHeader header = new BlockHeader();
+        header.setHeight(height);
+        header.setTime(height);
+        header.setPreHash(new NulsHash(new byte[NulsHash.HASH_LENGTH]));
+        header.setTxCount(txCount);
+        header.setMerkleHash(NulsHash.calcMerkleHash(txHashList));
+        header.setExtend(new byte[0]);
+        Block block = new Block();
+        block.setHeader(header);
+        block.setTxs(txs);
+        return block;
+    }
+}
@@ -0,0 +1,112 @@
+package io.nuls.block.storage;
+
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.po.BlockHeaderPo;
+import io.nuls.block.storage.impl.BlockStorageServiceImpl;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.model.RocksDBConfig;
+import io.nuls.core.rockdb.service.RocksDBService;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+
+import static io.nuls.block.constant.Constant.*;
+import static org.junit.Assert.*;
+
+public class BlockCommitJournalTest {
+
+    private static final int CHAIN_ID = 2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void after() {
+        RocksDBManager.close();
+    }
+
+    @Test
+    public void sharedMode() throws Exception {
+        commitAndAbort(true);
+    }
+
+    @Test
+    public void standaloneMode() throws Exception {
+        commitAndAbort(false);
+    }
+
+    /**
+     * 提交日志没有写入时,区块头不会一直被当作未完成
+     */
+    @Test
+    public void failBeforeJournal() throws Exception {
+        RocksDBService.init(folder.newFolder().getAbsolutePath(), new RocksDBConfig());
+        RocksDBService.createTable(CHAIN_LATEST_HEIGHT);
+        RocksDBService.createTable(BLOCK_HEADER + CHAIN_ID);
+        RocksDBService.createTable(BLOCK_HEADER_INDEX + CHAIN_ID);
+        BlockStorageService service = new BlockStorageServiceImpl();
+
+        BlockHeaderPo first = header(0);
+        assertFalse(service.commit(CHAIN_ID, first));
+        RocksDBService.createTable(BLOCK_COMMIT_JOURNAL);
+        assertEquals(-1, service.queryCommitHeight(CHAIN_ID));
+        assertTrue(service.save(CHAIN_ID, first));
+        assertTrue(service.query(CHAIN_ID, 0).isComplete());
+        assertTrue(service.query(CHAIN_ID, first.getHash()).isComplete());
+    }
+
+    private void commitAndAbort(boolean sharedMode) throws Exception {
+        RocksDBConfig config = new RocksDBConfig();
+        config.setSharedMode(sharedMode);
+        RocksDBService.init(folder.newFolder().getAbsolutePath(), config);
+        RocksDBService.createTable(CHAIN_LATEST_HEIGHT);
+        RocksDBService.createTable(BLOCK_COMMIT_JOURNAL);
+        RocksDBService.createTable(BLOCK_HEADER + CHAIN_ID);
+        RocksDBService.createTable(BLOCK_HEADER_INDEX + CHAIN_ID);
+        BlockStorageService service = new BlockStorageServiceImpl();
+
+        BlockHeaderPo first = header(0);
+        assertTrue(service.commit(CHAIN_ID, first));
+        assertTrue(service.finishCommit(CHAIN_ID));
+        assertEquals(-1, service.queryCommitHeight(CHAIN_ID));
+        assertTrue(service.query(CHAIN_ID, 0).isComplete());
+
+        //提交日志存在期间区块头为未完成状态
+        BlockHeaderPo second = header(1);
+        assertTrue(service.commit(CHAIN_ID, second));
+        assertEquals(1, service.queryLatestHeight(CHAIN_ID));
+        assertEquals(1, service.queryCommitHeight(CHAIN_ID));
+        assertFalse(service.query(CHAIN_ID, 1).isComplete());
+        assertFalse(service.query(CHAIN_ID, second.getHash()).isComplete());
+
+        //重新打开后从提交日志恢复状态
+        assertFalse(new BlockStorageServiceImpl().query(CHAIN_ID, 1).isComplete());
+
+        assertTrue(service.abortCommit(CHAIN_ID));
+        assertEquals(0, service.queryLatestHeight(CHAIN_ID));
+        assertEquals(-1, service.queryCommitHeight(CHAIN_ID));
+        assertNull(service.query(CHAIN_ID, 1));
+        assertNull(service.query(CHAIN_ID, second.getHash()));
+        assertTrue(service.query(CHAIN_ID, 0).isComplete());
+    }
+
+    private static BlockHeaderPo header(long height) {
+        BlockHeaderPo po = new BlockHeaderPo();
+        po.setComplete(true);
+        po.setHash(hash("hash" + height));
+        po.setPreHash(hash("hash" + (height - 1)));
+        po.setMerkleHash(hash("merkle" + height));
+        po.setHeight(height);
+        po.setExtend(new byte[0]);
+        po.setTxHashList(new ArrayList<>());
+        return po;
+    }
+
+    private static NulsHash hash(String str) {
+        return new NulsHash(Sha256Hash.hash(str.getBytes()));
+    }
+}
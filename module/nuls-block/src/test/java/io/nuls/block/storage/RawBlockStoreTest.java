@@ -0,0 +1,111 @@
+package io.nuls.block.storage;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class RawBlockStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendAndGet() throws Exception {
+        File dir = folder.newFolder();
+        try (RawBlockStore store = new RawBlockStore(dir, 100)) {
+            for (int i = 0; i < 10; i++) {
+                store.append(i, block(i, 40));
+            }
+            assertEquals(9, store.getLatestHeight());
+            for (int i = 0; i < 10; i++) {
+                assertArrayEquals(block(i, 40), store.get(i));
+            }
+            assertNull(store.get(10));
+            //每个分段最多放下两个区块
+            assertTrue(new File(dir, "blk-00004.dat").exists());
+        }
+        try (RawBlockStore store = new RawBlockStore(dir, 100)) {
+            assertEquals(9, store.getLatestHeight());
+            assertArrayEquals(block(7, 40), store.get(7));
+        }
+    }
+
+    @Test
+    public void truncate() throws Exception {
+        File dir = folder.newFolder();
+        try (RawBlockStore store = new RawBlockStore(dir, 100)) {
+            for (int i = 0; i < 10; i++) {
+                store.append(i, block(i, 40));
+            }
+            store.truncate(4);
+            assertEquals(4, store.getLatestHeight());
+            assertNull(store.get(5));
+            assertFalse(new File(dir, "blk-00003.dat").exists());
+
+            //重新保存已存在的高度时先截断
+            store.append(3, block(33, 30));
+            assertEquals(3, store.getLatestHeight());
+            assertArrayEquals(block(33, 30), store.get(3));
+            store.append(4, block(44, 50));
+            assertArrayEquals(block(44, 50), store.get(4));
+            assertArrayEquals(block(2, 40), store.get(2));
+        }
+    }
+
+    @Test
+    public void startFromHeight() throws Exception {
+        File dir = folder.newFolder();
+        try (RawBlockStore store = new RawBlockStore(dir, 100)) {
+            store.append(1000, block(1000, 40));
+            store.append(1001, block(1001, 40));
+            assertNull(store.get(999));
+            assertArrayEquals(block(1001, 40), store.get(1001));
+            store.truncate(500);
+            assertEquals(500, store.getLatestHeight());
+            assertNull(store.get(1000));
+            store.append(501, block(501, 40));
+            assertArrayEquals(block(501, 40), store.get(501));
+        }
+    }
+
+    @Test
+    public void reopenAndRestartOnGap() throws Exception {
+        File dir = folder.newFolder();
+        try (RawBlockStore store = new RawBlockStore(dir, 100)) {
+            store.append(5000000, block(0, 40));
+            store.append(5000001, block(1, 40));
+            store.append(5000002, block(2, 40));
+        }
+        //重新打开时直接从最高高度的记录恢复写入位置
+        try (RawBlockStore store = new RawBlockStore(dir, 100)) {
+            assertEquals(5000002, store.getLatestHeight());
+            assertNull(store.get(4999999));
+            assertArrayEquals(block(1, 40), store.get(5000001));
+            store.append(5000003, block(3, 40));
+            assertArrayEquals(block(3, 40), store.get(5000003));
+            assertArrayEquals(block(2, 40), store.get(5000002));
+
+            //不连续的高度从该高度重新开始存储
+            store.append(5000010, block(10, 40));
+            assertNull(store.get(5000003));
+            assertArrayEquals(block(10, 40), store.get(5000010));
+            assertFalse(new File(dir, "blk-00001.dat").exists());
+        }
+        try (RawBlockStore store = new RawBlockStore(dir, 100)) {
+            assertNull(store.get(5000002));
+            assertArrayEquals(block(10, 40), store.get(5000010));
+        }
+    }
+
+    private byte[] block(int height, int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (height + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,167 @@
+package io.nuls.block.thread;
+
+import io.nuls.base.data.Block;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.base.signture.BlockSignature;
+import io.nuls.base.signture.SignatureUtil;
+import io.nuls.block.constant.NodeEnum;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.model.BlockDownloaderParams;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.model.ChainParameters;
+import io.nuls.block.model.Node;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.log.logback.LoggerBuilder;
+import io.nuls.core.rpc.model.ModuleE;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流水线同步的乱序接收、预验证与按序保存测试
+ */
+public class BlockSynPipelineTest {
+
+    private static final int CHAIN_ID = 2;
+
+    private static final ECKey PACKER = new ECKey();
+
+    /**
+     * 下标即高度
+     */
+    private static List<Block> blocks;
+
+    @BeforeClass
+    @SuppressWarnings("unchecked")
+    public static void beforeClass() throws Exception {
+        ChainParameters parameters = new ChainParameters();
+        parameters.setChainId(CHAIN_ID);
+        parameters.setBlockMaxSize(5000000);
+        parameters.setExtendMaxSize(1024);
+        parameters.setCachedBlockSizeLimit(100000000);
+        parameters.setDownloadNumber((byte) 2);
+        parameters.setSingleDownloadTimeout(10000);
+        //只初始化流水线用到的状态,不启动各类缓存
+        ChainContext context = new ChainContext();
+        context.setChainId(CHAIN_ID);
+        context.setParameters(parameters);
+        context.setCachedBlockSize(new AtomicInteger());
+        context.setLogger(LoggerBuilder.getLogger(ModuleE.Constant.BLOCK, CHAIN_ID));
+        Field field = ContextManager.class.getDeclaredField("contextMap");
+        field.setAccessible(true);
+        ((Map<Integer, ChainContext>) field.get(null)).put(CHAIN_ID, context);
+        blocks = new ArrayList<>();
+        blocks.add(null);
+        NulsHash preHash = new NulsHash(new byte[NulsHash.HASH_LENGTH]);
+        for (int height = 1; height <= 4; height++) {
+            Block block = newBlock(height, preHash, 2);
+            blocks.add(block);
+            preHash = block.getHeader().getHash();
+        }
+    }
+
+    @Test
+    public void verifyOutOfOrderAndCommitInOrder() throws Exception {
+        ChainContext context = newContext(4);
+        BlockSynPipeline pipeline = new BlockSynPipeline(context, 2);
+        try {
+            //预验证失败的区块不进入待保存队列,同一高度可以重新接收
+            Block bad = newBlock(3, blocks.get(2).getHeader().getHash(), 2);
+            bad.getTxs().remove(0);
+            assertTrue(pipeline.receive("a", bad));
+            assertTrue(pipeline.receive("a", blocks.get(4)));
+            assertTrue(pipeline.receive("a", blocks.get(2)));
+            assertTrue(pipeline.receive("a", blocks.get(1)));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!pipeline.receive("a", blocks.get(3))) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            assertFalse(pipeline.receive("a", blocks.get(3)));
+
+            for (int height = 1; height <= 4; height++) {
+                Block block = pipeline.take(height, 5000);
+                assertNotNull(block);
+                assertEquals(height, block.getHeader().getHeight());
+                assertEquals(blocks.get(height).getHeader().getHash(), block.getHeader().getHash());
+                pipeline.committed(block);
+            }
+            assertEquals(0, context.getCachedBlockSize().get());
+            assertTrue(context.getBlockMap().isEmpty());
+            //已保存的高度不再接收
+            assertFalse(pipeline.receive("a", blocks.get(1)));
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void closeResetsCache() throws Exception {
+        ChainContext context = newContext(4);
+        BlockSynPipeline pipeline = new BlockSynPipeline(context, 1);
+        assertTrue(pipeline.receive("a", blocks.get(2)));
+        assertTrue(pipeline.receive("a", blocks.get(3)));
+        assertTrue(context.getCachedBlockSize().get() > 0);
+        pipeline.close();
+        assertEquals(0, context.getCachedBlockSize().get());
+        assertTrue(context.getBlockMap().isEmpty());
+        assertFalse(pipeline.receive("a", blocks.get(1)));
+        //关闭后完成的预验证不再修改缓存计数
+        Thread.sleep(200);
+        assertEquals(0, context.getCachedBlockSize().get());
+        assertTrue(context.getBlockMap().isEmpty());
+    }
+
+    private static Block newBlock(long height, NulsHash preHash, int txCount) {
+        List<Transaction> txs = new ArrayList<>();
+        List<NulsHash> txHashList = new ArrayList<>();
+        for (int i = 0; i < txCount; i++) {
+            Transaction tx = new Transaction(2);
+            tx.setTime(height);
+            tx.setRemark(("pipeline " + height + "-" + i).getBytes());
+            txs.add(tx);
+            txHashList.add(tx.getHash());
+        }
+        Block block = new Block();
+        block.setTxs(txs);
+        BlockHeader header = new BlockHeader();
+        header.setHeight(height);
+        header.setTime(height);
+        header.setPreHash(preHash);
+        header.setTxCount(txCount);
+        header.setMerkleHash(NulsHash.calcMerkleHash(txHashList));
+        header.setExtend(new byte[0]);
+        BlockSignature signature = new BlockSignature();
+        signature.setSignData(SignatureUtil.signDigest(header.getHash().getBytes(), PACKER));
+        signature.setPublicKey(PACKER.getPubKey());
+        header.setBlockSignature(signature);
+        block.setHeader(header);
+        return block;
+    }
+
+    private ChainContext newContext(long netLatestHeight) {
+        ChainContext context = ContextManager.getContext(CHAIN_ID);
+        context.getBlockMap().clear();
+        context.getCachedBlockSize().set(0);
+        context.setNeedSyn(true);
+        Node node = new Node();
+        node.setId("a");
+        node.setNodeEnum(NodeEnum.IDLE);
+        BlockDownloaderParams params = new BlockDownloaderParams();
+        params.setLocalLatestHeight(0);
+        params.setNetLatestHeight(netLatestHeight);
+        params.setNodes(Collections.singletonList(node));
+        context.setDownloaderParams(params);
+        return context;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.thread;
+
+import io.nuls.block.constant.NodeEnum;
+import io.nuls.block.model.Node;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PeerWindowTest {
+
+    @Test
+    public void adjustWindow() {
+        Node node = new Node();
+        node.setId("1.1.1.1:8001");
+        node.setNodeEnum(NodeEnum.IDLE);
+        PeerWindow peer = new PeerWindow(node, 10, 40);
+        assertEquals(10, peer.available());
+
+        peer.onRequest(10);
+        assertEquals(0, peer.available());
+        peer.onReceived(10);
+        peer.onBatchComplete();
+        assertEquals(20, peer.getWindow());
+        for (int i = 0; i < 5; i++) {
+            peer.onBatchComplete();
+        }
+        assertEquals(40, peer.getWindow());
+
+        //超时后窗口减半,未收到的区块释放窗口
+        peer.onRequest(30);
+        peer.onBatchFailed(10);
+        assertEquals(20, peer.getWindow());
+        assertEquals(20, peer.getInFlight());
+        assertEquals(0, peer.available());
+
+        //连续失败后节点被标记为超时,不再分配下载任务
+        peer.onReceived(20);
+        peer.onBatchFailed(0);
+        assertEquals(10, peer.getWindow());
+        assertEquals(NodeEnum.TIMEOUT, node.getNodeEnum());
+        assertEquals(0, peer.available());
+    }
+}
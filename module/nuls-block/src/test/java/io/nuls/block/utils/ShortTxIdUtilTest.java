@@ -0,0 +1,76 @@
+package io.nuls.block.utils;
+
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.block.message.CompactBlockMessage;
+import io.nuls.core.crypto.Sha256Hash;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ShortTxIdUtilTest {
+
+    @Test
+    public void shortId() {
+        NulsHash blockHash = hash("block");
+        NulsHash txHash = hash("tx");
+        long salt = ShortTxIdUtil.salt(blockHash, 1);
+        long id = ShortTxIdUtil.shortId(salt, txHash);
+        assertEquals(id, ShortTxIdUtil.shortId(salt, txHash));
+        assertEquals(0, id & ~ShortTxIdUtil.SHORT_ID_MASK);
+        //不同随机数得到不同短ID
+        assertNotEquals(id, ShortTxIdUtil.shortId(ShortTxIdUtil.salt(blockHash, 2), txHash));
+    }
+
+    @Test
+    public void match() {
+        long salt = ShortTxIdUtil.salt(hash("block"), 7);
+        List<Transaction> pool = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pool.add(tx(i));
+        }
+        Set<Long> wanted = new HashSet<>();
+        wanted.add(ShortTxIdUtil.shortId(salt, pool.get(3).getHash()));
+        wanted.add(ShortTxIdUtil.shortId(salt, pool.get(42).getHash()));
+        wanted.add(ShortTxIdUtil.shortId(salt, tx(1000).getHash()));
+        Map<Long, Transaction> found = ShortTxIdUtil.match(salt, pool, wanted);
+        assertEquals(2, found.size());
+        assertEquals(pool.get(42).getHash(), found.get(ShortTxIdUtil.shortId(salt, pool.get(42).getHash())).getHash());
+    }
+
+    @Test
+    public void serialize() throws Exception {
+        BlockHeader header = new BlockHeader();
+        header.setPreHash(hash("pre"));
+        header.setMerkleHash(hash("merkle"));
+        header.setTxCount(3);
+        header.setExtend(new byte[0]);
+        CompactBlockMessage message = new CompactBlockMessage();
+        message.setHeader(header);
+        message.setNonce(-5);
+        //全1的短ID也能正确还原
+        message.setShortIds(new long[]{1, ShortTxIdUtil.SHORT_ID_MASK, 123456789L});
+        message.setSystemTxList(Collections.singletonList(tx(1)));
+        byte[] bytes = message.serialize();
+        assertEquals(message.size(), bytes.length);
+
+        CompactBlockMessage parsed = new CompactBlockMessage();
+        parsed.parse(bytes, 0);
+        assertEquals(-5, parsed.getNonce());
+        assertArrayEquals(message.getShortIds(), parsed.getShortIds());
+        assertEquals(tx(1).getHash(), parsed.getSystemTxList().get(0).getHash());
+    }
+
+    private static Transaction tx(int i) {
+        Transaction tx = new Transaction(2);
+        tx.setTime(i);
+        return tx;
+    }
+
+    private static NulsHash hash(String str) {
+        return new NulsHash(Sha256Hash.hash(str.getBytes()));
+    }
+}
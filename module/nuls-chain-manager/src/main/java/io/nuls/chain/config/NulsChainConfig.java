@@ -49,6 +49,19 @@ public class NulsChainConfig implements ModuleConfig {
 
     private int chainAssetsTaskIntervalMinute;
 
+    /**
+     * 单条友链流通量收集的超时时间
+     */
+    private int chainAssetsCollectTimeoutSecond = 30;
+
+    public int getChainAssetsCollectTimeoutSecond() {
+        return chainAssetsCollectTimeoutSecond;
+    }
+
+    public void setChainAssetsCollectTimeoutSecond(int chainAssetsCollectTimeoutSecond) {
+        this.chainAssetsCollectTimeoutSecond = chainAssetsCollectTimeoutSecond;
+    }
+
     public int getChainAssetsTaskIntervalMinute() {
         return chainAssetsTaskIntervalMinute;
     }
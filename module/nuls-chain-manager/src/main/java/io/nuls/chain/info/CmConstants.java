@@ -12,4 +12,18 @@ public class CmConstants {
     public static  byte[] BLACK_HOLE_ADDRESS = null;
 
     public static final int MIN_SIGNATURE_BFT_RATIO= 66;
+
+    /**
+     * 友链流通量查询请求线程池
+     */
+    public static final String CIRCULATE_REQUEST_POOL = "cm-circulate-request";
+
+    /**
+     * 友链流通量收集超时定时器
+     */
+    public static final String CIRCULATE_TIMER = "cm-circulate-timer";
+
+    public static final int CIRCULATE_REQUEST_THREADS = 4;
+
+    public static final int CIRCULATE_REQUEST_QUEUE_SIZE = 1000;
 }
@@ -35,6 +35,7 @@ import io.nuls.chain.model.dto.CoinDataAssets;
 import io.nuls.chain.model.po.CacheDatas;
 import io.nuls.chain.model.po.ChainAsset;
 import io.nuls.chain.service.*;
+import io.nuls.chain.service.impl.ChainCirculateCollector;
 import io.nuls.chain.util.LoggerUtil;
 import io.nuls.chain.util.TxUtil;
 import io.nuls.core.core.annotation.Autowired;
@@ -73,6 +74,8 @@ public class TxCirculateCmd extends BaseChainCmd {
     private TxCirculateService txCirculateService;
     @Autowired
     private MessageService messageService;
+    @Autowired
+    private ChainCirculateCollector chainCirculateCollector;
 
     /**
      * 查询链上资产
@@ -285,7 +288,7 @@ public class TxCirculateCmd extends BaseChainCmd {
             chainAssetTotalCirculate.setFreeze(new BigInteger(asset.get("freeze").toString()));
             chainAssetTotalCirculates.add(chainAssetTotalCirculate);
         }
-        messageService.recChainIssuingAssets(chainId, chainAssetTotalCirculates);
+        chainCirculateCollector.receive(chainId, chainAssetTotalCirculates);
         return success();
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.chain.service.impl;
+
+import io.nuls.chain.config.NulsChainConfig;
+import io.nuls.chain.info.CmConstants;
+import io.nuls.chain.model.dto.ChainAssetTotalCirculate;
+import io.nuls.chain.rpc.call.RpcService;
+import io.nuls.chain.service.MessageService;
+import io.nuls.chain.util.LoggerUtil;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.thread.ExecutorRegistry;
+import io.nuls.core.thread.LatencyHistogram;
+import io.nuls.core.thread.RejectionPolicy;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 友链流通量异步收集
+ * 同时向所有友链发起查询，每条链有独立的截止时间，每个响应到达时按本轮已收到的响应重新计算并保存流通量。
+ * 响应中没有轮次标识，所以本轮请求发出之前到达的响应视为上一轮的迟到响应并丢弃，截止时间之后到达的响应也不再处理。
+ * <p>
+ * Asynchronous circulation collector of friend chains.
+ * Requests of all chains are issued at once and every chain has its own deadline, the circulation is recomputed from the
+ * responses of the round and persisted as each response arrives. Responses carry no round id, so a response arriving
+ * before the request of the round has been sent is a late response of the previous round and is dropped, responses after
+ * the deadline are dropped as well.
+ *
+ * @author lan
+ */
+@Component
+public class ChainCirculateCollector {
+    @Autowired
+    private NulsChainConfig nulsChainConfig;
+    @Autowired
+    private RpcService rpcService;
+    @Autowired
+    private MessageService messageService;
+
+    /**
+     * 正在收集的链
+     */
+    private final Map<Integer, Round> rounds = new ConcurrentHashMap<>();
+
+    /**
+     * 每条链从发出请求到收到响应的耗时
+     */
+    private final Map<Integer, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    private volatile ScheduledThreadPoolExecutor timer;
+
+    /**
+     * 发起一条链的流通量收集，立即返回
+     * Start collecting the circulation of a chain, returns immediately
+     *
+     * @param chainId  友链ID
+     * @param assetIds 资产ID列表，逗号分隔
+     * @return 本轮结束时完成，值为收到的响应数
+     */
+    public CompletableFuture<Integer> collect(int chainId, String assetIds) {
+        Round round = new Round(chainId);
+        Round previous = rounds.put(chainId, round);
+        if (previous != null) {
+            finish(previous);
+        }
+        messageService.initChainIssuingAssets(chainId);
+        getTimer().schedule(() -> finish(round), nulsChainConfig.getChainAssetsCollectTimeoutSecond(), TimeUnit.SECONDS);
+        ExecutorRegistry.getOrCreate(CmConstants.CIRCULATE_REQUEST_POOL, CmConstants.CIRCULATE_REQUEST_THREADS,
+                CmConstants.CIRCULATE_REQUEST_QUEUE_SIZE, RejectionPolicy.CALLER_RUNS).execute(() -> {
+            if (rpcService.requestCrossIssuingAssets(chainId, assetIds)) {
+                round.requestSent = true;
+            } else {
+                LoggerUtil.logger().warn("requestCrossIssuingAssets failed,chainId={}", chainId);
+                finish(round);
+            }
+        });
+        return round.future;
+    }
+
+    /**
+     * 接收友链流通量，按本轮已收到的响应重新计算并保存
+     * Receive the circulation of a chain, the circulation is recomputed from the responses of the round and persisted
+     */
+    public void receive(int chainId, List<ChainAssetTotalCirculate> chainAssetTotalCirculates) {
+        Round round = rounds.get(chainId);
+        if (round == null) {
+            LoggerUtil.logger().debug("chainId={} circulate response arrived after deadline", chainId);
+            return;
+        }
+        if (!round.requestSent) {
+            LoggerUtil.logger().debug("chainId={} circulate response of the previous round dropped", chainId);
+            return;
+        }
+        long latency = System.nanoTime() - round.startTime;
+        latencies.computeIfAbsent(chainId, k -> new LatencyHistogram()).record(latency);
+        round.firstLatency.compareAndSet(0, latency);
+        synchronized (round) {
+            if (round.future.isDone()) {
+                return;
+            }
+            round.responses.incrementAndGet();
+            messageService.recChainIssuingAssets(chainId, chainAssetTotalCirculates);
+            messageService.dealChainIssuingAssets(chainId);
+        }
+    }
+
+    /**
+     * 获取链的响应耗时统计
+     * Get the response latency of a chain
+     */
+    public LatencyHistogram getLatency(int chainId) {
+        return latencies.get(chainId);
+    }
+
+    private void finish(Round round) {
+        rounds.remove(round.chainId, round);
+        int responses;
+        synchronized (round) {
+            if (round.future.isDone()) {
+                return;
+            }
+            responses = round.responses.get();
+            round.future.complete(responses);
+        }
+        LatencyHistogram histogram = latencies.get(round.chainId);
+        LoggerUtil.logger().info("chainId={} circulate collected,responses={},firstLatency={}ms,p50={}ms,p99={}ms,max={}ms",
+                round.chainId, responses, TimeUnit.NANOSECONDS.toMillis(round.firstLatency.get()),
+                histogram == null ? 0 : histogram.percentile(50) / 1000,
+                histogram == null ? 0 : histogram.percentile(99) / 1000,
+                histogram == null ? 0 : histogram.getMax() / 1000);
+    }
+
+    private ScheduledThreadPoolExecutor getTimer() {
+        if (timer == null) {
+            synchronized (this) {
+                if (timer == null) {
+                    timer = ExecutorRegistry.createScheduled(CmConstants.CIRCULATE_TIMER, 1, new NulsThreadFactory(CmConstants.CIRCULATE_TIMER));
+                }
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * 一条链的一轮收集
+     */
+    private static class Round {
+        private final int chainId;
+        private final long startTime = System.nanoTime();
+        private final AtomicInteger responses = new AtomicInteger();
+        private final AtomicLong firstLatency = new AtomicLong();
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private volatile boolean requestSent;
+
+        private Round(int chainId) {
+            this.chainId = chainId;
+        }
+    }
+}
@@ -42,6 +42,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 消息协议服务
@@ -58,12 +59,14 @@ public class MessageServiceImpl implements MessageService {
     @Autowired
     private ChainAssetStorage chainAssetStorage;
 
-    Map<String, Map<Integer, List<ChainAssetTotalCirculate>>> chainAssetMap = new HashMap<>();
+    /**
+     * 各链的流通量收集是并发进行的，响应由RPC线程写入
+     */
+    Map<String, Map<Integer, List<ChainAssetTotalCirculate>>> chainAssetMap = new ConcurrentHashMap<>();
 
 
     @Override
     public boolean initChainIssuingAssets(int chainId) {
-        chainAssetMap.remove(String.valueOf(chainId));
         chainAssetMap.put(String.valueOf(chainId), new HashMap<Integer, List<ChainAssetTotalCirculate>>());
         return true;
     }
@@ -77,7 +80,10 @@ public class MessageServiceImpl implements MessageService {
     @Override
     public void recChainIssuingAssets(int chainId, List<ChainAssetTotalCirculate> chainAssetTotalCirculates) {
         Map<Integer, List<ChainAssetTotalCirculate>> assetMap = chainAssetMap.get(String.valueOf(chainId));
-        if (null != assetMap) {
+        if (null == assetMap) {
+            return;
+        }
+        synchronized (assetMap) {
             for (ChainAssetTotalCirculate chainAssetTotalCirculate : chainAssetTotalCirculates) {
                 List<ChainAssetTotalCirculate> list = assetMap.get(chainAssetTotalCirculate.getAssetId());
                 if (null == list) {
@@ -92,7 +98,10 @@ public class MessageServiceImpl implements MessageService {
     @Override
     public void dealChainIssuingAssets(int chainId) {
         Map<Integer, List<ChainAssetTotalCirculate>> assetMap = chainAssetMap.get(String.valueOf(chainId));
-        if (null != assetMap) {
+        if (null == assetMap) {
+            return;
+        }
+        synchronized (assetMap) {
             for (Map.Entry<Integer, List<ChainAssetTotalCirculate>> entry : assetMap.entrySet()) {
                 BigInteger totalAmount = BigInteger.ZERO;
                 List<ChainAssetTotalCirculate> assetTotalCirculates = entry.getValue();
@@ -29,12 +29,15 @@ import io.nuls.chain.info.CmRuntimeInfo;
 import io.nuls.chain.model.dto.ChainAssetTotalCirculate;
 import io.nuls.chain.model.po.BlockChain;
 import io.nuls.chain.rpc.call.impl.RpcServiceImpl;
+import io.nuls.chain.service.impl.ChainCirculateCollector;
 import io.nuls.chain.service.impl.ChainServiceImpl;
 import io.nuls.chain.service.impl.MessageServiceImpl;
 import io.nuls.chain.util.LoggerUtil;
 import io.nuls.core.core.ioc.SpringLiteContext;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Group event monitor
@@ -49,9 +52,12 @@ public class ChainAssetUpdateTask implements Runnable {
         ChainServiceImpl chainService = SpringLiteContext.getBean(ChainServiceImpl.class);
         RpcServiceImpl rpcService = SpringLiteContext.getBean(RpcServiceImpl.class);
         MessageServiceImpl messageService = SpringLiteContext.getBean(MessageServiceImpl.class);
+        ChainCirculateCollector collector = SpringLiteContext.getBean(ChainCirculateCollector.class);
         //查询所有链列表
         try {
             List<BlockChain> blockChainList = chainService.getBlockList();
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            long start = System.currentTimeMillis();
             for (BlockChain blockChain : blockChainList) {
                 if (!blockChain.isDelete()) {
                     List<String> assetKeys = blockChain.getSelfAssetKeyList();
@@ -68,16 +74,14 @@ public class ChainAssetUpdateTask implements Runnable {
                         }
                         continue;
                     }
-                    messageService.initChainIssuingAssets(blockChain.getChainId());
-                    //发送链请求信息，并且增加30s后的处理线程，sleep30s.
+                    //同时向所有友链发起请求，响应到达后由收集器更新，不阻塞当前线程
                     if (assets.length() > 0) {
-                        rpcService.requestCrossIssuingAssets(blockChain.getChainId(), assets.substring(0, assets.length() - 1));
+                        futures.add(collector.collect(blockChain.getChainId(), assets.substring(0, assets.length() - 1)));
                     }
-                    //30s交互时间
-                    Thread.sleep(30000);
-                    messageService.dealChainIssuingAssets(blockChain.getChainId());
                 }
             }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, e) ->
+                    LoggerUtil.logger().info("chain circulate refresh finished,chains={},cost={}ms", futures.size(), System.currentTimeMillis() - start));
         } catch (Exception e) {
             LoggerUtil.logger().error(e);
         }
@@ -0,0 +1,132 @@
+package io.nuls.chain.test;
+
+import io.nuls.chain.config.NulsChainConfig;
+import io.nuls.chain.model.dto.ChainAssetTotalCirculate;
+import io.nuls.chain.rpc.call.RpcService;
+import io.nuls.chain.service.MessageService;
+import io.nuls.chain.service.impl.ChainCirculateCollector;
+import io.nuls.chain.util.LoggerUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 友链流通量收集测试,每个响应到达时保存,本轮请求发出前到达的响应丢弃
+ */
+public class ChainCirculateCollectorTest {
+
+    private ChainCirculateCollector collector;
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile boolean requestResult = true;
+
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @Before
+    public void init() throws Exception {
+        LoggerUtil.defaultLogInit(1);
+        NulsChainConfig config = new NulsChainConfig();
+        config.setChainAssetsCollectTimeoutSecond(1);
+        MessageService messageService = (MessageService) Proxy.newProxyInstance(MessageService.class.getClassLoader(), new Class[]{MessageService.class}, (proxy, method, args) -> {
+            calls.add(method.getName() + args[0]);
+            return method.getReturnType() == boolean.class ? true : null;
+        });
+        RpcService rpcService = (RpcService) Proxy.newProxyInstance(RpcService.class.getClassLoader(), new Class[]{RpcService.class}, (proxy, method, args) -> {
+            if ("requestCrossIssuingAssets".equals(method.getName())) {
+                release.await();
+                return requestResult;
+            }
+            return method.getReturnType() == boolean.class ? false : null;
+        });
+        collector = new ChainCirculateCollector();
+        set("nulsChainConfig", config);
+        set("rpcService", rpcService);
+        set("messageService", messageService);
+    }
+
+    @Test
+    public void persistEachResponse() throws Exception {
+        CompletableFuture<Integer> future = collector.collect(5, "1");
+        awaitRequestSent(5);
+        collector.receive(5, circulates(5, 100));
+        collector.receive(5, circulates(5, 120));
+        assertEquals(Arrays.asList("initChainIssuingAssets5", "recChainIssuingAssets5", "dealChainIssuingAssets5",
+                "recChainIssuingAssets5", "dealChainIssuingAssets5"), calls);
+
+        assertEquals(2, (int) future.get(5, TimeUnit.SECONDS));
+        //截止时间之后的响应不再记录
+        collector.receive(5, circulates(5, 130));
+        assertEquals(2, Collections.frequency(calls, "recChainIssuingAssets5"));
+        assertEquals(2, collector.getLatency(5).getCount());
+    }
+
+    @Test
+    public void nothingPersistedWithoutResponse() throws Exception {
+        requestResult = false;
+        assertEquals(0, (int) collector.collect(6, "1").get(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("initChainIssuingAssets6"), calls);
+    }
+
+    @Test
+    public void newRoundFinishesPrevious() throws Exception {
+        CompletableFuture<Integer> first = collector.collect(7, "1");
+        awaitRequestSent(7);
+        collector.receive(7, circulates(7, 100));
+        CompletableFuture<Integer> second = collector.collect(7, "1");
+        assertEquals(1, (int) first.get(1, TimeUnit.SECONDS));
+        assertFalse(second.isDone());
+        assertEquals(Arrays.asList("initChainIssuingAssets7", "recChainIssuingAssets7", "dealChainIssuingAssets7", "initChainIssuingAssets7"), calls);
+        assertEquals(0, (int) second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void previousRoundResponseDropped() throws Exception {
+        release = new CountDownLatch(1);
+        CompletableFuture<Integer> future = collector.collect(8, "1");
+        //本轮请求还未发出,收到的只能是上一轮的迟到响应
+        collector.receive(8, circulates(8, 100));
+        assertEquals(Collections.singletonList("initChainIssuingAssets8"), calls);
+        release.countDown();
+        awaitRequestSent(8);
+        collector.receive(8, circulates(8, 120));
+        assertEquals(Arrays.asList("initChainIssuingAssets8", "recChainIssuingAssets8", "dealChainIssuingAssets8"), calls);
+        assertEquals(1, (int) future.get(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitRequestSent(int chainId) throws Exception {
+        Field roundsField = ChainCirculateCollector.class.getDeclaredField("rounds");
+        roundsField.setAccessible(true);
+        Object round = ((Map<?, ?>) roundsField.get(collector)).get(chainId);
+        Field sentField = round.getClass().getDeclaredField("requestSent");
+        sentField.setAccessible(true);
+        for (int i = 0; i < 100 && !sentField.getBoolean(round); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(sentField.getBoolean(round));
+    }
+
+    private void set(String name, Object value) throws Exception {
+        Field field = ChainCirculateCollector.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(collector, value);
+    }
+
+    private static List<ChainAssetTotalCirculate> circulates(int chainId, long amount) {
+        ChainAssetTotalCirculate circulate = new ChainAssetTotalCirculate();
+        circulate.setChainId(chainId);
+        circulate.setAssetId(1);
+        circulate.setAvailableAmount(BigInteger.valueOf(amount));
+        circulate.setFreeze(BigInteger.ZERO);
+        return Collections.singletonList(circulate);
+    }
+}
@@ -8,6 +8,7 @@ import io.nuls.core.log.Log;
 import io.nuls.core.parse.I18nUtils;
 import io.nuls.poc.model.bo.config.ConfigBean;
 import io.nuls.poc.model.bo.consensus.Evidence;
+import io.nuls.poc.model.bo.round.ConsensusIndex;
 import io.nuls.poc.model.bo.round.MeetingRound;
 import io.nuls.poc.model.bo.tx.txdata.Agent;
 import io.nuls.poc.model.bo.tx.txdata.Deposit;
@@ -111,6 +112,12 @@ public class Chain {
      */
     private List<BlockHeader> blockHeaderList;
 
+    /**
+     * 轮次计算使用的共识索引
+     * Consensus index used by round calculation
+     */
+    private volatile ConsensusIndex consensusIndex;
+
     private final Lock roundLock = new ReentrantLock();
 
     private NulsLogger logger;
@@ -283,6 +290,9 @@ public class Chain {
 
     public void setDepositList(List<Deposit> depositList) {
         this.depositList = depositList;
+        if (consensusIndex != null) {
+            consensusIndex.invalidateDeposits();
+        }
     }
 
     public List<PunishLogPo> getYellowPunishList() {
@@ -291,6 +301,9 @@ public class Chain {
 
     public void setYellowPunishList(List<PunishLogPo> yellowPunishList) {
         this.yellowPunishList = yellowPunishList;
+        if (consensusIndex != null) {
+            consensusIndex.invalidateYellowPunishes();
+        }
     }
 
     public List<PunishLogPo> getRedPunishList() {
@@ -339,6 +352,16 @@ public class Chain {
 
     public void setBlockHeaderList(List<BlockHeader> blockHeaderList) {
         this.blockHeaderList = blockHeaderList;
+        if (consensusIndex != null) {
+            consensusIndex.invalidateBlocks();
+        }
+    }
+
+    public synchronized ConsensusIndex getConsensusIndex() {
+        if (consensusIndex == null) {
+            consensusIndex = new ConsensusIndex(config.getChainId());
+        }
+        return consensusIndex;
     }
 
     public ScheduledThreadPoolExecutor getScheduledThreadPoolExecutor() {
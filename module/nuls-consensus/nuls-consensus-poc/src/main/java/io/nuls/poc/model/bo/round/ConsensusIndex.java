@@ -0,0 +1,270 @@
+/*
+ * *
+ *  * MIT License
+ *  *
+ *  * Copyright (c) 2017-2019 nuls.io
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package io.nuls.poc.model.bo.round;
+
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.poc.model.bo.tx.txdata.Deposit;
+import io.nuls.poc.model.po.PunishLogPo;
+
+import java.util.*;
+
+/**
+ * 轮次计算使用的增量共识索引
+ * 按节点分组的委托列表(保持与链上委托列表相同的顺序)，按出块地址、轮次统计的出块数，按地址、轮次统计的黄牌数。
+ * 索引随委托、区块、黄牌缓存的增删同步更新，计算轮次成员时不再对每个节点遍历全部委托、区块头与黄牌列表。
+ * 索引记录的条数与对应缓存列表长度不一致时(缓存被整体替换或者未经索引修改)，在下次查询时重建。
+ * <p>
+ * Incrementally maintained consensus index used by round calculation.
+ * Deposits grouped by agent (in the same order as the chain deposit list), block counts by packing address and round,
+ * yellow card counts by address and round. The index is updated together with the deposit, block header and yellow
+ * punish caches, so building round members no longer scans every deposit, header and punish record per agent.
+ * When the indexed entry count differs from the cached list size the index is rebuilt on the next query.
+ *
+ * @author tag
+ */
+public class ConsensusIndex {
+
+    private final int chainId;
+
+    /**
+     * 节点ID -> 该节点的委托,顺序与链上委托列表一致
+     */
+    private final Map<NulsHash, List<Deposit>> agentDeposits = new HashMap<>();
+
+    private int depositCount;
+
+    /**
+     * 出块地址 -> (轮次 -> 出块数)
+     */
+    private final Map<ByteArrayWrapper, TreeMap<Long, Integer>> blockCounts = new HashMap<>();
+
+    private int blockCount;
+
+    /**
+     * 地址 -> (轮次 -> 黄牌数)
+     */
+    private final Map<ByteArrayWrapper, TreeMap<Long, Integer>> yellowCounts = new HashMap<>();
+
+    private int yellowCount;
+
+    public ConsensusIndex(int chainId) {
+        this.chainId = chainId;
+    }
+
+    /**
+     * 获取节点在指定高度有效的委托,与逐条遍历链上委托列表(倒序)的结果相同
+     * Get deposits of an agent valid at the height, same result as scanning the chain deposit list backwards
+     *
+     * @param depositList      链上委托列表/chain deposit list
+     * @param agentHash        节点ID/agent hash
+     * @param startBlockHeight 上一轮次的起始区块高度/Initial blocks of the last round
+     */
+    public synchronized List<Deposit> getDepositList(List<Deposit> depositList, NulsHash agentHash, long startBlockHeight) {
+        if (depositCount != depositList.size()) {
+            resetDeposits(depositList);
+        }
+        List<Deposit> resultList = new ArrayList<>();
+        List<Deposit> agentDepositList = agentDeposits.get(agentHash);
+        if (agentDepositList == null) {
+            return resultList;
+        }
+        for (int i = agentDepositList.size() - 1; i >= 0; i--) {
+            Deposit deposit = agentDepositList.get(i);
+            if (deposit.getDelHeight() != -1L && deposit.getDelHeight() <= startBlockHeight) {
+                continue;
+            }
+            if (deposit.getBlockHeight() > startBlockHeight || deposit.getBlockHeight() < 0L) {
+                continue;
+            }
+            resultList.add(deposit);
+        }
+        return resultList;
+    }
+
+    public synchronized void resetDeposits(List<Deposit> depositList) {
+        agentDeposits.clear();
+        depositCount = 0;
+        for (Deposit deposit : depositList) {
+            addDeposit(deposit);
+        }
+    }
+
+    /**
+     * 委托列表被整体替换,下次查询时重建
+     */
+    public synchronized void invalidateDeposits() {
+        depositCount = -1;
+    }
+
+    public synchronized void addDeposit(Deposit deposit) {
+        agentDeposits.computeIfAbsent(deposit.getAgentHash(), key -> new ArrayList<>()).add(deposit);
+        depositCount++;
+    }
+
+    /**
+     * 替换同一交易的委托对象
+     */
+    public synchronized void updateDeposit(Deposit deposit) {
+        List<Deposit> list = agentDeposits.get(deposit.getAgentHash());
+        if (list != null) {
+            for (int index = 0; index < list.size(); index++) {
+                if (deposit.getTxHash().equals(list.get(index).getTxHash())) {
+                    list.set(index, deposit);
+                    return;
+                }
+            }
+        }
+        addDeposit(deposit);
+    }
+
+    public synchronized void removeDeposit(Deposit deposit) {
+        List<Deposit> list = agentDeposits.get(deposit.getAgentHash());
+        if (list != null && list.remove(deposit)) {
+            depositCount--;
+            if (list.isEmpty()) {
+                agentDeposits.remove(deposit.getAgentHash());
+            }
+        }
+    }
+
+    /**
+     * 统计地址在指定轮次区间内的出块数
+     * Count blocks packed by the address in the round range
+     *
+     * @param headerList     缓存的区块头列表/cached block headers
+     * @param packingAddress 出块地址/packing address
+     * @param roundStart     起始轮次/round start index
+     * @param roundEnd       结束轮次/round end index
+     */
+    public synchronized long getBlockCount(List<BlockHeader> headerList, byte[] packingAddress, long roundStart, long roundEnd) {
+        if (blockCount != headerList.size()) {
+            resetBlocks(headerList);
+        }
+        if (packingAddress == null) {
+            return 0;
+        }
+        return sum(blockCounts.get(new ByteArrayWrapper(packingAddress)), roundStart, roundEnd);
+    }
+
+    public synchronized void resetBlocks(List<BlockHeader> headerList) {
+        blockCounts.clear();
+        blockCount = 0;
+        for (BlockHeader header : headerList) {
+            addBlock(header);
+        }
+    }
+
+    /**
+     * 区块头列表被整体替换,下次查询时重建
+     */
+    public synchronized void invalidateBlocks() {
+        blockCount = -1;
+    }
+
+    public synchronized void addBlock(BlockHeader header) {
+        blockCount++;
+        increase(blockCounts, header.getPackingAddress(chainId), header.getExtendsData().getRoundIndex(), 1);
+    }
+
+    public synchronized void removeBlock(BlockHeader header) {
+        blockCount--;
+        increase(blockCounts, header.getPackingAddress(chainId), header.getExtendsData().getRoundIndex(), -1);
+    }
+
+    /**
+     * 统计地址在指定轮次区间内的黄牌数
+     * Count yellow cards of the address in the round range
+     *
+     * @param punishList 缓存的黄牌列表/cached yellow punish list
+     * @param address    地址/address
+     * @param roundStart 起始轮次/round start index
+     * @param roundEnd   结束轮次/round end index
+     */
+    public synchronized long getYellowCount(List<PunishLogPo> punishList, byte[] address, long roundStart, long roundEnd) {
+        if (yellowCount != punishList.size()) {
+            resetYellowPunishes(punishList);
+        }
+        if (address == null) {
+            return 0;
+        }
+        return sum(yellowCounts.get(new ByteArrayWrapper(address)), roundStart, roundEnd);
+    }
+
+    public synchronized void resetYellowPunishes(List<PunishLogPo> punishList) {
+        yellowCounts.clear();
+        yellowCount = 0;
+        for (PunishLogPo po : punishList) {
+            addYellowPunish(po);
+        }
+    }
+
+    /**
+     * 黄牌列表被整体替换,下次查询时重建
+     */
+    public synchronized void invalidateYellowPunishes() {
+        yellowCount = -1;
+    }
+
+    public synchronized void addYellowPunish(PunishLogPo po) {
+        yellowCount++;
+        increase(yellowCounts, po.getAddress(), po.getRoundIndex(), 1);
+    }
+
+    public synchronized void removeYellowPunish(PunishLogPo po) {
+        yellowCount--;
+        increase(yellowCounts, po.getAddress(), po.getRoundIndex(), -1);
+    }
+
+    private static void increase(Map<ByteArrayWrapper, TreeMap<Long, Integer>> counts, byte[] address, long roundIndex, int delta) {
+        if (address == null) {
+            return;
+        }
+        ByteArrayWrapper key = new ByteArrayWrapper(address);
+        TreeMap<Long, Integer> roundCounts = counts.computeIfAbsent(key, k -> new TreeMap<>());
+        int count = roundCounts.getOrDefault(roundIndex, 0) + delta;
+        if (count > 0) {
+            roundCounts.put(roundIndex, count);
+        } else {
+            roundCounts.remove(roundIndex);
+            if (roundCounts.isEmpty()) {
+                counts.remove(key);
+            }
+        }
+    }
+
+    private static long sum(TreeMap<Long, Integer> roundCounts, long roundStart, long roundEnd) {
+        if (roundCounts == null || roundStart > roundEnd) {
+            return 0;
+        }
+        long count = 0;
+        for (int value : roundCounts.subMap(roundStart, true, roundEnd, true).values()) {
+            count += value;
+        }
+        return count;
+    }
+}
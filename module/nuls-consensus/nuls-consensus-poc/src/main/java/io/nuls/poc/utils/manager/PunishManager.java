@@ -108,6 +108,7 @@ public class PunishManager {
                 break;
             }
             iterator.remove();
+            chain.getConsensusIndex().removeYellowPunish(punishLogPo);
         }
     }
 
@@ -765,6 +766,9 @@ public class PunishManager {
             }
         }
         chain.getYellowPunishList().addAll(savedList);
+        for (PunishLogPo po : savedList) {
+            chain.getConsensusIndex().addYellowPunish(po);
+        }
         return true;
     }
 
@@ -797,6 +801,9 @@ public class PunishManager {
             deleteIndex++;
         }
         chain.getYellowPunishList().removeAll(deletedList);
+        for (PunishLogPo po : deletedList) {
+            chain.getConsensusIndex().removeYellowPunish(po);
+        }
         return true;
     }
 
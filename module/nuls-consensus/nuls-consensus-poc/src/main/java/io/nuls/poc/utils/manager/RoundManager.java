@@ -525,22 +525,7 @@ public class RoundManager {
      * @return List<Deposit>
      */
     private List<Deposit> getDepositListByAgentId(Chain chain, NulsHash agentHash, long startBlockHeight) {
-        List<Deposit> depositList = chain.getDepositList();
-        List<Deposit> resultList = new ArrayList<>();
-        for (int i = depositList.size() - 1; i >= 0; i--) {
-            Deposit deposit = depositList.get(i);
-            if (deposit.getDelHeight() != -1L && deposit.getDelHeight() <= startBlockHeight) {
-                continue;
-            }
-            if (deposit.getBlockHeight() > startBlockHeight || deposit.getBlockHeight() < 0L) {
-                continue;
-            }
-            if (!deposit.getAgentHash().equals(agentHash)) {
-                continue;
-            }
-            resultList.add(deposit);
-        }
-        return resultList;
+        return chain.getConsensusIndex().getDepositList(chain.getDepositList(), agentHash, startBlockHeight);
     }
 
     /**
@@ -609,11 +594,12 @@ public class RoundManager {
      * @return long
      */
     private long getPunishCountByAddress(Chain chain, byte[] address, long roundStart, long roundEnd, int code) throws NulsException {
-        long count = 0;
-        List<PunishLogPo> punishList = chain.getYellowPunishList();
-        if (code == PunishType.RED.getCode()) {
-            punishList = chain.getRedPunishList();
+        if (code == PunishType.YELLOW.getCode()) {
+            long count = chain.getConsensusIndex().getYellowCount(chain.getYellowPunishList(), address, roundStart, roundEnd);
+            return Math.min(count, ConsensusConstant.CREDIT_MAGIC_NUM);
         }
+        long count = 0;
+        List<PunishLogPo> punishList = chain.getRedPunishList();
         for (int i = punishList.size() - 1; i >= 0; i--) {
             if (count >= ConsensusConstant.CREDIT_MAGIC_NUM) {
                 break;
@@ -712,22 +698,7 @@ public class RoundManager {
      * @param roundEnd       结束轮次
      */
     private long getBlockCountByAddress(Chain chain, byte[] packingAddress, long roundStart, long roundEnd) {
-        long count = 0;
-        List<BlockHeader> blockHeaderList = chain.getBlockHeaderList();
-        for (int i = blockHeaderList.size() - 1; i >= 0; i--) {
-            BlockHeader blockHeader = blockHeaderList.get(i);
-            BlockExtendsData roundData = blockHeader.getExtendsData();
-            if (roundData.getRoundIndex() > roundEnd) {
-                continue;
-            }
-            if (roundData.getRoundIndex() < roundStart) {
-                break;
-            }
-            if (Arrays.equals(blockHeader.getPackingAddress(chain.getConfig().getChainId()), packingAddress)) {
-                count++;
-            }
-        }
-        return count;
+        return chain.getConsensusIndex().getBlockCount(chain.getBlockHeaderList(), packingAddress, roundStart, roundEnd);
     }
 
 
@@ -0,0 +1,105 @@
+package io.nuls.test.utils;
+
+import io.nuls.base.data.BlockExtendsData;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.poc.model.bo.round.ConsensusIndex;
+import io.nuls.poc.model.bo.tx.txdata.Deposit;
+import io.nuls.poc.model.po.PunishLogPo;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 共识索引与遍历缓存列表的结果一致
+ */
+public class ConsensusIndexTest {
+
+    private static final byte[][] ADDRESSES = {{1, 1}, {2, 2}, {3, 3}};
+
+    @Test
+    public void depositList() {
+        ConsensusIndex index = new ConsensusIndex(2);
+        NulsHash agentA = hash("a");
+        NulsHash agentB = hash("b");
+        List<Deposit> depositList = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Deposit deposit = deposit(i % 2 == 0 ? agentA : agentB, i, i == 4 ? 8 : -1);
+            depositList.add(deposit);
+            index.addDeposit(deposit);
+        }
+        List<Deposit> result = index.getDepositList(depositList, agentA, 8);
+        //倒序,高度4的委托已在高度8退出
+        assertEquals(4, result.size());
+        assertSame(depositList.get(8), result.get(0));
+        assertSame(depositList.get(0), result.get(3));
+        assertEquals(4, index.getDepositList(depositList, agentA, 7).size());
+
+        index.removeDeposit(depositList.remove(8));
+        assertEquals(3, index.getDepositList(depositList, agentA, 8).size());
+
+        //未经索引修改的列表在查询时重建
+        depositList.add(deposit(agentA, 5, -1));
+        assertEquals(4, index.getDepositList(depositList, agentA, 8).size());
+    }
+
+    @Test
+    public void blockAndPunishCount() throws Exception {
+        ConsensusIndex index = new ConsensusIndex(2);
+        List<BlockHeader> headerList = new ArrayList<>();
+        List<PunishLogPo> punishList = new ArrayList<>();
+        for (int round = 1; round <= 10; round++) {
+            for (byte[] address : ADDRESSES) {
+                BlockHeader header = header(address, round);
+                headerList.add(header);
+                index.addBlock(header);
+            }
+            PunishLogPo po = new PunishLogPo();
+            po.setAddress(ADDRESSES[round % 3]);
+            po.setRoundIndex(round);
+            punishList.add(po);
+            index.addYellowPunish(po);
+        }
+        assertEquals(5, index.getBlockCount(headerList, ADDRESSES[0], 3, 7));
+        assertEquals(10, index.getBlockCount(headerList, ADDRESSES[1], 0, 100));
+        assertEquals(0, index.getBlockCount(headerList, new byte[]{9}, 0, 100));
+        assertEquals(2, index.getYellowCount(punishList, ADDRESSES[0], 1, 7));
+
+        index.removeBlock(headerList.remove(0));
+        assertEquals(9, index.getBlockCount(headerList, ADDRESSES[0], 0, 100));
+
+        //区块头列表被整体替换
+        index.invalidateBlocks();
+        headerList.add(header(ADDRESSES[0], 11));
+        assertEquals(10, index.getBlockCount(headerList, ADDRESSES[0], 0, 100));
+    }
+
+    private Deposit deposit(NulsHash agentHash, long height, long delHeight) {
+        Deposit deposit = new Deposit();
+        deposit.setAgentHash(agentHash);
+        deposit.setBlockHeight(height);
+        deposit.setDelHeight(delHeight);
+        deposit.setDeposit(BigInteger.valueOf(height));
+        deposit.setTxHash(hash("deposit" + height + agentHash));
+        return deposit;
+    }
+
+    private BlockHeader header(byte[] address, long round) throws Exception {
+        BlockExtendsData extendsData = new BlockExtendsData();
+        extendsData.setRoundIndex(round);
+        BlockHeader header = new BlockHeader();
+        header.setExtend(extendsData.serialize());
+        header.setPackingAddress(address);
+        return header;
+    }
+
+    private NulsHash hash(String data) {
+        return new NulsHash(Sha256Hash.hash(data.getBytes()));
+    }
+}
@@ -93,6 +93,16 @@ public interface NulsCrossChainConstant {
     Integer CTX_STATE_PROCESSING = 2;
 
 
+    /**
+     * 签名拜占庭处理的分片线程数，同一交易的签名由同一分片处理
+     */
+    int SIGN_BYZANTINE_SHARD_COUNT = 4;
+
+    /**
+     * 分片线程每批最多处理的签名消息数，每批结束后统一保存待广播高度
+     */
+    int SIGN_BYZANTINE_BATCH_SIZE = 200;
+
     int NODE_TYPE_CURRENT_CHAIN = 1;
     int NODE_TYPE_OTHER_CHAIN = 2;
 
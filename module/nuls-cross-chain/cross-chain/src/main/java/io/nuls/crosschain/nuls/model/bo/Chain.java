@@ -7,6 +7,7 @@ import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.thread.ThreadUtils;
 import io.nuls.core.thread.commom.NulsThreadFactory;
 import io.nuls.crosschain.base.message.BroadCtxSignMessage;
+import io.nuls.crosschain.nuls.constant.NulsCrossChainConstant;
 import io.nuls.crosschain.nuls.model.bo.config.ConfigBean;
 import io.nuls.crosschain.nuls.model.bo.message.UntreatedMessage;
 import io.nuls.crosschain.nuls.model.bo.message.WaitBroadSignMessage;
@@ -17,6 +18,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 链信息类
@@ -109,9 +111,28 @@ public class Chain {
     private LinkedBlockingQueue<UntreatedMessage> signMessageQueue;
 
     /**
-     * 未处理的本链节点广播来的跨链交易签名消息
+     * 未处理的本链节点广播来的跨链交易签名消息，按交易Hash分片
      * */
-    private LinkedBlockingQueue<UntreatedMessage> signMessageByzantineQueue;
+    private List<LinkedBlockingQueue<UntreatedMessage>> signMessageByzantineQueues;
+
+    /**
+     * 正在收集签名的跨链交易签名聚合状态
+     * key:交易Hash
+     * value:签名聚合状态
+     * */
+    private Map<NulsHash, SignatureAggregate> signAggregateMap;
+
+    /**
+     * 拜占庭验证通过、待批量保存的广播高度
+     * key:广播高度
+     * value:交易Hash列表
+     * */
+    private Map<Long, Set<NulsHash>> waitSaveSendHeightMap;
+
+    /**
+     * 待广播高度表的读写锁
+     * */
+    private final ReentrantLock sendHeightLock = new ReentrantLock();
 
     /**
      * 未处理的本链节点广播来的完整跨链交易消息
@@ -129,6 +150,11 @@ public class Chain {
      * */
     private final ExecutorService threadPool = ThreadUtils.createThreadPool(8, 100, new NulsThreadFactory("CrossChainProcessor"));
 
+    /**
+     * 签名拜占庭分片线程池
+     * */
+    private final ExecutorService signThreadPool = ThreadUtils.createThreadPool(NulsCrossChainConstant.SIGN_BYZANTINE_SHARD_COUNT, 100, new NulsThreadFactory("CrossChainSignAggregator"));
+
     /**
      * 跨连模块日志
      * */
@@ -152,7 +178,12 @@ public class Chain {
         hashMessageQueue = new LinkedBlockingQueue<>();
         ctxMessageQueue = new LinkedBlockingQueue<>();
         signMessageQueue = new LinkedBlockingQueue<>();
-        signMessageByzantineQueue = new LinkedBlockingQueue<>();
+        signMessageByzantineQueues = new ArrayList<>();
+        for (int i = 0; i < NulsCrossChainConstant.SIGN_BYZANTINE_SHARD_COUNT; i++) {
+            signMessageByzantineQueues.add(new LinkedBlockingQueue<>());
+        }
+        signAggregateMap = new ConcurrentHashMap<>();
+        waitSaveSendHeightMap = new ConcurrentHashMap<>();
         otherCtxMessageQueue = new LinkedBlockingQueue<>();
         getCtxStateQueue = new LinkedBlockingQueue<>();
         mainChain = false;
@@ -258,12 +289,29 @@ public class Chain {
         this.signMessageQueue = signMessageQueue;
     }
 
-    public LinkedBlockingQueue<UntreatedMessage> getSignMessageByzantineQueue() {
-        return signMessageByzantineQueue;
+    public LinkedBlockingQueue<UntreatedMessage> getSignMessageByzantineQueue(int shard) {
+        return signMessageByzantineQueues.get(shard);
+    }
+
+    /**
+     * 按交易Hash把签名消息放入对应分片
+     * Put the signature message into the shard of its transaction hash
+     * */
+    public boolean offerSignMessageByzantine(UntreatedMessage untreatedMessage) {
+        int shard = Math.floorMod(untreatedMessage.getCacheHash().hashCode(), signMessageByzantineQueues.size());
+        return signMessageByzantineQueues.get(shard).offer(untreatedMessage);
+    }
+
+    public Map<NulsHash, SignatureAggregate> getSignAggregateMap() {
+        return signAggregateMap;
+    }
+
+    public Map<Long, Set<NulsHash>> getWaitSaveSendHeightMap() {
+        return waitSaveSendHeightMap;
     }
 
-    public void setSignMessageByzantineQueue(LinkedBlockingQueue<UntreatedMessage> signMessageByzantineQueue) {
-        this.signMessageByzantineQueue = signMessageByzantineQueue;
+    public ReentrantLock getSendHeightLock() {
+        return sendHeightLock;
     }
 
     public LinkedBlockingQueue<UntreatedMessage> getOtherCtxMessageQueue() {
@@ -298,6 +346,10 @@ public class Chain {
         this.getCtxStateQueue = getCtxStateQueue;
     }
 
+    public ExecutorService getSignThreadPool() {
+        return signThreadPool;
+    }
+
     public ExecutorService getThreadPool() {
         return threadPool;
     }
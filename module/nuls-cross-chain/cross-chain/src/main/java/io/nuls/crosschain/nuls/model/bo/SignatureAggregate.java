@@ -0,0 +1,119 @@
+package io.nuls.crosschain.nuls.model.bo;
+
+import io.nuls.base.signture.P2PHKSignature;
+import io.nuls.core.crypto.HexUtil;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 单笔跨链交易的签名聚合状态
+ * 每个签名只做一次去重和验证人匹配，匹配的签名数增量累计，不再对已收到的全部签名重复做拜占庭验证。
+ * 验证人列表或拜占庭签名数变化后该状态失效，需要根据交易中已有的签名重新创建。
+ * 同一交易的签名消息由同一个分片线程处理，所以该类不需要同步。
+ * <p>
+ * Signature aggregation state of one cross-chain transaction.
+ * Every signature is de-duplicated and matched against the verifiers once, the matched count is tracked incrementally instead
+ * of re-checking all received signatures. The state is stale once the verifiers or the byzantine count change and must be
+ * rebuilt from the signatures of the transaction. Signatures of one transaction are handled by the same shard thread, so this
+ * class is not synchronized.
+ *
+ * @author tag
+ */
+public class SignatureAggregate {
+    /**
+     * 验证人地址(十六进制)
+     */
+    private final Set<String> handleAddressSet;
+
+    /**
+     * 拜占庭验证需要的最少签名数
+     */
+    private final int byzantineCount;
+
+    /**
+     * 已收到的签名(十六进制)，用于去重
+     */
+    private final Set<String> receivedSignSet = new HashSet<>();
+
+    /**
+     * 按收到顺序排列的所有签名
+     */
+    private final List<P2PHKSignature> signList = new ArrayList<>();
+
+    /**
+     * 验证人的签名
+     */
+    private final List<P2PHKSignature> matchSignList = new ArrayList<>();
+
+    public SignatureAggregate(List<byte[]> handleAddressList, int byzantineCount) {
+        this.handleAddressSet = new HashSet<>();
+        for (byte[] address : handleAddressList) {
+            handleAddressSet.add(HexUtil.encode(address));
+        }
+        this.byzantineCount = byzantineCount;
+    }
+
+    /**
+     * 记录收到的签名
+     * Record a received signature
+     *
+     * @param signHex 签名
+     * @return 第一次收到该签名时返回true
+     */
+    public boolean markReceived(String signHex) {
+        return receivedSignSet.add(signHex);
+    }
+
+    /**
+     * 添加已验证的签名
+     * Add a verified signature
+     *
+     * @param signature     签名
+     * @param signerAddress 签名者地址
+     * @return 拜占庭验证是否通过
+     */
+    public boolean add(P2PHKSignature signature, byte[] signerAddress) {
+        signList.add(signature);
+        if (handleAddressSet.contains(HexUtil.encode(signerAddress))) {
+            matchSignList.add(signature);
+        }
+        return isPassed();
+    }
+
+    /**
+     * 是否按相同的验证人和拜占庭签名数创建
+     * Whether this state was created for the same verifiers and byzantine count
+     *
+     * @param handleAddressList 当前验证人地址
+     * @param byzantineCount    当前拜占庭验证需要的最少签名数
+     */
+    public boolean isSameVerifiers(List<byte[]> handleAddressList, int byzantineCount) {
+        if (this.byzantineCount != byzantineCount) {
+            return false;
+        }
+        Set<String> addressSet = new HashSet<>();
+        for (byte[] address : handleAddressList) {
+            addressSet.add(HexUtil.encode(address));
+        }
+        return handleAddressSet.equals(addressSet);
+    }
+
+    public boolean isPassed() {
+        return matchSignList.size() >= byzantineCount;
+    }
+
+    public int getByzantineCount() {
+        return byzantineCount;
+    }
+
+    public List<P2PHKSignature> getSignList() {
+        return signList;
+    }
+
+    public List<P2PHKSignature> getMatchSignList() {
+        return matchSignList;
+    }
+}
@@ -73,47 +73,53 @@ public class BlockServiceImpl implements BlockService {
         Chain chain = chainManager.getChainMap().get(chainId);
         long height = Long.valueOf(params.get(NEW_BLOCK_HEIGHT).toString());
         chain.getLogger().info("收到区块高度更新信息，最新区块高度为：{}", height);
-        //查询是否有待广播的跨链交易
-        Map<Long , SendCtxHashPO> sendHeightMap = sendHeightService.getList(chainId);
-        if(sendHeightMap != null && sendHeightMap.size() >0){
-            Set<Long> sortSet = new TreeSet<>(sendHeightMap.keySet());
-            Map<Integer,Byte> crossStatusMap = new HashMap<>(NulsCrossChainConstant.INIT_CAPACITY_16);
-            for (long cacheHeight:sortSet) {
-                if(height >= cacheHeight){
-                    chain.getLogger().debug("广播区块高度为{}的跨链交易给其他链",cacheHeight );
-                    SendCtxHashPO po = sendHeightMap.get(cacheHeight);
-                    List<NulsHash> broadSuccessCtxHash = new ArrayList<>();
-                    List<NulsHash> broadFailCtxHash = new ArrayList<>();
-                    for (NulsHash ctxHash:po.getHashList()) {
-                        if(broadCtxHash(chain, ctxHash, cacheHeight, crossStatusMap)){
-                            broadSuccessCtxHash.add(ctxHash);
-                        }else{
-                            broadFailCtxHash.add(ctxHash);
+        //先保存签名线程中拜占庭验证通过的交易，再查询是否有待广播的跨链交易
+        chain.getSendHeightLock().lock();
+        try {
+            MessageUtil.saveSendHeight(chain, true);
+            Map<Long , SendCtxHashPO> sendHeightMap = sendHeightService.getList(chainId);
+            if(sendHeightMap != null && sendHeightMap.size() >0){
+                Set<Long> sortSet = new TreeSet<>(sendHeightMap.keySet());
+                Map<Integer,Byte> crossStatusMap = new HashMap<>(NulsCrossChainConstant.INIT_CAPACITY_16);
+                for (long cacheHeight:sortSet) {
+                    if(height >= cacheHeight){
+                        chain.getLogger().debug("广播区块高度为{}的跨链交易给其他链",cacheHeight );
+                        SendCtxHashPO po = sendHeightMap.get(cacheHeight);
+                        List<NulsHash> broadSuccessCtxHash = new ArrayList<>();
+                        List<NulsHash> broadFailCtxHash = new ArrayList<>();
+                        for (NulsHash ctxHash:po.getHashList()) {
+                            if(broadCtxHash(chain, ctxHash, cacheHeight, crossStatusMap)){
+                                broadSuccessCtxHash.add(ctxHash);
+                            }else{
+                                broadFailCtxHash.add(ctxHash);
+                            }
                         }
-                    }
-                    if(broadSuccessCtxHash.size() > 0){
-                        SendCtxHashPO sendedPo = sendedHeightService.get(cacheHeight,chainId);
-                        if(sendedPo != null){
-                            sendedPo.getHashList().addAll(broadSuccessCtxHash);
-                        }else{
-                            sendedPo = new SendCtxHashPO(broadSuccessCtxHash);
+                        if(broadSuccessCtxHash.size() > 0){
+                            SendCtxHashPO sendedPo = sendedHeightService.get(cacheHeight,chainId);
+                            if(sendedPo != null){
+                                sendedPo.getHashList().addAll(broadSuccessCtxHash);
+                            }else{
+                                sendedPo = new SendCtxHashPO(broadSuccessCtxHash);
+                            }
+                            if(!sendedHeightService.save(cacheHeight, sendedPo, chainId)){
+                                continue;
+                            }
                         }
-                        if(!sendedHeightService.save(cacheHeight, sendedPo, chainId)){
-                            continue;
+                        if(broadFailCtxHash.size() > 0){
+                            po.setHashList(broadFailCtxHash);
+                            sendHeightService.save(cacheHeight, po, chainId);
+                            chain.getLogger().error("区块高度为{}的跨链交易广播失败",cacheHeight);
+                        }else{
+                            sendHeightService.delete(cacheHeight, chainId);
+                            chain.getLogger().error("区块高度为{}的跨链交易广播成功",cacheHeight);
                         }
-                    }
-                    if(broadFailCtxHash.size() > 0){
-                        po.setHashList(broadFailCtxHash);
-                        sendHeightService.save(cacheHeight, po, chainId);
-                        chain.getLogger().error("区块高度为{}的跨链交易广播失败",cacheHeight);
                     }else{
-                        sendHeightService.delete(cacheHeight, chainId);
-                        chain.getLogger().error("区块高度为{}的跨链交易广播成功",cacheHeight);
+                        break;
                     }
-                }else{
-                    break;
                 }
             }
+        } finally {
+            chain.getSendHeightLock().unlock();
         }
         chain.getLogger().debug("区块高度更新消息处理完成,Height:{}\n\n",height);
         return Result.getSuccess(SUCCESS);
@@ -338,6 +338,7 @@ public class NulsCrossChainServiceImpl implements CrossChainService {
             for (Transaction ctx : txs) {
                 NulsHash ctxHash = ctx.getHash();
                 verifiedCtxMap.get(chainId).remove(ctxHash);
+                chain.getSignAggregateMap().remove(ctxHash);
                 CoinData coinData = ctx.getCoinDataInstance();
                 int fromChainId = AddressTool.getChainIdByAddress(coinData.getFrom().get(0).getAddress());
                 int toChainId = AddressTool.getChainIdByAddress(coinData.getTo().get(0).getAddress());
@@ -482,6 +483,7 @@ public class NulsCrossChainServiceImpl implements CrossChainService {
         Set<NulsHash> verifiedCtxSet = verifiedCtxMap.get(chainId);
         List<Transaction> invalidCtxList = new ArrayList<>();
         String errorCode = null;
+        txValidator.batchVerifySignature(chain, txs);
         for (Transaction ctx : txs) {
             NulsHash ctxHash = ctx.getHash();
             try {
@@ -161,7 +161,7 @@ public class NulsProtocolServiceImpl implements ProtocolService {
         }
         try {
             UntreatedMessage untreatedSignMessage = new UntreatedMessage(chainId,nodeId,messageBody,localHash);
-            chain.getSignMessageByzantineQueue().offer(untreatedSignMessage);
+            chain.offerSignMessageByzantine(untreatedSignMessage);
         } catch (Exception e) {
             chain.getLogger().error(e);
         }
@@ -12,6 +12,7 @@ import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
@@ -100,17 +101,14 @@ public class CommonUtil {
     public static List<P2PHKSignature> getMisMatchSigns(Chain chain, TransactionSignature transactionSignature, List<String> addressList){
         List<P2PHKSignature>misMatchSignList = new ArrayList<>();
         transactionSignature.setP2PHKSignatures(transactionSignature.getP2PHKSignatures().parallelStream().distinct().collect(Collectors.toList()));
+        Set<String> addressSet = new HashSet<>();
+        for (String address:addressList) {
+            addressSet.add(HexUtil.encode(AddressTool.getAddress(address)));
+        }
         Iterator<P2PHKSignature> iterator = transactionSignature.getP2PHKSignatures().iterator();
         while (iterator.hasNext()){
             P2PHKSignature signature = iterator.next();
-            boolean isMatchSign = false;
-            for (String address:addressList) {
-                if(Arrays.equals(AddressTool.getAddress(signature.getPublicKey(), chain.getChainId()), AddressTool.getAddress(address))){
-                    isMatchSign = true;
-                    break;
-                }
-            }
-            if(!isMatchSign){
+            if(!addressSet.contains(HexUtil.encode(AddressTool.getAddress(signature.getPublicKey(), chain.getChainId())))){
                 misMatchSignList.add(signature);
                 iterator.remove();
             }
@@ -12,7 +12,6 @@ import io.nuls.core.constant.TxStatusEnum;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.crypto.ECKey;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.model.StringUtils;
@@ -28,6 +27,7 @@ import io.nuls.crosschain.nuls.constant.NulsCrossChainConstant;
 import io.nuls.crosschain.nuls.constant.ParamConstant;
 import io.nuls.crosschain.nuls.model.bo.Chain;
 import io.nuls.crosschain.nuls.model.bo.NodeType;
+import io.nuls.crosschain.nuls.model.bo.SignatureAggregate;
 import io.nuls.crosschain.nuls.model.bo.message.WaitBroadSignMessage;
 import io.nuls.crosschain.nuls.model.po.CtxStatusPO;
 import io.nuls.crosschain.nuls.model.po.SendCtxHashPO;
@@ -114,12 +114,16 @@ public class MessageUtil {
             CtxStatusPO ctxStatusPO = ctxStatusService.get(hash, handleChainId);
             //如果最新区块表中不存在该交易，则表示该交易已经被打包了，所以不需要再广播该交易的签名
             if (ctxStatusPO.getStatus() != TxStatusEnum.UNCONFIRM.getStatus() || messageBody.getSignature() == null) {
+                chain.getSignAggregateMap().remove(hash);
                 chain.getLogger().info("跨链交易在本节点已经处理完成,Hash:{}\n\n", hashHex);
                 return;
             }
-            String signHex = "";
-            if (messageBody.getSignature() != null) {
-                signHex = HexUtil.encode(messageBody.getSignature());
+            String signHex = HexUtil.encode(messageBody.getSignature());
+            //每个签名只验证一次，其他节点转发的重复签名直接丢弃
+            SignatureAggregate aggregate = getSignAggregate(chain, hash, ctxStatusPO.getTx());
+            if (!aggregate.markReceived(signHex)) {
+                chain.getLogger().debug("本节点已经收到过该跨链交易的该签名,Hash:{},签名:{}\n\n", hashHex, signHex);
+                return;
             }
             P2PHKSignature p2PHKSignature = new P2PHKSignature();
             p2PHKSignature.parse(messageBody.getSignature(), 0);
@@ -128,11 +132,11 @@ public class MessageUtil {
                 convertCtx = convertCtxService.get(hash, handleChainId);
             }
             //验证签名是否正确，如果是跨链转账交易，这签名为
-            if(!ECKey.verify(convertCtx.getHash().getBytes(), p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())){
+            if(!SignatureUtil.validateSignture(convertCtx.getHash().getBytes(), p2PHKSignature)){
                 chain.getLogger().info("签名验证错误，hash:{},签名:{}\n\n",hashHex,signHex);
                 return;
             }
-            MessageUtil.signByzantine(chain, chainId, hash, ctxStatusPO.getTx(), messageBody, hashHex, signHex, nodeId);
+            MessageUtil.signByzantine(chain, chainId, hash, ctxStatusPO.getTx(), aggregate, p2PHKSignature, messageBody, hashHex, signHex, nodeId);
         }catch (NulsException e){
             chain.getLogger().error(e);
         }catch (IOException io){
@@ -141,6 +145,46 @@ public class MessageUtil {
 
     }
 
+    /**
+     * 获取跨链交易的签名聚合状态，不存在或验证人变化时根据当前验证人和交易中已有的签名重新创建
+     * Get the signature aggregation state of the transaction, it is rebuilt from the current verifiers and the existing
+     * signatures of the transaction when absent or when the verifiers have changed
+     * @param chain     本链信息
+     * @param hash      交易缓存HASH
+     * @param ctx       跨链交易
+     */
+    @SuppressWarnings("unchecked")
+    private static SignatureAggregate getSignAggregate(Chain chain, NulsHash hash, Transaction ctx) throws NulsException, IOException {
+        List<String> packAddressList;
+        if(ctx.getType() == TxType.VERIFIER_INIT){
+            packAddressList = (List<String>)ConsensusCall.getSeedNodeList(chain).get(ParamConstant.PARAM_PACK_ADDRESS_LIST);
+        }else{
+            packAddressList = CommonUtil.getCurrentPackAddressList(chain);
+        }
+        List<String> handleAddressList = new ArrayList<>(packAddressList);
+        int byzantineCount = getHandleByzantineCount(chain, ctx, handleAddressList);
+        List<byte[]> addressBytesList = new ArrayList<>();
+        for (String address : handleAddressList) {
+            addressBytesList.add(AddressTool.getAddress(address));
+        }
+        SignatureAggregate aggregate = chain.getSignAggregateMap().get(hash);
+        if (aggregate != null && aggregate.isSameVerifiers(addressBytesList, byzantineCount)) {
+            return aggregate;
+        }
+        aggregate = new SignatureAggregate(addressBytesList, byzantineCount);
+        if (ctx.getTransactionSignature() != null) {
+            TransactionSignature signature = new TransactionSignature();
+            signature.parse(ctx.getTransactionSignature(), 0);
+            for (P2PHKSignature sign : signature.getP2PHKSignatures()) {
+                if (aggregate.markReceived(HexUtil.encode(sign.serialize()))) {
+                    aggregate.add(sign, AddressTool.getAddress(sign.getPublicKey(), chain.getChainId()));
+                }
+            }
+        }
+        chain.getSignAggregateMap().put(hash, aggregate);
+        return aggregate;
+    }
+
     /**
      * 对其他链广播的的交易进行处理
      * @param chain     本链信息
@@ -177,40 +221,28 @@ public class MessageUtil {
      * @param chainId      发送链ID
      * @param realHash     本链协议跨链交易Hash
      * @param ctx          跨链交易
+     * @param aggregate    按当前验证人创建的签名聚合状态
+     * @param p2PHKSignature 已验证的新签名
      * @param messageBody  消息
      * @param nativeHex    交易Hash字符串
      * @param signHex      交易签名字符串
      */
-    @SuppressWarnings("unchecked")
-    public static void signByzantine(Chain chain, int chainId, NulsHash realHash, Transaction ctx, BroadCtxSignMessage messageBody, String nativeHex, String signHex,String excludeNodes) throws NulsException, IOException {
-        //判断节点是否已经收到并广播过该签名，如果已经广播过则不需要再广播
+    public static void signByzantine(Chain chain, int chainId, NulsHash realHash, Transaction ctx, SignatureAggregate aggregate, P2PHKSignature p2PHKSignature, BroadCtxSignMessage messageBody, String nativeHex, String signHex,String excludeNodes) throws NulsException, IOException {
         int handleChainId = chain.getChainId();
+        //增量累计验证人签名数，不再对全部签名重复做拜占庭验证
+        boolean passed = aggregate.add(p2PHKSignature, AddressTool.getAddress(p2PHKSignature.getPublicKey(), handleChainId));
         TransactionSignature signature = new TransactionSignature();
-        if (ctx.getTransactionSignature() != null) {
-            signature.parse(ctx.getTransactionSignature(), 0);
-            for (P2PHKSignature sign : signature.getP2PHKSignatures()) {
-                if (Arrays.equals(messageBody.getSignature(), sign.serialize())) {
-                    chain.getLogger().debug("本节点已经收到过该跨链交易的该签名,Hash:{},签名:{}\n\n", nativeHex, signHex);
-                    return;
-                }
-            }
-        } else {
-            List<P2PHKSignature> p2PHKSignatureList = new ArrayList<>();
-            signature.setP2PHKSignatures(p2PHKSignatureList);
-        }
-        P2PHKSignature p2PHKSignature = new P2PHKSignature();
-        p2PHKSignature.parse(messageBody.getSignature(), 0);
-        signature.getP2PHKSignatures().add(p2PHKSignature);
-        //交易签名拜占庭
-        List<String> packAddressList;
-        if(ctx.getType() == TxType.VERIFIER_INIT){
-            packAddressList = (List<String>)ConsensusCall.getSeedNodeList(chain).get(ParamConstant.PARAM_PACK_ADDRESS_LIST);
-        }else{
-            packAddressList = CommonUtil.getCurrentPackAddressList(chain);
-        }
         CtxStatusPO ctxStatusPO = new CtxStatusPO(ctx,TxStatusEnum.UNCONFIRM.getStatus());
-        if(signByzantineInChain(chain, ctx, signature, packAddressList)){
+        if(passed){
+            //去掉不是当前验证人的签名
+            signature.setP2PHKSignatures(new ArrayList<>(aggregate.getMatchSignList()));
+            ctx.setTransactionSignature(signature.serialize());
+            handleByzantinePassed(chain, ctx);
             ctxStatusPO.setStatus(TxStatusEnum.CONFIRMED.getStatus());
+            chain.getSignAggregateMap().remove(realHash);
+        }else{
+            signature.setP2PHKSignatures(aggregate.getSignList());
+            ctx.setTransactionSignature(signature.serialize());
         }
         ctxStatusService.save(realHash, ctxStatusPO, handleChainId);
         NetWorkCall.broadcast(chainId, messageBody, excludeNodes, CommandConstant.BROAD_CTX_SIGN_MESSAGE, false);
@@ -226,8 +258,39 @@ public class MessageUtil {
      * @return                   拜占庭验证是否通过
      */
     public static boolean signByzantineInChain(Chain chain,Transaction ctx,TransactionSignature signature,List<String>packAddressList)throws NulsException,IOException{
+        //交易签名在这里被直接改写，缓存的签名聚合状态失效，下次收到签名时根据交易中的签名重新创建
+        chain.getSignAggregateMap().remove(ctx.getHash());
         List<String> handleAddressList = new ArrayList<>(packAddressList);
         //交易签名拜占庭
+        int byzantineCount = getHandleByzantineCount(chain, ctx, handleAddressList);
+        int signCount = signature.getSignersCount();
+        if (signCount >= byzantineCount) {
+            //去掉不是当前验证人的签名和重复签名
+            List<P2PHKSignature> misMatchSignList = CommonUtil.getMisMatchSigns(chain, signature, handleAddressList);
+            signCount = signature.getSignersCount();
+            if (signCount >= byzantineCount) {
+                ctx.setTransactionSignature(signature.serialize());
+                handleByzantinePassed(chain, ctx);
+                saveSendHeight(chain, true);
+                return true;
+            } else {
+                signature.getP2PHKSignatures().addAll(misMatchSignList);
+                ctx.setTransactionSignature(signature.serialize());
+            }
+        } else {
+            ctx.setTransactionSignature(signature.serialize());
+        }
+        return false;
+    }
+
+    /**
+     * 计算拜占庭验证需要的最少签名数，友链中跨链转账交易的转出地址会加入验证账户列表
+     * @param chain              本链信息
+     * @param ctx                跨链交易
+     * @param handleAddressList  验证账户列表
+     * @return                   最少签名数
+     */
+    private static int getHandleByzantineCount(Chain chain, Transaction ctx, List<String> handleAddressList) throws NulsException {
         int byzantineCount = CommonUtil.getByzantineCount(ctx, handleAddressList, chain);
         //如果为友链中跨链转账交易，则需要减掉本链协议交易签名
         if(ctx.getType() == config.getCrossCtxType()){
@@ -250,64 +313,101 @@ public class MessageUtil {
                 }
             }
         }
-        int signCount = signature.getSignersCount();
-        if (signCount >= byzantineCount) {
-            //去掉不是当前验证人的签名和重复签名
-            List<P2PHKSignature> misMatchSignList = CommonUtil.getMisMatchSigns(chain, signature, handleAddressList);
-            signCount = signature.getSignersCount();
-            if (signCount >= byzantineCount) {
-                ctx.setTransactionSignature(signature.serialize());
-                //如果本链为发起链则发送交易模块处理，否则直接放入待广播队列
-                if(ctx.getType() == config.getCrossCtxType()){
-                    int fromChainId = AddressTool.getChainIdByAddress(ctx.getCoinDataInstance().getFrom().get(0).getAddress());
-                    if(fromChainId == chain.getChainId()){
-                        TransactionCall.sendTx(chain, RPCUtil.encode(ctx.serialize()));
-                        chain.getLogger().info("本链发起的跨链交易签名拜占庭验证通过,将跨链交易广播给交易模块处理，Hash{}", ctx.getHash().toHex());
-                    }else{
-                        long sendHeight = chainManager.getChainHeaderMap().get(chain.getChainId()).getHeight() + config.getSendHeight();
-                        SendCtxHashPO sendCtxHashPo = sendHeightService.get(sendHeight, chain.getChainId());
-                        if(sendCtxHashPo == null){
-                            List<NulsHash> hashList = new ArrayList<>();
-                            hashList.add(ctx.getHash());
-                            sendCtxHashPo = new SendCtxHashPO(hashList);
-                        }else{
-                            sendCtxHashPo.getHashList().add(ctx.getHash());
-                        }
-                        sendHeightService.save(sendHeight, sendCtxHashPo, chain.getChainId());
-                        chain.getLogger().info("其他链发起的跨链交易签名拜占庭验证通过,将跨链交易广播给交易模块处理，Hash{}", ctx.getHash().toHex());
-                    }
+        return byzantineCount;
+    }
+
+    /**
+     * 拜占庭验证通过后，本链发起的跨链交易发送给交易模块，否则记录待广播高度
+     * @param chain   本链信息
+     * @param ctx     跨链交易
+     */
+    private static void handleByzantinePassed(Chain chain, Transaction ctx) throws NulsException, IOException {
+        //如果本链为发起链则发送交易模块处理，否则直接放入待广播队列
+        if(ctx.getType() == config.getCrossCtxType()){
+            int fromChainId = AddressTool.getChainIdByAddress(ctx.getCoinDataInstance().getFrom().get(0).getAddress());
+            if(fromChainId == chain.getChainId()){
+                TransactionCall.sendTx(chain, RPCUtil.encode(ctx.serialize()));
+                chain.getLogger().info("本链发起的跨链交易签名拜占庭验证通过,将跨链交易广播给交易模块处理，Hash{}", ctx.getHash().toHex());
+            }else{
+                long sendHeight = chainManager.getChainHeaderMap().get(chain.getChainId()).getHeight() + config.getSendHeight();
+                addSendHeight(chain, sendHeight, ctx.getHash());
+                chain.getLogger().info("其他链发起的跨链交易签名拜占庭验证通过,将跨链交易广播给交易模块处理，Hash{}", ctx.getHash().toHex());
+            }
+        }else{
+            long sendHeight = config.getSendHeight();
+            if(chainManager.getChainHeaderMap().get(chain.getChainId()) != null){
+                if(ctx.getType() == TxType.VERIFIER_CHANGE){
+                    sendHeight += chainManager.getChainHeaderMap().get(chain.getChainId()).getHeight();
                 }else{
-                    long sendHeight = config.getSendHeight();
-                    if(chainManager.getChainHeaderMap().get(chain.getChainId()) != null){
-                        if(ctx.getType() == TxType.VERIFIER_CHANGE){
-                            sendHeight += chainManager.getChainHeaderMap().get(chain.getChainId()).getHeight();
-                        }else{
-                            sendHeight = chainManager.getChainHeaderMap().get(chain.getChainId()).getHeight();
+                    sendHeight = chainManager.getChainHeaderMap().get(chain.getChainId()).getHeight();
+                }
+            }
+            addSendHeight(chain, sendHeight, ctx.getHash());
+            chain.getLogger().info("验证人变更交易签名拜占庭验证通过,将跨链交易广播给交易模块处理，Hash{},广播高度{}", ctx.getHash().toHex(), sendHeight);
+        }
+    }
+
+    /**
+     * 记录待广播的跨链交易，由saveSendHeight按高度批量保存
+     * @param chain       本链信息
+     * @param sendHeight  广播高度
+     * @param hash        交易Hash
+     */
+    private static void addSendHeight(Chain chain, long sendHeight, NulsHash hash) {
+        chain.getWaitSaveSendHeightMap().compute(sendHeight, (height, hashSet) -> {
+            if (hashSet == null) {
+                hashSet = new LinkedHashSet<>();
+            }
+            hashSet.add(hash);
+            return hashSet;
+        });
+    }
+
+    /**
+     * 按高度批量保存待广播的跨链交易，每个高度只读写一次待广播高度表
+     * Save the cross-chain transactions waiting for broadcast in batch, the send height table is read and written once per height
+     * @param chain   本链信息
+     * @param wait    是否等待锁，为false时如果其他线程正在读写待广播高度表则由该线程稍后保存
+     */
+    public static void saveSendHeight(Chain chain, boolean wait) {
+        Map<Long, Set<NulsHash>> waitSaveMap = chain.getWaitSaveSendHeightMap();
+        if (waitSaveMap.isEmpty()) {
+            return;
+        }
+        if (wait) {
+            chain.getSendHeightLock().lock();
+        } else if (!chain.getSendHeightLock().tryLock()) {
+            return;
+        }
+        try {
+            int chainId = chain.getChainId();
+            for (Long sendHeight : new ArrayList<>(waitSaveMap.keySet())) {
+                Set<NulsHash> hashSet = waitSaveMap.remove(sendHeight);
+                if (hashSet == null) {
+                    continue;
+                }
+                SendCtxHashPO sendCtxHashPo = sendHeightService.get(sendHeight, chainId);
+                if (sendCtxHashPo == null) {
+                    sendCtxHashPo = new SendCtxHashPO(new ArrayList<>(hashSet));
+                } else {
+                    for (NulsHash hash : hashSet) {
+                        if (!sendCtxHashPo.getHashList().contains(hash)) {
+                            sendCtxHashPo.getHashList().add(hash);
                         }
                     }
-                    SendCtxHashPO sendCtxHashPo = sendHeightService.get(sendHeight, chain.getChainId());
-                    if(sendCtxHashPo == null){
-                        List<NulsHash> hashList = new ArrayList<>();
-                        hashList.add(ctx.getHash());
-                        sendCtxHashPo = new SendCtxHashPO(hashList);
-                    }else{
-                        sendCtxHashPo.getHashList().add(ctx.getHash());
+                }
+                if (!sendHeightService.save(sendHeight, sendCtxHashPo, chainId)) {
+                    chain.getLogger().error("待广播跨链交易保存失败,广播高度:{}", sendHeight);
+                    for (NulsHash hash : hashSet) {
+                        addSendHeight(chain, sendHeight, hash);
                     }
-                    sendHeightService.save(sendHeight, sendCtxHashPo, chain.getChainId());
-                    chain.getLogger().info("验证人变更交易签名拜占庭验证通过,将跨链交易广播给交易模块处理，Hash{},广播高度{}", ctx.getHash().toHex(), sendHeight);
                 }
-                return true;
-            } else {
-                signature.getP2PHKSignatures().addAll(misMatchSignList);
-                ctx.setTransactionSignature(signature.serialize());
             }
-        } else {
-            ctx.setTransactionSignature(signature.serialize());
+        } finally {
+            chain.getSendHeightLock().unlock();
         }
-        return false;
     }
 
-
     /**
      * 处理接收到的链内节点广播过来的跨链交易
      * @param chain        本链信息
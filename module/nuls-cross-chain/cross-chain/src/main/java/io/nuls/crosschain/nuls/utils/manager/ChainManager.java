@@ -126,7 +126,9 @@ public class ChainManager {
             chain.getThreadPool().execute(new SignMessageHandler(chain));
             chain.getThreadPool().execute(new OtherCtxMessageHandler(chain));
             chain.getThreadPool().execute(new GetCtxStateHandler(chain));
-            chain.getThreadPool().execute(new SignMessageByzantineHandler(chain));
+            for (int shard = 0; shard < NulsCrossChainConstant.SIGN_BYZANTINE_SHARD_COUNT; shard++) {
+                chain.getSignThreadPool().execute(new SignMessageByzantineHandler(chain, shard));
+            }
             chainHeaderMap.put(chain.getChainId(), BlockCall.getLatestBlockHeader(chain));
 
         }
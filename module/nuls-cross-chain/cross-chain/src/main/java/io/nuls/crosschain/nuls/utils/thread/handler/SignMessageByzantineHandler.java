@@ -1,12 +1,18 @@
 package io.nuls.crosschain.nuls.utils.thread.handler;
 
 import io.nuls.crosschain.base.message.BroadCtxSignMessage;
+import io.nuls.crosschain.nuls.constant.NulsCrossChainConstant;
 import io.nuls.crosschain.nuls.model.bo.Chain;
 import io.nuls.crosschain.nuls.model.bo.message.UntreatedMessage;
 import io.nuls.crosschain.nuls.utils.MessageUtil;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
 /**
  * 链内节点广播过来的跨链交易签名拜占庭验证处理线程
+ * 每个线程处理一个分片，按批取出签名消息，每批处理完后统一保存拜占庭验证通过的交易的广播高度
  *
  * @author tag
  * 2019/8/8
@@ -15,21 +21,40 @@ import io.nuls.crosschain.nuls.utils.MessageUtil;
 public class SignMessageByzantineHandler implements Runnable{
     private Chain chain;
 
-    public SignMessageByzantineHandler(Chain chain) {
+    private int shard;
+
+    public SignMessageByzantineHandler(Chain chain, int shard) {
         this.chain = chain;
+        this.shard = shard;
     }
 
     @Override
     public void run() {
+        LinkedBlockingQueue<UntreatedMessage> queue = chain.getSignMessageByzantineQueue(shard);
+        List<UntreatedMessage> batch = new ArrayList<>();
         while (chain.getSignMessageQueue() != null) {
             try {
-                UntreatedMessage untreatedMessage = chain.getSignMessageByzantineQueue().take();
-                String nativeHex = untreatedMessage.getCacheHash().toHex();
-                chain.getLogger().debug("开始对链内节点{}广播过来的跨链交易签名消息做签名拜占庭验证,Hash：{}", untreatedMessage.getNodeId(), nativeHex);
-                MessageUtil.handleSignMessageByzantine(chain, untreatedMessage.getCacheHash(), untreatedMessage.getChainId(), untreatedMessage.getNodeId(),(BroadCtxSignMessage)untreatedMessage.getMessage(), nativeHex);
+                batch.add(queue.take());
+                queue.drainTo(batch, NulsCrossChainConstant.SIGN_BYZANTINE_BATCH_SIZE - 1);
+                for (UntreatedMessage untreatedMessage : batch) {
+                    handle(untreatedMessage);
+                }
+                MessageUtil.saveSendHeight(chain, false);
             } catch (Exception e) {
                 chain.getLogger().error(e);
+            } finally {
+                batch.clear();
             }
         }
     }
+
+    private void handle(UntreatedMessage untreatedMessage) {
+        try {
+            String nativeHex = untreatedMessage.getCacheHash().toHex();
+            chain.getLogger().debug("开始对链内节点{}广播过来的跨链交易签名消息做签名拜占庭验证,Hash：{}", untreatedMessage.getNodeId(), nativeHex);
+            MessageUtil.handleSignMessageByzantine(chain, untreatedMessage.getCacheHash(), untreatedMessage.getChainId(), untreatedMessage.getNodeId(),(BroadCtxSignMessage)untreatedMessage.getMessage(), nativeHex);
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+        }
+    }
 }
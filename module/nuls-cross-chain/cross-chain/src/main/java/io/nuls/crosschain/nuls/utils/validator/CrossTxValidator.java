@@ -57,6 +57,32 @@ public class CrossTxValidator {
     @Autowired
     private ChainManager chainManager;
 
+    /**
+     * 批量验证前将本批交易的签名合并为一批并行验证，逐笔验证时直接命中签名缓存
+     * Verify the signatures of the batch in one parallel pass before the per-tx checks, which then hit the signature cache
+     *
+     * @param chain 链信息/chain info
+     * @param txs   交易列表/transaction list
+     */
+    public void batchVerifySignature(Chain chain, List<Transaction> txs) {
+        if (config.isMainNet()) {
+            SignatureUtil.batchValidateCtxSignture(txs);
+            return;
+        }
+        //平行链上只有本链发起的交易带有本链协议的签名
+        List<Transaction> localTxs = new ArrayList<>();
+        for (Transaction tx : txs) {
+            try {
+                if (AddressTool.getChainIdByAddress(tx.getCoinDataInstance().getFrom().get(0).getAddress()) == chain.getChainId()) {
+                    localTxs.add(tx);
+                }
+            } catch (Exception e) {
+                //交易格式错误由逐笔验证处理
+            }
+        }
+        SignatureUtil.batchValidateTransactionSignture(localTxs);
+    }
+
     /**
      * 验证交易
      * Verifying transactions
@@ -0,0 +1,61 @@
+package io.nuls.test.model;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.signture.P2PHKSignature;
+import io.nuls.base.signture.SignatureUtil;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.crosschain.nuls.model.bo.SignatureAggregate;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 签名聚合增量拜占庭验证测试
+ */
+public class SignatureAggregateTest {
+    private int chainId = 2;
+
+    @Test
+    public void incrementalByzantine() throws Exception {
+        NulsHash digest = NulsHash.calcHash("ctx".getBytes());
+        List<ECKey> verifiers = new ArrayList<>();
+        List<byte[]> addressList = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ECKey ecKey = new ECKey();
+            verifiers.add(ecKey);
+            addressList.add(AddressTool.getAddress(ecKey.getPubKey(), chainId));
+        }
+        SignatureAggregate aggregate = new SignatureAggregate(addressList, 3);
+
+        //非验证人的签名不计入拜占庭签名数
+        ECKey other = new ECKey();
+        Assert.assertFalse(add(aggregate, other, digest));
+        Assert.assertFalse(add(aggregate, verifiers.get(0), digest));
+        Assert.assertFalse(add(aggregate, verifiers.get(1), digest));
+        Assert.assertEquals(3, aggregate.getSignList().size());
+        Assert.assertEquals(2, aggregate.getMatchSignList().size());
+
+        //重复收到的签名不再处理
+        P2PHKSignature sign = SignatureUtil.createSignatureByEckey(digest, verifiers.get(2));
+        String signHex = HexUtil.encode(sign.serialize());
+        Assert.assertTrue(aggregate.markReceived(signHex));
+        Assert.assertFalse(aggregate.markReceived(signHex));
+        Assert.assertTrue(aggregate.add(sign, AddressTool.getAddress(sign.getPublicKey(), chainId)));
+        Assert.assertEquals(3, aggregate.getMatchSignList().size());
+
+        //验证人或拜占庭签名数变化后需要重新创建
+        Assert.assertTrue(aggregate.isSameVerifiers(new ArrayList<>(addressList), 3));
+        Assert.assertFalse(aggregate.isSameVerifiers(addressList, 4));
+        Assert.assertFalse(aggregate.isSameVerifiers(addressList.subList(0, 3), 3));
+    }
+
+    private boolean add(SignatureAggregate aggregate, ECKey ecKey, NulsHash digest) throws Exception {
+        P2PHKSignature sign = SignatureUtil.createSignatureByEckey(digest, ecKey);
+        Assert.assertTrue(aggregate.markReceived(HexUtil.encode(sign.serialize())));
+        return aggregate.add(sign, AddressTool.getAddress(sign.getPublicKey(), chainId));
+    }
+}
@@ -86,6 +86,13 @@ public class LedgerBootstrap extends RpcModule {
             LedgerConstant.UNCONFIRM_NONCE_EXPIRED_TIME = ledgerConfig.getUnconfirmedTxExpired();
             LedgerConstant.DEFAULT_ENCODING = ledgerConfig.getEncoding();
             LedgerConstant.blackHolePublicKey = HexUtil.decode(ledgerConfig.getBlackHolePublicKey());
+            if (ledgerConfig.getAccountCacheSize() > 0) {
+                LedgerConstant.ACCOUNT_CACHE_SIZE = ledgerConfig.getAccountCacheSize();
+            }
+            LedgerConstant.BLOCK_VALIDATE_THREADS = ledgerConfig.getBlockValidateThreads();
+            if (ledgerConfig.getSnapshotRetention() > 0) {
+                LedgerConstant.SNAPSHOT_RETENTION = ledgerConfig.getSnapshotRetention();
+            }
             LedgerChainManager ledgerChainManager = SpringLiteContext.getBean(LedgerChainManager.class);
             ledgerChainManager.initChains();
             LoggerUtil.COMMON_LOG.info("Ledger data init  complete!");
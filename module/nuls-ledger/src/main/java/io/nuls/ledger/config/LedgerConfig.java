@@ -3,7 +3,9 @@ package io.nuls.ledger.config;
 import io.nuls.core.basic.ModuleConfig;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.core.annotation.Configuration;
+import io.nuls.core.rockdb.model.RocksDBConfig;
 import io.nuls.core.rpc.model.ModuleE;
+import io.nuls.ledger.storage.DataBaseArea;
 
 /**
  * @Author: lanjinsheng
@@ -32,6 +34,36 @@ public class LedgerConfig implements ModuleConfig {
      */
     private String dataPath;
 
+    /**
+     * 数据库是否使用列族共享模式
+     */
+    private boolean dbSharedMode;
+
+    /**
+     * 数据库共享块缓存大小(字节)，0表示不使用块缓存
+     */
+    private long dbBlockCacheSize;
+
+    /**
+     * 数据库最底层压缩算法: NONE, LZ4, ZSTD
+     */
+    private String dbBottommostCompression = RocksDBConfig.COMPRESSION_NONE;
+
+    /**
+     * 每条链已确认账户状态缓存的内存上限(字节)，0表示使用默认值
+     */
+    private long accountCacheSize;
+
+    /**
+     * 区块coinData并行校验线程数，0表示顺序校验
+     */
+    private int blockValidateThreads;
+
+    /**
+     * 保留的区块回滚日志数量，不能小于区块模块的maxRollback，0表示使用默认值
+     */
+    private int snapshotRetention;
+
     public String getLanguage() {
         return language;
     }
@@ -71,4 +103,63 @@ public class LedgerConfig implements ModuleConfig {
     public void setLogLevel(String logLevel) {
         this.logLevel = logLevel;
     }
+
+    public boolean isDbSharedMode() {
+        return dbSharedMode;
+    }
+
+    public void setDbSharedMode(boolean dbSharedMode) {
+        this.dbSharedMode = dbSharedMode;
+    }
+
+    public long getDbBlockCacheSize() {
+        return dbBlockCacheSize;
+    }
+
+    public void setDbBlockCacheSize(long dbBlockCacheSize) {
+        this.dbBlockCacheSize = dbBlockCacheSize;
+    }
+
+    public String getDbBottommostCompression() {
+        return dbBottommostCompression;
+    }
+
+    public void setDbBottommostCompression(String dbBottommostCompression) {
+        this.dbBottommostCompression = dbBottommostCompression;
+    }
+
+    public long getAccountCacheSize() {
+        return accountCacheSize;
+    }
+
+    public void setAccountCacheSize(long accountCacheSize) {
+        this.accountCacheSize = accountCacheSize;
+    }
+
+    public int getBlockValidateThreads() {
+        return blockValidateThreads;
+    }
+
+    public void setBlockValidateThreads(int blockValidateThreads) {
+        this.blockValidateThreads = blockValidateThreads;
+    }
+
+    public int getSnapshotRetention() {
+        return snapshotRetention;
+    }
+
+    public void setSnapshotRetention(int snapshotRetention) {
+        this.snapshotRetention = snapshotRetention;
+    }
+
+    public RocksDBConfig getRocksDBConfig() {
+        RocksDBConfig config = new RocksDBConfig();
+        config.setSharedMode(dbSharedMode);
+        config.setBlockCacheSize(dbBlockCacheSize);
+        config.setBottommostCompression(dbBottommostCompression);
+        //确认交易hash与nonce表主要用于判断是否已存在，查询结果多为不存在，提高布隆过滤器精度
+        config.setTableConfig(DataBaseArea.TB_LEDGER_NONCES, 16);
+        config.setTableConfig(DataBaseArea.TB_LEDGER_HASH, 16);
+        return config;
+    }
 }
@@ -60,6 +60,22 @@ public class LedgerConstant {
      * 缓存同步统计数据的区块信息
      */
     public static final int CACHE_NONCE_INFO_BLOCK = 100;
+    /**
+     * 每条链已确认账户状态缓存的内存上限(字节)
+     */
+    public static long ACCOUNT_CACHE_SIZE = 64L * 1024 * 1024;
+    /**
+     * 区块coinData并行校验线程数，0表示顺序校验
+     */
+    public static int BLOCK_VALIDATE_THREADS = 0;
+    /**
+     * 保留的区块回滚日志数量，不能小于区块模块的最大回滚数(maxRollback)
+     */
+    public static int SNAPSHOT_RETENTION = CACHE_ACCOUNT_BLOCK;
+    /**
+     * 清理过期回滚日志的间隔(分钟)
+     */
+    public static final int SNAPSHOT_PRUNE_INTERVAL = 10;
 
     /**
      * 缓存的账户初始化nonce
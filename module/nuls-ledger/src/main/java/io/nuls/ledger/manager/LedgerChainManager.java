@@ -30,17 +30,23 @@ import io.nuls.core.core.annotation.Component;
 import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.model.ModuleE;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
 import io.nuls.ledger.config.LedgerConfig;
+import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.model.LedgerChain;
 import io.nuls.ledger.service.BlockDataService;
 import io.nuls.ledger.storage.Repository;
 import io.nuls.ledger.storage.impl.LgBlockSyncRepositoryImpl;
 import io.nuls.ledger.storage.impl.RepositoryImpl;
+import io.nuls.ledger.task.BlockSnapshotPruneTask;
 import io.nuls.ledger.utils.LoggerUtil;
 
 import java.io.File;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 链管理类,负责各条链的初始化,运行,启动,参数维护等
@@ -109,7 +115,7 @@ public class LedgerChainManager {
      */
     private void initRocksDb() {
         try {
-            RocksDBService.init(ledgerConfig.getDataPath() + File.separator + ModuleE.LG.name);
+            RocksDBService.init(ledgerConfig.getDataPath() + File.separator + ModuleE.LG.name, ledgerConfig.getRocksDBConfig());
             Repository initDB = SpringLiteContext.getBean(RepositoryImpl.class);
             initDB.initTableName();
         } catch (Exception e) {
@@ -120,6 +126,15 @@ public class LedgerChainManager {
     public void initChains() throws Exception {
         initRocksDb();
         initLedgerDatas();
+        startPruneTask();
+    }
+
+    /**
+     * 定时清理过期的区块回滚日志
+     */
+    private void startPruneTask() {
+        ScheduledThreadPoolExecutor pruneExecutor = ThreadUtils.createScheduledThreadPool(1, new NulsThreadFactory("ledger-snapshot-prune"));
+        pruneExecutor.scheduleWithFixedDelay(new BlockSnapshotPruneTask(), 1, LedgerConstant.SNAPSHOT_PRUNE_INTERVAL, TimeUnit.MINUTES);
     }
      public void syncBlockHeight(){
          try {
@@ -24,6 +24,7 @@
  */
 package io.nuls.ledger.model;
 
+import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.sub.AccountStateSnapshot;
 import io.nuls.ledger.model.po.sub.AmountNonce;
@@ -39,6 +40,14 @@ import java.util.List;
 public class AccountBalance {
     private AccountState nowAccountState;
     private AccountStateSnapshot preAccountState;
+    /**
+     * 区块提交前数据库中保存的账户状态(未重新计算冻结)，只读
+     */
+    private AccountState storedAccountState;
+    /**
+     * 账户状态缓存key
+     */
+    private ByteArrayWrapper cacheKey;
 
 
     public AccountState getNowAccountState() {
@@ -57,8 +66,29 @@ public class AccountBalance {
         this.preAccountState = preAccountState;
     }
 
+    public AccountState getStoredAccountState() {
+        return storedAccountState;
+    }
+
+    public void setStoredAccountState(AccountState storedAccountState) {
+        this.storedAccountState = storedAccountState;
+    }
+
+    public ByteArrayWrapper getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(ByteArrayWrapper cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
     public AccountBalance(AccountState nowAccountState, AccountStateSnapshot preAccountState) {
         this.nowAccountState = nowAccountState;
         this.preAccountState = preAccountState;
     }
+
+    public AccountBalance(AccountState nowAccountState, AccountStateSnapshot preAccountState, ByteArrayWrapper cacheKey) {
+        this(nowAccountState, preAccountState);
+        this.cacheKey = cacheKey;
+    }
 }
@@ -0,0 +1,275 @@
+/*-
+ * ⁣⁣
+ * MIT License
+ * ⁣⁣
+ * Copyright (C) 2017 - 2018 nuls.io
+ * ⁣⁣
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ⁣⁣
+ */
+package io.nuls.ledger.model.po.sub;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.BaseNulsData;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.parse.SerializeUtils;
+import io.nuls.ledger.constant.LedgerConstant;
+import io.nuls.ledger.model.po.AccountState;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 账户在一个区块中的变化量，用于回滚
+ * 与AccountStateSnapshot保存完整的历史账户状态不同，这里只保存nonce、出入账总额的增量及冻结列表的增删，
+ * 回滚时作用于区块提交后的账户状态得到提交前的状态。
+ * <p>
+ * Change of an account in one block, used by rollback. Instead of the complete previous state (AccountStateSnapshot)
+ * only the nonce, the total amount deltas and the added/removed freeze entries are kept, and they are applied to the
+ * state after the block to get the state before it.
+ *
+ * @author lanjinsheng
+ */
+public class AccountStateDelta extends BaseNulsData {
+
+    private static final int DIGEST_LENGTH = 8;
+
+    private String address;
+
+    private int addressChainId;
+
+    private int assetChainId;
+
+    private int assetId;
+
+    /**
+     * 区块提交后账户状态序列化数据的摘要，回滚前用于判断该状态是否已写入
+     */
+    private byte[] postDigest;
+
+    private byte[] preNonce;
+
+    private long preLatestUnFreezeTime;
+
+    private BigInteger fromAmountDelta = BigInteger.ZERO;
+
+    private BigInteger toAmountDelta = BigInteger.ZERO;
+
+    /**
+     * 区块中删除的高度冻结数据及其在原列表中的位置
+     */
+    private List<Integer> removedHeightIndexes = new ArrayList<>();
+    private List<FreezeHeightState> removedHeightStates = new ArrayList<>();
+    /**
+     * 区块中追加到列表尾部的高度冻结数据条数
+     */
+    private int addedHeightCount;
+
+    private List<Integer> removedLockTimeIndexes = new ArrayList<>();
+    private List<FreezeLockTimeState> removedLockTimeStates = new ArrayList<>();
+    private int addedLockTimeCount;
+
+    /**
+     * 区块中对应账户的所有nonce值集合
+     */
+    private List<AmountNonce> nonces = new ArrayList<>();
+
+    public AccountStateDelta() {
+        super();
+    }
+
+    /**
+     * @param pre       区块提交前的账户备份，提供账户信息及nonce集合
+     * @param preState  区块提交前数据库中保存的账户状态(未重新计算冻结)，回滚后得到与其完全一致的数据
+     * @param post      区块提交后的账户状态
+     * @param postBytes post的序列化数据
+     */
+    public AccountStateDelta(AccountStateSnapshot pre, AccountState preState, AccountState post, byte[] postBytes) throws IOException {
+        this.address = pre.getAddress();
+        this.addressChainId = pre.getAddressChainId();
+        this.assetChainId = pre.getAssetChainId();
+        this.assetId = pre.getAssetId();
+        this.postDigest = digest(postBytes);
+        this.preNonce = preState.getNonce();
+        this.preLatestUnFreezeTime = preState.getLatestUnFreezeTime();
+        this.fromAmountDelta = post.getTotalFromAmount().subtract(preState.getTotalFromAmount());
+        this.toAmountDelta = post.getTotalToAmount().subtract(preState.getTotalToAmount());
+        this.addedHeightCount = diff(preState.getFreezeHeightStates(), post.getFreezeHeightStates(), removedHeightIndexes, removedHeightStates);
+        this.addedLockTimeCount = diff(preState.getFreezeLockTimeStates(), post.getFreezeLockTimeStates(), removedLockTimeIndexes, removedLockTimeStates);
+        this.nonces = pre.getNonces();
+    }
+
+    /**
+     * 将区块提交后的账户状态还原为提交前的状态
+     * Restore the state before the block from the state after it
+     *
+     * @param current 当前账户状态，会被直接修改
+     * @return 当前状态不是该区块提交后的状态(账户状态未写入)时返回null
+     */
+    public AccountStateSnapshot revert(AccountState current) throws IOException {
+        if (!Arrays.equals(postDigest, digest(current.serialize()))) {
+            return null;
+        }
+        current.setNonce(preNonce);
+        current.setLatestUnFreezeTime(preLatestUnFreezeTime);
+        current.setTotalFromAmount(current.getTotalFromAmount().subtract(fromAmountDelta));
+        current.setTotalToAmount(current.getTotalToAmount().subtract(toAmountDelta));
+        revert(current.getFreezeHeightStates(), removedHeightIndexes, removedHeightStates, addedHeightCount);
+        revert(current.getFreezeLockTimeStates(), removedLockTimeIndexes, removedLockTimeStates, addedLockTimeCount);
+        AccountStateSnapshot snapshot = new AccountStateSnapshot(addressChainId, assetChainId, assetId, address, current);
+        snapshot.setNonces(nonces);
+        return snapshot;
+    }
+
+    /**
+     * 冻结数据只会从列表中删除或追加到尾部，按顺序比较即可得到删除的数据
+     *
+     * @return 追加到尾部的数据条数
+     */
+    private static <T extends BaseNulsData> int diff(List<T> pre, List<T> post, List<Integer> removedIndexes, List<T> removed) throws IOException {
+        int j = 0;
+        for (int i = 0; i < pre.size(); i++) {
+            T state = pre.get(i);
+            if (j < post.size() && (state == post.get(j) || Arrays.equals(state.serialize(), post.get(j).serialize()))) {
+                j++;
+            } else {
+                removedIndexes.add(i);
+                removed.add(state);
+            }
+        }
+        return post.size() - j;
+    }
+
+    private static <T> void revert(List<T> post, List<Integer> removedIndexes, List<T> removed, int addedCount) {
+        for (int i = 0; i < addedCount; i++) {
+            post.remove(post.size() - 1);
+        }
+        for (int i = 0; i < removedIndexes.size(); i++) {
+            post.add(removedIndexes.get(i), removed.get(i));
+        }
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        return Arrays.copyOf(Sha256Hash.hash(bytes), DIGEST_LENGTH);
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeString(address);
+        stream.writeUint16(addressChainId);
+        stream.writeUint16(assetChainId);
+        stream.writeUint16(assetId);
+        stream.write(postDigest);
+        stream.write(preNonce);
+        stream.writeUint32(preLatestUnFreezeTime);
+        stream.writeBytesWithLength(fromAmountDelta.toByteArray());
+        stream.writeBytesWithLength(toAmountDelta.toByteArray());
+        writeRemoved(stream, removedHeightIndexes, removedHeightStates, addedHeightCount);
+        writeRemoved(stream, removedLockTimeIndexes, removedLockTimeStates, addedLockTimeCount);
+        stream.writeVarInt(nonces.size());
+        for (AmountNonce nonce : nonces) {
+            stream.writeNulsData(nonce);
+        }
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.address = byteBuffer.readString();
+        this.addressChainId = byteBuffer.readUint16();
+        this.assetChainId = byteBuffer.readUint16();
+        this.assetId = byteBuffer.readUint16();
+        this.postDigest = byteBuffer.readBytes(DIGEST_LENGTH);
+        this.preNonce = byteBuffer.readBytes(LedgerConstant.NONCE_LENGHT);
+        this.preLatestUnFreezeTime = byteBuffer.readUint32();
+        this.fromAmountDelta = new BigInteger(byteBuffer.readByLengthByte());
+        this.toAmountDelta = new BigInteger(byteBuffer.readByLengthByte());
+        this.addedHeightCount = readRemoved(byteBuffer, removedHeightIndexes, removedHeightStates, FreezeHeightState::new);
+        this.addedLockTimeCount = readRemoved(byteBuffer, removedLockTimeIndexes, removedLockTimeStates, FreezeLockTimeState::new);
+        int nonceCount = (int) byteBuffer.readVarInt();
+        this.nonces = new ArrayList<>(nonceCount);
+        for (int i = 0; i < nonceCount; i++) {
+            this.nonces.add(byteBuffer.readNulsData(new AmountNonce()));
+        }
+    }
+
+    private static <T extends BaseNulsData> void writeRemoved(NulsOutputStreamBuffer stream, List<Integer> removedIndexes, List<T> removed, int addedCount) throws IOException {
+        stream.writeVarInt(removedIndexes.size());
+        for (int i = 0; i < removedIndexes.size(); i++) {
+            stream.writeVarInt(removedIndexes.get(i));
+            stream.writeNulsData(removed.get(i));
+        }
+        stream.writeVarInt(addedCount);
+    }
+
+    private static <T extends BaseNulsData> int readRemoved(NulsByteBuffer byteBuffer, List<Integer> removedIndexes, List<T> removed, Supplier<T> supplier) throws NulsException {
+        int count = (int) byteBuffer.readVarInt();
+        for (int i = 0; i < count; i++) {
+            removedIndexes.add((int) byteBuffer.readVarInt());
+            removed.add(byteBuffer.readNulsData(supplier.get()));
+        }
+        return (int) byteBuffer.readVarInt();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        size += SerializeUtils.sizeOfString(address);
+        size += SerializeUtils.sizeOfUint16() * 3;
+        size += DIGEST_LENGTH;
+        size += LedgerConstant.NONCE_LENGHT;
+        size += SerializeUtils.sizeOfUint32();
+        size += SerializeUtils.sizeOfBytes(fromAmountDelta.toByteArray());
+        size += SerializeUtils.sizeOfBytes(toAmountDelta.toByteArray());
+        size += sizeOfRemoved(removedHeightIndexes, removedHeightStates, addedHeightCount);
+        size += sizeOfRemoved(removedLockTimeIndexes, removedLockTimeStates, addedLockTimeCount);
+        size += SerializeUtils.sizeOfVarInt(nonces.size());
+        for (AmountNonce nonce : nonces) {
+            size += SerializeUtils.sizeOfNulsData(nonce);
+        }
+        return size;
+    }
+
+    private static <T extends BaseNulsData> int sizeOfRemoved(List<Integer> removedIndexes, List<T> removed, int addedCount) {
+        int size = SerializeUtils.sizeOfVarInt(removedIndexes.size());
+        for (int i = 0; i < removedIndexes.size(); i++) {
+            size += SerializeUtils.sizeOfVarInt(removedIndexes.get(i));
+            size += SerializeUtils.sizeOfNulsData(removed.get(i));
+        }
+        size += SerializeUtils.sizeOfVarInt(addedCount);
+        return size;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getAssetChainId() {
+        return assetChainId;
+    }
+
+    public int getAssetId() {
+        return assetId;
+    }
+}
@@ -49,6 +49,17 @@ public interface AccountStateService {
      */
     AccountState getAccountState(String address, int addressChainId, int assetChainId, int assetId);
 
+    /**
+     * 不用同步锁获取账户信息，返回的对象为只读快照
+     *
+     * @param address        地址字节
+     * @param addressChainId addressChainId
+     * @param assetChainId   assetChainId
+     * @param assetId        assetId
+     * @return AccountState
+     */
+    AccountState getAccountState(byte[] address, int addressChainId, int assetChainId, int assetId);
+
 
     /**
      * 获取账本信息，并重新计算冻结的金额的信息
@@ -61,6 +72,17 @@ public interface AccountStateService {
      */
     AccountState getAccountStateReCal(String address, int addressChainId, int assetChainId, int assetId);
 
+    /**
+     * 获取账本信息，并重新计算冻结的金额的信息
+     *
+     * @param address        地址字节
+     * @param addressChainId addressChainId
+     * @param assetChainId   assetChainId
+     * @param assetId        assetId
+     * @return 可修改的账户信息
+     */
+    AccountState getAccountStateReCal(byte[] address, int addressChainId, int assetChainId, int assetId);
+
     /**
      * 回滚账户信息
      *
@@ -70,4 +92,16 @@ public interface AccountStateService {
      */
     void rollAccountState(int chainId, List<AccountStateSnapshot> preAccountStates) throws Exception;
 
+
+    /**
+     * 获取区块提交前的账户状态，用于回滚该区块
+     * 优先由回滚日志与当前账户状态计算，没有回滚日志时读取旧格式的完整快照
+     * Get the account states before the block, computed from the undo journal and the current states, or read from the
+     * legacy full snapshot when there is no journal
+     *
+     * @param chainId
+     * @param height
+     * @return 没有备份数据，或账户状态不是该区块提交后的状态时返回null
+     */
+    List<AccountStateSnapshot> getBlockPreAccountStates(int chainId, long height);
 }
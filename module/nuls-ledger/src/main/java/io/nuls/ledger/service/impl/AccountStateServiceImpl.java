@@ -25,14 +25,19 @@
  */
 package io.nuls.ledger.service.impl;
 
+import io.nuls.base.basic.AddressTool;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.manager.LedgerChainManager;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.AccountStateUnconfirmed;
+import io.nuls.ledger.model.po.BlockAccountJournal;
+import io.nuls.ledger.model.po.BlockSnapshotAccounts;
 import io.nuls.ledger.model.po.TxUnconfirmed;
+import io.nuls.ledger.model.po.sub.AccountStateDelta;
 import io.nuls.ledger.model.po.sub.AccountStateSnapshot;
 import io.nuls.ledger.model.po.sub.AmountNonce;
 import io.nuls.ledger.service.AccountStateService;
@@ -41,8 +46,11 @@ import io.nuls.ledger.service.UnconfirmedStateService;
 import io.nuls.ledger.storage.Repository;
 import io.nuls.ledger.storage.UnconfirmedRepository;
 import io.nuls.ledger.utils.LedgerUtil;
+import io.nuls.ledger.utils.LoggerUtil;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -69,12 +77,13 @@ public class AccountStateServiceImpl implements AccountStateService {
     public void rollAccountState(int chainId, List<AccountStateSnapshot> preAccountStates) throws Exception {
         //获取当前数据库值
         Map<byte[], byte[]> accountStates = new HashMap<>(preAccountStates.size());
-        Map<String, AccountState> accountStatesMem = new HashMap<>(preAccountStates.size());
+        Map<ByteArrayWrapper, AccountState> accountStatesMem = new HashMap<>(preAccountStates.size());
         for (AccountStateSnapshot accountStateSnapshot : preAccountStates) {
             String assetKey = LedgerUtil.getKeyStr(accountStateSnapshot.getAddress(),
                     accountStateSnapshot.getAssetChainId(), accountStateSnapshot.getAssetId());
             accountStates.put(assetKey.getBytes(LedgerConstant.DEFAULT_ENCODING), accountStateSnapshot.getAccountState().serialize());
-            accountStatesMem.put(assetKey, accountStateSnapshot.getAccountState());
+            accountStatesMem.put(LedgerUtil.getAccountCacheKey(AddressTool.getAddressByRealAddr(accountStateSnapshot.getAddress()),
+                    accountStateSnapshot.getAssetChainId(), accountStateSnapshot.getAssetId()), accountStateSnapshot.getAccountState());
             //获取当前数据库值
             Map<String, TxUnconfirmed> unconfirmedNonces = new HashMap<>(64);
             AccountStateUnconfirmed accountStateUnconfirmed = new AccountStateUnconfirmed();
@@ -103,6 +112,7 @@ public class AccountStateServiceImpl implements AccountStateService {
 
     /**
      * 只返回数据，不同步计算，不进行更新
+     * 返回的对象可能是缓存中的只读快照，不能修改
      *
      * @param address
      * @param addressChainId
@@ -112,13 +122,13 @@ public class AccountStateServiceImpl implements AccountStateService {
      */
     @Override
     public AccountState getAccountState(String address, int addressChainId, int assetChainId, int assetId) {
+        return getAccountState(AddressTool.getAddressByRealAddr(address), addressChainId, assetChainId, assetId);
+    }
+
+    @Override
+    public AccountState getAccountState(byte[] address, int addressChainId, int assetChainId, int assetId) {
         //尝试缓存获取
-        AccountState accountState = repository.getAccountStateByMemory(addressChainId, LedgerUtil.getKeyStr(address, assetChainId, assetId));
-        if (null != accountState) {
-            return accountState;
-        }
-        byte[] key = LedgerUtil.getKey(address, assetChainId, assetId);
-        accountState = repository.getAccountState(addressChainId, key);
+        AccountState accountState = repository.getAccountStateByMemory(addressChainId, address, assetChainId, assetId);
         if (null == accountState) {
             accountState = new AccountState(LedgerConstant.getInitNonceByte());
         }
@@ -134,17 +144,18 @@ public class AccountStateServiceImpl implements AccountStateService {
      */
     @Override
     public AccountState getAccountStateReCal(String address, int addressChainId, int assetChainId, int assetId) {
+        return getAccountStateReCal(AddressTool.getAddressByRealAddr(address), addressChainId, assetChainId, assetId);
+    }
+
+    @Override
+    public AccountState getAccountStateReCal(byte[] address, int addressChainId, int assetChainId, int assetId) {
         //尝试缓存获取
-        AccountState accountState = repository.getAccountStateByMemory(addressChainId, LedgerUtil.getKeyStr(address, assetChainId, assetId));
+        AccountState accountState = repository.getAccountStateByMemory(addressChainId, address, assetChainId, assetId);
         if (null == accountState) {
-            //账户处理锁
-            byte[] key = LedgerUtil.getKey(address, assetChainId, assetId);
-            accountState = repository.getAccountState(addressChainId, key);
-            if (null == accountState) {
-                accountState = new AccountState(LedgerConstant.getInitNonceByte());
-                return accountState;
-            }
+            return new AccountState(LedgerConstant.getInitNonceByte());
         }
+        //缓存的是只读快照，复制后再计算
+        accountState = accountState.deepClone();
         //解冻时间高度锁
         if (accountState.timeAllow()) {
             freezeStateService.recalculateFreeze(addressChainId, accountState);
@@ -154,4 +165,33 @@ public class AccountStateServiceImpl implements AccountStateService {
     }
 
 
+    @Override
+    public List<AccountStateSnapshot> getBlockPreAccountStates(int chainId, long height) {
+        BlockAccountJournal journal = repository.getBlockJournal(chainId, height);
+        if (null == journal) {
+            BlockSnapshotAccounts blockSnapshotAccounts = repository.getBlockSnapshot(chainId, height);
+            return null == blockSnapshotAccounts ? null : blockSnapshotAccounts.getAccounts();
+        }
+        List<AccountStateSnapshot> preAccountStates = new ArrayList<>(journal.getDeltas().size());
+        for (AccountStateDelta delta : journal.getDeltas()) {
+            byte[] address = AddressTool.getAddressByRealAddr(delta.getAddress());
+            AccountState accountState = repository.getAccountStateByMemory(chainId, address, delta.getAssetChainId(), delta.getAssetId());
+            accountState = null == accountState ? new AccountState(LedgerConstant.getInitNonceByte()) : accountState.deepClone();
+            AccountStateSnapshot snapshot;
+            try {
+                snapshot = delta.revert(accountState);
+            } catch (IOException e) {
+                LoggerUtil.logger(chainId).error(e);
+                return null;
+            }
+            if (null == snapshot) {
+                //账户状态不是该区块提交后的状态，回滚日志无法作用于当前数据，终止回滚
+                LoggerUtil.logger(chainId).error("height={},account={}-{}-{} is not at block state, abort rollback", height, delta.getAddress(), delta.getAssetChainId(), delta.getAssetId());
+                return null;
+            }
+            preAccountStates.add(snapshot);
+        }
+        return preAccountStates;
+    }
+
 }
@@ -32,7 +32,6 @@ import io.nuls.core.log.Log;
 import io.nuls.core.model.ByteUtils;
 import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.model.ChainHeight;
-import io.nuls.ledger.model.po.BlockSnapshotAccounts;
 import io.nuls.ledger.model.po.BlockSnapshotTxs;
 import io.nuls.ledger.model.po.sub.AccountStateSnapshot;
 import io.nuls.ledger.rpc.call.CallRpcService;
@@ -79,9 +78,8 @@ public class BlockDataServiceImpl implements BlockDataService {
             LoggerUtil.COMMON_LOG.info("chainList size = {}", list.size());
             for (ChainHeight chainHeight : list) {
                 Log.info("begin chain ledger checked..chainId = {},chainHeight={}", chainHeight.getChainId(), chainHeight.getBlockHeight());
-                BlockSnapshotAccounts blockSnapshotAccounts = repository.getBlockSnapshot(chainHeight.getChainId(), chainHeight.getBlockHeight() + 1);
-                if (null != blockSnapshotAccounts) {
-                    List<AccountStateSnapshot> preAccountStates = blockSnapshotAccounts.getAccounts();
+                List<AccountStateSnapshot> preAccountStates = accountStateService.getBlockPreAccountStates(chainHeight.getChainId(), chainHeight.getBlockHeight() + 1);
+                if (null != preAccountStates) {
                     //回滚高度
                     accountStateService.rollAccountState(chainHeight.getChainId(), preAccountStates);
                 }
@@ -103,9 +101,8 @@ public class BlockDataServiceImpl implements BlockDataService {
                     LoggerUtil.logger(chainHeight.getChainId()).debug("rollBackBlockTxs chainId={},blockHeight={}", chainHeight.getChainId(), chainHeight.getBlockHeight());
                     //回滚高度
                     repository.saveOrUpdateBlockHeight(chainHeight.getChainId(), blockHeight);
-                    BlockSnapshotAccounts blockSnapshotAccounts = repository.getBlockSnapshot(chainHeight.getChainId(), chainHeight.getBlockHeight());
-                    if (null != blockSnapshotAccounts) {
-                        List<AccountStateSnapshot> preAccountStates = blockSnapshotAccounts.getAccounts();
+                    List<AccountStateSnapshot> preAccountStates = accountStateService.getBlockPreAccountStates(chainHeight.getChainId(), chainHeight.getBlockHeight());
+                    if (null != preAccountStates) {
                         //回滚高度
                         accountStateService.rollAccountState(chainHeight.getChainId(), preAccountStates);
                         //更新高度，删除备份
@@ -197,13 +194,6 @@ public class BlockDataServiceImpl implements BlockDataService {
         if (height > LedgerConstant.CACHE_NONCE_INFO_BLOCK) {
             lgBlockSyncRepository.delBlockSnapshotTxs(addressChainId, (height - LedgerConstant.CACHE_NONCE_INFO_BLOCK));
         }
-        if (height > LedgerConstant.CACHE_ACCOUNT_BLOCK) {
-            try {
-                repository.delBlockSnapshot(addressChainId, (height - LedgerConstant.CACHE_ACCOUNT_BLOCK));
-            } catch (Exception e) {
-                LoggerUtil.logger(addressChainId).error(e);
-            }
-        }
     }
 
     @Override
@@ -28,6 +28,7 @@ package io.nuls.ledger.service.impl;
 import io.nuls.base.data.*;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.constant.LedgerErrorCode;
@@ -35,8 +36,10 @@ import io.nuls.ledger.model.AccountBalance;
 import io.nuls.ledger.model.Uncfd2CfdKey;
 import io.nuls.ledger.model.ValidateResult;
 import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.model.po.BlockAccountJournal;
 import io.nuls.ledger.model.po.BlockSnapshotAccounts;
 import io.nuls.ledger.model.po.TxUnconfirmed;
+import io.nuls.ledger.model.po.sub.AccountStateDelta;
 import io.nuls.ledger.model.po.sub.AccountStateSnapshot;
 import io.nuls.ledger.model.po.sub.AmountNonce;
 import io.nuls.ledger.service.*;
@@ -111,22 +114,40 @@ public class TransactionServiceImpl implements TransactionService {
         /*未确认交易的校验*/
         Map<String, TxUnconfirmed> accountsMap = new ConcurrentHashMap<>(8);
         byte[] txNonce = LedgerUtil.getNonceByTx(transaction);
-        ValidateResult validateResult = coinDataValidator.analysisCoinData(addressChainId, transaction, accountsMap, txNonce);
-        if (!validateResult.isSuccess()) {
-            return validateResult;
-        }
-        Set keys = accountsMap.keySet();
-        Iterator<String> it = keys.iterator();
-        while (it.hasNext()) {
-            TxUnconfirmed txUnconfirmed = accountsMap.get(it.next());
-            ValidateResult updateResult = unconfirmedStateService.updateUnconfirmedTx(transaction.getHash().toHex(), addressChainId, txNonce, txUnconfirmed);
-            if (!updateResult.isSuccess()) {
-                return updateResult;
+        //只锁定交易花费的账户，其他账户的未确认交易及区块提交可并行处理
+        int[] stripes = LockerUtil.getAccountStripes(getFromAccountKeys(addressChainId, coinData));
+        LockerUtil.lockAccounts(stripes);
+        try {
+            ValidateResult validateResult = coinDataValidator.analysisCoinData(addressChainId, transaction, accountsMap, txNonce);
+            if (!validateResult.isSuccess()) {
+                return validateResult;
+            }
+            Set keys = accountsMap.keySet();
+            Iterator<String> it = keys.iterator();
+            while (it.hasNext()) {
+                TxUnconfirmed txUnconfirmed = accountsMap.get(it.next());
+                ValidateResult updateResult = unconfirmedStateService.updateUnconfirmedTx(transaction.getHash().toHex(), addressChainId, txNonce, txUnconfirmed);
+                if (!updateResult.isSuccess()) {
+                    return updateResult;
+                }
             }
+        } finally {
+            LockerUtil.unlockAccounts(stripes);
         }
         return ValidateResult.getSuccess();
     }
 
+    private List<String> getFromAccountKeys(int addressChainId, CoinData coinData) {
+        List<String> accountKeys = new ArrayList<>(coinData.getFrom().size());
+        for (CoinFrom from : coinData.getFrom()) {
+            if (LedgerUtil.isNotLocalChainAccount(addressChainId, from.getAddress())) {
+                continue;
+            }
+            accountKeys.add(LedgerUtil.getKeyStr(LedgerUtil.getRealAddressStr(from.getAddress()), from.getAssetsChainId(), from.getAssetsId()));
+        }
+        return accountKeys;
+    }
+
     private void dealAssetAddressIndex(Map<String, List<String>> assetAddressIndex, int chainId, int assetId, String address) {
         String assetIndexKey = chainId + "-" + assetId;
         List<String> addressList = null;
@@ -244,9 +265,11 @@ public class TransactionServiceImpl implements TransactionService {
             int accountMapSize = txList.size() * 3;
             //批量交易按交易进行账户的金额处理，再按区块为原子性进行提交,updateAccounts用于账户计算缓存，最后统一处理
             Map<String, AccountBalance> updateAccounts = new HashMap<>(accountMapSize);
-            Map<String, AccountState> updateMemAccounts = new HashMap<>(accountMapSize);
+            Map<ByteArrayWrapper, AccountState> updateMemAccounts = new HashMap<>(accountMapSize);
             //整体区块备份
             BlockSnapshotAccounts blockSnapshotAccounts = new BlockSnapshotAccounts();
+            //持久化的回滚日志,只记录变化量
+            BlockAccountJournal blockAccountJournal = new BlockAccountJournal();
             Map<byte[], byte[]> accountStatesMap = new HashMap<>(accountMapSize);
             List<Uncfd2CfdKey> delUncfd2CfdKeys = new ArrayList<>();
             Map<String, Integer> clearUncfs = new HashMap<>(txList.size());
@@ -262,8 +285,10 @@ public class TransactionServiceImpl implements TransactionService {
                     blockSnapshotAccounts.addAccountState(entry.getValue().getPreAccountState());
                     freezeStateService.recalculateFreeze(addressChainId, entry.getValue().getNowAccountState());
                     entry.getValue().getNowAccountState().setLatestUnFreezeTime(NulsDateUtils.getCurrentTimeSeconds());
-                    accountStatesMap.put(entry.getKey().getBytes(LedgerConstant.DEFAULT_ENCODING), entry.getValue().getNowAccountState().serialize());
-                    updateMemAccounts.put(entry.getKey(), entry.getValue().getNowAccountState());
+                    byte[] nowAccountStateBytes = entry.getValue().getNowAccountState().serialize();
+                    accountStatesMap.put(entry.getKey().getBytes(LedgerConstant.DEFAULT_ENCODING), nowAccountStateBytes);
+                    blockAccountJournal.addDelta(new AccountStateDelta(entry.getValue().getPreAccountState(), entry.getValue().getStoredAccountState(), entry.getValue().getNowAccountState(), nowAccountStateBytes));
+                    updateMemAccounts.put(entry.getValue().getCacheKey(), entry.getValue().getNowAccountState());
                 }
             } catch (Exception e) {
                 logger(addressChainId).error("confirmBlockProcess blockSnapshotAccounts addAccountState error!");
@@ -271,10 +296,12 @@ public class TransactionServiceImpl implements TransactionService {
                 cleanBlockCommitTempDatas();
                 return false;
             }
-            //提交整体数据
+            //提交整体数据,只在写入账户状态及清理未确认数据时锁定本区块涉及的账户
+            int[] stripes = LockerUtil.getAccountStripes(updateAccounts.keySet());
+            LockerUtil.lockAccounts(stripes);
             try {
                 //备份历史
-                repository.saveBlockSnapshot(addressChainId, blockHeight, blockSnapshotAccounts);
+                repository.saveBlockJournal(addressChainId, blockHeight, blockAccountJournal);
                 //更新链下资产种类，及资产地址集合数据。
                 chainAssetsService.updateChainAssets(addressChainId, assetAddressIndex);
                 //更新账本
@@ -287,10 +314,8 @@ public class TransactionServiceImpl implements TransactionService {
                 }
                 //删除跃迁的未确认交易
                 unconfirmedStateService.batchDeleteUnconfirmedTx(addressChainId, delUncfd2CfdKeys);
-                //删除过期缓存数据
-                if (blockHeight > LedgerConstant.CACHE_ACCOUNT_BLOCK) {
-                    repository.delBlockSnapshot(addressChainId, (blockHeight - LedgerConstant.CACHE_ACCOUNT_BLOCK));
-                }
+                //完全提交,存储当前高度。
+                repository.saveOrUpdateBlockHeight(addressChainId, blockHeight);
             } catch (Exception e) {
                 //需要回滚数据
                 cleanBlockCommitTempDatas();
@@ -298,9 +323,9 @@ public class TransactionServiceImpl implements TransactionService {
                 LoggerUtil.logger(addressChainId).error("confirmBlockProcess  error! go rollBackBlock!addrChainId={},height={}", addressChainId, blockHeight);
                 rollBackBlock(addressChainId, blockSnapshotAccounts.getAccounts(), blockHeight);
                 return false;
+            } finally {
+                LockerUtil.unlockAccounts(stripes);
             }
-            //完全提交,存储当前高度。
-            repository.saveOrUpdateBlockHeight(addressChainId, blockHeight);
             return true;
         } catch (Exception e) {
             LoggerUtil.logger(addressChainId).error("confirmBlockProcess error", e);
@@ -320,9 +345,11 @@ public class TransactionServiceImpl implements TransactionService {
         AccountBalance accountBalance = updateAccounts.get(key);
         if (null == accountBalance) {
             //交易里的账户处理缓存AccountBalance
-            AccountState accountState = accountStateService.getAccountStateReCal(address, addressChainId, assetChainId, assetId);
+            AccountState accountState = accountStateService.getAccountStateReCal(coin.getAddress(), addressChainId, assetChainId, assetId);
             AccountStateSnapshot bakAccountState = new AccountStateSnapshot(addressChainId, assetChainId, assetId, address, accountState.deepClone());
-            accountBalance = new AccountBalance(accountState, bakAccountState);
+            accountBalance = new AccountBalance(accountState, bakAccountState, LedgerUtil.getAccountCacheKey(coin.getAddress(), assetChainId, assetId));
+            //回滚日志基于数据库中的原始状态计算，回滚后与上一区块写入的数据一致
+            accountBalance.setStoredAccountState(accountStateService.getAccountState(coin.getAddress(), addressChainId, assetChainId, assetId));
             updateAccounts.put(key, accountBalance);
         }
         return accountBalance;
@@ -334,7 +361,10 @@ public class TransactionServiceImpl implements TransactionService {
      * @return
      */
     @Override
-    public synchronized boolean rollBackBlock(int addressChainId, List<AccountStateSnapshot> preAccountStates, long blockHeight) {
+    public boolean rollBackBlock(int addressChainId, List<AccountStateSnapshot> preAccountStates, long blockHeight) {
+        LockerUtil.LEDGER_LOCKER.lock();
+        int[] stripes = LockerUtil.getAccountStripes(getSnapshotAccountKeys(preAccountStates));
+        LockerUtil.lockAccounts(stripes);
         try {
             //回滚账号信息
             accountStateService.rollAccountState(addressChainId, preAccountStates);
@@ -343,10 +373,21 @@ public class TransactionServiceImpl implements TransactionService {
         } catch (Exception e) {
             logger(addressChainId).error("rollBackBlock error!!", e);
             return false;
+        } finally {
+            LockerUtil.unlockAccounts(stripes);
+            LockerUtil.LEDGER_LOCKER.unlock();
         }
         return true;
     }
 
+    private List<String> getSnapshotAccountKeys(List<AccountStateSnapshot> preAccountStates) {
+        List<String> accountKeys = new ArrayList<>(preAccountStates.size());
+        for (AccountStateSnapshot snapshot : preAccountStates) {
+            accountKeys.add(LedgerUtil.getKeyStr(snapshot.getAddress(), snapshot.getAssetChainId(), snapshot.getAssetId()));
+        }
+        return accountKeys;
+    }
+
     /**
      * @param addressChainId
      * @return
@@ -366,15 +407,20 @@ public class TransactionServiceImpl implements TransactionService {
                 logger(addressChainId).error("addressChainId ={},blockHeight={},ledgerBlockHeight={}", addressChainId, blockHeight, currentDbHeight);
                 return false;
             }
-            BlockSnapshotAccounts blockSnapshotAccounts = repository.getBlockSnapshot(addressChainId, blockHeight);
-            if (null == blockSnapshotAccounts) {
+            List<AccountStateSnapshot> preAccountStates = accountStateService.getBlockPreAccountStates(addressChainId, blockHeight);
+            if (null == preAccountStates) {
                 logger(addressChainId).error("addressChainId ={},blockHeight={},blockSnapshotAccounts is null.", addressChainId, blockHeight);
                 return false;
             }
-            //回滚高度
-            repository.saveOrUpdateBlockHeight(addressChainId, (blockHeight - 1));
-            List<AccountStateSnapshot> preAccountStates = blockSnapshotAccounts.getAccounts();
-            accountStateService.rollAccountState(addressChainId, preAccountStates);
+            int[] stripes = LockerUtil.getAccountStripes(getSnapshotAccountKeys(preAccountStates));
+            LockerUtil.lockAccounts(stripes);
+            try {
+                //回滚高度
+                repository.saveOrUpdateBlockHeight(addressChainId, (blockHeight - 1));
+                accountStateService.rollAccountState(addressChainId, preAccountStates);
+            } finally {
+                LockerUtil.unlockAccounts(stripes);
+            }
             //删除备份数据
             repository.delBlockSnapshot(addressChainId, blockHeight);
             //回滚nonce缓存信息
@@ -442,7 +488,13 @@ public class TransactionServiceImpl implements TransactionService {
             int assetChainId = from.getAssetsChainId();
             int assetId = from.getAssetsId();
             String assetKey = LedgerUtil.getKeyStr(address, assetChainId, assetId);
-            return unconfirmedStateService.rollUnconfirmedTx(addressChainId, assetKey, txHash);
+            int[] stripes = LockerUtil.getAccountStripes(assetKey);
+            LockerUtil.lockAccounts(stripes);
+            try {
+                return unconfirmedStateService.rollUnconfirmedTx(addressChainId, assetKey, txHash);
+            } finally {
+                LockerUtil.unlockAccounts(stripes);
+            }
         }
         return true;
     }
@@ -46,6 +46,11 @@ public interface DataBaseArea {
 
     String TB_LEDGER_ACCOUNT_BLOCK_SNAPSHOT = "account_block_snapshot";
 
+    /**
+     *   按区块高度存储账户变化量，用于回滚
+     */
+    String TB_LEDGER_ACCOUNT_BLOCK_JOURNAL = "account_block_journal";
+
     /**
      *   存区块当前确认的高度
      */
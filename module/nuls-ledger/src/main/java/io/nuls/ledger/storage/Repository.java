@@ -26,8 +26,10 @@
 package io.nuls.ledger.storage;
 
 import io.nuls.core.exception.NulsException;
+import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.ledger.model.ChainHeight;
 import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.model.po.BlockAccountJournal;
 import io.nuls.ledger.model.po.BlockSnapshotAccounts;
 
 import java.util.List;
@@ -52,26 +54,32 @@ public interface Repository {
     AccountState getAccountState(int chainId, byte[] key);
 
     /**
-     * 内存获取账户余额对象
+     * 优先从缓存获取账户余额对象，未命中时读取数据库并放入缓存
+     * 返回的对象为缓存中的只读快照，需要修改时先deepClone
+     * Get the account state from the cache, falling back to the database. The returned object is a read-only snapshot,
+     * deepClone it before modifying
      *
-     * @param chainId
-     * @param key
-     * @return
+     * @param chainId      chainId
+     * @param address      地址字节
+     * @param assetChainId assetChainId
+     * @param assetId      assetId
+     * @return 账户不存在时返回null
      */
-    AccountState getAccountStateByMemory(int chainId, String key);
+    AccountState getAccountStateByMemory(int chainId, byte[] address, int assetChainId, int assetId);
 
     /**
      * 批量更新账号账本信息
      * batch update Account ledger Information
      *
      * @param addressChainId
-     * @param accountStateMap
+     * @param accountStateMap    数据库key及序列化数据
+     * @param accountStateMemMap 缓存key及账户状态，写入缓存后不能再修改
      * @throws Exception
      */
-    void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap,Map<String, AccountState> accountStateMemMap) throws Exception;
+    void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap, Map<ByteArrayWrapper, AccountState> accountStateMemMap) throws Exception;
 
     /**
-     * 删除区块快照
+     * 删除区块快照及回滚日志
      *
      * @param chainId
      * @param height
@@ -98,6 +106,36 @@ public interface Repository {
      */
     BlockSnapshotAccounts getBlockSnapshot(int chainId, long height);
 
+    /**
+     * 存储区块的账户回滚日志
+     *
+     * @param chainId
+     * @param height
+     * @param journal
+     * @throws Exception
+     */
+    void saveBlockJournal(int chainId, long height, BlockAccountJournal journal) throws Exception;
+
+    /**
+     * 获取区块的账户回滚日志
+     *
+     * @param chainId
+     * @param height
+     * @return BlockAccountJournal
+     */
+    BlockAccountJournal getBlockJournal(int chainId, long height);
+
+    /**
+     * 删除低于指定高度的区块快照及回滚日志
+     * Delete block snapshots and undo journals below the height
+     *
+     * @param chainId
+     * @param height  保留的最低高度
+     * @return 删除的记录数
+     * @throws Exception
+     */
+    int pruneBlockSnapshots(int chainId, long height) throws Exception;
+
 
     /**
      * 获取区块高度
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.ledger.storage.impl;
+
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.ledger.model.po.AccountState;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 单条链的已确认账户状态缓存
+ * 1.key为定长二进制: 地址字节 + assetChainId(2) + assetId(2)，避免每次访问拼接字符串
+ * 2.缓存的AccountState为只读快照，更新时整体替换(写时复制)，读取方需要修改时自行复制
+ * 3.按估算的内存占用做LRU淘汰
+ * <p>
+ * Confirmed account state cache of one chain.
+ * Keys are fixed width binary (address bytes + assetChainId + assetId). Cached states are read-only snapshots that are
+ * replaced as a whole on update (copy-on-write), readers copy before modifying. Entries are evicted in LRU order when
+ * the estimated memory exceeds the limit.
+ *
+ * @author lanjinsheng
+ */
+public class AccountStateCache {
+
+    /**
+     * 单条缓存除AccountState序列化长度外的估算开销: key、链表节点及对象头
+     */
+    static final int ENTRY_OVERHEAD = 160;
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<ByteArrayWrapper, Entry> states = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private long usedBytes;
+
+    /**
+     * 每次写入递增，读穿透填充时据此判断读取数据库期间是否有新的写入
+     */
+    private long version;
+
+    public AccountStateCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized AccountState get(ByteArrayWrapper key) {
+        Entry entry = states.get(key);
+        return entry == null ? null : entry.state;
+    }
+
+    /**
+     * 写入新的账户状态快照，写入后调用方不能再修改该对象
+     * Put a new state snapshot, the caller must not modify it afterwards
+     */
+    public synchronized void put(ByteArrayWrapper key, AccountState state) {
+        version++;
+        add(key, state);
+    }
+
+    /**
+     * 读取数据库前获取版本号，用于fill
+     * Version taken before reading the database, used by fill
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * 缓存从数据库读取的账户状态，期间有新的写入或已存在缓存时忽略
+     * Cache a state read from the database, ignored when there was a write in between or the key is already cached
+     *
+     * @param readVersion 读取数据库前getVersion的返回值
+     */
+    public synchronized void fill(ByteArrayWrapper key, AccountState state, long readVersion) {
+        if (readVersion != version || states.containsKey(key)) {
+            return;
+        }
+        add(key, state);
+    }
+
+    public synchronized void clear() {
+        version++;
+        states.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized int size() {
+        return states.size();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private void add(ByteArrayWrapper key, AccountState state) {
+        Entry entry = new Entry(state, ENTRY_OVERHEAD + key.getBytes().length + state.size());
+        Entry old = states.put(key, entry);
+        if (old != null) {
+            usedBytes -= old.weight;
+        }
+        usedBytes += entry.weight;
+        Iterator<Entry> it = states.values().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            usedBytes -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    private static class Entry {
+        private final AccountState state;
+        private final int weight;
+
+        Entry(AccountState state, int weight) {
+            this.state = state;
+            this.weight = weight;
+        }
+    }
+}
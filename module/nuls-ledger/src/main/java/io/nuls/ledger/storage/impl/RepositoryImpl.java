@@ -30,14 +30,18 @@ import io.nuls.core.basic.InitializingBean;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
+import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.core.model.ByteUtils;
-import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.service.DBCursor;
 import io.nuls.core.rockdb.service.RocksDBService;
+import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.model.ChainHeight;
 import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.model.po.BlockAccountJournal;
 import io.nuls.ledger.model.po.BlockSnapshotAccounts;
 import io.nuls.ledger.storage.DataBaseArea;
 import io.nuls.ledger.storage.Repository;
+import io.nuls.ledger.utils.LedgerUtil;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -54,31 +58,100 @@ import static io.nuls.ledger.utils.LoggerUtil.logger;
 @Component
 public class RepositoryImpl implements Repository, InitializingBean {
     /**
-     * key1=chainId,  Map1=确认账户状态， key2= addr+assetkey  value=AccountState
+     * 清理过期快照时每批删除的记录数
      */
-    Map<String, Map<String, AccountState>> memChainsAccounts = new ConcurrentHashMap<>(16);
+    private static final int PRUNE_BATCH_SIZE = 1000;
+
+    /**
+     * key=chainId, value=确认账户状态缓存
+     */
+    Map<Integer, AccountStateCache> memChainsAccounts = new ConcurrentHashMap<>(16);
 
     public RepositoryImpl() {
 
     }
 
     @Override
-    public void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap, Map<String, AccountState> accountStateMemMap) throws Exception {
-        if (null == memChainsAccounts.get(String.valueOf(addressChainId))) {
-            memChainsAccounts.put(String.valueOf(addressChainId), new ConcurrentHashMap<>(1024));
-        }
-        memChainsAccounts.get(String.valueOf(addressChainId)).putAll(accountStateMemMap);
+    public void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap, Map<ByteArrayWrapper, AccountState> accountStateMemMap) throws Exception {
         //update account
-        RocksDBService.batchPut(getLedgerAccountTableName(addressChainId), accountStateMap);
+        AccountStateCache cache = getAccountStateCache(addressChainId);
+        try {
+            RocksDBService.batchPut(getLedgerAccountTableName(addressChainId), accountStateMap);
+        } catch (Exception e) {
+            //写入失败时数据库状态未知，清空缓存重新从数据库加载
+            cache.clear();
+            throw e;
+        }
+        for (Map.Entry<ByteArrayWrapper, AccountState> entry : accountStateMemMap.entrySet()) {
+            cache.put(entry.getKey(), entry.getValue());
+        }
+    }
 
+    private AccountStateCache getAccountStateCache(int chainId) {
+        return memChainsAccounts.computeIfAbsent(chainId, k -> new AccountStateCache(LedgerConstant.ACCOUNT_CACHE_SIZE));
     }
 
 
     @Override
     public void delBlockSnapshot(int chainId, long height) throws Exception {
+        RocksDBService.delete(getBlockJournalTableName(chainId), ByteUtils.longToBytes(height));
         RocksDBService.delete(getBlockSnapshotTableName(chainId), ByteUtils.longToBytes(height));
     }
 
+    @Override
+    public void saveBlockJournal(int chainId, long height, BlockAccountJournal journal) throws Exception {
+        RocksDBService.put(getBlockJournalTableName(chainId), ByteUtils.longToBytes(height), journal.serialize());
+    }
+
+    @Override
+    public BlockAccountJournal getBlockJournal(int chainId, long height) {
+        byte[] stream = RocksDBService.get(getBlockJournalTableName(chainId), ByteUtils.longToBytes(height));
+        if (stream == null) {
+            return null;
+        }
+        BlockAccountJournal journal = new BlockAccountJournal();
+        try {
+            journal.parse(new NulsByteBuffer(stream));
+        } catch (NulsException e) {
+            logger(chainId).error("getBlockJournal serialize error.", e);
+            return null;
+        }
+        return journal;
+    }
+
+    @Override
+    public int pruneBlockSnapshots(int chainId, long height) throws Exception {
+        return pruneByHeight(getBlockJournalTableName(chainId), height) + pruneByHeight(getBlockSnapshotTableName(chainId), height);
+    }
+
+    /**
+     * key为小端序的高度，不能按范围删除，遍历整张表
+     */
+    private int pruneByHeight(String tableName, long height) throws Exception {
+        List<byte[]> keys = new ArrayList<>();
+        int count = 0;
+        try (DBCursor cursor = RocksDBService.openCursor(tableName)) {
+            if (null == cursor) {
+                return 0;
+            }
+            while (cursor.next()) {
+                if (ByteUtils.byteToLong(cursor.key()) < height) {
+                    keys.add(cursor.key());
+                }
+                if (keys.size() >= PRUNE_BATCH_SIZE) {
+                    RocksDBService.deleteKeys(tableName, keys);
+                    count += keys.size();
+                    keys = new ArrayList<>();
+                }
+            }
+        }
+        if (!keys.isEmpty()) {
+            RocksDBService.deleteKeys(tableName, keys);
+            count += keys.size();
+        }
+        return count;
+    }
+
     @Override
     public void saveBlockSnapshot(int chainId, long height, BlockSnapshotAccounts blockSnapshotAccounts) throws Exception {
         RocksDBService.put(getBlockSnapshotTableName(chainId), ByteUtils.longToBytes(height), blockSnapshotAccounts.serialize());
@@ -123,22 +196,20 @@ public class RepositoryImpl implements Repository, InitializingBean {
     }
 
     @Override
-    public AccountState getAccountStateByMemory(int chainId, String key) {
+    public AccountState getAccountStateByMemory(int chainId, byte[] address, int assetChainId, int assetId) {
+        AccountStateCache cache = getAccountStateCache(chainId);
+        ByteArrayWrapper cacheKey = LedgerUtil.getAccountCacheKey(address, assetChainId, assetId);
         //缓存有值,则直接获取
-        if (null != memChainsAccounts.get(String.valueOf(chainId))) {
-            AccountState accountStateMem = memChainsAccounts.get(String.valueOf(chainId)).get(key);
-            if (null != accountStateMem) {
-                AccountState accountState = new AccountState();
-                System.arraycopy(accountStateMem.getNonce(), 0, accountState.getNonce(), 0, accountStateMem.getNonce().length);
-                accountState.setTotalFromAmount(accountStateMem.getTotalFromAmount());
-                accountState.setTotalToAmount(accountStateMem.getTotalToAmount());
-                accountState.setLatestUnFreezeTime(accountStateMem.getLatestUnFreezeTime());
-                accountState.getFreezeHeightStates().addAll(accountStateMem.getFreezeHeightStates());
-                accountState.getFreezeLockTimeStates().addAll(accountStateMem.getFreezeLockTimeStates());
-                return accountState;
-            }
+        AccountState accountState = cache.get(cacheKey);
+        if (null != accountState) {
+            return accountState;
+        }
+        long version = cache.getVersion();
+        accountState = getAccountState(chainId, LedgerUtil.getKey(LedgerUtil.getRealAddressStr(address), assetChainId, assetId));
+        if (null != accountState) {
+            cache.fill(cacheKey, accountState, version);
         }
-        return null;
+        return accountState;
     }
 
     @Override
@@ -168,16 +239,20 @@ public class RepositoryImpl implements Repository, InitializingBean {
 
     @Override
     public List<ChainHeight> getChainsBlockHeight() {
-        List<Entry<byte[], byte[]>> list = RocksDBService.entryList(getChainsHeightTableName());
         List<ChainHeight> rtList = new ArrayList<>();
-        if (null == list || 0 == list.size()) {
-            return null;
+        try (DBCursor cursor = RocksDBService.openCursor(getChainsHeightTableName())) {
+            if (null == cursor) {
+                return null;
+            }
+            while (cursor.next()) {
+                ChainHeight chainHeight = new ChainHeight();
+                chainHeight.setChainId(ByteUtils.bytesToInt(cursor.key()));
+                chainHeight.setBlockHeight(ByteUtils.byteToLong(cursor.value()));
+                rtList.add(chainHeight);
+            }
         }
-        for (Entry<byte[], byte[]> entry : list) {
-            ChainHeight chainHeight = new ChainHeight();
-            chainHeight.setChainId(ByteUtils.bytesToInt(entry.getKey()));
-            chainHeight.setBlockHeight(ByteUtils.byteToLong(entry.getValue()));
-            rtList.add(chainHeight);
+        if (0 == rtList.size()) {
+            return null;
         }
         return rtList;
     }
@@ -194,6 +269,10 @@ public class RepositoryImpl implements Repository, InitializingBean {
         return getChainTableName(DataBaseArea.TB_LEDGER_ACCOUNT_BLOCK_SNAPSHOT, chainId);
     }
 
+    String getBlockJournalTableName(int chainId) {
+        return getChainTableName(DataBaseArea.TB_LEDGER_ACCOUNT_BLOCK_JOURNAL, chainId);
+    }
+
     public String getChainsHeightTableName() {
         return DataBaseArea.TB_LEDGER_BLOCK_HEIGHT;
     }
@@ -209,6 +288,9 @@ public class RepositoryImpl implements Repository, InitializingBean {
             if (!RocksDBService.existTable(getBlockSnapshotTableName(addressChainId))) {
                 RocksDBService.createTable(getBlockSnapshotTableName(addressChainId));
             }
+            if (!RocksDBService.existTable(getBlockJournalTableName(addressChainId))) {
+                RocksDBService.createTable(getBlockJournalTableName(addressChainId));
+            }
         } catch (Exception e) {
             logger(addressChainId).error(e);
         }
@@ -0,0 +1,67 @@
+/*-
+ * ⁣⁣
+ * MIT License
+ * ⁣⁣
+ * Copyright (C) 2017 - 2018 nuls.io
+ * ⁣⁣
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ⁣⁣
+ */
+package io.nuls.ledger.task;
+
+import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.ledger.constant.LedgerConstant;
+import io.nuls.ledger.model.ChainHeight;
+import io.nuls.ledger.storage.Repository;
+import io.nuls.ledger.utils.LoggerUtil;
+
+import java.util.List;
+
+/**
+ * 后台清理超出保留高度的区块回滚日志及旧格式快照
+ * Background pruning of block undo journals and legacy snapshots beyond the retention depth
+ *
+ * @author lanjinsheng
+ */
+public class BlockSnapshotPruneTask implements Runnable {
+
+    private Repository repository = SpringLiteContext.getBean(Repository.class);
+
+    @Override
+    public void run() {
+        List<ChainHeight> chainHeights = repository.getChainsBlockHeight();
+        if (null == chainHeights) {
+            return;
+        }
+        for (ChainHeight chainHeight : chainHeights) {
+            long keepHeight = chainHeight.getBlockHeight() - LedgerConstant.SNAPSHOT_RETENTION;
+            if (keepHeight <= 0) {
+                continue;
+            }
+            try {
+                int count = repository.pruneBlockSnapshots(chainHeight.getChainId(), keepHeight);
+                if (count > 0) {
+                    LoggerUtil.logger(chainHeight.getChainId()).info("prune block snapshots below height={},count={}", keepHeight, count);
+                }
+            } catch (Exception e) {
+                LoggerUtil.logger(chainHeight.getChainId()).error(e);
+            }
+        }
+    }
+}
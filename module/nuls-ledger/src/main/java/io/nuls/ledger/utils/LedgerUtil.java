@@ -7,6 +7,7 @@ import io.nuls.base.protocol.ProtocolGroupManager;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.log.Log;
+import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.ledger.constant.LedgerConstant;
 
 import java.io.UnsupportedEncodingException;
@@ -39,6 +40,25 @@ public class LedgerUtil {
 
     }
 
+    /**
+     * 账户状态缓存key: 地址字节 + assetChainId(2) + assetId(2)
+     * Account state cache key: address bytes + assetChainId(2) + assetId(2)
+     *
+     * @param address 地址字节
+     * @param assetChainId assetChainId
+     * @param assetId assetId
+     * @return ByteArrayWrapper
+     */
+    public static ByteArrayWrapper getAccountCacheKey(byte[] address, int assetChainId, int assetId) {
+        byte[] key = new byte[address.length + 4];
+        System.arraycopy(address, 0, key, 0, address.length);
+        key[address.length] = (byte) assetChainId;
+        key[address.length + 1] = (byte) (assetChainId >> 8);
+        key[address.length + 2] = (byte) assetId;
+        key[address.length + 3] = (byte) (assetId >> 8);
+        return new ByteArrayWrapper(key);
+    }
+
     /**
      * rockdb key
      *
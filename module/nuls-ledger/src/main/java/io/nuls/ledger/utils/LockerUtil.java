@@ -24,6 +24,7 @@
  */
 package io.nuls.ledger.utils;
 
+import java.util.Collection;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -35,5 +36,82 @@ import java.util.concurrent.locks.ReentrantLock;
 public class LockerUtil {
 //    public final static Lock BLOCK_SYNC_LOCKER = new ReentrantLock();
     public final static Lock UNCONFIRMED_SYNC_LOCKER = new ReentrantLock();
+    /**
+     * 区块提交/回滚锁，区块按高度串行处理
+     * Block commit/rollback lock, blocks are processed serially by height
+     */
     public final static Lock LEDGER_LOCKER = new ReentrantLock();
+
+    /**
+     * 账户分段锁数量
+     */
+    private final static int ACCOUNT_LOCKER_STRIPES = 256;
+
+    /**
+     * 账户分段锁，按账户key(address-assetChainId-assetId)散列，同一账户的未确认交易处理与区块提交/回滚串行执行，
+     * 不相关账户互不阻塞
+     * Striped account locks hashed by account key (address-assetChainId-assetId), unconfirmed tx processing is ordered
+     * against block commit/rollback on the same account while unrelated accounts do not block each other
+     */
+    private final static Lock[] ACCOUNT_LOCKERS = new Lock[ACCOUNT_LOCKER_STRIPES];
+
+    static {
+        for (int i = 0; i < ACCOUNT_LOCKER_STRIPES; i++) {
+            ACCOUNT_LOCKERS[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 获取一组账户对应的分段序号，已去重并升序排列
+     * Get the stripes of a set of account keys, distinct and in ascending order
+     *
+     * @param accountKeys address-assetChainId-assetId
+     * @return 分段序号
+     */
+    public static int[] getAccountStripes(Collection<String> accountKeys) {
+        boolean[] used = new boolean[ACCOUNT_LOCKER_STRIPES];
+        int count = 0;
+        for (String accountKey : accountKeys) {
+            int stripe = getAccountStripe(accountKey);
+            if (!used[stripe]) {
+                used[stripe] = true;
+                count++;
+            }
+        }
+        int[] stripes = new int[count];
+        for (int i = 0, j = 0; i < ACCOUNT_LOCKER_STRIPES && j < count; i++) {
+            if (used[i]) {
+                stripes[j++] = i;
+            }
+        }
+        return stripes;
+    }
+
+    public static int[] getAccountStripes(String accountKey) {
+        return new int[]{getAccountStripe(accountKey)};
+    }
+
+    /**
+     * 按分段序号升序加锁，所有调用方顺序一致，不会产生死锁
+     * Lock the stripes in ascending order, the same order for every caller avoids deadlocks
+     *
+     * @param stripes getAccountStripes的返回值
+     */
+    public static void lockAccounts(int[] stripes) {
+        for (int stripe : stripes) {
+            ACCOUNT_LOCKERS[stripe].lock();
+        }
+    }
+
+    public static void unlockAccounts(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            ACCOUNT_LOCKERS[stripes[i]].unlock();
+        }
+    }
+
+    private static int getAccountStripe(String accountKey) {
+        int h = accountKey.hashCode();
+        h ^= (h >>> 16);
+        return h & (ACCOUNT_LOCKER_STRIPES - 1);
+    }
 }
@@ -26,6 +26,7 @@
 package io.nuls.ledger.validator;
 
 import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.Coin;
 import io.nuls.base.data.CoinData;
 import io.nuls.base.data.CoinFrom;
 import io.nuls.base.data.CoinTo;
@@ -54,6 +55,8 @@ import io.nuls.ledger.utils.LoggerUtil;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import static io.nuls.ledger.utils.LoggerUtil.logger;
 
@@ -84,6 +87,16 @@ public class CoinDataValidator {
      */
     private Map<String, Map<String, AccountState>> chainsAccountStateMap = new ConcurrentHashMap<String, Map<String, AccountState>>();
 
+    /**
+     * 并行校验区块的最少交易数，交易较少时顺序校验
+     */
+    private static final int PARALLEL_VALIDATE_MIN_TXS = 100;
+
+    /**
+     * 区块并行校验线程池
+     */
+    private volatile ForkJoinPool blockValidatePool;
+
     @Autowired
     private AccountStateService accountStateService;
 
@@ -145,6 +158,9 @@ public class CoinDataValidator {
             LoggerUtil.logger(chainId).error("addressChainId ={},blockHeight={},ledgerBlockHeight={}", chainId, height, currentDbHeight);
             return false;
         }
+        if (LedgerConstant.BLOCK_VALIDATE_THREADS > 0 && txs.size() >= PARALLEL_VALIDATE_MIN_TXS) {
+            return blockValidateParallel(chainId, height, txs);
+        }
         Set<String> batchValidateTxSet = new HashSet<>(txs.size());
         Map<String, List<TempAccountNonce>> accountValidateTxMap = new HashMap<>(1024);
         Map<String, AccountState> accountStateMap = new HashMap<>(1024);
@@ -171,6 +187,219 @@ public class CoinDataValidator {
     }
 
 
+    /**
+     * 按账户并行校验整个区块
+     * 1.顺序遍历交易：校验交易重复、地址合法性及解锁nonce重复，并按账户资产(address-assetChainId-assetId)归集coin
+     * 2.每个账户的nonce链及余额只与本账户有关，在线程池中并行校验，账户内保持交易顺序
+     * <p>
+     * Validate a whole block in parallel by account.
+     * Transactions are scanned in order to check duplicates, addresses and unlock nonces, and their coins are grouped by
+     * account asset key. Nonce chains and balances only depend on the account itself, so each group is validated on the
+     * pool, keeping the transaction order inside the group.
+     */
+    private boolean blockValidateParallel(int chainId, long height, List<Transaction> txs) {
+        Set<String> batchValidateTxSet = new HashSet<>(txs.size());
+        Map<String, Object> lockedCancelNonceMap = new HashMap<>(32);
+        Map<String, AccountCoins> accountCoinsMap = new LinkedHashMap<>(1024);
+        for (Transaction tx : txs) {
+            tx.setBlockHeight(height);
+            ValidateResult validateResult = groupBlockTxCoins(chainId, tx, batchValidateTxSet, lockedCancelNonceMap, accountCoinsMap);
+            if (!validateResult.isSuccess()) {
+                LoggerUtil.logger(chainId).error("code={},msg={}", validateResult.getValidateCode(), validateResult.getValidateCode());
+                return false;
+            }
+        }
+        List<AccountCoins> accountCoinsList = new ArrayList<>(accountCoinsMap.values());
+        ValidateResult validateResult;
+        try {
+            validateResult = getBlockValidatePool().submit(() -> accountCoinsList.parallelStream()
+                    .map(accountCoins -> validateAccountCoins(chainId, accountCoins))
+                    .filter(result -> !result.isSuccess())
+                    .findAny()
+                    .orElse(ValidateResult.getSuccess())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LoggerUtil.logger(chainId).error(e);
+            return false;
+        } catch (ExecutionException e) {
+            LoggerUtil.logger(chainId).error(e);
+            return false;
+        }
+        if (!validateResult.isSuccess()) {
+            LoggerUtil.logger(chainId).error("code={},msg={}", validateResult.getValidateCode(), validateResult.getValidateCode());
+            return false;
+        }
+        return true;
+    }
+
+    private ForkJoinPool getBlockValidatePool() {
+        if (null == blockValidatePool) {
+            synchronized (this) {
+                if (null == blockValidatePool) {
+                    blockValidatePool = new ForkJoinPool(LedgerConstant.BLOCK_VALIDATE_THREADS);
+                }
+            }
+        }
+        return blockValidatePool;
+    }
+
+    /**
+     * 校验单笔交易中与账户无关的部分，并把coin归集到对应账户
+     */
+    private ValidateResult groupBlockTxCoins(int chainId, Transaction tx, Set<String> batchValidateTxSet, Map<String, Object> lockedCancelNonceMap,
+                                             Map<String, AccountCoins> accountCoinsMap) {
+        String txHash = tx.getHash().toHex();
+        if (batchValidateTxSet.contains(txHash)) {
+            logger(chainId).error("{} tx exist!", txHash);
+            return ValidateResult.getResult(LedgerErrorCode.TX_EXIST, new String[]{"--", txHash});
+        }
+        try {
+            if (transactionService.hadTxExist(chainId, txHash)) {
+                logger(chainId).error("{} tx exist!", txHash);
+                return ValidateResult.getResult(LedgerErrorCode.TX_EXIST, new String[]{"--", txHash});
+            }
+        } catch (Exception e) {
+            LoggerUtil.logger(chainId).error(e);
+        }
+        batchValidateTxSet.add(txHash);
+        CoinData coinData = CoinDataUtil.parseCoinData(tx.getCoinData());
+        if (null == coinData) {
+            //例如黄牌交易，直接返回
+            return ValidateResult.getSuccess();
+        }
+        // 判断硬分叉,需要一个高度
+        long hardForkingHeight = 878000;
+        boolean forked = tx.getBlockHeight() <= 0 || tx.getBlockHeight() > hardForkingHeight;
+        byte[] txNonce = LedgerUtil.getNonceByTx(tx);
+        for (CoinFrom coinFrom : coinData.getFrom()) {
+            String address = LedgerUtil.getRealAddressStr(coinFrom.getAddress());
+            if (LedgerUtil.isNotLocalChainAccount(chainId, coinFrom.getAddress())) {
+                if (LedgerUtil.isCrossTx(tx.getType())) {
+                    //非本地网络账户地址,不进行处理
+                    continue;
+                } else {
+                    return ValidateResult.getResult(LedgerErrorCode.VALIDATE_FAIL, new String[]{address, "--", "address Not local chain Exception"});
+                }
+            }
+            if (AddressTool.isBlackHoleAddress(LedgerConstant.blackHolePublicKey, chainId, coinFrom.getAddress())) {
+                return ValidateResult.getResult(LedgerErrorCode.VALIDATE_FAIL, new String[]{address, LedgerUtil.getNonceEncode(coinFrom.getNonce()), "address is blackHoleAddress Exception"});
+            }
+            if (forked && LedgerUtil.isBlackHoleAddress(coinFrom.getAddress())) {
+                return ValidateResult.getResult(LedgerErrorCode.VALIDATE_FAIL, new String[]{address, LedgerUtil.getNonceEncode(coinFrom.getNonce()), "address is blackHoleAddress Exception[x]"});
+            }
+            if (coinFrom.getLocked() != 0) {
+                //解锁nonce在整个区块内不能重复，与账户无关，顺序校验
+                String lockedNonce = LedgerUtil.getNonceEncode(coinFrom.getNonce());
+                if (null != lockedCancelNonceMap.get(lockedNonce)) {
+                    logger(chainId).error("validate fail,locked tx={} address={} nonce={} repeat", LedgerUtil.getNonceEncode(txNonce), address, lockedNonce);
+                    return ValidateResult.getResult(LedgerErrorCode.VALIDATE_FAIL, new String[]{address, lockedNonce, "validate fail,locked nonce repeat"});
+                }
+                lockedCancelNonceMap.put(lockedNonce, 1);
+            }
+            getAccountCoins(accountCoinsMap, address, coinFrom).addFrom(coinFrom, txNonce);
+        }
+        for (CoinTo coinTo : coinData.getTo()) {
+            if (LedgerUtil.isNotLocalChainAccount(chainId, coinTo.getAddress())) {
+                if (LedgerUtil.isCrossTx(tx.getType())) {
+                    //非本地网络账户地址,不进行处理
+                    continue;
+                } else {
+                    return ValidateResult.getResult(LedgerErrorCode.VALIDATE_FAIL, new String[]{LedgerUtil.getRealAddressStr(coinTo.getAddress()), "--", "address Not local chain Exception"});
+                }
+            }
+            if (coinTo.getLockTime() == 0) {
+                getAccountCoins(accountCoinsMap, LedgerUtil.getRealAddressStr(coinTo.getAddress()), coinTo).addTo(coinTo.getAmount());
+            }
+        }
+        return ValidateResult.getSuccess();
+    }
+
+    private AccountCoins getAccountCoins(Map<String, AccountCoins> accountCoinsMap, String address, Coin coin) {
+        String assetKey = LedgerUtil.getKeyStr(address, coin.getAssetsChainId(), coin.getAssetsId());
+        AccountCoins accountCoins = accountCoinsMap.get(assetKey);
+        if (null == accountCoins) {
+            accountCoins = new AccountCoins(assetKey, address, coin.getAddress(), coin.getAssetsChainId(), coin.getAssetsId());
+            accountCoinsMap.put(assetKey, accountCoins);
+        }
+        return accountCoins;
+    }
+
+    /**
+     * 校验单个账户在区块内的nonce链、解锁数据及最终余额
+     */
+    private ValidateResult validateAccountCoins(int chainId, AccountCoins accountCoins) {
+        String address = accountCoins.address;
+        AccountState accountState = accountStateService.getAccountStateReCal(accountCoins.addressBytes, chainId, accountCoins.assetChainId, accountCoins.assetId);
+        byte[] preNonce = null;
+        for (int i = 0; i < accountCoins.froms.size(); i++) {
+            CoinFrom coinFrom = accountCoins.froms.get(i);
+            byte[] txNonce = accountCoins.txNonces.get(i);
+            if (coinFrom.getLocked() == 0) {
+                String fromCoinNonce = LedgerUtil.getNonceEncode(coinFrom.getNonce());
+                //余额累计
+                accountState.addTotalFromAmount(coinFrom.getAmount());
+                if (LedgerUtil.equalsNonces(coinFrom.getNonce(), txNonce)) {
+                    //nonce 重复了
+                    logger(chainId).info("{}=={}=={}== nonce is repeat", address, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
+                    return ValidateResult.getResult(LedgerErrorCode.VALIDATE_FAIL, new String[]{address, fromCoinNonce, "nonce repeat"});
+                }
+                if (null == preNonce) {
+                    //从头开始处理
+                    if (!LedgerUtil.equalsNonces(accountState.getNonce(), coinFrom.getNonce())) {
+                        logger(chainId).error("validate fail:(isBlockValidateCommonTx failed)：{}=={}=={}==nonce is error!dbNonce:{}!=fromNonce:{},tx={}", address, coinFrom.getAssetsChainId(), coinFrom.getAssetsId(), LedgerUtil.getNonceEncode(accountState.getNonce()), fromCoinNonce, LedgerUtil.getNonceEncode(txNonce));
+                        return ValidateResult.getResult(LedgerErrorCode.VALIDATE_FAIL, new String[]{address, fromCoinNonce, "dbNonce=" + LedgerUtil.getNonceEncode(accountState.getNonce())});
+                    }
+                } else if (!LedgerUtil.equalsNonces(preNonce, coinFrom.getNonce())) {
+                    //nonce必须连贯
+                    logger(chainId).info("isValidateCommonTxBatch {}=={}=={}==nonce is error!tempNonce:{}!=fromNonce:{},tx={}", address, coinFrom.getAssetsChainId(), coinFrom.getAssetsId(), LedgerUtil.getNonceEncode(preNonce), fromCoinNonce, LedgerUtil.getNonceEncode(txNonce));
+                    return ValidateResult.getResult(LedgerErrorCode.VALIDATE_FAIL, new String[]{address, fromCoinNonce, "last pool nonce=" + LedgerUtil.getNonceEncode(preNonce)});
+                }
+                preNonce = txNonce;
+            } else if (!isValidateFreezeTx(coinFrom.getLocked(), accountState, coinFrom.getAmount(), coinFrom.getNonce())) {
+                //解锁交易只需要从已确认的数据中去获取数据进行校验
+                return ValidateResult.getResult(LedgerErrorCode.VALIDATE_FAIL, new String[]{address, LedgerUtil.getNonceEncode(coinFrom.getNonce()), "validate fail"});
+            }
+        }
+        accountState.addTotalToAmount(accountCoins.toAmount);
+        if (BigIntegerUtils.isLessThan(accountState.getAvailableAmount(), BigInteger.ZERO)) {
+            //余额不足
+            logger(chainId).info("{}==balance is not enough", accountCoins.assetKey);
+            return ValidateResult.getResult(LedgerErrorCode.BALANCE_NOT_ENOUGH, new String[]{accountCoins.assetKey, BigIntegerUtils.bigIntegerToString(accountState.getAvailableAmount())});
+        }
+        return ValidateResult.getSuccess();
+    }
+
+    /**
+     * 区块内单个账户资产的coin，froms按交易顺序排列
+     */
+    private static class AccountCoins {
+        private final String assetKey;
+        private final String address;
+        private final byte[] addressBytes;
+        private final int assetChainId;
+        private final int assetId;
+        private final List<CoinFrom> froms = new ArrayList<>(2);
+        private final List<byte[]> txNonces = new ArrayList<>(2);
+        private BigInteger toAmount = BigInteger.ZERO;
+
+        AccountCoins(String assetKey, String address, byte[] addressBytes, int assetChainId, int assetId) {
+            this.assetKey = assetKey;
+            this.address = address;
+            this.addressBytes = addressBytes;
+            this.assetChainId = assetChainId;
+            this.assetId = assetId;
+        }
+
+        void addFrom(CoinFrom coinFrom, byte[] txNonce) {
+            froms.add(coinFrom);
+            txNonces.add(txNonce);
+        }
+
+        void addTo(BigInteger amount) {
+            toAmount = toAmount.add(amount);
+        }
+    }
+
     /**
      * 批量逐笔校验
      * 批量校验 非解锁交易，余额校验与coindata校验一致,从数据库获取金额校验。
@@ -244,7 +473,7 @@ public class CoinDataValidator {
             String assetKey = LedgerUtil.getKeyStr(address, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
             AccountState accountState = accountStateMap.get(assetKey);
             if (null == accountState) {
-                accountState = accountStateService.getAccountStateReCal(address, chainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
+                accountState = accountStateService.getAccountStateReCal(coinFrom.getAddress(), chainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
                 accountStateMap.put(assetKey, accountState);
             }
             balanceValidateMap.put(assetKey, accountState);
@@ -291,7 +520,7 @@ public class CoinDataValidator {
                 String assetKey = LedgerUtil.getKeyStr(address, coinTo.getAssetsChainId(), coinTo.getAssetsId());
                 AccountState accountState = accountStateMap.get(assetKey);
                 if (null == accountState) {
-                    accountState = accountStateService.getAccountStateReCal(address, chainId, coinTo.getAssetsChainId(), coinTo.getAssetsId());
+                    accountState = accountStateService.getAccountStateReCal(coinTo.getAddress(), chainId, coinTo.getAssetsChainId(), coinTo.getAssetsId());
                     accountStateMap.put(assetKey, accountState);
                 }
                 accountState.addTotalToAmount(coinTo.getAmount());
@@ -498,7 +727,7 @@ public class CoinDataValidator {
             String assetKey = LedgerUtil.getKeyStr(address, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
             AccountState accountState = accountStateMap.get(assetKey);
             if (null == accountState) {
-                accountState = accountStateService.getAccountStateReCal(address, chainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
+                accountState = accountStateService.getAccountStateReCal(coinFrom.getAddress(), chainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
                 accountStateMap.put(assetKey, accountState);
             }
 
@@ -664,7 +893,7 @@ public class CoinDataValidator {
                 }
             }
             String address = LedgerUtil.getRealAddressStr(coinFrom.getAddress());
-            AccountState accountState = accountStateService.getAccountStateReCal(address, addressChainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
+            AccountState accountState = accountStateService.getAccountStateReCal(coinFrom.getAddress(), addressChainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
             //普通交易
             if (coinFrom.getLocked() == 0) {
                 return validateCommonCoinData(addressChainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId(), accountState, address, coinFrom.getAmount(), coinFrom.getNonce(), txNonce, true);
@@ -706,7 +935,7 @@ public class CoinDataValidator {
             int assetChainId = coinFrom.getAssetsChainId();
             int assetId = coinFrom.getAssetsId();
             String accountKey = LedgerUtil.getKeyStr(address, assetChainId, assetId);
-            AccountState accountState = accountStateService.getAccountStateReCal(address, addressChainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
+            AccountState accountState = accountStateService.getAccountStateReCal(coinFrom.getAddress(), addressChainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
             //普通交易
             if (coinFrom.getLocked() == 0) {
                 ValidateResult validateResult = validateCommonCoinData(addressChainId, assetChainId, assetId, accountState, address, coinFrom.getAmount(), coinFrom.getNonce(), txNonce, false);
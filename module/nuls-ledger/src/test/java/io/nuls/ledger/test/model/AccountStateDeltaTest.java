@@ -0,0 +1,74 @@
+package io.nuls.ledger.test.model;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.model.po.sub.AccountStateDelta;
+import io.nuls.ledger.model.po.sub.AccountStateSnapshot;
+import io.nuls.ledger.model.po.sub.FreezeHeightState;
+import io.nuls.ledger.model.po.sub.FreezeLockTimeState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class AccountStateDeltaTest {
+
+    @Test
+    public void revert() throws Exception {
+        AccountState pre = new AccountState();
+        pre.setTotalToAmount(BigInteger.valueOf(1000));
+        pre.setTotalFromAmount(BigInteger.valueOf(100));
+        pre.setLatestUnFreezeTime(10);
+        pre.getFreezeHeightStates().add(heightState("a", 1));
+        pre.getFreezeHeightStates().add(heightState("b", 2));
+        pre.getFreezeHeightStates().add(heightState("c", 3));
+        pre.getFreezeLockTimeStates().add(lockTimeState("d", 4));
+        byte[] preBytes = pre.serialize();
+
+        //区块中解锁了b，新增了e，并发生转账
+        AccountState post = pre.deepClone();
+        post.getFreezeHeightStates().remove(1);
+        post.getFreezeHeightStates().add(heightState("e", 5));
+        post.getFreezeLockTimeStates().clear();
+        post.setNonce(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        post.addTotalToAmount(BigInteger.valueOf(500));
+        post.addTotalFromAmount(BigInteger.valueOf(50));
+        post.setLatestUnFreezeTime(20);
+        byte[] postBytes = post.serialize();
+
+        AccountStateSnapshot snapshot = new AccountStateSnapshot(2, 2, 1, "tNULSeBaMkrt4z9FYEkkR9D6choPVvQr94oYZp", pre);
+        AccountStateDelta delta = new AccountStateDelta(snapshot, pre, post, postBytes);
+        AccountStateDelta parsed = new AccountStateDelta();
+        parsed.parse(new NulsByteBuffer(delta.serialize()));
+        Assert.assertTrue(delta.size() < snapshot.size());
+        Assert.assertEquals(delta.size(), delta.serialize().length);
+
+        AccountState current = new AccountState();
+        current.parse(new NulsByteBuffer(postBytes));
+        AccountStateSnapshot reverted = parsed.revert(current);
+        Assert.assertNotNull(reverted);
+        Assert.assertArrayEquals(preBytes, reverted.getAccountState().serialize());
+        Assert.assertEquals("tNULSeBaMkrt4z9FYEkkR9D6choPVvQr94oYZp", reverted.getAddress());
+
+        //账户状态不是区块提交后的状态时不回滚
+        AccountState notWritten = new AccountState();
+        notWritten.parse(new NulsByteBuffer(preBytes));
+        Assert.assertNull(parsed.revert(notWritten));
+    }
+
+    private FreezeHeightState heightState(String txHash, long height) {
+        FreezeHeightState state = new FreezeHeightState();
+        state.setTxHash(txHash);
+        state.setAmount(BigInteger.valueOf(height * 10));
+        state.setHeight(height);
+        return state;
+    }
+
+    private FreezeLockTimeState lockTimeState(String txHash, long lockTime) {
+        FreezeLockTimeState state = new FreezeLockTimeState();
+        state.setTxHash(txHash);
+        state.setAmount(BigInteger.valueOf(lockTime * 10));
+        state.setLockTime(lockTime);
+        return state;
+    }
+}
@@ -0,0 +1,142 @@
+package io.nuls.ledger.test.service;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.model.po.BlockAccountJournal;
+import io.nuls.ledger.model.po.sub.AccountStateDelta;
+import io.nuls.ledger.model.po.sub.AccountStateSnapshot;
+import io.nuls.ledger.model.po.sub.FreezeLockTimeState;
+import io.nuls.ledger.service.impl.AccountStateServiceImpl;
+import io.nuls.ledger.storage.Repository;
+import io.nuls.ledger.utils.LedgerUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按回滚日志连续回滚同一账户的多个区块
+ */
+public class BlockRollbackTest {
+
+    private static final int CHAIN_ID = 2;
+
+    private static final int ASSET_ID = 1;
+
+    private final Map<Long, BlockAccountJournal> journals = new HashMap<>();
+
+    private AccountStateServiceImpl accountStateService;
+
+    private String address;
+
+    /**
+     * 数据库中保存的账户状态
+     */
+    private AccountState stored;
+
+    @Before
+    public void before() throws Exception {
+        address = LedgerUtil.getRealAddressStr(AddressTool.getAddress(new ECKey().getPubKey(), CHAIN_ID));
+        Repository repository = (Repository) Proxy.newProxyInstance(Repository.class.getClassLoader(), new Class[]{Repository.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getBlockJournal":
+                    return parse(journals.get(args[1]));
+                case "getAccountStateByMemory":
+                    return stored;
+                default:
+                    return null;
+            }
+        });
+        accountStateService = new AccountStateServiceImpl();
+        Field field = AccountStateServiceImpl.class.getDeclaredField("repository");
+        field.setAccessible(true);
+        field.set(accountStateService, repository);
+    }
+
+    @Test
+    public void rollbackTwoBlocksOfOneAccount() throws Exception {
+        AccountState state0 = new AccountState();
+        state0.setTotalToAmount(BigInteger.valueOf(1000));
+        state0.setLatestUnFreezeTime(100);
+        state0.getFreezeLockTimeStates().add(lockTimeState("a", 150));
+        state0.getFreezeLockTimeStates().add(lockTimeState("b", 900));
+        byte[] bytes0 = state0.serialize();
+        stored = state0;
+
+        //区块1: 提交前重新计算冻结，锁定到150的数据已解锁
+        AccountState state1 = commit(1, state0, 200, BigInteger.valueOf(100));
+        byte[] bytes1 = state1.serialize();
+        //区块2: 再次重新计算冻结，只修改了解锁时间
+        commit(2, state1, 300, BigInteger.valueOf(50));
+
+        List<AccountStateSnapshot> pre2 = accountStateService.getBlockPreAccountStates(CHAIN_ID, 2);
+        Assert.assertEquals(1, pre2.size());
+        Assert.assertArrayEquals(bytes1, pre2.get(0).getAccountState().serialize());
+        stored = pre2.get(0).getAccountState();
+
+        List<AccountStateSnapshot> pre1 = accountStateService.getBlockPreAccountStates(CHAIN_ID, 1);
+        Assert.assertEquals(1, pre1.size());
+        Assert.assertArrayEquals(bytes0, pre1.get(0).getAccountState().serialize());
+    }
+
+    @Test
+    public void abortWhenNotAtBlockState() throws Exception {
+        AccountState state0 = new AccountState();
+        state0.setTotalToAmount(BigInteger.valueOf(1000));
+        stored = state0;
+        commit(1, state0, 200, BigInteger.valueOf(100));
+        commit(2, stored, 300, BigInteger.valueOf(50));
+        //区块2的账户状态未回滚就回滚区块1
+        Assert.assertNull(accountStateService.getBlockPreAccountStates(CHAIN_ID, 1));
+    }
+
+    /**
+     * 模拟区块提交：基于重新计算冻结后的状态转出amount，回滚日志基于数据库中的原始状态计算
+     */
+    private AccountState commit(long height, AccountState storedState, long now, BigInteger amount) throws Exception {
+        AccountState recalculated = storedState.deepClone();
+        recalculated.getFreezeLockTimeStates().removeIf(state -> state.getLockTime() <= now);
+        recalculated.setLatestUnFreezeTime(now);
+        AccountState post = recalculated.deepClone();
+        post.addTotalFromAmount(amount);
+        post.setNonce(new byte[]{0, 0, 0, 0, 0, 0, 0, (byte) height});
+        AccountStateSnapshot pre = new AccountStateSnapshot(CHAIN_ID, CHAIN_ID, ASSET_ID, address, recalculated);
+        BlockAccountJournal journal = new BlockAccountJournal();
+        byte[] postBytes = post.serialize();
+        journal.addDelta(new AccountStateDelta(pre, storedState, post, postBytes));
+        journals.put(height, journal);
+        stored = parseState(postBytes);
+        return stored;
+    }
+
+    private static BlockAccountJournal parse(BlockAccountJournal journal) throws Exception {
+        if (null == journal) {
+            return null;
+        }
+        BlockAccountJournal parsed = new BlockAccountJournal();
+        parsed.parse(new NulsByteBuffer(journal.serialize()));
+        return parsed;
+    }
+
+    private static AccountState parseState(byte[] bytes) throws Exception {
+        AccountState state = new AccountState();
+        state.parse(new NulsByteBuffer(bytes));
+        return state;
+    }
+
+    private FreezeLockTimeState lockTimeState(String txHash, long lockTime) {
+        FreezeLockTimeState state = new FreezeLockTimeState();
+        state.setTxHash(txHash);
+        state.setAmount(BigInteger.TEN);
+        state.setLockTime(lockTime);
+        return state;
+    }
+}
@@ -0,0 +1,70 @@
+package io.nuls.ledger.test.storage;
+
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.storage.impl.AccountStateCache;
+import io.nuls.ledger.utils.LedgerUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class AccountStateCacheTest {
+
+    @Test
+    public void cacheKey() {
+        byte[] address = new byte[23];
+        address[0] = 1;
+        Assert.assertEquals(LedgerUtil.getAccountCacheKey(address, 1, 1), LedgerUtil.getAccountCacheKey(address.clone(), 1, 1));
+        Assert.assertNotEquals(LedgerUtil.getAccountCacheKey(address, 1, 1), LedgerUtil.getAccountCacheKey(address, 1, 2));
+        Assert.assertNotEquals(LedgerUtil.getAccountCacheKey(address, 1, 256), LedgerUtil.getAccountCacheKey(address, 256, 1));
+        Assert.assertEquals(27, LedgerUtil.getAccountCacheKey(address, 1, 1).getBytes().length);
+    }
+
+    @Test
+    public void lruEviction() {
+        AccountState state = new AccountState();
+        int weight = 160 + 27 + state.size();
+        AccountStateCache cache = new AccountStateCache(weight * 3);
+        for (int i = 0; i < 3; i++) {
+            cache.put(key(i), state(i));
+        }
+        //访问0后淘汰最久未使用的1
+        Assert.assertNotNull(cache.get(key(0)));
+        cache.put(key(3), state(3));
+        Assert.assertEquals(3, cache.size());
+        Assert.assertNull(cache.get(key(1)));
+        Assert.assertEquals(BigInteger.valueOf(0), cache.get(key(0)).getTotalToAmount());
+        Assert.assertTrue(cache.getUsedBytes() <= weight * 3);
+    }
+
+    @Test
+    public void fillAfterWrite() {
+        AccountStateCache cache = new AccountStateCache(1024 * 1024);
+        //读取数据库期间有新的写入，读到的旧数据不能进入缓存
+        long version = cache.getVersion();
+        cache.put(key(1), state(2));
+        cache.clear();
+        cache.fill(key(1), state(1), version);
+        Assert.assertNull(cache.get(key(1)));
+
+        version = cache.getVersion();
+        cache.fill(key(1), state(1), version);
+        Assert.assertEquals(BigInteger.ONE, cache.get(key(1)).getTotalToAmount());
+        //已有缓存时不覆盖
+        cache.fill(key(1), state(5), cache.getVersion());
+        Assert.assertEquals(BigInteger.ONE, cache.get(key(1)).getTotalToAmount());
+    }
+
+    private ByteArrayWrapper key(int i) {
+        byte[] address = new byte[23];
+        address[22] = (byte) i;
+        return LedgerUtil.getAccountCacheKey(address, 1, 1);
+    }
+
+    private AccountState state(int amount) {
+        AccountState state = new AccountState();
+        state.setTotalToAmount(BigInteger.valueOf(amount));
+        return state;
+    }
+}
@@ -0,0 +1,89 @@
+package io.nuls.ledger.test.utils;
+
+import io.nuls.ledger.utils.LockerUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 账户分段锁测试
+ */
+public class LockerUtilTest {
+
+    @Test
+    public void stripesDistinctAndAscending() {
+        int[] stripes = LockerUtil.getAccountStripes(Arrays.asList("a-2-1", "b-2-1", "a-2-1", "c-2-1", "b-2-1"));
+        Assert.assertTrue(stripes.length >= 1 && stripes.length <= 3);
+        for (int i = 1; i < stripes.length; i++) {
+            Assert.assertTrue(stripes[i - 1] < stripes[i]);
+        }
+        Assert.assertArrayEquals(LockerUtil.getAccountStripes("a-2-1"), LockerUtil.getAccountStripes(Arrays.asList("a-2-1")));
+    }
+
+    /**
+     * 区块提交持有账户锁时，同一账户的处理等待，不相关账户不受影响
+     */
+    @Test
+    public void blockOnlySameAccount() throws Exception {
+        String committing = "tNULSeBaMkrt4z9FYEkkR9D6choPVvQr94oYZp-2-1";
+        String other = otherStripeKey(committing);
+        int[] commitStripes = LockerUtil.getAccountStripes(Arrays.asList(committing));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread commit = new Thread(() -> {
+            LockerUtil.LEDGER_LOCKER.lock();
+            LockerUtil.lockAccounts(commitStripes);
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                LockerUtil.unlockAccounts(commitStripes);
+                LockerUtil.LEDGER_LOCKER.unlock();
+            }
+        });
+        commit.start();
+        Assert.assertTrue(locked.await(5, TimeUnit.SECONDS));
+        try {
+            Assert.assertTrue(lockIn(other, 1000));
+            Assert.assertFalse(lockIn(committing, 200));
+        } finally {
+            release.countDown();
+        }
+        commit.join(5000);
+        Assert.assertTrue(lockIn(committing, 1000));
+    }
+
+    private static String otherStripeKey(String accountKey) {
+        int stripe = LockerUtil.getAccountStripes(accountKey)[0];
+        for (int i = 0; ; i++) {
+            String key = "other" + i + "-2-1";
+            if (LockerUtil.getAccountStripes(key)[0] != stripe) {
+                return key;
+            }
+        }
+    }
+
+    /**
+     * 在另一个线程中获取账户锁，返回是否在超时前获取成功
+     */
+    private static boolean lockIn(String accountKey, long timeoutMillis) throws InterruptedException {
+        int[] stripes = LockerUtil.getAccountStripes(accountKey);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            LockerUtil.lockAccounts(stripes);
+            try {
+                acquired.countDown();
+            } finally {
+                LockerUtil.unlockAccounts(stripes);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return acquired.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
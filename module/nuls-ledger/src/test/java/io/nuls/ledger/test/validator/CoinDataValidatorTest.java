@@ -0,0 +1,154 @@
+package io.nuls.ledger.test.validator;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinFrom;
+import io.nuls.base.data.CoinTo;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.ledger.constant.LedgerConstant;
+import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.service.AccountStateService;
+import io.nuls.ledger.service.TransactionService;
+import io.nuls.ledger.storage.Repository;
+import io.nuls.ledger.utils.LedgerUtil;
+import io.nuls.ledger.validator.CoinDataValidator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 区块coinData并行校验与顺序校验结果一致性测试
+ */
+public class CoinDataValidatorTest {
+
+    private static final int CHAIN_ID = 2;
+
+    private static final int ASSET_ID = 1;
+
+    private static final long HEIGHT = 10;
+
+    private static final BigInteger BALANCE = BigInteger.valueOf(1000);
+
+    private static final int ACCOUNTS = 10;
+
+    private CoinDataValidator validator;
+
+    private List<byte[]> addresses;
+
+    private int txSeq;
+
+    @Before
+    public void before() throws Exception {
+        LedgerConstant.blackHolePublicKey = new ECKey().getPubKey();
+        validator = new CoinDataValidator();
+        inject("accountStateService", proxy(AccountStateService.class, (method, args) -> {
+            if ("getAccountStateReCal".equals(method)) {
+                AccountState state = new AccountState(LedgerConstant.getInitNonceByte());
+                state.setTotalToAmount(BALANCE);
+                return state;
+            }
+            return null;
+        }));
+        inject("transactionService", proxy(TransactionService.class, (method, args) -> null));
+        inject("repository", proxy(Repository.class, (method, args) -> "getBlockHeight".equals(method) ? HEIGHT - 1 : null));
+        addresses = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            addresses.add(AddressTool.getAddress(new ECKey().getPubKey(), CHAIN_ID));
+        }
+    }
+
+    @After
+    public void after() {
+        LedgerConstant.BLOCK_VALIDATE_THREADS = 0;
+    }
+
+    @Test
+    public void validBlock() throws Exception {
+        assertSameVerdict(true, newBlock());
+    }
+
+    @Test
+    public void brokenNonceChain() throws Exception {
+        List<Transaction> txs = newBlock();
+        //同一账户的两笔交易交换顺序
+        Collections.swap(txs, 2 * ACCOUNTS + 3, 3 * ACCOUNTS + 3);
+        assertSameVerdict(false, txs);
+    }
+
+    @Test
+    public void balanceNotEnough() throws Exception {
+        List<Transaction> txs = newBlock();
+        byte[] nonce = LedgerUtil.getNonceByTx(txs.get(txs.size() - ACCOUNTS));
+        txs.add(transfer(0, 1, BALANCE.add(BigInteger.ONE), nonce));
+        assertSameVerdict(false, txs);
+    }
+
+    @Test
+    public void duplicateTx() throws Exception {
+        List<Transaction> txs = newBlock();
+        txs.add(txs.get(txs.size() / 2));
+        assertSameVerdict(false, txs);
+    }
+
+    private void assertSameVerdict(boolean expected, List<Transaction> txs) {
+        LedgerConstant.BLOCK_VALIDATE_THREADS = 0;
+        Assert.assertEquals(expected, validator.blockValidate(CHAIN_ID, HEIGHT, txs));
+        LedgerConstant.BLOCK_VALIDATE_THREADS = 4;
+        Assert.assertEquals(expected, validator.blockValidate(CHAIN_ID, HEIGHT, txs));
+    }
+
+    /**
+     * 每个账户按nonce链依次转账给下一个账户，共12轮
+     */
+    private List<Transaction> newBlock() throws Exception {
+        List<Transaction> txs = new ArrayList<>();
+        byte[][] nonces = new byte[ACCOUNTS][];
+        Arrays.fill(nonces, LedgerConstant.getInitNonceByte());
+        for (int round = 0; round < 12; round++) {
+            for (int i = 0; i < ACCOUNTS; i++) {
+                Transaction tx = transfer(i, (i + 1) % ACCOUNTS, BigInteger.TEN, nonces[i]);
+                nonces[i] = LedgerUtil.getNonceByTx(tx);
+                txs.add(tx);
+            }
+        }
+        return txs;
+    }
+
+    private Transaction transfer(int from, int to, BigInteger amount, byte[] nonce) throws Exception {
+        CoinData coinData = new CoinData();
+        coinData.addFrom(new CoinFrom(addresses.get(from), CHAIN_ID, ASSET_ID, amount, nonce, (byte) 0));
+        coinData.addTo(new CoinTo(addresses.get(to), CHAIN_ID, ASSET_ID, amount));
+        Transaction tx = new Transaction(2);
+        tx.setTime(++txSeq);
+        tx.setCoinData(coinData.serialize());
+        return tx;
+    }
+
+    private void inject(String name, Object value) throws Exception {
+        Field field = CoinDataValidator.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(validator, value);
+    }
+
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            Object result = answer.answer(method.getName(), args);
+            if (result == null && method.getReturnType() == boolean.class) {
+                return false;
+            }
+            return result;
+        });
+    }
+}
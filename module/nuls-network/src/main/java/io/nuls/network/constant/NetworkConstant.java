@@ -96,6 +96,11 @@ public interface NetworkConstant {
     String CMD_MESSAGE_SEND_LOCAL_INFOS = "peerInfos";
     String CMD_MESSAGE_PING = "ping";
     String CMD_MESSAGE_PONG = "pong";
+    /**
+     * version消息extend字段中声明支持CRC32C消息校验的标识，双方握手均声明后改用CRC32C代替双重sha256
+     * Capability flag in the extend field of the version message, peers that both declare it use CRC32C instead of double sha256
+     */
+    String VERSION_EXTEND_CRC32C = "crc32c";
     /**
      * ========================================
      * --------[RPC CMD] -------
@@ -29,7 +29,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.nuls.base.basic.NulsByteBuffer;
 import io.nuls.base.data.BaseNulsData;
-import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.constant.ToolsConstant;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.ByteUtils;
 import io.nuls.network.constant.ManagerStatusEnum;
@@ -93,9 +93,34 @@ public class MessageManager extends BaseManager {
      * @return long
      */
     public long getCheckSum(byte[] msgBody) {
-        byte[] bodyHash = Sha256Hash.hashTwice(msgBody);
-        byte[] get4Byte = ByteUtils.subBytes(bodyHash, 0, 4);
-        return ByteUtils.bytesToBigInteger(get4Byte).longValue();
+        return MessageUtil.checksum(msgBody, 0, msgBody.length, false);
+    }
+
+    /**
+     * 按节点握手协商的校验方式序列化消息，不修改共享的消息头
+     * Serialize the message with the checksum negotiated with the node, the shared header is not modified
+     *
+     * @param message message
+     * @param node    peer
+     * @return byte[]
+     */
+    public byte[] serialize(BaseMessage message, Node node) throws IOException {
+        MessageHeader header = message.getHeader();
+        byte[] body = message.getMsgBody().serialize();
+        byte[] data = new byte[header.size() + body.length];
+        byte[] headerBytes = header.serialize();
+        System.arraycopy(headerBytes, 0, data, 0, headerBytes.length);
+        System.arraycopy(body, 0, data, headerBytes.length, body.length);
+        long checksum;
+        if (MessageUtil.isCrc32c(header.getCommandStr(), node)) {
+            checksum = MessageUtil.checksum(body, 0, body.length, true);
+        } else if (body.length == 0) {
+            checksum = getCheckSum(ToolsConstant.PLACE_HOLDER);
+        } else {
+            checksum = getCheckSum(body);
+        }
+        MessageUtil.writeChecksum(data, checksum);
+        return data;
     }
 
     private BaseMessage getMessageInstance(String command) {
@@ -118,17 +143,19 @@ public class MessageManager extends BaseManager {
 
 
     /**
-     * 验证消息
-     * validate message checkSum
+     * 验证消息，直接在接收缓冲区上计算消息体校验值
+     * validate message checkSum in place over the received buffer
      *
-     * @param data entity
+     * @param data   entity
+     * @param offset body offset
+     * @param length body length
+     * @param header message header
+     * @param node   peer
      * @return boolean
      */
-    private boolean validate(byte[] data, long pChecksum) {
-        byte[] bodyHash = Sha256Hash.hashTwice(data);
-        byte[] get4Byte = ByteUtils.subBytes(bodyHash, 0, 4);
-        long checksum = ByteUtils.bytesToBigInteger(get4Byte).longValue();
-        return checksum == pChecksum;
+    private boolean validate(byte[] data, int offset, int length, MessageHeader header, Node node) {
+        boolean crc32c = MessageUtil.isCrc32c(header.getCommandStr(), node);
+        return MessageUtil.checksum(data, offset, length, crc32c) == header.getChecksum();
     }
 
     public void receiveMessage(NulsByteBuffer byteBuffer, Node node) {
@@ -140,11 +167,9 @@ public class MessageManager extends BaseManager {
             MessageHeader header = new MessageHeader();
             int headerSize = header.size();
             byte[] payLoad = byteBuffer.getPayload();
-            byte[] payLoadBody = ByteUtils.subBytes(payLoad, headerSize, payLoad.length - headerSize);
-            byte[] headerByte = ByteUtils.copyOf(payLoad, headerSize);
+            header.parse(byteBuffer);
             int chainId = NodeGroupManager.getInstance().getChainIdByMagicNum(header.getMagicNumber());
-            header.parse(headerByte, 0);
-            if (!validate(payLoadBody, header.getChecksum())) {
+            if (!validate(payLoad, headerSize, payLoad.length - headerSize, header, node)) {
                 LoggerUtil.logger(chainId).error("validate  false ======================cmd:{}", header.getCommandStr());
                 return;
             }
@@ -159,7 +184,7 @@ public class MessageManager extends BaseManager {
                 } else {
                     //外部消息，转外部接口
                     OtherModuleMessageHandler handler = MessageHandlerFactory.getInstance().getOtherModuleHandler();
-                    result = handler.recieve(header, payLoadBody, node);
+                    result = handler.recieve(header, ByteUtils.subBytes(payLoad, headerSize, payLoad.length - headerSize), node);
                     byteBuffer.setCursor(payLoad.length);
                 }
                 if (!result.isSuccess()) {
@@ -330,7 +355,7 @@ public class MessageManager extends BaseManager {
                                 LoggerUtil.COMMON_LOG.error("#### isWritable=false,send fail.node={},cmd={}", node.getId(), header.getCommandStr());
 
                             }
-                            channel.writeAndFlush(Unpooled.wrappedBuffer(message.serialize()));
+                            channel.writeAndFlush(Unpooled.wrappedBuffer(serialize(message, node)));
                         } catch (IOException e) {
                             LoggerUtil.COMMON_LOG.error(e);
                         }
@@ -338,7 +363,7 @@ public class MessageManager extends BaseManager {
 
                 });
             } else {
-                ChannelFuture future = node.getChannel().writeAndFlush(Unpooled.wrappedBuffer(message.serialize()));
+                ChannelFuture future = node.getChannel().writeAndFlush(Unpooled.wrappedBuffer(serialize(message, node)));
                 future.await();
                 boolean success = future.isSuccess();
                 if (!success) {
@@ -356,13 +381,17 @@ public class MessageManager extends BaseManager {
 
     /**
      * broadcast message to nodes
+     * 消息体在所有节点间共享，每种校验方式的消息头只计算一次
+     * The body is shared by all nodes, the header of each checksum type is built only once
      *
-     * @param message
+     * @param header message header
+     * @param body   message body
      * @param nodes
      * @param asyn
      * @return
      */
-    public NetworkEventResult broadcastToNodes(byte[] message, String cmd, List<Node> nodes, boolean asyn, int percent) {
+    public NetworkEventResult broadcastToNodes(MessageHeader header, byte[] body, List<Node> nodes, boolean asyn, int percent) {
+        String cmd = header.getCommandStr();
         if (nodes.size() > NetworkConstant.BROADCAST_MIN_PEER_NUMBER && percent < NetworkConstant.FULL_BROADCAST_PERCENT) {
             Collections.shuffle(nodes);
             double d = BigDecimal.valueOf(percent).divide(BigDecimal.valueOf(NetworkConstant.FULL_BROADCAST_PERCENT), 2, RoundingMode.HALF_DOWN).doubleValue();
@@ -372,12 +401,26 @@ public class MessageManager extends BaseManager {
             }
             nodes = nodes.subList(0, toIndex);
         }
+        byte[] sha256Header = null;
+        byte[] crc32cHeader = null;
         for (Node node : nodes) {
             if (node.getChannel() == null || !node.getChannel().isActive()) {
                 Log.info("broadcastToNodes node={} is not Active", node.getId());
                 continue;
             }
             try {
+                byte[] headerBytes;
+                if (MessageUtil.isCrc32c(cmd, node)) {
+                    if (null == crc32cHeader) {
+                        crc32cHeader = buildHeader(header, body, true);
+                    }
+                    headerBytes = crc32cHeader;
+                } else {
+                    if (null == sha256Header) {
+                        sha256Header = buildHeader(header, body, false);
+                    }
+                    headerBytes = sha256Header;
+                }
                 if (asyn) {
                     node.getChannel().eventLoop().execute(() -> {
                         Channel channel = node.getChannel();
@@ -385,17 +428,17 @@ public class MessageManager extends BaseManager {
                             if (!channel.isWritable()) {
                                 if (!MessageUtil.isLowerLeverCmd(cmd)) {
                                     LoggerUtil.COMMON_LOG.debug("#### isWritable=false,node={},cmd={} add to cache", node.getId(), cmd);
-                                    node.getCacheSendMsgQueue().addLast(new PeerCacheMessage(message));
+                                    node.getCacheSendMsgQueue().addLast(new PeerCacheMessage(ByteUtils.concatenate(headerBytes, body)));
                                 } else {
                                     LoggerUtil.COMMON_LOG.debug("#### isWritable=false,node={},cmd={} send to peer is drop", node.getId(), cmd);
                                 }
                             } else {
-                                channel.writeAndFlush(Unpooled.wrappedBuffer(message));
+                                channel.writeAndFlush(Unpooled.wrappedBuffer(headerBytes, body));
                             }
                         }
                     });
                 } else {
-                    ChannelFuture future = node.getChannel().writeAndFlush(Unpooled.wrappedBuffer(message));
+                    ChannelFuture future = node.getChannel().writeAndFlush(Unpooled.wrappedBuffer(headerBytes, body));
                     future.await();
                     boolean success = future.isSuccess();
                     if (!success) {
@@ -409,6 +452,12 @@ public class MessageManager extends BaseManager {
         return new NetworkEventResult(true, NetworkErrorCode.SUCCESS);
     }
 
+    private byte[] buildHeader(MessageHeader header, byte[] body, boolean crc32c) throws IOException {
+        byte[] headerBytes = header.serialize();
+        MessageUtil.writeChecksum(headerBytes, MessageUtil.checksum(body, 0, body.length, crc32c));
+        return headerBytes;
+    }
+
     @Override
     public void init() throws Exception {
         MessageFactory.getInstance().init();
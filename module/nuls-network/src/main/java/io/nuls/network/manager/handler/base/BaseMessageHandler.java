@@ -29,6 +29,7 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.nuls.base.data.BaseNulsData;
 import io.nuls.network.constant.NetworkErrorCode;
+import io.nuls.network.manager.MessageManager;
 import io.nuls.network.model.NetworkEventResult;
 import io.nuls.network.model.Node;
 import io.nuls.network.model.message.base.BaseMessage;
@@ -59,7 +60,7 @@ public abstract class BaseMessageHandler implements BaseMeesageHandlerInf {
             header.setMagicNumber(header.getMagicNumber());
             BaseNulsData body = message.getMsgBody();
             header.setPayloadLength(body.size());
-            ChannelFuture future = node.getChannel().writeAndFlush(Unpooled.wrappedBuffer(message.serialize()));
+            ChannelFuture future = node.getChannel().writeAndFlush(Unpooled.wrappedBuffer(MessageManager.getInstance().serialize(message, node)));
             if (!asyn) {
                 future.await();
                 boolean success = future.isSuccess();
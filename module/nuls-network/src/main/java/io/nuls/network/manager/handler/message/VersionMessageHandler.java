@@ -183,6 +183,7 @@ public class VersionMessageHandler extends BaseMessageHandler {
         });
         //存储需要的信息,协议版本信息，远程跨链端口信息
         node.setVersionProtocolInfos(versionBody.getProtocolVersion(), versionBody.getBlockHeight(), versionBody.getBlockHash());
+        node.setCrc32cChecksum(versionBody.isSupportCrc32c());
         //回复version
         VersionMessage versionMessage = MessageFactory.getInstance().buildVersionMessage(node, message.getHeader().getMagicNumber());
         LoggerUtil.logger(nodeGroup.getChainId()).info("rec node={} ver msg success.go response versionMessage..cross={}", node.getId(), node.isCrossConnect());
@@ -205,6 +206,7 @@ public class VersionMessageHandler extends BaseMessageHandler {
 //       Log.debug("VersionMessageHandler Recieve:Client"+":"+node.getIp()+":"+node.getRemotePort()+"==CMD=" +message.getHeader().getCommandStr());
         //存储需要的信息
         node.setVersionProtocolInfos(versionBody.getProtocolVersion(), versionBody.getBlockHeight(), versionBody.getBlockHash());
+        node.setCrc32cChecksum(versionBody.isSupportCrc32c());
         node.setConnectStatus(NodeConnectStatusEnum.AVAILABLE);
         node.setFailCount(0);
         node.setConnectTime(TimeManager.currentTimeMillis());
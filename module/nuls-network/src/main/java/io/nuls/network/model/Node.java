@@ -109,6 +109,12 @@ public class Node implements Dto {
     private EventListener connectedListener;
     private EventListener disconnectListener;
 
+    /**
+     * 握手时双方均声明支持CRC32C消息校验
+     * Both sides declared CRC32C message checksum support during handshake
+     */
+    private volatile boolean crc32cChecksum = false;
+
     private BlockingDeque<PeerCacheMessage> cacheSendMsgQueue = new LinkedBlockingDeque<>(NetworkConstant.INIT_CACHE_MSG_QUEUE_NUMBER);
 
     public Node(long magicNumber, String ip, int remotePort, int remoteCrossPort, int type, boolean isCrossConnect) {
@@ -320,6 +326,14 @@ public class Node implements Dto {
         this.blockHeight = blockHeight;
     }
 
+    public boolean isCrc32cChecksum() {
+        return crc32cChecksum;
+    }
+
+    public void setCrc32cChecksum(boolean crc32cChecksum) {
+        this.crc32cChecksum = crc32cChecksum;
+    }
+
     public long getVersion() {
         return version;
     }
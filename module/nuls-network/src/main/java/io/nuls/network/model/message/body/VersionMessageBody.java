@@ -29,6 +29,7 @@ package io.nuls.network.model.message.body;
 import io.nuls.base.basic.NulsByteBuffer;
 import io.nuls.base.basic.NulsOutputStreamBuffer;
 import io.nuls.base.data.BaseNulsData;
+import io.nuls.network.constant.NetworkConstant;
 import io.nuls.network.model.dto.IpAddress;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.parse.SerializeUtils;
@@ -108,6 +109,22 @@ public class VersionMessageBody extends BaseNulsData {
         this.extend = extend;
     }
 
+    /**
+     * 对端是否支持CRC32C消息校验
+     * Whether the peer supports CRC32C message checksum
+     */
+    public boolean isSupportCrc32c() {
+        if (null == extend || extend.isEmpty()) {
+            return false;
+        }
+        for (String item : extend.split(NetworkConstant.COMMA)) {
+            if (NetworkConstant.VERSION_EXTEND_CRC32C.equals(item.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public IpAddress getAddrYou() {
         return addrYou;
     }
@@ -152,16 +152,11 @@ public class MessageRpc extends BaseCmd {
                 return failed(NetworkErrorCode.PARAMETER_ERROR);
             }
             long magicNumber = nodeGroup.getMagicNumber();
-            long checksum = messageManager.getCheckSum(messageBody);
-            MessageHeader header = new MessageHeader(cmd, magicNumber, checksum, messageBody.length);
-            byte[] headerByte = header.serialize();
-            byte[] message = new byte[headerByte.length + messageBody.length];
+            MessageHeader header = new MessageHeader(cmd, magicNumber, 0, messageBody.length);
             boolean isCross = false;
             if (null != params.get("isCross")) {
                 isCross = Boolean.valueOf(params.get("isCross").toString());
             }
-            System.arraycopy(headerByte, 0, message, 0, headerByte.length);
-            System.arraycopy(messageBody, 0, message, headerByte.length, messageBody.length);
             Collection<Node> nodesCollection = nodeGroup.getAvailableNodes(isCross);
             excludeNodes = NetworkConstant.COMMA + excludeNodes + NetworkConstant.COMMA;
             List<Node> nodes = new ArrayList<>();
@@ -173,7 +168,7 @@ public class MessageRpc extends BaseCmd {
             if (0 == nodes.size()) {
                 rtMap.put("value", false);
             } else {
-                messageManager.broadcastToNodes(message, cmd, nodes, true, percent);
+                messageManager.broadcastToNodes(header, messageBody, nodes, true, percent);
             }
         } catch (Exception e) {
             LoggerUtil.COMMON_LOG.error(e);
@@ -206,12 +201,7 @@ public class MessageRpc extends BaseCmd {
             NodeGroupManager nodeGroupManager = NodeGroupManager.getInstance();
             NodeGroup nodeGroup = nodeGroupManager.getNodeGroupByChainId(chainId);
             long magicNumber = nodeGroup.getMagicNumber();
-            long checksum = messageManager.getCheckSum(messageBody);
-            MessageHeader header = new MessageHeader(cmd, magicNumber, checksum, messageBody.length);
-            byte[] headerByte = header.serialize();
-            byte[] message = new byte[headerByte.length + messageBody.length];
-            System.arraycopy(headerByte, 0, message, 0, headerByte.length);
-            System.arraycopy(messageBody, 0, message, headerByte.length, messageBody.length);
+            MessageHeader header = new MessageHeader(cmd, magicNumber, 0, messageBody.length);
             String[] nodeIds = nodes.split(",");
             List<Node> nodesList = new ArrayList<>();
             for (String nodeId : nodeIds) {
@@ -223,7 +213,7 @@ public class MessageRpc extends BaseCmd {
                 }
             }
             if (nodesList.size() > 0) {
-                messageManager.broadcastToNodes(message, cmd, nodesList, true, NetworkConstant.FULL_BROADCAST_PERCENT);
+                messageManager.broadcastToNodes(header, messageBody, nodesList, true, NetworkConstant.FULL_BROADCAST_PERCENT);
             }
         } catch (Exception e) {
             LoggerUtil.COMMON_LOG.error(e);
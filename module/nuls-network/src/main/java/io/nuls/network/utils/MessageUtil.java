@@ -24,16 +24,25 @@
  */
 package io.nuls.network.utils;
 
+import io.nuls.core.crypto.Sha256Hash;
 import io.nuls.core.rpc.model.CmdPriority;
+import io.nuls.network.constant.NetworkConstant;
+import io.nuls.network.model.Node;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.CRC32C;
 
 /**
  * @author lanjinsheng
  * @date 2019-07-30
  */
 public class MessageUtil {
+    /**
+     * 消息头中校验值的位置: magicNumber(4) + payloadLength(4) + command(12)
+     */
+    private static final int CHECKSUM_OFFSET = 20;
+
     /**
      * 目前测试使用，后期使用协议注册来处理优先级。
      */
@@ -66,5 +75,44 @@ public class MessageUtil {
                 break;
         }
     }
-   
+
+    /**
+     * 计算消息体校验值，直接在原数组的指定区间上计算，不复制数据
+     * Checksum of the message body computed in place over the given range
+     *
+     * @param data   数据
+     * @param offset 消息体起始位置
+     * @param length 消息体长度
+     * @param crc32c true:CRC32C, false:sha256(sha256(body))的前4个字节
+     * @return uint32
+     */
+    public static long checksum(byte[] data, int offset, int length, boolean crc32c) {
+        if (crc32c) {
+            CRC32C crc = new CRC32C();
+            crc.update(data, offset, length);
+            return crc.getValue();
+        }
+        byte[] hash = Sha256Hash.hashTwice(data, offset, length);
+        return ((hash[0] & 0xFFL) << 24) | ((hash[1] & 0xFFL) << 16) | ((hash[2] & 0xFFL) << 8) | (hash[3] & 0xFFL);
+    }
+
+    /**
+     * 向节点发送的消息是否使用CRC32C校验，握手消息始终使用sha256
+     * Whether a message sent to the node uses CRC32C, handshake messages always use sha256
+     */
+    public static boolean isCrc32c(String cmd, Node node) {
+        return node.isCrc32cChecksum() && !NetworkConstant.CMD_MESSAGE_VERSION.equals(cmd) && !NetworkConstant.CMD_MESSAGE_VERACK.equals(cmd);
+    }
+
+    /**
+     * 把校验值写入已序列化的消息头
+     * Write the checksum into a serialized message header
+     */
+    public static void writeChecksum(byte[] header, long checksum) {
+        int pos = CHECKSUM_OFFSET;
+        header[pos] = (byte) checksum;
+        header[pos + 1] = (byte) (checksum >> 8);
+        header[pos + 2] = (byte) (checksum >> 16);
+        header[pos + 3] = (byte) (checksum >> 24);
+    }
 }
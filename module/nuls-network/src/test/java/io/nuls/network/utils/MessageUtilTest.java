@@ -0,0 +1,41 @@
+package io.nuls.network.utils;
+
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.model.ByteUtils;
+import io.nuls.network.model.message.base.MessageHeader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.zip.CRC32C;
+
+/**
+ * 消息校验值测试
+ */
+public class MessageUtilTest {
+
+    @Test
+    public void checksum() {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        byte[] body = ByteUtils.subBytes(data, 24, 76);
+        //sha256方式与原有实现一致
+        long legacy = ByteUtils.bytesToBigInteger(ByteUtils.subBytes(Sha256Hash.hashTwice(body), 0, 4)).longValue();
+        Assert.assertEquals(legacy, MessageUtil.checksum(data, 24, 76, false));
+
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        Assert.assertEquals(crc.getValue(), MessageUtil.checksum(data, 24, 76, true));
+    }
+
+    @Test
+    public void writeChecksum() throws Exception {
+        MessageHeader header = new MessageHeader("block", 123456L, 0xF1E2D3C4L, 76);
+        byte[] expected = header.serialize();
+        header.setChecksum(0);
+        byte[] bytes = header.serialize();
+        MessageUtil.writeChecksum(bytes, 0xF1E2D3C4L);
+        Assert.assertArrayEquals(expected, bytes);
+    }
+}
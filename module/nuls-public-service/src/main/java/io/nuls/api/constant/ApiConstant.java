@@ -117,4 +117,13 @@ public interface ApiConstant {
     //设置别名金额
     BigInteger ALIAS_AMOUNT = BigInteger.valueOf(100000000L);
 
+    //本地高度落后钱包高度超过该值时批量同步区块
+    int SYNC_BATCH_THRESHOLD = 20;
+    //批量同步每批最多获取的区块数
+    int SYNC_BATCH_SIZE = 100;
+    //批量同步并行获取区块的线程数
+    int SYNC_FETCH_THREADS = 8;
+    //批量同步获取区块的线程池
+    String SYNC_FETCH_POOL = "api-sync-fetch";
+
 }
@@ -2,6 +2,7 @@ package io.nuls.api.db.mongo;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
 import com.mongodb.client.model.InsertOneModel;
 import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.WriteModel;
@@ -71,11 +72,31 @@ public class MongoBlockServiceImpl implements BlockService {
         mongoDBService.insertOne(BLOCK_HEADER_TABLE + chainId, document);
     }
 
+    public void saveBlockHeaderList(int chainId, List<BlockHeaderInfo> headerList) {
+        List<Document> documentList = new ArrayList<>();
+        for (BlockHeaderInfo headerInfo : headerList) {
+            documentList.add(DocumentTransferTool.toDocument(headerInfo, "height"));
+        }
+        InsertManyOptions options = new InsertManyOptions();
+        options.ordered(false);
+        mongoDBService.insertMany(BLOCK_HEADER_TABLE + chainId, documentList, options);
+    }
+
     public void saveBlockHexInfo(int chainId, BlockHexInfo hexInfo) {
         Document document = DocumentTransferTool.toDocument(hexInfo, "height");
         mongoDBService.insertOne(BLOCK_HEX_TABLE + chainId, document);
     }
 
+    public void saveBlockHexList(int chainId, List<BlockHexInfo> hexList) {
+        List<Document> documentList = new ArrayList<>();
+        for (BlockHexInfo hexInfo : hexList) {
+            documentList.add(DocumentTransferTool.toDocument(hexInfo, "height"));
+        }
+        InsertManyOptions options = new InsertManyOptions();
+        options.ordered(false);
+        mongoDBService.insertMany(BLOCK_HEX_TABLE + chainId, documentList, options);
+    }
+
     public BlockHexInfo getBlockHexInfo(int chainId, long height) {
         Document document = mongoDBService.findOne(BLOCK_HEX_TABLE + chainId, Filters.eq("_id", height));
         if (document == null) {
@@ -8,6 +8,18 @@ public class SyncInfo {
 
     private int step;
 
+    /**
+     * 批量同步时本批次中尚未回滚完成的区块数，0或1表示单个区块
+     * Number of blocks of the current batch not yet rolled back, 0 or 1 means a single block
+     */
+    private int blockCount;
+
+    /**
+     * 批量同步时整批区块的保存进度，回滚批次中的前一个区块时恢复为该进度
+     * Save step of the whole batch, restored when the previous block of the batch is rolled back
+     */
+    private int batchStep;
+
     public SyncInfo() {
     }
 
@@ -44,4 +56,20 @@ public class SyncInfo {
     public void setStep(int step) {
         this.step = step;
     }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public void setBlockCount(int blockCount) {
+        this.blockCount = blockCount;
+    }
+
+    public int getBatchStep() {
+        return batchStep;
+    }
+
+    public void setBatchStep(int batchStep) {
+        this.batchStep = batchStep;
+    }
 }
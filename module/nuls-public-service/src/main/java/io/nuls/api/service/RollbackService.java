@@ -81,9 +81,7 @@ public class RollbackService {
             SyncInfo syncInfo = chainService.getSyncInfo(chainId);
             if (syncInfo != null) {
                 if (syncInfo.getBestHeight() > 0) {
-                    syncInfo.setBestHeight(syncInfo.getBestHeight() - 1);
-                    syncInfo.setStep(100);
-                    chainService.updateStep(syncInfo);
+                    finishRollback(syncInfo, syncInfo.getBestHeight() - 1);
                 }
             }
             return true;
@@ -757,8 +755,23 @@ public class RollbackService {
         transactionService.rollbackTx(chainId, blockInfo.getHeader().getTxHashList());
         blockService.deleteBlockHeader(chainId, blockInfo.getHeader().getHeight());
 
-        syncInfo.setStep(100);
-        syncInfo.setBestHeight(blockInfo.getHeader().getHeight() - 1);
+        finishRollback(syncInfo, blockInfo.getHeader().getHeight() - 1);
+    }
+
+    /**
+     * 回滚完一个区块后更新同步信息，批量保存的区块没有全部回滚时，恢复整批区块的保存进度，继续回滚前一个区块
+     * Update the sync info after a block is rolled back. While blocks of a batch remain, the save step of the batch is
+     * restored so that the previous block is rolled back too
+     */
+    private void finishRollback(SyncInfo syncInfo, long bestHeight) {
+        syncInfo.setBestHeight(bestHeight);
+        if (syncInfo.getBlockCount() > 1) {
+            syncInfo.setBlockCount(syncInfo.getBlockCount() - 1);
+            syncInfo.setStep(syncInfo.getBatchStep());
+        } else {
+            syncInfo.setBlockCount(0);
+            syncInfo.setStep(100);
+        }
         chainService.updateStep(syncInfo);
     }
 
@@ -25,6 +25,29 @@ import static io.nuls.api.constant.ApiConstant.*;
 @Component
 public class SyncService {
 
+    /**
+     * 解析时需要从数据库读取之前区块数据的交易类型，批量同步时遇到这些交易先保存已解析的区块
+     * Transaction types that read data of previous blocks from the database, blocks parsed so far are saved first in batch sync
+     */
+    private static final Set<Integer> BATCH_BARRIER_TX_TYPES = new HashSet<>(Arrays.asList(
+            TxType.REGISTER_AGENT, TxType.CONTRACT_CREATE_AGENT,
+            TxType.CANCEL_DEPOSIT, TxType.CONTRACT_CANCEL_DEPOSIT,
+            TxType.STOP_AGENT, TxType.CONTRACT_STOP_AGENT,
+            TxType.RED_PUNISH,
+            TxType.DESTROY_CHAIN_AND_ASSET, TxType.ADD_ASSET_TO_CHAIN, TxType.REMOVE_ASSET_FROM_CHAIN));
+
+    /**
+     * 改变共识节点或委托的交易类型，新轮次的共识成员从数据库读取节点和委托信息
+     * Transaction types that change agents or deposits, members of a new round are computed from the agents and deposits
+     * in the database
+     */
+    private static final Set<Integer> CONSENSUS_TX_TYPES = new HashSet<>(Arrays.asList(
+            TxType.DEPOSIT, TxType.CONTRACT_DEPOSIT,
+            TxType.CANCEL_DEPOSIT, TxType.CONTRACT_CANCEL_DEPOSIT,
+            TxType.REGISTER_AGENT, TxType.CONTRACT_CREATE_AGENT,
+            TxType.STOP_AGENT, TxType.CONTRACT_STOP_AGENT,
+            TxType.RED_PUNISH));
+
     @Autowired
     private ChainService chainService;
     @Autowired
@@ -110,6 +133,87 @@ public class SyncService {
         return true;
     }
 
+    /**
+     * 批量同步一批连续的区块，区块依次解析，解析结果累积在内存中，合并后按表批量保存
+     * 区块中包含需要从数据库读取已同步数据的交易，或者进入新的轮次时之前的区块有改变节点或委托的交易，先保存已解析的区块，
+     * 保证解析时读到的数据库数据是最新的
+     * Sync a batch of continuous blocks. Blocks are parsed in order, the parsed data is accumulated in memory and saved
+     * table by table in bulk. Blocks parsed so far are saved first when a block contains transactions that read synced
+     * data from the database, or when a new round starts after transactions that change agents or deposits, so that the
+     * data read from the database is always up to date
+     *
+     * @param chainId   链id
+     * @param blockList 连续的区块，第一个区块与本地最新区块连续
+     * @return 是否还继续同步
+     */
+    public boolean syncNewBlocks(int chainId, List<BlockInfo> blockList) {
+        clear(chainId);
+        long time1, time2;
+        time1 = System.currentTimeMillis();
+        List<BlockInfo> pendingList = new ArrayList<>();
+        boolean consensusChanged = false;
+        int txCount = 0;
+        for (BlockInfo blockInfo : blockList) {
+            if (!pendingList.isEmpty() && needSaveBefore(blockInfo, pendingList.get(pendingList.size() - 1), consensusChanged)) {
+                saveBatch(chainId, pendingList);
+                pendingList.clear();
+                clear(chainId);
+                consensusChanged = false;
+            }
+            findAddProcessAgentOfBlock(chainId, blockInfo);
+            //处理交易
+            processTxs(chainId, blockInfo.getTxList());
+            //处理轮次
+            roundManager.process(chainId, blockInfo);
+            pendingList.add(blockInfo);
+            consensusChanged = consensusChanged || changesConsensus(blockInfo);
+            txCount += blockInfo.getHeader().getTxCount();
+        }
+        saveBatch(chainId, pendingList);
+
+        time2 = System.currentTimeMillis();
+        LoggerUtil.commonLog.info("-----height finish:" + blockList.get(0).getHeader().getHeight() + "-" + blockList.get(blockList.size() - 1).getHeader().getHeight() + "-----txCount:" + txCount + "-----use:" + (time2 - time1) + "-----");
+        return true;
+    }
+
+    private void saveBatch(int chainId, List<BlockInfo> blockList) {
+        save(chainId, blockList);
+        ApiCache apiCache = CacheManager.getCache(chainId);
+        apiCache.setBestHeader(blockList.get(blockList.size() - 1).getHeader());
+    }
+
+    /**
+     * 解析区块前是否需要先保存已解析的区块
+     * Whether the blocks parsed so far must be saved before the block is parsed
+     *
+     * @param blockInfo        待解析的区块
+     * @param preBlock         上一个已解析的区块
+     * @param consensusChanged 未保存的区块中是否有改变节点或委托的交易
+     */
+    static boolean needSaveBefore(BlockInfo blockInfo, BlockInfo preBlock, boolean consensusChanged) {
+        if (containsTxType(blockInfo, BATCH_BARRIER_TX_TYPES)) {
+            return true;
+        }
+        return consensusChanged && blockInfo.getHeader().getRoundIndex() != preBlock.getHeader().getRoundIndex();
+    }
+
+    /**
+     * 区块中是否有改变节点或委托的交易
+     * Whether the block contains transactions that change agents or deposits
+     */
+    static boolean changesConsensus(BlockInfo blockInfo) {
+        return containsTxType(blockInfo, CONSENSUS_TX_TYPES);
+    }
+
+    private static boolean containsTxType(BlockInfo blockInfo, Set<Integer> txTypes) {
+        for (TransactionInfo tx : blockInfo.getTxList()) {
+            if (txTypes.contains(tx.getType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 
     /**
      * 查找当前出块节点并处理相关信息
@@ -829,22 +933,41 @@ public class SyncService {
      * Store entity in the database after parsing the block and all transactions
      */
     public void save(int chainId, BlockInfo blockInfo) {
-        long height = blockInfo.getHeader().getHeight();
+        save(chainId, Collections.singletonList(blockInfo));
+    }
+
+    /**
+     * 将一批连续区块的解析结果按表批量存储到数据库中，整批只记录一次同步进度
+     * 多个区块时同步信息中记录本批次的区块数和保存进度，中断后从最高的区块开始逐个回滚整批区块
+     * Store the parsed data of a batch of continuous blocks table by table, with one sync checkpoint for the whole batch.
+     * For more than one block the sync info records the block count and save step of the batch, so that all blocks of
+     * an interrupted batch are rolled back one by one from the highest
+     */
+    private void save(int chainId, List<BlockInfo> blockList) {
+        long height = blockList.get(blockList.size() - 1).getHeader().getHeight();
 
         long time1, time2;
 
-        SyncInfo syncInfo = chainService.saveNewSyncInfo(chainId, height);
+        SyncInfo syncInfo = chainService.saveNewSyncInfo(chainId, height, blockList.size() > 1 ? blockList.size() : 0);
 
+        List<BlockHeaderInfo> headerList = new ArrayList<>();
+        List<BlockHexInfo> hexList = new ArrayList<>();
+        List<TransactionInfo> txList = new ArrayList<>();
+        for (BlockInfo blockInfo : blockList) {
+            headerList.add(blockInfo.getHeader());
+            hexList.add(blockInfo.getBlockHexInfo());
+            txList.addAll(blockInfo.getTxList());
+        }
         //存储区块头信息
         time1 = System.currentTimeMillis();
-        blockService.saveBLockHeaderInfo(chainId, blockInfo.getHeader());
+        blockService.saveBlockHeaderList(chainId, headerList);
         //存区块序列化完整信息
-        blockService.saveBlockHexInfo(chainId, blockInfo.getBlockHexInfo());
+        blockService.saveBlockHexList(chainId, hexList);
 //        time2 = System.currentTimeMillis();
 //        System.out.println("-----------saveBlockHexInfo, use: " + (time2 - time1) );
 //        time1 = System.currentTimeMillis();
         //存储交易记录
-        txService.saveTxList(chainId, blockInfo.getTxList());
+        txService.saveTxList(chainId, txList);
 //        time2 = System.currentTimeMillis();
 //        System.out.println("-----------saveTxList, use: " + (time2 - time1) );
 //        time1 = System.currentTimeMillis();
@@ -902,45 +1025,52 @@ public class SyncService {
             涉及到统计类的表放在最后来存储，便于回滚
          */
         //存储共识节点列表
-        syncInfo.setStep(10);
-        chainService.updateStep(syncInfo);
+        updateStep(syncInfo, 10);
         agentService.saveAgentList(chainId, agentInfoList);
 //        time2 = System.currentTimeMillis();
 //        System.out.println("-----------saveAgentList, use: " + (time2 - time1) );
 //        time1 = System.currentTimeMillis();
         //存储账户资产信息
-        syncInfo.setStep(20);
-        chainService.updateStep(syncInfo);
+        updateStep(syncInfo, 20);
         ledgerService.saveLedgerList(chainId, accountLedgerInfoMap);
 //        time2 = System.currentTimeMillis();
 //        System.out.println("-----------saveLedgerList, use: " + (time2 - time1));
 //        time1 = System.currentTimeMillis();
         //存储智能合约信息表
-        syncInfo.setStep(30);
-        chainService.updateStep(syncInfo);
+        updateStep(syncInfo, 30);
         contractService.saveContractInfos(chainId, contractInfoMap);
 //        time2 = System.currentTimeMillis();
 //        System.out.println("-----------saveContractInfos, use: " + (time2 - time1) );
 //        time1 = System.currentTimeMillis();
 
         //存储账户token信息
-        syncInfo.setStep(40);
-        chainService.updateStep(syncInfo);
+        updateStep(syncInfo, 40);
         tokenService.saveAccountTokens(chainId, accountTokenMap);
 //        time2 = System.currentTimeMillis();
 //        System.out.println("-----------saveAccountTokens, use: " + (time2 - time1) );
 //        time1 = System.currentTimeMillis();
 
         //存储账户信息表
-        syncInfo.setStep(50);
-        chainService.updateStep(syncInfo);
+        updateStep(syncInfo, 50);
         accountService.saveAccounts(chainId, accountInfoMap);
 //        time2 = System.currentTimeMillis();
 //        System.out.println("-----------saveAccounts, use: " + (time2 - time1) );
 //        time1 = System.currentTimeMillis();
 
         //完成解析
-        syncInfo.setStep(100);
+        updateStep(syncInfo, 100);
+    }
+
+    /**
+     * 更新保存进度，同时记录为整批区块的保存进度
+     * Update the save step, which is also the save step of the whole batch
+     */
+    private void updateStep(SyncInfo syncInfo, int step) {
+        syncInfo.setStep(step);
+        syncInfo.setBatchStep(step);
+        if (syncInfo.isFinish()) {
+            syncInfo.setBlockCount(0);
+        }
         chainService.updateStep(syncInfo);
     }
 
@@ -2,6 +2,7 @@ package io.nuls.api.task;
 
 import io.nuls.api.ApiContext;
 import io.nuls.api.analysis.WalletRpcHandler;
+import io.nuls.api.constant.ApiConstant;
 import io.nuls.api.model.po.BlockHeaderInfo;
 import io.nuls.api.model.po.BlockInfo;
 import io.nuls.api.model.po.SyncInfo;
@@ -11,6 +12,13 @@ import io.nuls.api.utils.LoggerUtil;
 import io.nuls.core.basic.Result;
 import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.log.Log;
+import io.nuls.core.thread.ExecutorRegistry;
+import io.nuls.core.thread.RejectionPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class SyncBlockTask implements Runnable {
 
@@ -26,6 +34,12 @@ public class SyncBlockTask implements Runnable {
         rollbackService = SpringLiteContext.getBean(RollbackService.class);
     }
 
+    SyncBlockTask(int chainId, SyncService syncService, RollbackService rollbackService) {
+        this.chainId = chainId;
+        this.syncService = syncService;
+        this.rollbackService = rollbackService;
+    }
+
     @Override
     public void run() {
         if (!ApiContext.isReady) {
@@ -36,9 +50,8 @@ public class SyncBlockTask implements Runnable {
         //Check the latest synchronization information before each entity synchronization.
         //If the latest block entity is not completely processed in one transaction, you need to roll back the block entity.
         try {
-            SyncInfo syncInfo = syncService.getSyncInfo(chainId);
-            if (syncInfo != null && !syncInfo.isFinish()) {
-                rollbackService.rollbackBlock(chainId, syncInfo.getBestHeight());
+            if (!rollbackUnfinished()) {
+                return;
             }
         } catch (Exception e) {
             Log.error(e);
@@ -85,6 +98,14 @@ public class SyncBlockTask implements Runnable {
         if (localBestBlockHeader != null) {
             nextHeight = localBestBlockHeader.getHeight() + 1;
         }
+        //落后钱包高度较多时批量同步，接近最新高度时逐个同步
+        //Sync in batches while far behind the wallet, block by block near the tip
+        if (ApiContext.localHeight - nextHeight > ApiConstant.SYNC_BATCH_THRESHOLD) {
+            List<BlockInfo> blockList = fetchBlocks(localBestBlockHeader, nextHeight);
+            if (blockList.size() > 1) {
+                return syncService.syncNewBlocks(chainId, blockList);
+            }
+        }
         Result<BlockInfo> result = WalletRpcHandler.getBlockInfo(chainId, nextHeight);
         if (result.isFailed()) {
             return false;
@@ -102,6 +123,58 @@ public class SyncBlockTask implements Runnable {
         return false;
     }
 
+    /**
+     * 批量保存的区块需要逐个回滚，直到同步信息恢复为已完成
+     * Blocks saved in one batch are rolled back one by one until the sync info is finished again
+     *
+     * @return 回滚失败时返回false
+     */
+    boolean rollbackUnfinished() {
+        SyncInfo syncInfo = syncService.getSyncInfo(chainId);
+        while (syncInfo != null && !syncInfo.isFinish()) {
+            long bestHeight = syncInfo.getBestHeight();
+            if (!rollbackService.rollbackBlock(chainId, bestHeight)) {
+                return false;
+            }
+            syncInfo = syncService.getSyncInfo(chainId);
+            if (syncInfo != null && syncInfo.getBestHeight() >= bestHeight) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 并行获取并解析从nextHeight开始的一批区块，返回与本地最新区块连续的部分
+     * 不连续时只返回连续的部分，由逐个同步处理分叉回滚
+     * Fetch and parse a batch of blocks from nextHeight in parallel, and return the part continuous with the local best
+     * block. A fork is left to the block by block sync to roll back
+     *
+     * @param localBestBlockHeader 本地最新区块
+     * @param nextHeight           下一个区块高度
+     * @return 连续的区块
+     */
+    private List<BlockInfo> fetchBlocks(BlockHeaderInfo localBestBlockHeader, long nextHeight) throws Exception {
+        long endHeight = Math.min(nextHeight + ApiConstant.SYNC_BATCH_SIZE, ApiContext.localHeight - ApiConstant.SYNC_BATCH_THRESHOLD);
+        ExecutorService executor = ExecutorRegistry.getOrCreate(ApiConstant.SYNC_FETCH_POOL, ApiConstant.SYNC_FETCH_THREADS, ApiConstant.SYNC_BATCH_SIZE, RejectionPolicy.CALLER_RUNS);
+        List<Future<Result<BlockInfo>>> futures = new ArrayList<>();
+        for (long height = nextHeight; height < endHeight; height++) {
+            long blockHeight = height;
+            futures.add(executor.submit(() -> WalletRpcHandler.getBlockInfo(chainId, blockHeight)));
+        }
+        List<BlockInfo> blockList = new ArrayList<>();
+        BlockHeaderInfo preHeader = localBestBlockHeader;
+        for (Future<Result<BlockInfo>> future : futures) {
+            Result<BlockInfo> result = future.get();
+            if (result.isFailed() || result.getData() == null || !checkBlockContinuity(preHeader, result.getData().getHeader())) {
+                break;
+            }
+            preHeader = result.getData().getHeader();
+            blockList.add(result.getData());
+        }
+        return blockList;
+    }
+
     /**
      * 区块连续性验证
      * Block continuity verification
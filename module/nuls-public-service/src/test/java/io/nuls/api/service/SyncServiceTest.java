@@ -0,0 +1,60 @@
+package io.nuls.api.service;
+
+import io.nuls.api.model.po.BlockHeaderInfo;
+import io.nuls.api.model.po.BlockInfo;
+import io.nuls.api.model.po.TransactionInfo;
+import io.nuls.core.constant.TxType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量同步时先保存已解析区块的条件测试
+ */
+public class SyncServiceTest {
+
+    @Test
+    public void barrierTxSavesBefore() {
+        BlockInfo pre = block(1, TxType.COIN_BASE);
+        assertFalse(SyncService.needSaveBefore(block(1, TxType.TRANSFER), pre, false));
+        for (int type : new int[]{TxType.REGISTER_AGENT, TxType.STOP_AGENT, TxType.CANCEL_DEPOSIT, TxType.RED_PUNISH, TxType.ADD_ASSET_TO_CHAIN}) {
+            assertTrue(SyncService.needSaveBefore(block(1, type), pre, false));
+        }
+        //委托交易只在进入新的轮次时才需要先保存
+        assertFalse(SyncService.needSaveBefore(block(1, TxType.DEPOSIT), pre, false));
+    }
+
+    @Test
+    public void roundChangeAfterConsensusChange() {
+        BlockInfo pre = block(1, TxType.COIN_BASE);
+        BlockInfo next = block(2, TxType.COIN_BASE);
+        assertFalse(SyncService.needSaveBefore(next, pre, false));
+        assertFalse(SyncService.needSaveBefore(block(1, TxType.COIN_BASE), pre, true));
+        assertTrue(SyncService.needSaveBefore(next, pre, true));
+
+        for (int type : new int[]{TxType.DEPOSIT, TxType.CONTRACT_DEPOSIT, TxType.CANCEL_DEPOSIT, TxType.CONTRACT_CANCEL_DEPOSIT,
+                TxType.REGISTER_AGENT, TxType.CONTRACT_CREATE_AGENT, TxType.STOP_AGENT, TxType.CONTRACT_STOP_AGENT, TxType.RED_PUNISH}) {
+            assertTrue(String.valueOf(type), SyncService.changesConsensus(block(1, type)));
+        }
+        assertFalse(SyncService.changesConsensus(block(1, TxType.TRANSFER)));
+        assertFalse(SyncService.changesConsensus(block(1, TxType.YELLOW_PUNISH)));
+    }
+
+    private static BlockInfo block(long roundIndex, int... txTypes) {
+        BlockHeaderInfo header = new BlockHeaderInfo();
+        header.setRoundIndex(roundIndex);
+        List<TransactionInfo> txList = new ArrayList<>();
+        for (int type : txTypes) {
+            TransactionInfo tx = new TransactionInfo();
+            tx.setType(type);
+            txList.add(tx);
+        }
+        BlockInfo blockInfo = new BlockInfo();
+        blockInfo.setHeader(header);
+        blockInfo.setTxList(txList);
+        return blockInfo;
+    }
+}
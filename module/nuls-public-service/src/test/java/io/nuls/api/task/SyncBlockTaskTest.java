@@ -0,0 +1,95 @@
+package io.nuls.api.task;
+
+import io.nuls.api.db.BlockService;
+import io.nuls.api.db.ChainService;
+import io.nuls.api.model.po.SyncInfo;
+import io.nuls.api.service.RollbackService;
+import io.nuls.api.service.SyncService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 中断的批量保存按区块逐个回滚的测试
+ */
+public class SyncBlockTaskTest {
+
+    private static final int CHAIN_ID = 2;
+
+    private SyncInfo syncInfo;
+
+    private final List<Long> deletedHeights = new ArrayList<>();
+
+    private SyncBlockTask task;
+
+    @Before
+    public void init() throws Exception {
+        ChainService chainService = (ChainService) Proxy.newProxyInstance(ChainService.class.getClassLoader(), new Class[]{ChainService.class}, (proxy, method, args) -> {
+            if ("getSyncInfo".equals(method.getName())) {
+                return syncInfo;
+            }
+            return null;
+        });
+        //区块数据已不存在,只回滚区块头和同步信息
+        BlockService blockService = (BlockService) Proxy.newProxyInstance(BlockService.class.getClassLoader(), new Class[]{BlockService.class}, (proxy, method, args) -> {
+            if ("deleteBlockHeader".equals(method.getName())) {
+                deletedHeights.add((Long) args[1]);
+            }
+            return null;
+        });
+        SyncService syncService = new SyncService();
+        set(SyncService.class, syncService, "chainService", chainService);
+        RollbackService rollbackService = new RollbackService();
+        set(RollbackService.class, rollbackService, "chainService", chainService);
+        set(RollbackService.class, rollbackService, "blockService", blockService);
+        task = new SyncBlockTask(CHAIN_ID, syncService, rollbackService);
+    }
+
+    @Test
+    public void rollbackWholeBatch() {
+        syncInfo = syncInfo(10, 30, 3);
+        assertTrue(task.rollbackUnfinished());
+        assertEquals(Arrays.asList(10L, 9L, 8L), deletedHeights);
+        assertTrue(syncInfo.isFinish());
+        assertEquals(7, syncInfo.getBestHeight());
+        assertEquals(0, syncInfo.getBlockCount());
+    }
+
+    @Test
+    public void rollbackSingleBlock() {
+        syncInfo = syncInfo(10, 30, 0);
+        assertTrue(task.rollbackUnfinished());
+        assertEquals(Collections.singletonList(10L), deletedHeights);
+        assertTrue(syncInfo.isFinish());
+        assertEquals(9, syncInfo.getBestHeight());
+    }
+
+    @Test
+    public void nothingToRollback() {
+        syncInfo = syncInfo(10, 100, 0);
+        assertTrue(task.rollbackUnfinished());
+        assertTrue(deletedHeights.isEmpty());
+        assertEquals(10, syncInfo.getBestHeight());
+    }
+
+    private static SyncInfo syncInfo(long bestHeight, int step, int blockCount) {
+        SyncInfo syncInfo = new SyncInfo(CHAIN_ID, bestHeight, step);
+        syncInfo.setBlockCount(blockCount);
+        syncInfo.setBatchStep(step);
+        return syncInfo;
+    }
+
+    private static void set(Class<?> clazz, Object target, String name, Object value) throws Exception {
+        Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
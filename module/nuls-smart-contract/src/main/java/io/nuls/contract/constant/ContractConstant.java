@@ -73,6 +73,12 @@ public interface ContractConstant {
 
     long CONTRACT_MINIMUM_PRICE = 25;
 
+    /**
+     * 从该协议版本开始，合约对象使用二进制编码写入存储
+     * 版本2、3已被共识模块的升级占用，使用单独的协议版本，见protocol-config.json及协议升级模块的versions.json
+     */
+    short BINARY_STATE_PROTOCOL_VERSION = 4;
+
     /**
      *
      */
@@ -41,7 +41,8 @@ import io.nuls.contract.vm.program.ProgramExecutor;
 import io.nuls.core.basic.Result;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.thread.commom.NulsThreadFactory;
+import io.nuls.core.thread.ExecutorRegistry;
+import io.nuls.core.thread.RejectionPolicy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -58,24 +59,12 @@ import static io.nuls.core.constant.TxType.CALL_CONTRACT;
 @Component
 public class ContractCallerImpl implements ContractCaller {
 
-    private static ExecutorService TX_EXECUTOR_SERVICE;
-    static {
-        int availableProcessors = Runtime.getRuntime().availableProcessors();
-        int threadCount = 4;
-        // 线程数最大4个，线程核心小于4时，使用线程核心数
-        if(availableProcessors < threadCount) {
-            threadCount = availableProcessors;
-        }
-        TX_EXECUTOR_SERVICE =
-                new ThreadPoolExecutor(
-                        threadCount,
-                        threadCount,
-                        10L,
-                        TimeUnit.SECONDS,
-                        new LinkedBlockingQueue<Runnable>(),
-                        new NulsThreadFactory("contract-tx-executor-pool"));
-    }
-    private static final ExecutorService BATCH_END_SERVICE = Executors.newSingleThreadExecutor(new NulsThreadFactory("contract-batch-end-pool"));
+    /**
+     * 线程数默认最大4个，线程核心小于4时，使用线程核心数，可通过executor.contract-tx-executor-pool.threads配置
+     */
+    private static final ExecutorService TX_EXECUTOR_SERVICE = ExecutorRegistry.getOrCreate("contract-tx-executor-pool",
+            Math.min(4, Runtime.getRuntime().availableProcessors()), 10000, RejectionPolicy.CALLER_RUNS);
+    private static final ExecutorService BATCH_END_SERVICE = ExecutorRegistry.getOrCreate("contract-batch-end-pool", 1, 100, RejectionPolicy.CALLER_RUNS);
 
     @Autowired
     private ContractExecutor contractExecutor;
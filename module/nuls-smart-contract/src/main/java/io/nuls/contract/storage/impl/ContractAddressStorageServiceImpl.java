@@ -32,6 +32,7 @@ import io.nuls.contract.util.ContractUtil;
 import io.nuls.core.basic.Result;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.service.DBCursor;
 import io.nuls.core.rockdb.service.RocksDBService;
 
 import java.util.ArrayList;
@@ -102,19 +103,22 @@ public class ContractAddressStorageServiceImpl implements ContractAddressStorage
 
     @Override
     public Result<List<ContractAddressInfoPo>> getContractInfoList(int chainId, byte[] creater) {
-        List<Entry<byte[], byte[]>> list = RocksDBService.entryList(baseArea + chainId);
-        if (list == null || list.size() == 0) {
-            return Result.getFailed(ContractErrorCode.DATA_NOT_FOUND);
-        }
         List<ContractAddressInfoPo> resultList = new ArrayList<>();
-        ContractAddressInfoPo po;
-        for (Entry<byte[], byte[]> entry : list) {
-            po = ContractDBUtil.getModel(entry.getValue(), ContractAddressInfoPo.class);
-            if (Arrays.equals(creater, po.getSender())) {
-                po.setContractAddress(entry.getKey());
-                resultList.add(po);
+        boolean empty = true;
+        try (DBCursor cursor = RocksDBService.openCursor(baseArea + chainId)) {
+            ContractAddressInfoPo po;
+            while (cursor != null && cursor.next()) {
+                empty = false;
+                po = ContractDBUtil.getModel(cursor.value(), ContractAddressInfoPo.class);
+                if (Arrays.equals(creater, po.getSender())) {
+                    po.setContractAddress(cursor.key());
+                    resultList.add(po);
+                }
             }
         }
+        if (empty) {
+            return Result.getFailed(ContractErrorCode.DATA_NOT_FOUND);
+        }
         Result<List<ContractAddressInfoPo>> result = ContractUtil.getSuccess();
         result.setData(resultList);
         return result;
@@ -30,10 +30,11 @@ import io.nuls.contract.model.po.ContractTokenTransferInfoPo;
 import io.nuls.contract.storage.ContractTokenTransferStorageService;
 import io.nuls.core.basic.Result;
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.service.DBCursor;
 import io.nuls.core.rockdb.service.RocksDBService;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static io.nuls.contract.constant.ContractDBConstant.DB_NAME_CONTRACT_NRC20_TOKEN_TRANSFER;
@@ -63,64 +64,30 @@ public class ContractTokenTransferStorageServiceImpl implements ContractTokenTra
 
     @Override
     public List<ContractTokenTransferInfoPo> getTokenTransferInfoListByAddress(int chainId, byte[] address) {
-        List<ContractTokenTransferInfoPo> infoPoList = new ArrayList<>();
-        List<Entry<byte[], byte[]>> entryList = RocksDBService.entryList(baseArea + chainId);
-        if (entryList == null || entryList.isEmpty()) {
-            return infoPoList;
-        }
-
-        ContractTokenTransferInfoPo tokenTransferInfoPo;
-        for (Entry<byte[], byte[]> entry : entryList) {
-            if (isAddressEquals(entry.getKey(), address)) {
-                tokenTransferInfoPo = getModel(entry.getValue(), ContractTokenTransferInfoPo.class);
-                infoPoList.add(tokenTransferInfoPo);
-            }
-        }
-        return infoPoList;
-    }
-
-    private boolean isAddressEquals(byte[] key, byte[] address) {
-        int length = Address.ADDRESS_LENGTH;
-        for (int i = 0; i < length; i++) {
-            if (key[i] != address[i]) {
-                return false;
-            }
-        }
-        return true;
+        return getTokenTransferInfoListByPrefix(chainId, Arrays.copyOf(address, Address.ADDRESS_LENGTH));
     }
 
     @Override
     public List<ContractTokenTransferInfoPo> getTokenTransferInfoListByAddress(int chainId, byte[] address, byte[] txHash) {
-        List<ContractTokenTransferInfoPo> infoPoList = new ArrayList<>();
-        List<Entry<byte[], byte[]>> entryList = RocksDBService.entryList(baseArea + chainId);
-        if (entryList == null || entryList.isEmpty()) {
-            return infoPoList;
-        }
-
-        ContractTokenTransferInfoPo tokenTransferInfoPo;
-        for (Entry<byte[], byte[]> entry : entryList) {
-            if (isAddressAndHashEquals(entry.getKey(), address, txHash)) {
-                tokenTransferInfoPo = getModel(entry.getValue(), ContractTokenTransferInfoPo.class);
-                infoPoList.add(tokenTransferInfoPo);
-            }
-        }
-        return infoPoList;
+        byte[] prefix = Arrays.copyOf(address, Address.ADDRESS_LENGTH + txHash.length);
+        System.arraycopy(txHash, 0, prefix, Address.ADDRESS_LENGTH, txHash.length);
+        return getTokenTransferInfoListByPrefix(chainId, prefix);
     }
 
-    private boolean isAddressAndHashEquals(byte[] key, byte[] address, byte[] txHash) {
-        int length = Address.ADDRESS_LENGTH + txHash.length;
-        for (int i = 0, k = 0; i < length; i++) {
-            if (i < Address.ADDRESS_LENGTH) {
-                if (key[i] != address[i]) {
-                    return false;
-                }
-            } else {
-                if (key[i] != txHash[k++]) {
-                    return false;
-                }
+    /**
+     * 数据的key以地址(和交易hash)开头，按前缀范围读取，不再遍历整张表
+     */
+    private List<ContractTokenTransferInfoPo> getTokenTransferInfoListByPrefix(int chainId, byte[] prefix) {
+        List<ContractTokenTransferInfoPo> infoPoList = new ArrayList<>();
+        try (DBCursor cursor = RocksDBService.openPrefixCursor(baseArea + chainId, prefix, false)) {
+            if (cursor == null) {
+                return infoPoList;
+            }
+            while (cursor.next()) {
+                infoPoList.add(getModel(cursor.value(), ContractTokenTransferInfoPo.class));
             }
         }
-        return true;
+        return infoPoList;
     }
 
     @Override
@@ -24,6 +24,7 @@
  */
 package io.nuls.contract.vm;
 
+import io.nuls.contract.vm.code.InsnCode;
 import io.nuls.contract.vm.code.MethodCode;
 import io.nuls.contract.vm.code.VariableType;
 import io.nuls.contract.vm.instructions.references.Athrow;
@@ -49,6 +50,13 @@ public class Frame {
 
     public final Result result;
 
+    private final InsnCode insnCode;
+
+    /**
+     * Index of the current instruction in {@link #insnCode}
+     */
+    private int insnIndex;
+
     private AbstractInsnNode currentInsnNode;
 
     private OpCode currentOpCode;
@@ -65,32 +73,45 @@ public class Frame {
         this.operandStack = new OperandStack(this.maxStack);
         this.localVariables = new LocalVariables(this.maxLocals, args);
         this.result = new Result(this.methodCode.returnVariableType);
-        this.currentInsnNode = this.methodCode.instructions.getFirst();
+        this.insnCode = this.methodCode.insnCode;
+        this.insnIndex = 0;
+        this.currentInsnNode = this.insnCode.insnNode(0);
     }
 
     public void step() {
         if (this.currentInsnNode != null) {
-            this.currentInsnNode = this.currentInsnNode.getNext();
+            this.insnIndex++;
+            this.currentInsnNode = this.insnCode.insnNode(this.insnIndex);
         }
     }
 
     public void jump() {
-        this.currentInsnNode = jumpInsnNode().label;
+        LabelNode label = jumpInsnNode().label;
+        this.insnIndex = this.insnCode.jumpTarget(this.insnIndex);
+        this.currentInsnNode = label;
     }
 
     public void jump(LabelNode label) {
+        this.insnIndex = this.insnCode.labelTarget(label);
         this.currentInsnNode = label;
     }
 
     public OpCode currentOpCode() {
-        if (this.currentInsnNode != null) {
-            this.currentOpCode = OpCode.valueOf(this.currentInsnNode.getOpcode());
+        if (this.currentInsnNode != null && this.currentInsnNode.getOpcode() >= 0) {
+            this.currentOpCode = this.insnCode.opCode(this.insnIndex);
         } else {
             this.currentOpCode = null;
         }
         return this.currentOpCode;
     }
 
+    /**
+     * 当前指令的静态gas消耗，数组创建类指令返回{@link GasCost#DYNAMIC}
+     */
+    public int currentGasCost() {
+        return this.insnCode.gasCost(this.insnIndex);
+    }
+
     public int getLine(LabelNode labelNode) {
         AbstractInsnNode abstractInsnNode = labelNode;
         while (!(abstractInsnNode instanceof LineNumberNode)) {
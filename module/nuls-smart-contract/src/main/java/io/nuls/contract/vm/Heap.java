@@ -34,6 +34,7 @@ import io.nuls.contract.vm.natives.io.nuls.contract.sdk.NativeAddress;
 import io.nuls.contract.vm.util.CloneUtils;
 import io.nuls.contract.vm.util.Constants;
 import io.nuls.contract.vm.util.JsonUtils;
+import io.nuls.contract.vm.util.StateUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.ethereum.core.Repository;
 import org.ethereum.vm.DataWord;
@@ -56,6 +57,11 @@ public class Heap {
 
     private final Set<ObjectRef> changes = new HashSet<>(1024);
 
+    /**
+     * 写过的数组分段，二进制编码时只回写这些分段
+     */
+    private final Set<String> arrayChanges = new HashSet<>(1024);
+
     private final BiMap<String, String> classNames = HashBiMap.create(1024);
 
     private ObjectRef contract;
@@ -68,6 +74,13 @@ public class Heap {
 
     private static final DataWord OBJECT_REF_COUNT = new DataWord("objectRefCount");
 
+    /**
+     * 协议升级后使用二进制编码写入合约状态
+     */
+    private boolean binaryState;
+
+    private StateCache stateCache;
+
     public Heap(BigInteger objectRefCount) {
         this.objectRefCount = new BigInteger(objectRefCount.toString());
     }
@@ -76,6 +89,14 @@ public class Heap {
         this.vm = vm;
     }
 
+    public void setBinaryState(boolean binaryState) {
+        this.binaryState = binaryState;
+    }
+
+    public void setStateCache(StateCache stateCache) {
+        this.stateCache = stateCache;
+    }
+
     public void loadClassCodes(Map<String, ClassCode> classCodes) {
         if (classCodes != null) {
             int i = 0;
@@ -172,7 +193,16 @@ public class Heap {
             return null;
         }
         byte[] value = dataWord.getNoLeadZeroesData();
-        Map<String, Object> map = (Map<String, Object>) JsonUtils.decode(new String(value), classNames);
+        Map<String, Object> map = null;
+        if (this.stateCache != null) {
+            map = (Map<String, Object>) this.stateCache.get(this.contract.getRef(), key, value);
+        }
+        if (map == null) {
+            map = StateUtils.decode(value, classNames);
+            if (this.stateCache != null) {
+                this.stateCache.put(this.contract.getRef(), key, value, map);
+            }
+        }
         return map;
     }
 
@@ -244,6 +274,7 @@ public class Heap {
         String arrayKey = arrayRef.getRef() + "_" + key;
         Object value = null;
         if (write) {
+            this.arrayChanges.add(arrayKey);
             value = putArrayInit(arrayRef, chunkNum);
         } else {
             value = getArrayInit(arrayRef, chunkNum);
@@ -267,6 +298,7 @@ public class Heap {
                 putField(arrayRef, key, value);
             } else {
                 this.arrays.put(arrayKey, value);
+                this.arrayChanges.add(arrayKey);
                 putField(arrayRef, key, key);
             }
         }
@@ -287,7 +319,16 @@ public class Heap {
         if (!arrayRef.getVariableType().getComponentType().isPrimitive()) {
             clazz = ObjectRef.class;
         }
-        Object object = JsonUtils.decodeArray(new String(value), clazz, classNames);
+        Object object = null;
+        if (this.stateCache != null) {
+            object = this.stateCache.get(this.contract.getRef(), arrayKey, value);
+        }
+        if (object == null) {
+            object = StateUtils.decodeArray(value, clazz, classNames);
+            if (this.stateCache != null) {
+                this.stateCache.put(this.contract.getRef(), arrayKey, value, object);
+            }
+        }
         return object;
     }
 
@@ -616,8 +657,12 @@ public class Heap {
                 continue;
             }
             String key = JsonUtils.encode(objectRef, classNames);
-            String value = JsonUtils.encode(fields, classNames);
-            contractState.put(new DataWord(key), new DataWord(value));
+            if (this.binaryState) {
+                contractState.put(new DataWord(key), DataWord.of(StateUtils.encode(fields, classNames)));
+            } else {
+                String value = JsonUtils.encode(fields, classNames);
+                contractState.put(new DataWord(key), new DataWord(value));
+            }
             if (objectRef.isArray()) {
                 for (String k : fields.keySet()) {
                     Integer i = Integer.valueOf(k);
@@ -625,6 +670,13 @@ public class Heap {
                         continue;
                     }
                     String arrayKey = objectRef.getRef() + "_" + k;
+                    if (this.binaryState) {
+                        if (this.arrayChanges.contains(arrayKey)) {
+                            Object object = getArrayInit(objectRef, i);
+                            contractState.put(new DataWord(arrayKey), DataWord.of(StateUtils.encodeArray(object, classNames)));
+                        }
+                        continue;
+                    }
                     Object object = getArrayInit(objectRef, i);
                     if (object != null) {
                         Class clazz = objectRef.getVariableType().getPrimitiveTypeClass();
@@ -24,22 +24,37 @@
  */
 package io.nuls.contract.vm;
 
+/**
+ * Local variables of a frame, stored the same way as {@link OperandStack}: unboxed primitives in a long[] and
+ * references in a parallel Object[], tagged per slot.
+ */
 public class LocalVariables {
 
     private int maxLocals;
 
-    private Object[] localVariables;
+    private long[] primitives;
+
+    private Object[] refs;
+
+    private byte[] tags;
 
     public LocalVariables(int maxLocals, Object[] args) {
         this.maxLocals = maxLocals;
-        this.localVariables = new Object[maxLocals];
+        this.primitives = new long[maxLocals];
+        this.refs = new Object[maxLocals];
+        this.tags = new byte[maxLocals];
         if (args != null) {
-            System.arraycopy(args, 0, this.localVariables, 0, args.length);
+            for (int i = 0; i < args.length; i++) {
+                setObject(i, args[i]);
+            }
         }
     }
 
     public int getInt(int index) {
-        Object object = this.localVariables[index];
+        if (this.tags[index] == Slots.INT) {
+            return (int) this.primitives[index];
+        }
+        Object object = getObject(index);
         if (object instanceof Boolean) {
             return (boolean) object ? 1 : 0;
         } else if (object instanceof Byte) {
@@ -54,39 +69,74 @@ public class LocalVariables {
     }
 
     public void setInt(int index, int value) {
-        this.localVariables[index] = value;
+        setPrimitive(index, Slots.INT, value);
     }
 
     public long getLong(int index) {
-        return (long) this.localVariables[index];
+        if (this.tags[index] == Slots.LONG) {
+            return this.primitives[index];
+        }
+        return (long) getObject(index);
     }
 
     public void setLong(int index, long value) {
-        this.localVariables[index] = value;
+        setPrimitive(index, Slots.LONG, value);
     }
 
     public float getFloat(int index) {
-        return (float) this.localVariables[index];
+        if (this.tags[index] == Slots.FLOAT) {
+            return Float.intBitsToFloat((int) this.primitives[index]);
+        }
+        return (float) getObject(index);
     }
 
     public void setFloat(int index, float value) {
-        this.localVariables[index] = value;
+        setPrimitive(index, Slots.FLOAT, Float.floatToRawIntBits(value));
     }
 
     public double getDouble(int index) {
-        return (double) this.localVariables[index];
+        if (this.tags[index] == Slots.DOUBLE) {
+            return Double.longBitsToDouble(this.primitives[index]);
+        }
+        return (double) getObject(index);
     }
 
     public void setDouble(int index, double value) {
-        this.localVariables[index] = value;
+        setPrimitive(index, Slots.DOUBLE, Double.doubleToRawLongBits(value));
     }
 
     public ObjectRef getRef(int index) {
-        return (ObjectRef) this.localVariables[index];
+        return (ObjectRef) getObject(index);
     }
 
     public void setRef(int index, ObjectRef value) {
-        this.localVariables[index] = value;
+        this.tags[index] = Slots.REF;
+        this.refs[index] = value;
+    }
+
+    private Object getObject(int index) {
+        return Slots.toObject(this.tags[index], this.primitives[index], this.refs[index]);
+    }
+
+    private void setObject(int index, Object value) {
+        if (value instanceof Integer) {
+            setInt(index, (int) value);
+        } else if (value instanceof Long) {
+            setLong(index, (long) value);
+        } else if (value instanceof Float) {
+            setFloat(index, (float) value);
+        } else if (value instanceof Double) {
+            setDouble(index, (double) value);
+        } else {
+            this.tags[index] = Slots.REF;
+            this.refs[index] = value;
+        }
+    }
+
+    private void setPrimitive(int index, byte tag, long value) {
+        this.tags[index] = tag;
+        this.primitives[index] = value;
+        this.refs[index] = null;
     }
 
 }
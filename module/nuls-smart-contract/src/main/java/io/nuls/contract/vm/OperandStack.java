@@ -27,20 +27,47 @@ package io.nuls.contract.vm;
 import io.nuls.contract.vm.code.Descriptors;
 import io.nuls.contract.vm.code.VariableType;
 
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.EmptyStackException;
 
-public class OperandStack extends Stack {
+/**
+ * Operand stack of a frame. int, long, float and double values are kept unboxed in a long[] and references in
+ * a parallel Object[], each slot is tagged with its kind so that the untyped push/pop used by the stack
+ * instructions still see the same boxed values. Not thread safe, a frame is only run by its own VM.
+ */
+public class OperandStack {
 
     private final int maxStack;
 
+    private long[] primitives;
+
+    private Object[] refs;
+
+    private byte[] tags;
+
+    private int size;
+
     public OperandStack(int maxStack) {
-        super();
         this.maxStack = maxStack;
+        int capacity = Math.max(maxStack, 1);
+        this.primitives = new long[capacity];
+        this.refs = new Object[capacity];
+        this.tags = new byte[capacity];
     }
 
-    @Override
     public Object push(Object value) {
-        return super.push(value);
+        if (value instanceof Integer) {
+            pushInt((int) value);
+        } else if (value instanceof Long) {
+            pushSlot(Slots.LONG, (long) value);
+        } else if (value instanceof Float) {
+            pushFloat((float) value);
+        } else if (value instanceof Double) {
+            pushSlot(Slots.DOUBLE, Double.doubleToRawLongBits((double) value));
+        } else {
+            pushObject(value);
+        }
+        return value;
     }
 
     public Object push(Object value, VariableType variableType) {
@@ -80,49 +107,78 @@ public class OperandStack extends Stack {
         return value;
     }
 
-    @Override
-    public synchronized Object pop() {
-        return super.pop();
+    public Object pop() {
+        int index = popIndex();
+        return Slots.toObject(tags[index], primitives[index], takeRef(index));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(refs, 0, size, null);
+        size = 0;
     }
 
     public int pushInt(int value) {
-        push(value);
+        pushSlot(Slots.INT, value);
         return value;
     }
 
     public int popInt() {
-        return (int) pop();
+        int index = popIndex();
+        if (tags[index] == Slots.INT) {
+            return (int) primitives[index];
+        }
+        return (int) Slots.toObject(tags[index], primitives[index], takeRef(index));
     }
 
     public long pushLong(long value) {
-        push(value);
-        push(null);
+        pushSlot(Slots.LONG, value);
+        pushObject(null);
         return value;
     }
 
     public long popLong() {
         pop();
-        return (long) pop();
+        int index = popIndex();
+        if (tags[index] == Slots.LONG) {
+            return primitives[index];
+        }
+        return (long) Slots.toObject(tags[index], primitives[index], takeRef(index));
     }
 
     public float pushFloat(float value) {
-        push(value);
+        pushSlot(Slots.FLOAT, Float.floatToRawIntBits(value));
         return value;
     }
 
     public float popFloat() {
-        return (float) pop();
+        int index = popIndex();
+        if (tags[index] == Slots.FLOAT) {
+            return Float.intBitsToFloat((int) primitives[index]);
+        }
+        return (float) Slots.toObject(tags[index], primitives[index], takeRef(index));
     }
 
     public double pushDouble(double value) {
-        push(value);
-        push(null);
+        pushSlot(Slots.DOUBLE, Double.doubleToRawLongBits(value));
+        pushObject(null);
         return value;
     }
 
     public double popDouble() {
         pop();
-        return (double) pop();
+        int index = popIndex();
+        if (tags[index] == Slots.DOUBLE) {
+            return Double.longBitsToDouble(primitives[index]);
+        }
+        return (double) Slots.toObject(tags[index], primitives[index], takeRef(index));
     }
 
     public int pushBoolean(boolean value) {
@@ -164,12 +220,57 @@ public class OperandStack extends Stack {
     }
 
     public ObjectRef pushRef(ObjectRef ref) {
-        push(ref);
+        pushObject(ref);
         return ref;
     }
 
     public ObjectRef popRef() {
-        return (ObjectRef) pop();
+        int index = popIndex();
+        if (tags[index] == Slots.REF) {
+            return (ObjectRef) takeRef(index);
+        }
+        return (ObjectRef) Slots.toObject(tags[index], primitives[index], null);
+    }
+
+    private void pushSlot(byte tag, long value) {
+        ensureCapacity();
+        tags[size] = tag;
+        primitives[size] = value;
+        //该位置之前可能放过引用，清除以免基本类型槽位继续持有对象
+        refs[size] = null;
+        size++;
+    }
+
+    private void pushObject(Object value) {
+        ensureCapacity();
+        tags[size] = Slots.REF;
+        refs[size] = value;
+        size++;
+    }
+
+    private int popIndex() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return --size;
+    }
+
+    private Object takeRef(int index) {
+        Object value = refs[index];
+        refs[index] = null;
+        return value;
+    }
+
+    /**
+     * Exceptions thrown by the vm are pushed onto the current frame, so the stack may go beyond maxStack
+     */
+    private void ensureCapacity() {
+        if (size == tags.length) {
+            int capacity = tags.length + Math.max(maxStack, 4);
+            primitives = Arrays.copyOf(primitives, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+            tags = Arrays.copyOf(tags, capacity);
+        }
     }
 
 }
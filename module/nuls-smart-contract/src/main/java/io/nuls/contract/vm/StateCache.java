@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import io.nuls.contract.vm.util.CloneUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一个区块内合约存储的解码缓存，key为合约地址和存储key，命中时校验存储的原始字节，避免同一区块内多次调用重复解码
+ * <p>
+ * Decoded contract storage values of one block, keyed by contract address and storage key. A hit is only used
+ * when the raw stored bytes are the same, so reverted or rewritten values are never served.
+ */
+public class StateCache {
+
+    private static final int MAX_SIZE = 8192;
+
+    /**
+     * 合约地址与存储key之间的分隔符，合约地址中不会出现该字符，避免不同的(地址, key)拼接后相同
+     */
+    private static final char KEY_SEPARATOR = ':';
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    public Object get(String address, String key, byte[] raw) {
+        Entry entry = cache.get(cacheKey(address, key));
+        if (entry == null || !Arrays.equals(entry.raw, raw)) {
+            return null;
+        }
+        return copy(entry.value);
+    }
+
+    public void put(String address, String key, byte[] raw, Object value) {
+        if (cache.size() < MAX_SIZE) {
+            cache.put(cacheKey(address, key), new Entry(raw, copy(value)));
+        }
+    }
+
+    private static String cacheKey(String address, String key) {
+        return address + KEY_SEPARATOR + key;
+    }
+
+    private static Object copy(Object value) {
+        if (value instanceof Map) {
+            return CloneUtils.clone((Map<String, Object>) value);
+        }
+        return CloneUtils.cloneObject(value);
+    }
+
+    private static class Entry {
+
+        private final byte[] raw;
+
+        private final Object value;
+
+        private Entry(byte[] raw, Object value) {
+            this.raw = raw;
+            this.value = value;
+        }
+    }
+
+}
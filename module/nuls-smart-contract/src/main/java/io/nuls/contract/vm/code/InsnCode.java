@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.code;
+
+import io.nuls.contract.vm.GasCost;
+import io.nuls.contract.vm.OpCode;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-decoded instructions of a method. Labels, line numbers and frames are dropped, every remaining
+ * instruction gets an index with its resolved {@link OpCode}, its static gas cost and, for jumps, the resolved
+ * target index. Built once per {@link MethodCode}, so it is cached together with the class codes.
+ */
+public class InsnCode {
+
+    private final AbstractInsnNode[] insnNodes;
+
+    private final OpCode[] opCodes;
+
+    private final int[] gasCosts;
+
+    private final int[] jumpTargets;
+
+    private final Map<LabelNode, Integer> labelTargets;
+
+    public InsnCode(InsnList instructions) {
+        List<AbstractInsnNode> nodes = new ArrayList<>(instructions.size());
+        labelTargets = new HashMap<>();
+        List<LabelNode> pendingLabels = new ArrayList<>();
+        for (AbstractInsnNode node = instructions.getFirst(); node != null; node = node.getNext()) {
+            if (node instanceof LabelNode) {
+                pendingLabels.add((LabelNode) node);
+            }
+            if (node.getOpcode() < 0) {
+                continue;
+            }
+            for (LabelNode labelNode : pendingLabels) {
+                labelTargets.put(labelNode, nodes.size() - 1);
+            }
+            pendingLabels.clear();
+            nodes.add(node);
+        }
+        for (LabelNode labelNode : pendingLabels) {
+            labelTargets.put(labelNode, nodes.size() - 1);
+        }
+
+        int length = nodes.size();
+        insnNodes = nodes.toArray(new AbstractInsnNode[length]);
+        opCodes = new OpCode[length];
+        gasCosts = new int[length];
+        jumpTargets = new int[length];
+        for (int i = 0; i < length; i++) {
+            AbstractInsnNode node = insnNodes[i];
+            OpCode opCode = OpCode.valueOf(node.getOpcode());
+            opCodes[i] = opCode;
+            if (opCode != null) {
+                gasCosts[i] = GasCost.gasCost(opCode, node);
+            }
+            if (node instanceof JumpInsnNode) {
+                jumpTargets[i] = labelTarget(((JumpInsnNode) node).label);
+            }
+        }
+    }
+
+    public int length() {
+        return insnNodes.length;
+    }
+
+    public AbstractInsnNode insnNode(int index) {
+        return index < insnNodes.length ? insnNodes[index] : null;
+    }
+
+    public OpCode opCode(int index) {
+        return opCodes[index];
+    }
+
+    public int gasCost(int index) {
+        return gasCosts[index];
+    }
+
+    /**
+     * Target of the jump instruction at index. Like {@link #labelTarget}, this is the index just before the first
+     * instruction after the label, the frame steps onto it next.
+     */
+    public int jumpTarget(int index) {
+        return jumpTargets[index];
+    }
+
+    public int labelTarget(LabelNode labelNode) {
+        Integer index = labelTargets.get(labelNode);
+        if (index == null) {
+            throw new IllegalArgumentException("label not in method");
+        }
+        return index;
+    }
+
+}
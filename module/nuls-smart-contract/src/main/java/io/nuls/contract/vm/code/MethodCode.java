@@ -148,6 +148,11 @@ public class MethodCode {
      */
     public final InsnList instructions;
 
+    /**
+     * The pre-decoded instructions of this method.
+     */
+    public final InsnCode insnCode;
+
     /**
      * The try catch blocks of this method.
      */
@@ -234,6 +239,7 @@ public class MethodCode {
         invisibleAnnotableParameterCount = methodNode.invisibleAnnotableParameterCount;
         invisibleParameterAnnotations = methodNode.invisibleParameterAnnotations;
         instructions = methodNode.instructions;
+        insnCode = new InsnCode(instructions);
         tryCatchBlocks = ListUtils.emptyIfNull(methodNode.tryCatchBlocks);
         maxStack = methodNode.maxStack;
         maxLocals = methodNode.maxLocals;
@@ -24,6 +24,8 @@
  */
 package io.nuls.contract.vm.program.impl;
 
+import io.nuls.base.protocol.ProtocolGroupManager;
+import io.nuls.contract.constant.ContractConstant;
 import io.nuls.contract.model.bo.Chain;
 import io.nuls.contract.model.bo.ContractBalance;
 import io.nuls.contract.model.dto.BlockHeaderDto;
@@ -31,6 +33,7 @@ import io.nuls.contract.util.Log;
 import io.nuls.contract.util.VMContext;
 import io.nuls.contract.vm.ObjectRef;
 import io.nuls.contract.vm.Result;
+import io.nuls.contract.vm.StateCache;
 import io.nuls.contract.vm.VM;
 import io.nuls.contract.vm.VMFactory;
 import io.nuls.contract.vm.code.*;
@@ -81,6 +84,8 @@ public class ProgramExecutorImpl implements ProgramExecutor {
 
     private final Map<ByteArrayWrapper, ProgramAccount> accounts;
 
+    private final StateCache stateCache;
+
     private long blockNumber;
 
     private long currentTime;
@@ -92,12 +97,12 @@ public class ProgramExecutorImpl implements ProgramExecutor {
     private final Thread thread;
 
     public ProgramExecutorImpl(VMContext vmContext, Chain chain) {
-        this(null, vmContext, stateSource(chain), null, null, null, null);
+        this(null, vmContext, stateSource(chain), null, null, null, null, null);
         this.chain = chain;
     }
 
     private ProgramExecutorImpl(ProgramExecutorImpl programExecutor, VMContext vmContext, Source<byte[], byte[]> source, Repository repository, byte[] prevStateRoot,
-                                Map<ByteArrayWrapper, ProgramAccount> accounts, Thread thread) {
+                                Map<ByteArrayWrapper, ProgramAccount> accounts, StateCache stateCache, Thread thread) {
         this.parent = programExecutor;
         this.vmContext = vmContext;
         this.source = source;
@@ -105,11 +110,12 @@ public class ProgramExecutorImpl implements ProgramExecutor {
         this.prevStateRoot = prevStateRoot;
         this.beginTime = this.currentTime = System.currentTimeMillis();
         this.accounts = accounts;
+        this.stateCache = stateCache;
         this.thread = thread;
     }
 
     public ProgramExecutor callProgramExecutor() {
-        return new ProgramExecutorImpl(this, vmContext, source, repository, prevStateRoot, accounts, thread);
+        return new ProgramExecutorImpl(this, vmContext, source, repository, prevStateRoot, accounts, stateCache, thread);
     }
 
     @Override
@@ -141,7 +147,7 @@ public class ProgramExecutorImpl implements ProgramExecutor {
             log.debug("begin vm root: {}", HexUtil.encode(prevStateRoot));
         }
         Repository repository = new RepositoryRoot(source, prevStateRoot);
-        return new ProgramExecutorImpl(this, vmContext, source, repository, prevStateRoot, new HashMap<>(), Thread.currentThread());
+        return new ProgramExecutorImpl(this, vmContext, source, repository, prevStateRoot, new HashMap<>(), new StateCache(), Thread.currentThread());
     }
 
     @Override
@@ -151,7 +157,7 @@ public class ProgramExecutorImpl implements ProgramExecutor {
             log.debug("startTracking");
         }
         Repository track = repository.startTracking();
-        return new ProgramExecutorImpl(this, vmContext, source, track, null, new HashMap<>(), thread);
+        return new ProgramExecutorImpl(this, vmContext, source, track, null, new HashMap<>(), stateCache, thread);
     }
 
     @Override
@@ -317,6 +323,8 @@ public class ProgramExecutorImpl implements ProgramExecutor {
             logTime("load vm");
 
             vm.setProgramExecutor(this);
+            vm.heap.setBinaryState(isBinaryState());
+            vm.heap.setStateCache(stateCache);
             vm.heap.loadClassCodes(classCodes);
             vm.methodArea.loadClassCodes(classCodes);
 
@@ -465,6 +473,11 @@ public class ProgramExecutorImpl implements ProgramExecutor {
         }
     }
 
+    private boolean isBinaryState() {
+        Short version = ProtocolGroupManager.getCurrentVersion(getCurrentChainId());
+        return version != null && version >= ContractConstant.BINARY_STATE_PROTOCOL_VERSION;
+    }
+
     private ProgramResult revert(String errorMessage) {
         return revert(errorMessage, null);
     }
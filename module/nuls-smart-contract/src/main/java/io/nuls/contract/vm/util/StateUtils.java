@@ -0,0 +1,420 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.util;
+
+import com.google.common.collect.BiMap;
+import io.nuls.contract.vm.ObjectRef;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.nuls.contract.vm.util.Utils.hashMapInitialCapacity;
+
+/**
+ * 合约对象和数组分段在存储中的编码
+ * 新数据使用带版本标记的二进制编码，JSON编码的旧数据首字节只会是'{'或'['，读取时按首字节区分，旧状态始终可读。
+ * <p>
+ * Storage encoding of contract objects and array chunks.
+ * New values use a versioned binary encoding, legacy JSON values always start with '{' or '[', so both are told
+ * apart by the first byte and old state stays readable.
+ */
+public class StateUtils {
+
+    /**
+     * 二进制编码版本1的首字节
+     */
+    public static final byte BINARY_V1 = (byte) 0xB1;
+
+    private static final byte NULL = 0;
+    private static final byte INT = 'I';
+    private static final byte LONG = 'J';
+    private static final byte FLOAT = 'F';
+    private static final byte DOUBLE = 'D';
+    private static final byte BOOLEAN = 'Z';
+    private static final byte BYTE = 'B';
+    private static final byte CHAR = 'C';
+    private static final byte SHORT = 'S';
+    private static final byte STRING = 's';
+    private static final byte REF = 'R';
+    private static final byte ARRAY = '[';
+
+    public static boolean isBinary(byte[] value) {
+        return value != null && value.length > 0 && value[0] == BINARY_V1;
+    }
+
+    public static byte[] encode(Map<String, Object> fields, BiMap<String, String> classNames) {
+        Writer writer = new Writer();
+        writer.writeByte(BINARY_V1);
+        writer.writeVarInt(fields.size());
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            writer.writeString(entry.getKey());
+            writeValue(writer, entry.getValue(), classNames);
+        }
+        return writer.toByteArray();
+    }
+
+    public static byte[] encodeArray(Object array, BiMap<String, String> classNames) {
+        Writer writer = new Writer();
+        writer.writeByte(BINARY_V1);
+        writeValue(writer, array, classNames);
+        return writer.toByteArray();
+    }
+
+    public static Map<String, Object> decode(byte[] value, BiMap<String, String> classNames) {
+        if (!isBinary(value)) {
+            return (Map<String, Object>) JsonUtils.decode(new String(value), classNames);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(value, 1, value.length - 1);
+        int size = readVarInt(buffer);
+        Map<String, Object> fields = new LinkedHashMap<>(hashMapInitialCapacity(size));
+        for (int i = 0; i < size; i++) {
+            String key = readString(buffer);
+            fields.put(key, readValue(buffer, classNames));
+        }
+        return fields;
+    }
+
+    public static Object decodeArray(byte[] value, Class<?> elementType, BiMap<String, String> classNames) {
+        if (!isBinary(value)) {
+            return JsonUtils.decodeArray(new String(value), elementType, classNames);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(value, 1, value.length - 1);
+        return readValue(buffer, classNames);
+    }
+
+    private static void writeValue(Writer writer, Object value, BiMap<String, String> classNames) {
+        if (value == null) {
+            writer.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            writer.writeByte(INT);
+            writer.writeInt((int) value);
+        } else if (value instanceof Long) {
+            writer.writeByte(LONG);
+            writer.writeLong((long) value);
+        } else if (value instanceof Float) {
+            writer.writeByte(FLOAT);
+            writer.writeInt(Float.floatToRawIntBits((float) value));
+        } else if (value instanceof Double) {
+            writer.writeByte(DOUBLE);
+            writer.writeLong(Double.doubleToRawLongBits((double) value));
+        } else if (value instanceof Boolean) {
+            writer.writeByte(BOOLEAN);
+            writer.writeByte((boolean) value ? 1 : 0);
+        } else if (value instanceof Byte) {
+            writer.writeByte(BYTE);
+            writer.writeByte((byte) value);
+        } else if (value instanceof Character) {
+            writer.writeByte(CHAR);
+            writer.writeShort((char) value);
+        } else if (value instanceof Short) {
+            writer.writeByte(SHORT);
+            writer.writeShort((short) value);
+        } else if (value instanceof String) {
+            writer.writeByte(STRING);
+            writer.writeString((String) value);
+        } else if (value instanceof ObjectRef) {
+            writer.writeByte(REF);
+            writeRef(writer, (ObjectRef) value, classNames);
+        } else if (value.getClass().isArray()) {
+            writer.writeByte(ARRAY);
+            writeArray(writer, value, classNames);
+        } else {
+            throw new IllegalArgumentException("unknown value");
+        }
+    }
+
+    private static void writeArray(Writer writer, Object value, BiMap<String, String> classNames) {
+        Class<?> clazz = value.getClass().getComponentType();
+        if (clazz == Integer.TYPE) {
+            int[] array = (int[]) value;
+            writer.writeByte(INT);
+            writer.writeVarInt(array.length);
+            for (int v : array) {
+                writer.writeInt(v);
+            }
+        } else if (clazz == Long.TYPE) {
+            long[] array = (long[]) value;
+            writer.writeByte(LONG);
+            writer.writeVarInt(array.length);
+            for (long v : array) {
+                writer.writeLong(v);
+            }
+        } else if (clazz == Float.TYPE) {
+            float[] array = (float[]) value;
+            writer.writeByte(FLOAT);
+            writer.writeVarInt(array.length);
+            for (float v : array) {
+                writer.writeInt(Float.floatToRawIntBits(v));
+            }
+        } else if (clazz == Double.TYPE) {
+            double[] array = (double[]) value;
+            writer.writeByte(DOUBLE);
+            writer.writeVarInt(array.length);
+            for (double v : array) {
+                writer.writeLong(Double.doubleToRawLongBits(v));
+            }
+        } else if (clazz == Boolean.TYPE) {
+            boolean[] array = (boolean[]) value;
+            writer.writeByte(BOOLEAN);
+            writer.writeVarInt(array.length);
+            for (boolean v : array) {
+                writer.writeByte(v ? 1 : 0);
+            }
+        } else if (clazz == Byte.TYPE) {
+            byte[] array = (byte[]) value;
+            writer.writeByte(BYTE);
+            writer.writeVarInt(array.length);
+            writer.writeBytes(array);
+        } else if (clazz == Character.TYPE) {
+            char[] array = (char[]) value;
+            writer.writeByte(CHAR);
+            writer.writeVarInt(array.length);
+            for (char v : array) {
+                writer.writeShort(v);
+            }
+        } else if (clazz == Short.TYPE) {
+            short[] array = (short[]) value;
+            writer.writeByte(SHORT);
+            writer.writeVarInt(array.length);
+            for (short v : array) {
+                writer.writeShort(v);
+            }
+        } else {
+            Object[] array = (Object[]) value;
+            writer.writeByte(REF);
+            writer.writeVarInt(array.length);
+            for (Object v : array) {
+                if (v == null) {
+                    writer.writeByte(NULL);
+                } else {
+                    writer.writeByte(REF);
+                    writeRef(writer, (ObjectRef) v, classNames);
+                }
+            }
+        }
+    }
+
+    private static void writeRef(Writer writer, ObjectRef objectRef, BiMap<String, String> classNames) {
+        String desc = objectRef.getDesc();
+        String alias = classNames.inverse().get(desc);
+        writer.writeString(objectRef.getRef());
+        writer.writeString(alias != null ? alias : desc);
+        int[] dimensions = objectRef.getDimensions();
+        writer.writeVarInt(dimensions.length);
+        for (int dimension : dimensions) {
+            writer.writeVarInt(dimension);
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer, BiMap<String, String> classNames) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case FLOAT:
+                return Float.intBitsToFloat(buffer.getInt());
+            case DOUBLE:
+                return Double.longBitsToDouble(buffer.getLong());
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case BYTE:
+                return buffer.get();
+            case CHAR:
+                return buffer.getChar();
+            case SHORT:
+                return buffer.getShort();
+            case STRING:
+                return readString(buffer);
+            case REF:
+                return readRef(buffer, classNames);
+            case ARRAY:
+                return readArray(buffer, classNames);
+            default:
+                throw new IllegalArgumentException("unknown value tag " + tag);
+        }
+    }
+
+    private static Object readArray(ByteBuffer buffer, BiMap<String, String> classNames) {
+        byte tag = buffer.get();
+        int length = readVarInt(buffer);
+        switch (tag) {
+            case INT:
+                int[] ints = new int[length];
+                buffer.asIntBuffer().get(ints);
+                buffer.position(buffer.position() + length * Integer.BYTES);
+                return ints;
+            case LONG:
+                long[] longs = new long[length];
+                buffer.asLongBuffer().get(longs);
+                buffer.position(buffer.position() + length * Long.BYTES);
+                return longs;
+            case FLOAT:
+                float[] floats = new float[length];
+                for (int i = 0; i < length; i++) {
+                    floats[i] = Float.intBitsToFloat(buffer.getInt());
+                }
+                return floats;
+            case DOUBLE:
+                double[] doubles = new double[length];
+                for (int i = 0; i < length; i++) {
+                    doubles[i] = Double.longBitsToDouble(buffer.getLong());
+                }
+                return doubles;
+            case BOOLEAN:
+                boolean[] booleans = new boolean[length];
+                for (int i = 0; i < length; i++) {
+                    booleans[i] = buffer.get() != 0;
+                }
+                return booleans;
+            case BYTE:
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                return bytes;
+            case CHAR:
+                char[] chars = new char[length];
+                buffer.asCharBuffer().get(chars);
+                buffer.position(buffer.position() + length * Character.BYTES);
+                return chars;
+            case SHORT:
+                short[] shorts = new short[length];
+                buffer.asShortBuffer().get(shorts);
+                buffer.position(buffer.position() + length * Short.BYTES);
+                return shorts;
+            case REF:
+                ObjectRef[] refs = new ObjectRef[length];
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get() != NULL) {
+                        refs[i] = readRef(buffer, classNames);
+                    }
+                }
+                return refs;
+            default:
+                throw new IllegalArgumentException("unknown array tag " + tag);
+        }
+    }
+
+    private static ObjectRef readRef(ByteBuffer buffer, BiMap<String, String> classNames) {
+        String ref = readString(buffer);
+        String desc = readString(buffer);
+        String className = classNames.get(desc);
+        if (className != null) {
+            desc = className;
+        }
+        int[] dimensions = new int[readVarInt(buffer)];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = readVarInt(buffer);
+        }
+        return new ObjectRef(ref, desc, dimensions);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        String str = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return str;
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static class Writer {
+
+        private byte[] buf = new byte[64];
+
+        private int count;
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+        }
+
+        void writeShort(int v) {
+            ensure(2);
+            buf[count++] = (byte) (v >>> 8);
+            buf[count++] = (byte) v;
+        }
+
+        void writeInt(int v) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buf[count++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[count++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeVarInt(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[count++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[count++] = (byte) v;
+        }
+
+        void writeString(String str) {
+            byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        private void ensure(int length) {
+            if (count + length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + length));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+    }
+
+}
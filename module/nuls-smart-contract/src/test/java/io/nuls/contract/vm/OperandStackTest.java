@@ -0,0 +1,73 @@
+package io.nuls.contract.vm;
+
+import org.junit.Test;
+
+import java.util.EmptyStackException;
+
+import static org.junit.Assert.*;
+
+public class OperandStackTest {
+
+    @Test
+    public void typedPushPop() {
+        OperandStack stack = new OperandStack(2);
+        stack.pushInt(-7);
+        stack.pushLong(Long.MIN_VALUE);
+        stack.pushFloat(Float.NaN);
+        stack.pushDouble(-0.0d);
+        stack.pushBoolean(true);
+        stack.pushRef(null);
+        assertEquals(8, stack.size());
+        assertNull(stack.popRef());
+        assertTrue(stack.popBoolean());
+        assertEquals(Double.doubleToRawLongBits(-0.0d), Double.doubleToRawLongBits(stack.popDouble()));
+        assertTrue(Float.isNaN(stack.popFloat()));
+        assertEquals(Long.MIN_VALUE, stack.popLong());
+        assertEquals(-7, stack.popInt());
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    public void untypedPopKeepsBoxedValues() {
+        OperandStack stack = new OperandStack(4);
+        stack.pushLong(5L);
+        stack.push(Boolean.TRUE);
+        //dup2_x1式的搬运后，long仍能按类型取出
+        Object bool = stack.pop();
+        Object top = stack.pop();
+        Object value = stack.pop();
+        assertEquals(Boolean.TRUE, bool);
+        assertNull(top);
+        assertEquals(5L, value);
+        stack.push(value);
+        stack.push(top);
+        stack.push(bool);
+        assertTrue(stack.popBoolean());
+        assertEquals(5L, stack.popLong());
+
+        stack.pushInt(3);
+        assertEquals(3, stack.pop());
+        stack.push("s");
+        stack.clear();
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test(expected = EmptyStackException.class)
+    public void popEmpty() {
+        new OperandStack(1).popInt();
+    }
+
+    @Test
+    public void localVariables() {
+        LocalVariables locals = new LocalVariables(6, new Object[]{null, 2L, null, 'c', 1.5d, null});
+        assertNull(locals.getRef(0));
+        assertEquals(2L, locals.getLong(1));
+        assertEquals('c', locals.getInt(3));
+        assertEquals(1.5d, locals.getDouble(4), 0);
+        locals.setInt(3, 9);
+        locals.setFloat(0, 0.25f);
+        assertEquals(9, locals.getInt(3));
+        assertEquals(0.25f, locals.getFloat(0), 0);
+    }
+
+}
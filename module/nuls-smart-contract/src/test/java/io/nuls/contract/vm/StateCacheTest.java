@@ -0,0 +1,25 @@
+package io.nuls.contract.vm;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class StateCacheTest {
+
+    @Test
+    public void keySeparatesAddress() {
+        StateCache cache = new StateCache();
+        byte[] raw = new byte[]{1, 2, 3};
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("i", 1);
+        cache.put("tNULSeBaN5", "x", raw, fields);
+        //地址与key拼接后相同时不能命中
+        assertNull(cache.get("tNULSeBaN", "5x", raw));
+        assertEquals(fields, cache.get("tNULSeBaN5", "x", raw));
+        //原始字节不同时不命中
+        assertNull(cache.get("tNULSeBaN5", "x", new byte[]{1, 2}));
+    }
+}
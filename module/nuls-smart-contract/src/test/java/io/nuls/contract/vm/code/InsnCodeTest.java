@@ -0,0 +1,48 @@
+package io.nuls.contract.vm.code;
+
+import io.nuls.contract.vm.GasCost;
+import io.nuls.contract.vm.OpCode;
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import static org.junit.Assert.*;
+
+public class InsnCodeTest {
+
+    @Test
+    public void decode() {
+        LabelNode start = new LabelNode();
+        LabelNode loop = new LabelNode();
+        LabelNode end = new LabelNode();
+        InsnList list = new InsnList();
+        list.add(start);
+        list.add(new LineNumberNode(1, start));
+        list.add(new InsnNode(Opcodes.ICONST_0));
+        list.add(loop);
+        list.add(new LineNumberNode(2, loop));
+        list.add(new InsnNode(Opcodes.DUP));
+        list.add(new JumpInsnNode(Opcodes.IFEQ, end));
+        list.add(new LdcInsnNode("hello"));
+        list.add(new IntInsnNode(Opcodes.NEWARRAY, Opcodes.T_INT));
+        list.add(new JumpInsnNode(Opcodes.GOTO, loop));
+        list.add(end);
+
+        InsnCode code = new InsnCode(list);
+        assertEquals(6, code.length());
+        assertEquals(OpCode.ICONST_0, code.opCode(0));
+        assertEquals(OpCode.GOTO, code.opCode(5));
+        assertNull(code.insnNode(6));
+
+        assertEquals(GasCost.STACK, code.gasCost(1));
+        assertEquals(5 * GasCost.LDC, code.gasCost(3));
+        assertEquals(GasCost.DYNAMIC, code.gasCost(4));
+
+        //跳转后再前进一步到达标签后的第一条指令
+        assertEquals(-1, code.labelTarget(start));
+        assertEquals(0, code.jumpTarget(5));
+        assertEquals(0, code.labelTarget(loop));
+        assertEquals(5, code.jumpTarget(2));
+    }
+
+}
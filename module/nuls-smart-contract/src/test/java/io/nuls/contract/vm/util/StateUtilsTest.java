@@ -0,0 +1,84 @@
+package io.nuls.contract.vm.util;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import io.nuls.contract.vm.ObjectRef;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class StateUtilsTest {
+
+    private final BiMap<String, String> classNames = HashBiMap.create();
+
+    {
+        classNames.put("0", "Lio/nuls/Token;");
+    }
+
+    @Test
+    public void fields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("i", -3);
+        fields.put("j", Long.MAX_VALUE);
+        fields.put("f", 1.5f);
+        fields.put("d", Double.NaN);
+        fields.put("z", true);
+        fields.put("b", (byte) -1);
+        fields.put("c", '中');
+        fields.put("s", (short) 300);
+        fields.put("str", "1");
+        fields.put("n", null);
+        fields.put("ref", new ObjectRef("12", "Lio/nuls/Token;"));
+        fields.put("0", new int[]{1, -2, 3});
+
+        byte[] bytes = StateUtils.encode(fields, classNames);
+        assertTrue(StateUtils.isBinary(bytes));
+        Map<String, Object> decoded = StateUtils.decode(bytes, classNames);
+        assertEquals(fields.keySet(), decoded.keySet());
+        assertEquals(-3, decoded.get("i"));
+        assertEquals(Long.MAX_VALUE, decoded.get("j"));
+        assertEquals(1.5f, decoded.get("f"));
+        assertTrue(Double.isNaN((double) decoded.get("d")));
+        assertEquals(true, decoded.get("z"));
+        assertEquals((byte) -1, decoded.get("b"));
+        assertEquals('中', decoded.get("c"));
+        assertEquals((short) 300, decoded.get("s"));
+        assertEquals("1", decoded.get("str"));
+        assertNull(decoded.get("n"));
+        assertEquals(fields.get("ref"), decoded.get("ref"));
+        assertArrayEquals(new int[]{1, -2, 3}, (int[]) decoded.get("0"));
+    }
+
+    @Test
+    public void arrays() {
+        ObjectRef[] refs = {null, new ObjectRef("5", "[Lio/nuls/Token;", 2, 3)};
+        Object decoded = StateUtils.decodeArray(StateUtils.encodeArray(refs, classNames), ObjectRef.class, classNames);
+        assertArrayEquals(refs, (ObjectRef[]) decoded);
+
+        char[] chars = "hello".toCharArray();
+        decoded = StateUtils.decodeArray(StateUtils.encodeArray(chars, classNames), Character.TYPE, classNames);
+        assertArrayEquals(chars, (char[]) decoded);
+
+        long[] longs = new long[1024];
+        longs[1023] = -1L;
+        decoded = StateUtils.decodeArray(StateUtils.encodeArray(longs, classNames), Long.TYPE, classNames);
+        assertArrayEquals(longs, (long[]) decoded);
+    }
+
+    @Test
+    public void legacyJson() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("balance", 100L);
+        fields.put("owner", new ObjectRef("7", "Lio/nuls/Token;"));
+        byte[] json = JsonUtils.encode(fields, classNames).getBytes();
+        assertFalse(StateUtils.isBinary(json));
+        assertEquals(fields, StateUtils.decode(json, classNames));
+
+        byte[] array = JsonUtils.encodeArray(new int[]{4, 5}, Integer.TYPE, classNames).getBytes();
+        assertArrayEquals(new int[]{4, 5}, (int[]) StateUtils.decodeArray(array, Integer.TYPE, classNames));
+    }
+
+}
@@ -1,11 +1,17 @@
 package io.nuls.transaction.cache;
 
+import io.nuls.base.RPCUtil;
 import io.nuls.base.data.Transaction;
+import io.nuls.base.protocol.ProtocolGroupManager;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.transaction.constant.TxConfig;
+import io.nuls.transaction.constant.TxConstant;
 import io.nuls.transaction.model.bo.Chain;
+import io.nuls.transaction.rpc.call.LedgerCall;
 import io.nuls.transaction.storage.UnconfirmedTxStorageService;
+import io.nuls.transaction.utils.TxUtil;
 
 import java.util.List;
 import java.util.Map;
@@ -22,6 +28,8 @@ public class PackablePool {
 
     @Autowired
     private UnconfirmedTxStorageService unconfirmedTxStorageService;
+    @Autowired
+    private TxConfig txConfig;
 
     /**
      * 将交易加入到待打包队列最前端，打包时最先取出
@@ -33,6 +41,9 @@ public class PackablePool {
      */
     public boolean offerFirst(Chain chain, Transaction tx) {
         ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
+        if (chain.getPriorityPackableQueue() != null) {
+            return offerPriority(chain, hash, tx);
+        }
         synchronized (hash) {
             if (chain.getPackableHashQueue().offerFirst(hash)) {
                 chain.getPackableTxMap().put(hash, tx);
@@ -51,6 +62,15 @@ public class PackablePool {
      */
     public boolean offerFirstOnlyHash(Chain chain, Transaction tx) {
         ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
+        if (chain.getPriorityPackableQueue() != null) {
+            //交易已确认或已被清理时不再放回
+            //The transaction has been confirmed or cleared meanwhile, it is not put back
+            if (!chain.getPackableTxMap().containsKey(hash)) {
+                unconfirmedTxStorageService.removeTx(chain.getChainId(), hash.getBytes());
+                return true;
+            }
+            return offerPriority(chain, hash, tx);
+        }
         synchronized (hash) {
             if (chain.getPackableHashQueue().offerFirst(hash)) {
                 return true;
@@ -60,6 +80,19 @@ public class PackablePool {
         return false;
     }
 
+    /**
+     * 配置开启且协议升级到紧凑区块版本后, 区块模块才需要未确认交易还原紧凑区块
+     * Unconfirmed txs are only needed by the block module to rebuild compact blocks, which requires the config and the
+     * compact block protocol version
+     */
+    private boolean isCompactBlock(Chain chain) {
+        if (!txConfig.isCompactBlock()) {
+            return false;
+        }
+        Short version = ProtocolGroupManager.getCurrentVersion(chain.getChainId());
+        return version != null && version >= TxConstant.COMPACT_BLOCK_PROTOCOL_VERSION;
+    }
+
     /**
      * 将交易加入到待打包队列队尾
      * Add the transaction to the end of the queue to be packed
@@ -70,6 +103,13 @@ public class PackablePool {
      */
     public boolean add(Chain chain, Transaction tx) {
         ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
+        //队列满时丢弃, 不影响打包
+        if (isCompactBlock(chain)) {
+            chain.getBlockPushQueue().offer(tx);
+        }
+        if (chain.getPriorityPackableQueue() != null) {
+            return offerPriority(chain, hash, tx);
+        }
         synchronized (hash) {
             if (chain.getPackableHashQueue().offer(hash)) {
                 chain.getPackableTxMap().put(hash, tx);
@@ -95,6 +135,9 @@ public class PackablePool {
      * @return
      */
     public Transaction poll(Chain chain) {
+        if (chain.getPriorityPackableQueue() != null) {
+            return chain.getPriorityPackableQueue().poll();
+        }
         while (true) {
             ByteArrayWrapper hash = chain.getPackableHashQueue().poll();
             if (null == hash) {
@@ -123,6 +166,13 @@ public class PackablePool {
      * @return
      */
     public Transaction pollLast(Chain chain) {
+        if (chain.getPriorityPackableQueue() != null) {
+            Transaction tx = chain.getPriorityPackableQueue().pollLast();
+            if (null != tx) {
+                chain.getPackableTxMap().remove(new ByteArrayWrapper(tx.getHash().getBytes()));
+            }
+            return tx;
+        }
         while (true) {
             ByteArrayWrapper hash = chain.getPackableHashQueue().pollLast();
             if (null == hash) {
@@ -147,10 +197,33 @@ public class PackablePool {
         }
     }
 
+    /**
+     * 区块确认后清理待打包交易，优先级模式下同时清理与已确认交易花费相同nonce的冲突交易
+     * Clear confirmed transactions, in priority mode the transactions conflicting with them are cleared too
+     *
+     * @param chain
+     * @param txList 已确认交易
+     */
+    public void clearConfirmedTxs(Chain chain, List<byte[]> txHashs, List<Transaction> txList) {
+        clearConfirmedTxs(chain, txHashs);
+        PriorityPackableQueue queue = chain.getPriorityPackableQueue();
+        if (queue == null) {
+            return;
+        }
+        List<Transaction> conflicts = queue.confirm(txList);
+        for (Transaction tx : conflicts) {
+            chain.getLogger().debug("清理与已确认交易冲突的待打包交易, hash:{}", tx.getHash().toHex());
+            dropTx(chain, tx);
+        }
+    }
+
     public void removeInvalidTxFromMap(Chain chain, Transaction tx) {
         Map<ByteArrayWrapper, Transaction> map = chain.getPackableTxMap();
         ByteArrayWrapper wrapper = new ByteArrayWrapper(tx.getHash().getBytes());
         map.remove(wrapper);
+        if (chain.getPriorityPackableQueue() != null) {
+            chain.getPriorityPackableQueue().remove(wrapper);
+        }
     }
 
     /**
@@ -169,15 +242,87 @@ public class PackablePool {
     }
 
     public int packableHashQueueSize(Chain chain) {
+        if (chain.getPriorityPackableQueue() != null) {
+            return chain.getPriorityPackableQueue().queuedSize();
+        }
         return chain.getPackableHashQueue().size();
     }
 
+    /**
+     * 待打包交易map中交易的总大小
+     * Total size of the transactions in the packable map
+     *
+     * @param chain
+     * @return
+     */
+    public int packableTxMapDataSize(Chain chain) {
+        if (chain.getPriorityPackableQueue() != null) {
+            return (int) chain.getPriorityPackableQueue().dataSize();
+        }
+        int packableTxMapDataSize = 0;
+        for (Transaction tx : chain.getPackableTxMap().values()) {
+            packableTxMapDataSize += tx.size();
+        }
+        return packableTxMapDataSize;
+    }
+
+    /**
+     * 待打包队列容量不足时是否丢弃新交易
+     * 优先级模式下只丢弃手续费率不足以淘汰队列中交易的新交易，否则按容量比例随机丢弃
+     * <p>
+     * Whether a new transaction is discarded because the packable pool is full.
+     * In priority mode only transactions that cannot outbid the queued ones are discarded, otherwise they are discarded at random by load
+     *
+     * @param chain
+     * @param packableTxMapDataSize 当前待打包交易总大小
+     * @param tx
+     * @return
+     */
+    public boolean discardTx(Chain chain, int packableTxMapDataSize, Transaction tx) {
+        if (chain.getPriorityPackableQueue() != null) {
+            return chain.getPriorityPackableQueue().reject(tx);
+        }
+        return TxUtil.discardTx(chain, packableTxMapDataSize, tx);
+    }
+
     public int packableTxMapSize(Chain chain) {
         return chain.getPackableTxMap().size();
     }
 
     public void clear(Chain chain) {
         chain.getPackableHashQueue().clear();
+        if (chain.getPriorityPackableQueue() != null) {
+            chain.getPriorityPackableQueue().clearQueue();
+        }
+    }
+
+    private boolean offerPriority(Chain chain, ByteArrayWrapper hash, Transaction tx) {
+        chain.getPackableTxMap().put(hash, tx);
+        //被淘汰或无法入队的交易(包括本次加入的交易)从待打包交易和未确认库中移除
+        List<Transaction> evicted = chain.getPriorityPackableQueue().offer(hash, tx);
+        boolean accepted = true;
+        for (Transaction evictedTx : evicted) {
+            chain.getLogger().debug("待打包队列已满, 淘汰低手续费交易, hash:{}", evictedTx.getHash().toHex());
+            dropTx(chain, evictedTx);
+            if (evictedTx == tx) {
+                accepted = false;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * 从待打包队列和未确认库中清理交易，并回滚账本中的未确认状态
+     */
+    private void dropTx(Chain chain, Transaction tx) {
+        ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
+        chain.getPackableTxMap().remove(hash);
+        unconfirmedTxStorageService.removeTx(chain.getChainId(), hash.getBytes());
+        try {
+            LedgerCall.rollBackUnconfirmTx(chain, RPCUtil.encode(tx.serialize()));
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+        }
     }
 
 }
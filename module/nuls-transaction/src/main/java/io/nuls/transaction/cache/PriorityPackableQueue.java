@@ -0,0 +1,424 @@
+package io.nuls.transaction.cache;
+
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinFrom;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.transaction.utils.TxUtil;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 按手续费率排序的待打包交易队列
+ * Packable transaction queue ordered by fee rate
+ * <p>
+ * 1.可打包的交易按每KB手续费从高到低取出，手续费率相同时按加入顺序
+ * 2.同一账户资产的交易通过nonce形成依赖链，只有前一笔交易已被取出(或已确认)后，后一笔交易才可被取出
+ * 3.队列交易总大小超过上限时，淘汰手续费率最低且没有后续依赖交易的交易
+ * 4.按账户资产nonce建立索引，区块确认后可直接找出与已确认交易冲突(双花)的交易
+ * <p>
+ * 1.Packable transactions are taken by fee per KB from high to low, by arrival order when the rate is equal
+ * 2.Transactions of the same account asset are chained by nonce, a transaction can be taken only after its parent
+ * has been taken (or confirmed)
+ * 3.When the total size exceeds the limit, the lowest fee rate transactions without dependants are evicted
+ * 4.Transactions are indexed by account asset nonce, so the ones conflicting with a confirmed transaction are found directly
+ *
+ * @author: Charlie
+ */
+public class PriorityPackableQueue {
+
+    private static final Comparator<Entry> PRIORITY = (o1, o2) -> {
+        int rs = Long.compare(o2.feeRate, o1.feeRate);
+        return rs != 0 ? rs : Long.compare(o1.sequence, o2.sequence);
+    };
+
+    /**
+     * 手续费资产
+     */
+    private final int feeAssetChainId;
+    private final int feeAssetId;
+
+    /**
+     * 队列中交易总大小上限(B)
+     */
+    private final long maxDataSize;
+
+    /**
+     * 所有交易(包括已取出、尚未确认的交易)
+     */
+    private final Map<ByteArrayWrapper, Entry> entryMap = new HashMap<>();
+
+    /**
+     * 在队列中等待打包的交易
+     */
+    private final TreeSet<Entry> queuedSet = new TreeSet<>(PRIORITY);
+
+    /**
+     * 在队列中且依赖已满足、可以直接取出的交易
+     */
+    private final TreeSet<Entry> readySet = new TreeSet<>(PRIORITY);
+
+    /**
+     * 账户资产nonce -> 产生该nonce的交易
+     */
+    private final Map<String, Entry> produceMap = new HashMap<>();
+
+    /**
+     * 账户资产nonce -> 花费该nonce的交易
+     */
+    private final Map<String, Set<Entry>> spendMap = new HashMap<>();
+
+    private long dataSize;
+
+    private long sequence;
+
+    public PriorityPackableQueue(int feeAssetChainId, int feeAssetId, long maxDataSize) {
+        this.feeAssetChainId = feeAssetChainId;
+        this.feeAssetId = feeAssetId;
+        this.maxDataSize = maxDataSize;
+    }
+
+    /**
+     * 加入交易，已存在的交易(已被取出)重新放回队列
+     * Add a transaction, a known (taken) transaction is put back into the queue
+     *
+     * @param hash 交易hash
+     * @param tx   交易
+     * @return 因超过容量被淘汰的交易，可能包含本次加入的交易；coinData无法解析时只包含本次加入的交易
+     */
+    public synchronized List<Transaction> offer(ByteArrayWrapper hash, Transaction tx) {
+        Entry entry = entryMap.get(hash);
+        if (entry == null) {
+            entry = newEntry(hash, tx);
+            if (entry == null) {
+                //未进入队列，由调用方按淘汰处理
+                return Collections.singletonList(tx);
+            }
+        }
+        if (!entry.queued) {
+            entry.queued = true;
+            queuedSet.add(entry);
+            refresh(entry);
+            //放回的交易重新成为其后续交易的前置依赖
+            for (Entry child : entry.children) {
+                refresh(child);
+            }
+        }
+        return evict();
+    }
+
+    /**
+     * 交易是否在队列中(包括已取出尚未确认的交易)
+     */
+    public synchronized boolean contains(ByteArrayWrapper hash) {
+        return entryMap.containsKey(hash);
+    }
+
+    /**
+     * 取出手续费率最高且依赖已满足的交易，交易仍被记录直到确认或移除
+     * Take the ready transaction with the highest fee rate, it is still tracked until confirmed or removed
+     *
+     * @return 交易，队列为空时返回null
+     */
+    public synchronized Transaction poll() {
+        Entry entry = readySet.pollFirst();
+        if (entry == null) {
+            return null;
+        }
+        entry.queued = false;
+        queuedSet.remove(entry);
+        for (Entry child : entry.children) {
+            refresh(child);
+        }
+        return entry.tx;
+    }
+
+    /**
+     * 取出并移除手续费率最低、没有后续依赖交易的交易
+     * Take and remove the lowest fee rate transaction without dependants
+     *
+     * @return 交易，队列为空时返回null
+     */
+    public synchronized Transaction pollLast() {
+        Entry entry = lowestLeaf();
+        if (entry == null) {
+            return null;
+        }
+        remove(entry);
+        return entry.tx;
+    }
+
+    /**
+     * 移除交易
+     * Remove a transaction
+     *
+     * @param hash 交易hash
+     * @return 是否存在
+     */
+    public synchronized boolean remove(ByteArrayWrapper hash) {
+        Entry entry = entryMap.get(hash);
+        if (entry == null) {
+            return false;
+        }
+        remove(entry);
+        return true;
+    }
+
+    /**
+     * 区块确认后移除已确认的交易，同时移除与其花费相同nonce的冲突交易及其后续依赖交易
+     * Remove confirmed transactions, together with the transactions spending the same nonces and their dependants
+     *
+     * @param txs 已确认交易
+     * @return 被移除的冲突交易
+     */
+    public synchronized List<Transaction> confirm(List<Transaction> txs) {
+        List<Entry> conflicts = new ArrayList<>();
+        for (Transaction tx : txs) {
+            Entry entry = entryMap.get(new ByteArrayWrapper(tx.getHash().getBytes()));
+            List<String> spendKeys;
+            if (entry != null) {
+                spendKeys = entry.spendKeys;
+                remove(entry);
+            } else {
+                spendKeys = spendKeys(tx);
+            }
+            for (String key : spendKeys) {
+                Set<Entry> spenders = spendMap.get(key);
+                if (spenders != null) {
+                    conflicts.addAll(spenders);
+                }
+            }
+        }
+        List<Transaction> removed = new ArrayList<>();
+        Deque<Entry> stack = new ArrayDeque<>(conflicts);
+        while (!stack.isEmpty()) {
+            Entry entry = stack.pop();
+            if (entryMap.get(entry.hash) != entry) {
+                continue;
+            }
+            stack.addAll(entry.children);
+            remove(entry);
+            removed.add(entry.tx);
+        }
+        return removed;
+    }
+
+    /**
+     * 队列已满且交易手续费率不高于队列中最低的可淘汰交易时，交易无法加入
+     * Whether a new transaction would be rejected: the queue is full and its fee rate does not beat the lowest evictable one
+     *
+     * @param tx 交易
+     * @return boolean
+     */
+    public synchronized boolean reject(Transaction tx) {
+        if (dataSize + tx.size() <= maxDataSize) {
+            return false;
+        }
+        Entry lowest = lowestLeaf();
+        return lowest == null || feeRate(tx, tx.size()) <= lowest.feeRate;
+    }
+
+    /**
+     * 等待打包的交易数
+     */
+    public synchronized int queuedSize() {
+        return queuedSet.size();
+    }
+
+    /**
+     * 记录的交易数
+     */
+    public synchronized int size() {
+        return entryMap.size();
+    }
+
+    /**
+     * 记录的交易总大小(B)
+     */
+    public synchronized long dataSize() {
+        return dataSize;
+    }
+
+    /**
+     * 清空等待打包的交易，已记录的交易保留，与原待打包hash队列的clear语义一致
+     * Clear the waiting transactions, tracked transactions are kept as the hash queue clear did
+     */
+    public synchronized void clearQueue() {
+        for (Entry entry : queuedSet) {
+            entry.queued = false;
+        }
+        queuedSet.clear();
+        readySet.clear();
+    }
+
+    private Entry newEntry(ByteArrayWrapper hash, Transaction tx) {
+        CoinData coinData;
+        try {
+            coinData = tx.getCoinDataInstance();
+        } catch (NulsException e) {
+            return null;
+        }
+        int size = tx.size();
+        Entry entry = new Entry(hash, tx, size, feeRate(coinData, size), sequence++);
+        byte[] nonce = TxUtil.getNonce(tx.getHash().getBytes());
+        for (CoinFrom from : coinData.getFrom()) {
+            String spendKey = key(from, from.getNonce());
+            entry.spendKeys.add(spendKey);
+            spendMap.computeIfAbsent(spendKey, k -> new HashSet<>()).add(entry);
+            Entry parent = produceMap.get(spendKey);
+            if (parent != null && parent != entry) {
+                entry.parents.add(parent);
+                parent.children.add(entry);
+            }
+            String produceKey = key(from, nonce);
+            entry.produceKeys.add(produceKey);
+            produceMap.put(produceKey, entry);
+            Set<Entry> spenders = spendMap.get(produceKey);
+            if (spenders != null) {
+                for (Entry child : spenders) {
+                    if (child != entry && child.parents.add(entry)) {
+                        entry.children.add(child);
+                        refresh(child);
+                    }
+                }
+            }
+        }
+        entryMap.put(hash, entry);
+        dataSize += size;
+        return entry;
+    }
+
+    private void remove(Entry entry) {
+        entryMap.remove(entry.hash);
+        queuedSet.remove(entry);
+        readySet.remove(entry);
+        entry.queued = false;
+        dataSize -= entry.size;
+        for (String key : entry.produceKeys) {
+            produceMap.remove(key, entry);
+        }
+        for (String key : entry.spendKeys) {
+            Set<Entry> spenders = spendMap.get(key);
+            if (spenders != null && spenders.remove(entry) && spenders.isEmpty()) {
+                spendMap.remove(key);
+            }
+        }
+        for (Entry parent : entry.parents) {
+            parent.children.remove(entry);
+        }
+        for (Entry child : entry.children) {
+            child.parents.remove(entry);
+            refresh(child);
+        }
+    }
+
+    private List<Transaction> evict() {
+        if (dataSize <= maxDataSize) {
+            return Collections.emptyList();
+        }
+        List<Transaction> evicted = new ArrayList<>();
+        while (dataSize > maxDataSize) {
+            Entry entry = lowestLeaf();
+            if (entry == null) {
+                break;
+            }
+            remove(entry);
+            evicted.add(entry.tx);
+        }
+        return evicted;
+    }
+
+    /**
+     * 手续费率最低且没有后续依赖交易的等待交易
+     */
+    private Entry lowestLeaf() {
+        Iterator<Entry> it = queuedSet.descendingIterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.children.isEmpty()) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void refresh(Entry entry) {
+        boolean ready = entry.queued;
+        if (ready) {
+            for (Entry parent : entry.parents) {
+                if (parent.queued) {
+                    ready = false;
+                    break;
+                }
+            }
+        }
+        if (ready) {
+            readySet.add(entry);
+        } else {
+            readySet.remove(entry);
+        }
+    }
+
+    private List<String> spendKeys(Transaction tx) {
+        List<String> keys = new ArrayList<>();
+        try {
+            for (CoinFrom from : tx.getCoinDataInstance().getFrom()) {
+                keys.add(key(from, from.getNonce()));
+            }
+        } catch (NulsException e) {
+            //没有coinData的交易不会与队列中的交易冲突
+        }
+        return keys;
+    }
+
+    private long feeRate(Transaction tx, int size) {
+        try {
+            return feeRate(tx.getCoinDataInstance(), size);
+        } catch (NulsException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 每KB手续费
+     */
+    private long feeRate(CoinData coinData, int size) {
+        if (size <= 0) {
+            return 0L;
+        }
+        BigInteger fee = coinData.getFeeByAsset(feeAssetChainId, feeAssetId);
+        if (fee.signum() <= 0) {
+            return 0L;
+        }
+        BigInteger rate = fee.multiply(BigInteger.valueOf(1024)).divide(BigInteger.valueOf(size));
+        return rate.bitLength() < 64 ? rate.longValue() : Long.MAX_VALUE;
+    }
+
+    private static String key(CoinFrom from, byte[] nonce) {
+        return HexUtil.encode(from.getAddress()) + "-" + from.getAssetsChainId() + "-" + from.getAssetsId() + "-" + HexUtil.encode(nonce);
+    }
+
+    private static class Entry {
+        private final ByteArrayWrapper hash;
+        private final Transaction tx;
+        private final int size;
+        private final long feeRate;
+        private final long sequence;
+        private final List<String> spendKeys = new ArrayList<>(2);
+        private final List<String> produceKeys = new ArrayList<>(2);
+        private final Set<Entry> parents = new HashSet<>(2);
+        private final Set<Entry> children = new HashSet<>(2);
+        private boolean queued;
+
+        Entry(ByteArrayWrapper hash, Transaction tx, int size, long feeRate, long sequence) {
+            this.hash = hash;
+            this.tx = tx;
+            this.size = size;
+            this.feeRate = feeRate;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -33,6 +33,12 @@ public class TxConfig extends ConfigBean implements ModuleConfig {
     /** 未确认交易过期时间秒 */
     private long unconfirmedTxExpire;
     private String blackHolePublicKey;
+    /** 待打包交易是否按手续费率优先排序, false时按先进先出 */
+    private boolean packablePoolPriority;
+    /** 优先级模式下待打包交易的最大总大小(字节) */
+    private long packablePoolMaxDataSize;
+    /** 是否向区块模块推送未确认交易用于还原紧凑区块, 与区块模块的compactBlock配置一致 */
+    private boolean compactBlock;
 
     public String getBlackHolePublicKey() {
         return blackHolePublicKey;
@@ -95,6 +101,30 @@ public class TxConfig extends ConfigBean implements ModuleConfig {
         this.unconfirmedTxExpire = unconfirmedTxExpire;
     }
 
+    public boolean isPackablePoolPriority() {
+        return packablePoolPriority;
+    }
+
+    public void setPackablePoolPriority(boolean packablePoolPriority) {
+        this.packablePoolPriority = packablePoolPriority;
+    }
+
+    public boolean isCompactBlock() {
+        return compactBlock;
+    }
+
+    public void setCompactBlock(boolean compactBlock) {
+        this.compactBlock = compactBlock;
+    }
+
+    public long getPackablePoolMaxDataSize() {
+        return packablePoolMaxDataSize;
+    }
+
+    public void setPackablePoolMaxDataSize(long packablePoolMaxDataSize) {
+        this.packablePoolMaxDataSize = packablePoolMaxDataSize;
+    }
+
     @Override
     public VersionChangeInvoker getVersionChangeInvoker() throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
         Class<?> aClass = Class.forName("io.nuls.transaction.rpc.upgrade.TxVersionChangeInvoker");
@@ -24,12 +24,23 @@ public interface TxConstant {
     String TX_CLEAN_THREAD = "cleanTxThread";
     /** 验证交易签名线程 */
     String VERIFY_TX_SIGN_THREAD = "verifyTxSignThread";
+    /** 向区块模块推送未确认交易线程 */
+    String TX_BLOCK_PUSH_THREAD = "blockPushTxThread";
 
     /** 孤儿交易处理task, 初始延迟值(秒) */
     int TX_ORPHAN_TASK_INITIALDELAY = 1;
     /** 孤儿交易处理task, 运行周期间隔(秒) */
     int TX_ORPHAN_TASK_PERIOD = 3;
 
+    /** 向区块模块推送未确认交易task, 运行周期间隔(毫秒) */
+    int TX_BLOCK_PUSH_TASK_PERIOD = 200;
+    /** 等待推送给区块模块的交易队列容量, 队列满时丢弃, 区块模块收到紧凑区块时再向源节点请求 */
+    int TX_BLOCK_PUSH_QUEUE_SIZE = 20000;
+    /** 一次推送给区块模块的最大交易数 */
+    int TX_BLOCK_PUSH_NUMBER_ONCE = 2000;
+    /** 区块模块从该协议版本开始使用紧凑区块, 与区块模块的COMPACT_BLOCK_PROTOCOL_VERSION一致 */
+    short COMPACT_BLOCK_PROTOCOL_VERSION = 4;
+
     /** 未确认交易清理机制task,初始延迟值 */
     int TX_CLEAN_TASK_INITIALDELAY = 10 * 60;
     /** 未确认交易清理机制task, 运行周期间隔(秒) */
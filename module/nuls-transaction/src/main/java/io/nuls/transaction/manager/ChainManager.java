@@ -30,7 +30,9 @@ import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.rockdb.constant.DBErrorCode;
 import io.nuls.core.rockdb.service.RocksDBService;
+import io.nuls.transaction.cache.PriorityPackableQueue;
 import io.nuls.transaction.constant.TxConfig;
+import io.nuls.transaction.constant.TxConstant;
 import io.nuls.transaction.constant.TxDBConstant;
 import io.nuls.transaction.model.bo.Chain;
 import io.nuls.transaction.model.bo.config.ConfigBean;
@@ -188,6 +190,10 @@ public class ChainManager {
     private void initCache(Chain chain) {
         BlockingDeque<TransactionNetPO> unverifiedQueue = new LinkedBlockingDeque<>((int)txConfig.getTxUnverifiedQueueSize());
         chain.setUnverifiedQueue(unverifiedQueue);
+        if (txConfig.isPackablePoolPriority()) {
+            long maxDataSize = txConfig.getPackablePoolMaxDataSize() > 0 ? txConfig.getPackablePoolMaxDataSize() : TxConstant.PACKABLE_TX_MAP_MAX_DATA_SIZE;
+            chain.setPriorityPackableQueue(new PriorityPackableQueue(chain.getConfig().getChainId(), chain.getConfig().getAssetId(), maxDataSize));
+        }
     }
 
     private void initLogger(Chain chain) {
@@ -29,6 +29,7 @@ import io.nuls.core.thread.ThreadUtils;
 import io.nuls.core.thread.commom.NulsThreadFactory;
 import io.nuls.transaction.constant.TxConstant;
 import io.nuls.transaction.model.bo.Chain;
+import io.nuls.transaction.task.BlockPushTxProcessTask;
 import io.nuls.transaction.task.ClearUnconfirmedTxProcessTask;
 import io.nuls.transaction.task.NetTxProcessTask;
 import io.nuls.transaction.task.OrphanTxProcessTask;
@@ -56,6 +57,11 @@ public class SchedulerManager {
         //固定延迟时间
         unconfirmedTxExecutor.scheduleWithFixedDelay(new ClearUnconfirmedTxProcessTask(chain),
                 TxConstant.TX_CLEAN_TASK_INITIALDELAY, TxConstant.TX_CLEAN_TASK_PERIOD, TimeUnit.SECONDS);
+
+        //向区块模块推送未确认交易
+        ScheduledThreadPoolExecutor blockPushExecutor = ThreadUtils.createScheduledThreadPool(1, new NulsThreadFactory(TxConstant.TX_BLOCK_PUSH_THREAD));
+        blockPushExecutor.scheduleWithFixedDelay(new BlockPushTxProcessTask(chain),
+                TxConstant.TX_BLOCK_PUSH_TASK_PERIOD, TxConstant.TX_BLOCK_PUSH_TASK_PERIOD, TimeUnit.MILLISECONDS);
         return true;
     }
 }
@@ -5,6 +5,7 @@ import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.Transaction;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.transaction.cache.PriorityPackableQueue;
 import io.nuls.transaction.constant.TxConstant;
 import io.nuls.transaction.model.bo.config.ConfigBean;
 import io.nuls.transaction.model.po.TransactionNetPO;
@@ -13,8 +14,10 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -66,6 +69,11 @@ public class Chain {
      */
     private Map<ByteArrayWrapper, Transaction> packableTxMap;
 
+    /**
+     * 按手续费率排序的待打包队列, 未开启优先级模式时为null(使用packableHashQueue)
+     */
+    private PriorityPackableQueue priorityPackableQueue;
+
 
     /**
      * 未进行验证的交易队列
@@ -116,6 +124,11 @@ public class Chain {
      */
     private AtomicBoolean protocolUpgrade;
 
+    /**
+     * 新进入待打包队列、等待推送到区块模块未确认交易索引的交易
+     */
+    private BlockingQueue<Transaction> blockPushQueue;
+
     public Chain() {
         this.packaging = new AtomicBoolean(false);
         this.packableState = new AtomicBoolean(true);
@@ -129,6 +142,11 @@ public class Chain {
         this.orphanMap = new ConcurrentHashMap<>();
         this.protocolUpgrade = new AtomicBoolean(false);
         this.orphanListDataSize = new AtomicInteger(0);
+        this.blockPushQueue = new LinkedBlockingQueue<>(TxConstant.TX_BLOCK_PUSH_QUEUE_SIZE);
+    }
+
+    public BlockingQueue<Transaction> getBlockPushQueue() {
+        return blockPushQueue;
     }
 
     public int getChainId(){
@@ -183,6 +201,14 @@ public class Chain {
         this.packableTxMap = packableTxMap;
     }
 
+    public PriorityPackableQueue getPriorityPackableQueue() {
+        return priorityPackableQueue;
+    }
+
+    public void setPriorityPackableQueue(PriorityPackableQueue priorityPackableQueue) {
+        this.priorityPackableQueue = priorityPackableQueue;
+    }
+
     public long getBestBlockHeight() {
         return bestBlockHeight;
     }
@@ -0,0 +1,63 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.transaction.rpc.call;
+
+import io.nuls.core.rpc.info.Constants;
+import io.nuls.core.rpc.model.ModuleE;
+import io.nuls.transaction.constant.TxConstant;
+import io.nuls.transaction.model.bo.Chain;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调用区块模块的接口
+ *
+ * @author: Charlie
+ */
+public class BlockCall {
+
+    /**
+     * 向区块模块推送新的未确认交易,用于还原紧凑区块
+     * Push new unconfirmed transactions to the block module for rebuilding compact blocks
+     *
+     * @param chain
+     * @param txList 交易序列化后的HEX字符串
+     * @return
+     */
+    public static boolean receiveUnconfirmedTxs(Chain chain, List<String> txList) {
+        try {
+            Map<String, Object> params = new HashMap<>(TxConstant.INIT_CAPACITY_8);
+            params.put(Constants.CHAIN_ID, chain.getChainId());
+            params.put("txList", txList);
+            TransactionCall.requestAndResponse(ModuleE.BL.abbr, "receiveUnconfirmedTxs", params);
+            return true;
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+            return false;
+        }
+    }
+}
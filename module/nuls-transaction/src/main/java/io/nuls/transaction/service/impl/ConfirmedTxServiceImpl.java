@@ -158,7 +158,7 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
         //如果确认交易成功，则从未打包交易库中删除交易
         unconfirmedTxStorageService.removeTxList(chainId, txHashs);
         //从待打包map中删除
-        packablePool.clearConfirmedTxs(chain, txHashs);
+        packablePool.clearConfirmedTxs(chain, txHashs, txList);
         logger.debug("[保存区块] 合计执行时间:{} - 高度:{}, - 交易数量:{}" + TxUtil.nextLine(),
                 NulsDateUtils.getCurrentTimeMillis() - start, blockHeader.getHeight(), txList.size());
         return true;
@@ -332,16 +332,16 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
         int packableTxMapDataSize = 0;
         if(chain.getPackaging().get()) {
             //是打包节点才计算待打包队列的当前容量
-            for (Transaction tx : chain.getPackableTxMap().values()) {
-                packableTxMapDataSize += tx.size();
-            }
+            packableTxMapDataSize = packablePool.packableTxMapDataSize(chain);
         }
+        //优先级模式下由队列按手续费率淘汰, 不限制放回
+        boolean priority = chain.getPriorityPackableQueue() != null;
         for (int i = txList.size() - 1; i >= 0; i--) {
             Transaction tx = txList.get(i);
             if(!TxManager.isSystemTx(chain, tx)) {
                 unconfirmedTxStorageService.putTx(chain.getChainId(), tx);
                 //不是系统交易,并且节点是打包节点,待打包队列没到最大值则重新放回待打包队列的最前端
-                if (chain.getPackaging().get() && packableTxMapDataSize < TxConstant.PACKABLE_TX_MAP_MAX_DATA_SIZE) {
+                if (chain.getPackaging().get() && (priority || packableTxMapDataSize < TxConstant.PACKABLE_TX_MAP_MAX_DATA_SIZE)) {
                     packablePool.offerFirst(chain, tx);
                 } 
             }
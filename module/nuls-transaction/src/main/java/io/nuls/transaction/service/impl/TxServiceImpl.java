@@ -47,8 +47,8 @@ import io.nuls.core.parse.JSONUtils;
 import io.nuls.core.parse.SerializeUtils;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.core.rpc.util.NulsDateUtils;
-import io.nuls.core.thread.ThreadUtils;
-import io.nuls.core.thread.commom.NulsThreadFactory;
+import io.nuls.core.thread.ExecutorRegistry;
+import io.nuls.core.thread.RejectionPolicy;
 import io.nuls.transaction.cache.PackablePool;
 import io.nuls.transaction.constant.TxConfig;
 import io.nuls.transaction.constant.TxConstant;
@@ -99,7 +99,7 @@ public class TxServiceImpl implements TxService {
     @Autowired
     private TxConfig txConfig;
 
-    private ExecutorService verifySignExecutor = ThreadUtils.createThreadPool(Runtime.getRuntime().availableProcessors(), CACHED_SIZE, new NulsThreadFactory(TxConstant.VERIFY_TX_SIGN_THREAD));
+    private ExecutorService verifySignExecutor = ExecutorRegistry.getOrCreate(TxConstant.VERIFY_TX_SIGN_THREAD, Runtime.getRuntime().availableProcessors(), CACHED_SIZE, RejectionPolicy.CALLER_RUNS);
 
     @Override
     public boolean register(Chain chain, ModuleTxRegisterDTO moduleTxRegisterDto) {
@@ -1446,10 +1446,20 @@ public class TxServiceImpl implements TxService {
         Set<String> set = new HashSet<>();
         set.addAll(unconfirmedList);
         unconfirmedList = null;
-        long d = 0L;
+        //本地没有的交易的签名合并为一批并行验证，逐笔基础验证时直接命中签名缓存
+        List<Transaction> unverifiedTxs = new ArrayList<>();
         for (TxVerifyWrapper txVerifyWrapper : txList) {
             Transaction tx = txVerifyWrapper.getTx();
             tx.setBlockHeight(blockHeight);
+            TxRegister txRegister = TxManager.getTxRegister(chain, tx.getType());
+            if (!set.contains(tx.getHash().toHex()) && !txRegister.getModuleCode().equals(ModuleE.CC.abbr)) {
+                unverifiedTxs.add(tx);
+            }
+        }
+        SignatureUtil.batchValidateTransactionSignture(unverifiedTxs);
+        long d = 0L;
+        for (TxVerifyWrapper txVerifyWrapper : txList) {
+            Transaction tx = txVerifyWrapper.getTx();
             //能加入表明未确认中没有,则需要处理
             if (set.add(tx.getHash().toHex())) {
                 long d1 = System.currentTimeMillis();
@@ -6,6 +6,7 @@ import io.nuls.transaction.model.po.TransactionNetPO;
 import io.nuls.transaction.model.po.TransactionUnconfirmedPO;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 验证通过但未打包的交易(未确认交易)
@@ -90,12 +91,14 @@ public interface UnconfirmedTxStorageService {
     boolean removeTxList(int chainId, List<byte[]> hashList);
 
     /**
-     * 查询所有未确认交易的key
+     * 分批遍历所有未确认交易，每批最多size条，不会一次性加载所有数据
+     * Walk through all unconfirmed transactions in chunks of at most size, without loading them all at once
      *
      * @param chainId
-     * @return
+     * @param size     批次大小
+     * @param consumer 每批交易的处理
      */
-    List<byte[]> getAllTxkeyList(int chainId);
+    void forEachTxChunk(int chainId, int size, Consumer<List<TransactionUnconfirmedPO>> consumer);
 
     /**
      * 查询未确认交易数据，包含保存时间
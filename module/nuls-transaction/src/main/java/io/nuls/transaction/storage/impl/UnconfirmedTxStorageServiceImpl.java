@@ -8,6 +8,7 @@ import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.model.StringUtils;
+import io.nuls.core.rockdb.service.DBCursor;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.transaction.constant.TxDBConstant;
@@ -20,6 +21,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static io.nuls.transaction.utils.LoggerUtil.LOG;
 
@@ -173,8 +175,30 @@ public class UnconfirmedTxStorageServiceImpl implements UnconfirmedTxStorageServ
     }
 
     @Override
-    public List<byte[]> getAllTxkeyList(int chainId) {
-        return RocksDBService.keyList(TxDBConstant.DB_TRANSACTION_UNCONFIRMED_PREFIX + chainId);
+    public void forEachTxChunk(int chainId, int size, Consumer<List<TransactionUnconfirmedPO>> consumer) {
+        try (DBCursor cursor = RocksDBService.openCursor(TxDBConstant.DB_TRANSACTION_UNCONFIRMED_PREFIX + chainId)) {
+            if (cursor == null) {
+                return;
+            }
+            List<TransactionUnconfirmedPO> txPOList = new ArrayList<>(size);
+            while (cursor.next()) {
+                TransactionUnconfirmedPO txPO = new TransactionUnconfirmedPO();
+                try {
+                    txPO.parse(cursor.value(), 0);
+                } catch (NulsException e) {
+                    LOG.error(e);
+                    continue;
+                }
+                txPOList.add(txPO);
+                if (txPOList.size() == size) {
+                    consumer.accept(txPOList);
+                    txPOList.clear();
+                }
+            }
+            if (!txPOList.isEmpty()) {
+                consumer.accept(txPOList);
+            }
+        }
     }
 
     @Override
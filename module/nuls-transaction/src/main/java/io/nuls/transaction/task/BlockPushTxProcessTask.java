@@ -0,0 +1,69 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.transaction.task;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.data.Transaction;
+import io.nuls.transaction.constant.TxConstant;
+import io.nuls.transaction.model.bo.Chain;
+import io.nuls.transaction.rpc.call.BlockCall;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把新进入待打包队列的交易批量推送到区块模块的未确认交易索引,区块模块收到紧凑区块时据此按短ID还原区块
+ * 只有开启compactBlock且协议升级到紧凑区块版本后,交易才会进入推送队列
+ * Push transactions entering the packable queue to the unconfirmed tx index of the block module in batches,
+ * which the block module uses to rebuild compact blocks by short id.
+ * Transactions are only queued for push once compactBlock is enabled and the protocol has reached the compact block version
+ *
+ * @author: Charlie
+ */
+public class BlockPushTxProcessTask implements Runnable {
+
+    private Chain chain;
+
+    public BlockPushTxProcessTask(Chain chain) {
+        this.chain = chain;
+    }
+
+    @Override
+    public void run() {
+        try {
+            List<Transaction> txs = new ArrayList<>();
+            while (chain.getBlockPushQueue().drainTo(txs, TxConstant.TX_BLOCK_PUSH_NUMBER_ONCE) > 0) {
+                List<String> txList = new ArrayList<>(txs.size());
+                for (Transaction tx : txs) {
+                    txList.add(RPCUtil.encode(tx.serialize()));
+                }
+                BlockCall.receiveUnconfirmedTxs(chain, txList);
+                txs.clear();
+            }
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+        }
+    }
+}
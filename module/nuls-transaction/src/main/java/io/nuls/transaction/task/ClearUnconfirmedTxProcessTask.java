@@ -63,12 +63,9 @@ public class ClearUnconfirmedTxProcessTask implements Runnable {
     }
 
     private void doTask(Chain chain) {
-        List<byte[]> txKeyList = unconfirmedTxStorageService.getAllTxkeyList(chain.getChainId());
-        if (txKeyList == null || txKeyList.size() == 0) {
-            return;
-        }
-        int count = processUnconfirmedTxs(txKeyList);
-        chain.getLogger().info("[UnconfirmedTxProcessTask] Clean expire count: {}", count);
+        int[] count = new int[1];
+        unconfirmedTxStorageService.forEachTxChunk(chain.getChainId(), 10000, list -> count[0] += processExpireTxs(list));
+        chain.getLogger().info("[UnconfirmedTxProcessTask] Clean expire count: {}", count[0]);
     }
 
     private boolean processTx(Chain chain, Transaction tx) {
@@ -80,31 +77,7 @@ public class ClearUnconfirmedTxProcessTask implements Runnable {
         return false;
     }
 
-    /**
-     * 过滤指定时间内过期的交易
-     *
-     * @param txKeyList
-     * @return expireTxList
-     */
-    private int processUnconfirmedTxs(List<byte[]> txKeyList) {
-        int unconfirmedTxsCount = 0;
-        List<byte[]> queryList = new ArrayList<>();
-        for (int i = 0; i < txKeyList.size(); i++) {
-            queryList.add(txKeyList.get(i));
-            if (queryList.size() == 10000) {
-                unconfirmedTxsCount += processExpireTxs(queryList);
-                queryList.clear();
-            }
-        }
-        if(!queryList.isEmpty()){
-            unconfirmedTxsCount += processExpireTxs(queryList);
-        }
-        return unconfirmedTxsCount;
-    }
-
-    public int processExpireTxs(List<byte[]> queryList){
-        //获取未确认的交易
-        List<TransactionUnconfirmedPO> list = unconfirmedTxStorageService.getTransactionUnconfirmedPOList(chain.getChainId(), queryList);
+    public int processExpireTxs(List<TransactionUnconfirmedPO> list){
         //计算出超时的未确认交易
         List<Transaction> expireTxList = getExpireTxList(list);
         int count = 0;
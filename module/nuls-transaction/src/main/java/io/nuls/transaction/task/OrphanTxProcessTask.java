@@ -41,7 +41,6 @@ import io.nuls.transaction.service.TxService;
 import io.nuls.transaction.storage.UnconfirmedTxStorageService;
 import io.nuls.transaction.utils.OrphanSort;
 import io.nuls.transaction.utils.TxDuplicateRemoval;
-import io.nuls.transaction.utils.TxUtil;
 
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -152,11 +151,8 @@ public class OrphanTxProcessTask implements Runnable {
                 return true;
             }
             //待打包队列map超过预定值,则不再接受处理交易,直接转发交易完整交易
-            int packableTxMapDataSize = 0;
-            for(Transaction transaction : chain.getPackableTxMap().values()){
-                packableTxMapDataSize += transaction.size();
-            }
-            if(TxUtil.discardTx(chain, packableTxMapDataSize, tx)){
+            int packableTxMapDataSize = packablePool.packableTxMapDataSize(chain);
+            if(packablePool.discardTx(chain, packableTxMapDataSize, tx)){
                 //待打包队列map超过预定值, 不处理转发失败的情况
                 String hash = tx.getHash().toHex();
                 NetworkCall.broadcastTx(chain, tx, TxDuplicateRemoval.getExcludeNode(hash));
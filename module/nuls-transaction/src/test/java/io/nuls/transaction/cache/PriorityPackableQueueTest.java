@@ -0,0 +1,149 @@
+package io.nuls.transaction.cache;
+
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinFrom;
+import io.nuls.base.data.CoinTo;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.transaction.utils.TxUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按手续费率排序的待打包队列测试
+ */
+public class PriorityPackableQueueTest {
+
+    private static final int CHAIN_ID = 2;
+    private static final int ASSET_ID = 1;
+
+    private static final byte[] ADDRESS_A = address(1);
+    private static final byte[] ADDRESS_B = address(2);
+    private static final byte[] ADDRESS_C = address(3);
+    private static final byte[] INIT_NONCE = new byte[8];
+
+    @Test
+    public void feeRateOrder() throws Exception {
+        PriorityPackableQueue queue = new PriorityPackableQueue(CHAIN_ID, ASSET_ID, Long.MAX_VALUE);
+        Transaction low = createTx(ADDRESS_A, INIT_NONCE, 100000, 1);
+        Transaction high = createTx(ADDRESS_B, INIT_NONCE, 300000, 1);
+        Transaction middle = createTx(ADDRESS_C, INIT_NONCE, 200000, 1);
+        offer(queue, low);
+        offer(queue, high);
+        offer(queue, middle);
+
+        Assert.assertEquals(3, queue.queuedSize());
+        Assert.assertSame(high, queue.poll());
+        Assert.assertSame(middle, queue.poll());
+        Assert.assertSame(low, queue.poll());
+        Assert.assertNull(queue.poll());
+        //取出的交易在确认前仍被记录
+        Assert.assertEquals(3, queue.size());
+        Assert.assertTrue(queue.contains(hash(low)));
+    }
+
+    @Test
+    public void nonceChainOrder() throws Exception {
+        PriorityPackableQueue queue = new PriorityPackableQueue(CHAIN_ID, ASSET_ID, Long.MAX_VALUE);
+        Transaction parent = createTx(ADDRESS_A, INIT_NONCE, 100000, 1);
+        Transaction child = createTx(ADDRESS_A, TxUtil.getNonce(parent.getHash().getBytes()), 500000, 2);
+        Transaction other = createTx(ADDRESS_B, INIT_NONCE, 200000, 1);
+        //子交易先到达
+        offer(queue, child);
+        offer(queue, parent);
+        offer(queue, other);
+
+        Assert.assertSame(other, queue.poll());
+        Assert.assertSame(parent, queue.poll());
+        Assert.assertSame(child, queue.poll());
+
+        //父交易放回后, 子交易须等待父交易再次被取出
+        offer(queue, parent);
+        offer(queue, child);
+        Assert.assertSame(parent, queue.poll());
+        Assert.assertSame(child, queue.poll());
+    }
+
+    @Test
+    public void evictLowestFeeRate() throws Exception {
+        Transaction low = createTx(ADDRESS_A, INIT_NONCE, 100000, 1);
+        Transaction middle = createTx(ADDRESS_B, INIT_NONCE, 200000, 1);
+        Transaction high = createTx(ADDRESS_C, INIT_NONCE, 300000, 1);
+        PriorityPackableQueue queue = new PriorityPackableQueue(CHAIN_ID, ASSET_ID, low.size() + middle.size());
+        offer(queue, low);
+        offer(queue, middle);
+
+        Assert.assertTrue(queue.reject(createTx(ADDRESS_C, INIT_NONCE, 100000, 2)));
+        Assert.assertFalse(queue.reject(high));
+        List<Transaction> evicted = queue.offer(hash(high), high);
+        Assert.assertEquals(Arrays.asList(low), evicted);
+        Assert.assertFalse(queue.contains(hash(low)));
+        Assert.assertEquals(middle.size() + high.size(), queue.dataSize());
+
+        Assert.assertSame(middle, queue.pollLast());
+        Assert.assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void confirmRemovesConflicts() throws Exception {
+        PriorityPackableQueue queue = new PriorityPackableQueue(CHAIN_ID, ASSET_ID, Long.MAX_VALUE);
+        Transaction spend = createTx(ADDRESS_A, INIT_NONCE, 100000, 1);
+        Transaction child = createTx(ADDRESS_A, TxUtil.getNonce(spend.getHash().getBytes()), 100000, 2);
+        Transaction other = createTx(ADDRESS_B, INIT_NONCE, 100000, 1);
+        offer(queue, spend);
+        offer(queue, child);
+        offer(queue, other);
+
+        //区块中确认了另一笔花费相同nonce的交易
+        Transaction doubleSpend = createTx(ADDRESS_A, INIT_NONCE, 100000, 3);
+        List<Transaction> conflicts = queue.confirm(Arrays.asList(doubleSpend, other));
+        Assert.assertEquals(2, conflicts.size());
+        Assert.assertTrue(conflicts.contains(spend));
+        Assert.assertTrue(conflicts.contains(child));
+        Assert.assertEquals(0, queue.size());
+        Assert.assertEquals(0, queue.dataSize());
+        Assert.assertNull(queue.poll());
+    }
+
+    private static List<Transaction> offer(PriorityPackableQueue queue, Transaction tx) {
+        return queue.offer(hash(tx), tx);
+    }
+
+    @Test
+    public void rejectBrokenCoinData() throws Exception {
+        PriorityPackableQueue queue = new PriorityPackableQueue(CHAIN_ID, ASSET_ID, Long.MAX_VALUE);
+        Transaction tx = createTx(ADDRESS_A, INIT_NONCE, 100000, 1);
+        tx.setCoinData(new byte[]{1, 2, 3});
+        //无法进入队列的交易作为被淘汰的交易返回，调用方据此从待打包交易中移除
+        Assert.assertEquals(Arrays.asList(tx), queue.offer(hash(tx), tx));
+        Assert.assertFalse(queue.contains(hash(tx)));
+        Assert.assertEquals(0, queue.size());
+        Assert.assertNull(queue.poll());
+    }
+
+    private static ByteArrayWrapper hash(Transaction tx) {
+        return new ByteArrayWrapper(tx.getHash().getBytes());
+    }
+
+    private static Transaction createTx(byte[] from, byte[] nonce, long fee, long time) throws Exception {
+        BigInteger amount = BigInteger.valueOf(100000000L);
+        CoinData coinData = new CoinData();
+        coinData.addFrom(new CoinFrom(from, CHAIN_ID, ASSET_ID, amount.add(BigInteger.valueOf(fee)), nonce, (byte) 0));
+        coinData.addTo(new CoinTo(ADDRESS_C, CHAIN_ID, ASSET_ID, amount));
+        Transaction tx = new Transaction(2);
+        tx.setTime(time);
+        tx.setCoinData(coinData.serialize());
+        return tx;
+    }
+
+    private static byte[] address(int index) {
+        byte[] address = new byte[23];
+        address[0] = CHAIN_ID;
+        address[22] = (byte) index;
+        return address;
+    }
+}